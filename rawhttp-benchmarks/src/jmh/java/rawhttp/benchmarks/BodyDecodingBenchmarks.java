@@ -0,0 +1,63 @@
+package rawhttp.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rawhttp.core.RawHttp;
+import rawhttp.core.body.BodyReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link BodyReader#decodeBody()} with compressed message bodies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BodyDecodingBenchmarks {
+
+    @Param({"gzip", "deflate"})
+    public String encoding;
+
+    @Param({"1024", "262144"})
+    public int bodySize;
+
+    private BodyReader body;
+    private byte[] chunkedResponse;
+
+    private final RawHttp http = new RawHttp();
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] encodedBody = Messages.encode(Messages.text(bodySize), encoding);
+
+        // the eager body can be decoded any number of times
+        body = http.parseResponse(new ByteArrayInputStream(Messages.withBody("HTTP/1.1 200 OK\r\n" +
+                "Content-Encoding: " + encoding + "\r\n" +
+                "Content-Length: " + encodedBody.length + "\r\n\r\n", encodedBody))).eagerly().getBody()
+                .orElseThrow(() -> new IllegalStateException("no body"));
+
+        chunkedResponse = Messages.withBody("HTTP/1.1 200 OK\r\n" +
+                "Transfer-Encoding: " + encoding + ", chunked\r\n\r\n", Messages.chunked(encodedBody, 8192));
+    }
+
+    @Benchmark
+    public byte[] decodeBody() throws IOException {
+        return body.decodeBody();
+    }
+
+    @Benchmark
+    public byte[] decodeChunkedBodyFromStream() throws IOException {
+        return http.parseResponse(new ByteArrayInputStream(chunkedResponse)).getBody()
+                .orElseThrow(() -> new IllegalStateException("no body"))
+                .decodeBody();
+    }
+
+}
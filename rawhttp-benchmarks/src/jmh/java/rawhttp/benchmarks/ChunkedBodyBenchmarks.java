@@ -0,0 +1,59 @@
+package rawhttp.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import rawhttp.core.HttpMetadataParser;
+import rawhttp.core.RawHttpOptions;
+import rawhttp.core.body.ChunkedBodyContents;
+import rawhttp.core.body.ChunkedBodyParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link ChunkedBodyParser}, reading a 256KB chunked body with different chunk sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChunkedBodyBenchmarks {
+
+    @Param({"64", "1024", "16384"})
+    public int chunkSize;
+
+    private final ChunkedBodyParser parser = new ChunkedBodyParser(
+            new HttpMetadataParser(RawHttpOptions.defaultInstance()));
+
+    private byte[] chunkedBody;
+
+    @Setup
+    public void setup() {
+        chunkedBody = Messages.chunked(Messages.text(256 * 1024), chunkSize);
+    }
+
+    @Benchmark
+    public void readNextChunk(Blackhole blackhole) throws IOException {
+        InputStream stream = new ByteArrayInputStream(chunkedBody);
+        ChunkedBodyContents.Chunk chunk;
+        do {
+            chunk = parser.readNextChunk(stream);
+            blackhole.consume(chunk);
+        } while (chunk.size() > 0);
+        blackhole.consume(parser.readTrailer(stream));
+    }
+
+    @Benchmark
+    public void parseChunkedBody(Blackhole blackhole) throws IOException {
+        parser.parseChunkedBody(new ByteArrayInputStream(chunkedBody), blackhole::consume, blackhole::consume);
+    }
+
+}
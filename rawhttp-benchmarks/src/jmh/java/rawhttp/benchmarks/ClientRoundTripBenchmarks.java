@@ -0,0 +1,82 @@
+package rawhttp.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import rawhttp.core.RawHttp;
+import rawhttp.core.RawHttpRequest;
+import rawhttp.core.RawHttpResponse;
+import rawhttp.core.body.StringBody;
+import rawhttp.core.client.TcpRawHttpClient;
+import rawhttp.core.server.TcpRawHttpServer;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Benchmarks for {@link TcpRawHttpClient#send(RawHttpRequest)}, sending small requests sequentially over a
+ * persistent connection to a {@link TcpRawHttpServer} on the loopback interface.
+ * <p>
+ * The time of each round-trip is sampled, so JMH reports its distribution (including the p50 and p99
+ * percentiles) rather than only its average. Latency problems such as requests being split into several
+ * small packets, which interact badly with Nagle's algorithm and delayed ACKs, show up as round-trips taking
+ * tens of milliseconds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClientRoundTripBenchmarks {
+
+    private static final int PORT = 8183;
+
+    private final RawHttp http = new RawHttp();
+
+    private TcpRawHttpServer server;
+    private TcpRawHttpClient client;
+    private RawHttpRequest smallGetRequest;
+    private RawHttpRequest smallPostRequest;
+
+    @Setup
+    public void setup() throws IOException, TimeoutException {
+        RawHttpResponse<Void> response = http.parseResponse(Messages.SMALL_RESPONSE).eagerly();
+        server = new TcpRawHttpServer(PORT);
+        server.start(request -> {
+            try {
+                request.eagerly();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return Optional.of(response);
+        });
+        RawHttp.waitForPortToBeTaken(PORT, Duration.ofSeconds(5));
+        client = new TcpRawHttpClient();
+        smallGetRequest = http.parseRequest("GET http://localhost:" + PORT + "/hello\r\nAccept: */*").eagerly();
+        smallPostRequest = http.parseRequest("POST http://localhost:" + PORT + "/hello")
+                .withBody(new StringBody("{\"name\": \"world\"}", "application/json")).eagerly();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public RawHttpResponse<?> sendSmallGetRequest() throws IOException {
+        return client.send(smallGetRequest).eagerly();
+    }
+
+    @Benchmark
+    public RawHttpResponse<?> sendSmallPostRequest() throws IOException {
+        return client.send(smallPostRequest).eagerly();
+    }
+
+}
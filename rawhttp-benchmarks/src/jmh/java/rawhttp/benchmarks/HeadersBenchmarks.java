@@ -0,0 +1,68 @@
+package rawhttp.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rawhttp.core.RawHttpHeaders;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link RawHttpHeaders.Builder#with(String, String)} and {@link RawHttpHeaders.Builder#build()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HeadersBenchmarks {
+
+    @Param({"5", "50"})
+    public int headerCount;
+
+    private String[] names;
+    private String[] values;
+    private RawHttpHeaders headers;
+
+    @Setup
+    public void setup() {
+        names = new String[headerCount];
+        values = new String[headerCount];
+        RawHttpHeaders.Builder builder = RawHttpHeaders.newBuilder();
+        for (int i = 0; i < headerCount; i++) {
+            names[i] = "X-Header-" + i;
+            values[i] = "value-" + i + "; q=0.5";
+            builder.with(names[i], values[i]);
+        }
+        headers = builder.build();
+    }
+
+    @Benchmark
+    public RawHttpHeaders buildHeaders() {
+        RawHttpHeaders.Builder builder = RawHttpHeaders.newBuilder();
+        for (int i = 0; i < names.length; i++) {
+            builder.with(names[i], values[i]);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public RawHttpHeaders buildHeadersSkippingValidation() {
+        RawHttpHeaders.Builder builder = RawHttpHeaders.newBuilderSkippingValidation();
+        for (int i = 0; i < names.length; i++) {
+            builder.with(names[i], values[i]);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public RawHttpHeaders addHeaderToExistingHeaders() {
+        return RawHttpHeaders.newBuilder(headers)
+                .with("Date", "Sun, 06 Nov 1994 08:49:37 GMT")
+                .build();
+    }
+
+}
@@ -0,0 +1,119 @@
+package rawhttp.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Sample HTTP messages used by the benchmarks.
+ */
+final class Messages {
+
+    static final String SMALL_REQUEST = "GET /hello?name=world HTTP/1.1\r\n" +
+            "Host: www.example.com\r\n" +
+            "Accept: */*\r\n" +
+            "\r\n";
+
+    static final String REQUEST_HEAD = "POST /api/documents/123 HTTP/1.1\r\n" +
+            "Host: www.example.com\r\n" +
+            "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:120.0) Gecko/20100101 Firefox/120.0\r\n" +
+            "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n" +
+            "Accept-Language: en-US,en;q=0.5\r\n" +
+            "Accept-Encoding: gzip, deflate, br\r\n" +
+            "Connection: keep-alive\r\n" +
+            "Content-Type: application/json\r\n";
+
+    static final String SMALL_RESPONSE = "HTTP/1.1 200 OK\r\n" +
+            "Content-Type: text/plain\r\n" +
+            "Content-Length: 12\r\n" +
+            "Server: RawHTTP\r\n" +
+            "\r\n" +
+            "Hello World!";
+
+    private Messages() {
+    }
+
+    /**
+     * @param size number of bytes
+     * @return printable text of the given size, which compresses about as well as typical web content
+     */
+    static byte[] text(int size) {
+        StringBuilder builder = new StringBuilder(size);
+        int i = 0;
+        while (builder.length() < size) {
+            builder.append("{\"id\":").append(i++).append(",\"name\":\"item-").append(i * 7919 % 1000)
+                    .append("\",\"tags\":[\"a\",\"b\"]},\n");
+        }
+        builder.setLength(size);
+        return builder.toString().getBytes(UTF_8);
+    }
+
+    static byte[] largeRequest(int bodySize) {
+        return withBody(REQUEST_HEAD + "Content-Length: " + bodySize + "\r\n\r\n", text(bodySize));
+    }
+
+    static byte[] manyHeadersRequest(int headerCount) {
+        StringBuilder builder = new StringBuilder(REQUEST_HEAD.replace("POST", "GET"));
+        for (int i = 0; i < headerCount; i++) {
+            builder.append("X-Custom-Header-").append(i).append(": value-").append(i)
+                    .append("; some=parameter\r\n");
+        }
+        return builder.append("\r\n").toString().getBytes(ISO_8859_1);
+    }
+
+    static byte[] largeResponse(int bodySize) {
+        return withBody("HTTP/1.1 200 OK\r\n" +
+                "Content-Type: application/json\r\n" +
+                "Content-Length: " + bodySize + "\r\n" +
+                "Server: RawHTTP\r\n\r\n", text(bodySize));
+    }
+
+    static byte[] chunked(byte[] body, int chunkSize) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length + 1024);
+        for (int offset = 0; offset < body.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, body.length - offset);
+            writeAscii(out, Integer.toHexString(length) + "\r\n");
+            out.write(body, offset, length);
+            writeAscii(out, "\r\n");
+        }
+        writeAscii(out, "0\r\n\r\n");
+        return out.toByteArray();
+    }
+
+    static byte[] encode(byte[] body, String encoding) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length);
+        OutputStream encoder;
+        switch (encoding) {
+            case "gzip":
+                encoder = new GZIPOutputStream(out);
+                break;
+            case "deflate":
+                encoder = new DeflaterOutputStream(out);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported encoding: " + encoding);
+        }
+        encoder.write(body);
+        encoder.close();
+        return out.toByteArray();
+    }
+
+    static byte[] withBody(String head, byte[] body) {
+        byte[] headBytes = head.getBytes(ISO_8859_1);
+        byte[] result = new byte[headBytes.length + body.length];
+        System.arraycopy(headBytes, 0, result, 0, headBytes.length);
+        System.arraycopy(body, 0, result, headBytes.length, body.length);
+        return result;
+    }
+
+    private static void writeAscii(ByteArrayOutputStream out, String text) {
+        byte[] bytes = text.getBytes(ISO_8859_1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+}
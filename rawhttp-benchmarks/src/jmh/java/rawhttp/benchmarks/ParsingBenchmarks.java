@@ -0,0 +1,73 @@
+package rawhttp.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rawhttp.core.RawHttp;
+import rawhttp.core.RawHttpRequest;
+import rawhttp.core.RawHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+/**
+ * Benchmarks for {@link RawHttp#parseRequest(java.io.InputStream)} and
+ * {@link RawHttp#parseResponse(java.io.InputStream)}.
+ * <p>
+ * Messages with a body are read eagerly, so the body framing is included in the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParsingBenchmarks {
+
+    private final RawHttp http = new RawHttp();
+
+    private byte[] smallRequest;
+    private byte[] largeRequest;
+    private byte[] manyHeadersRequest;
+    private byte[] smallResponse;
+    private byte[] largeResponse;
+
+    @Setup
+    public void setup() {
+        smallRequest = Messages.SMALL_REQUEST.getBytes(ISO_8859_1);
+        largeRequest = Messages.largeRequest(64 * 1024);
+        manyHeadersRequest = Messages.manyHeadersRequest(100);
+        smallResponse = Messages.SMALL_RESPONSE.getBytes(ISO_8859_1);
+        largeResponse = Messages.largeResponse(64 * 1024);
+    }
+
+    @Benchmark
+    public RawHttpRequest parseSmallRequest() throws IOException {
+        return http.parseRequest(new ByteArrayInputStream(smallRequest));
+    }
+
+    @Benchmark
+    public RawHttpRequest parseLargeRequest() throws IOException {
+        return http.parseRequest(new ByteArrayInputStream(largeRequest)).eagerly();
+    }
+
+    @Benchmark
+    public RawHttpRequest parseManyHeadersRequest() throws IOException {
+        return http.parseRequest(new ByteArrayInputStream(manyHeadersRequest));
+    }
+
+    @Benchmark
+    public RawHttpResponse<?> parseSmallResponse() throws IOException {
+        return http.parseResponse(new ByteArrayInputStream(smallResponse)).eagerly();
+    }
+
+    @Benchmark
+    public RawHttpResponse<?> parseLargeResponse() throws IOException {
+        return http.parseResponse(new ByteArrayInputStream(largeResponse)).eagerly();
+    }
+
+}
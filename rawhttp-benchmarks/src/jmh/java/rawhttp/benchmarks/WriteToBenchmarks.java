@@ -0,0 +1,84 @@
+package rawhttp.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rawhttp.core.HttpMessage;
+import rawhttp.core.RawHttp;
+import rawhttp.core.RawHttpRequest;
+import rawhttp.core.RawHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link HttpMessage#writeTo(OutputStream)}.
+ * <p>
+ * Messages are written to a stream that discards all bytes, so only the serialization is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WriteToBenchmarks {
+
+    private final RawHttp http = new RawHttp();
+    private final CountingOutputStream out = new CountingOutputStream();
+
+    private RawHttpRequest smallRequest;
+    private RawHttpRequest manyHeadersRequest;
+    private RawHttpResponse<?> smallResponse;
+    private RawHttpResponse<?> largeResponse;
+
+    @Setup
+    public void setup() throws IOException {
+        smallRequest = http.parseRequest(Messages.SMALL_REQUEST).eagerly();
+        manyHeadersRequest = http.parseRequest(new ByteArrayInputStream(Messages.manyHeadersRequest(100))).eagerly();
+        smallResponse = http.parseResponse(Messages.SMALL_RESPONSE).eagerly();
+        largeResponse = http.parseResponse(new ByteArrayInputStream(Messages.largeResponse(64 * 1024))).eagerly();
+    }
+
+    @Benchmark
+    public long writeSmallRequest() throws IOException {
+        smallRequest.writeTo(out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long writeManyHeadersRequest() throws IOException {
+        manyHeadersRequest.writeTo(out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long writeSmallResponse() throws IOException {
+        smallResponse.writeTo(out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long writeLargeResponse() throws IOException {
+        largeResponse.writeTo(out);
+        return out.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+}
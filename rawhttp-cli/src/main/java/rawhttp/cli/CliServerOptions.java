@@ -8,8 +8,10 @@ import rawhttp.core.server.TlsConfiguration;
 import javax.annotation.Nullable;
 import javax.net.ssl.SSLContext;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.URL;
+import java.nio.channels.ServerSocketChannel;
 
 final class CliServerOptions implements TcpRawHttpServer.TcpRawHttpServerOptions {
 
@@ -40,12 +42,17 @@ final class CliServerOptions implements TcpRawHttpServer.TcpRawHttpServerOptions
         if (sslContext != null) {
             return sslContext.getServerSocketFactory().createServerSocket(port);
         }
-        return new ServerSocket(port);
+        // a channel-backed socket lets file bodies be sent with zero-copy transfers
+        return ServerSocketChannel.open().bind(new InetSocketAddress(port)).socket();
     }
 
     @Override
     public RawHttpResponse<Void> onResponse(RawHttpRequest request, RawHttpResponse<Void> response) throws IOException {
         requestLogger.logRequest(request, response);
+        if (response instanceof ResponseCache.CachedResponse) {
+            // cached responses already contain the headers added by the server
+            return response;
+        }
         return TcpRawHttpServer.TcpRawHttpServerOptions.super.onResponse(request, response);
     }
 }
@@ -1,17 +1,25 @@
 package rawhttp.cli;
 
 import rawhttp.cli.FileLocator.FileResult;
+import rawhttp.cli.util.ByteRangeUtil;
+import rawhttp.cli.util.EntityTagUtil;
+import rawhttp.core.HttpVersion;
 import rawhttp.core.RawHttpHeaders;
 import rawhttp.core.RawHttpRequest;
 import rawhttp.core.RawHttpResponse;
-import rawhttp.core.body.FileBody;
+import rawhttp.core.body.ByteRange;
+import rawhttp.core.body.FileRangeBody;
+import rawhttp.core.body.MultipartByteRangesBody;
 import rawhttp.core.server.Router;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
@@ -22,6 +30,10 @@ final class CliServerRouter implements Router {
     static final Map<String, String> mimeByFileExtension;
     public static final String DIR_BACK_PATTERN = Pattern.quote("../");
 
+    private static final RawHttpHeaders ACCEPT_RANGES_HEADER = RawHttpHeaders.newBuilderSkippingValidation()
+            .with("Accept-Ranges", "bytes")
+            .build();
+
     static {
         Map<String, String> _mimeMapping = new HashMap<>(13);
 
@@ -56,21 +68,33 @@ final class CliServerRouter implements Router {
     }
 
     private final FileLocator fileLocator;
+    private final ResponseCache responseCache = new ResponseCache();
     private final PathReader pathReader;
 
     CliServerRouter(File rootDir, String rootPath) {
-        this(rootDir, rootPath, mimeByFileExtension);
+        this(rootDir, rootPath, false);
+    }
+
+    CliServerRouter(File rootDir, String rootPath, boolean mapFiles) {
+        this(rootDir, rootPath, mimeByFileExtension, mapFiles);
     }
 
-    CliServerRouter(File rootDir, String rootPath, Properties mediaTypes) {
-        this(rootDir, rootPath, convertToMap(mediaTypes));
+    CliServerRouter(File rootDir, String rootPath, Properties mediaTypes, boolean mapFiles) {
+        this(rootDir, rootPath, convertToMap(mediaTypes), mapFiles);
     }
 
-    private CliServerRouter(File rootDir, String rootPath, Map<String, String> mimeMapping) {
-        this.fileLocator = new FileLocator(rootDir, mimeMapping);
+    private CliServerRouter(File rootDir, String rootPath, Map<String, String> mimeMapping, boolean mapFiles) {
+        this.fileLocator = new FileLocator(rootDir, mimeMapping, mapFiles);
         this.pathReader = rootPath.isEmpty() ? new StandardPathReader() : new ContextPathReader(rootPath);
     }
 
+    /**
+     * Start generating missing precompressed sidecar files in the background.
+     */
+    void precompressFiles() {
+        new SidecarGenerator(fileLocator).startInBackground();
+    }
+
     private static Map<String, String> convertToMap(Properties mediaTypes) {
         Map<String, String> mimeMapping = new HashMap<>(mimeByFileExtension);
         mediaTypes.forEach((ext, mime) -> mimeMapping.put(ext.toString(), mime.toString()));
@@ -91,7 +115,9 @@ final class CliServerRouter implements Router {
                 path = "index.html";
             }
 
-            Optional<FileResult> resource = fileLocator.find(path, request.getHeaders().get("Accept"));
+            Optional<FileResult> resource = fileLocator.find(path, request.getHeaders().get("Accept"))
+                    .map(fileResult -> fileLocator.selectContentCoding(
+                            fileResult, request.getHeaders().get("Accept-Encoding")));
 
             response = resource.map(fileResult -> serveFile(request, fileResult));
         } else {
@@ -103,34 +129,145 @@ final class CliServerRouter implements Router {
     private RawHttpResponse<Void> serveFile(RawHttpRequest request, FileResult fileResult) {
         RawHttpHeaders headers = request.getHeaders();
 
+        String cacheKey = isCacheable(request) ? cacheKeyOf(request, fileResult) : null;
+        if (cacheKey != null) {
+            RawHttpResponse<Void> cachedResponse = responseCache.get(cacheKey, fileResult.file);
+            if (cachedResponse != null) {
+                return cachedResponse;
+            }
+        }
+
         // Precedence of conditions: https://tools.ietf.org/html/rfc7232#section-6
         // 1. If-Match (true ? goto 3 : respond 412)
         // 2. If-Unmodified-Since (true ? goto 3 : respond 412)
         // 3. If-None-Match (true ? goto 5 : GET/HEAD ? respond 304 : respond 412)
         // 4. If-Modified-Since (true ? goto 5 : respond 304)
         // 5. If-Range (true ? respond 206 : OK)
-        if (headers.contains("If-Unmodified-Since")) {
+        HttpVersion httpVersion = request.getStartLine().getHttpVersion();
+        List<String> ifMatch = headers.get("If-Match");
+        if (!ifMatch.isEmpty()) {
+            if (!EntityTagUtil.anyMatchesStrongly(ifMatch, fileResult.entityTag)) {
+                return HttpResponses.getPreConditionFailedResponse(httpVersion);
+            }
+        } else if (headers.contains("If-Unmodified-Since")) {
             boolean isUnmodified = request.getHeaders()
                     .getFirst("If-Unmodified-Since")
-                    .map(since -> !isModified(fileResult.file.lastModified(), since))
+                    .map(since -> !isModified(fileResult.lastModified, since))
                     .orElse(false);
             if (!isUnmodified) {
-                return HttpResponses.getPreConditionFailedResponse(request.getStartLine().getHttpVersion());
+                return HttpResponses.getPreConditionFailedResponse(httpVersion);
             }
         }
-        if (headers.contains("If-Modified-Since")) {
+        List<String> ifNoneMatch = headers.get("If-None-Match");
+        if (!ifNoneMatch.isEmpty()) {
+            if (EntityTagUtil.anyMatchesWeakly(ifNoneMatch, fileResult.entityTag)) {
+                return notModified(httpVersion, fileResult);
+            }
+        } else if (headers.contains("If-Modified-Since")) {
             boolean isModified = request.getHeaders()
                     .getFirst("If-Modified-Since")
-                    .map(since -> isModified(fileResult.file.lastModified(), since))
+                    .map(since -> isModified(fileResult.lastModified, since))
                     .orElse(true);
             if (!isModified) {
-                return HttpResponses.getNotModifiedResponse(request.getStartLine().getHttpVersion());
+                return notModified(httpVersion, fileResult);
             }
         }
 
-        return HttpResponses.getOkResponse(request.getStartLine().getHttpVersion())
-                .withHeaders(fileResult.fileHttpHeaders)
-                .withBody(new FileBody(fileResult.file));
+        if (request.getMethod().equals("GET") && headers.contains("Range") && ifRangeMatches(request, fileResult)) {
+            Optional<List<ByteRange>> ranges = ByteRangeUtil.parseByteRanges(
+                    headers.getFirst("Range").orElse(""), fileResult.length);
+            // the parts of a multipart response cannot carry a content-coding, so only single ranges of
+            // precompressed files are served
+            if (ranges.isPresent() && (fileResult.contentEncoding == null || ranges.get().size() <= 1)) {
+                return partialContent(httpVersion, fileResult, ranges.get());
+            }
+        }
+
+        RawHttpResponse<Void> response = HttpResponses.getOkResponse(httpVersion)
+                .withHeaders(fileResult.fileHttpHeaders.and(ACCEPT_RANGES_HEADER))
+                .withBody(fileLocator.bodyOf(fileResult.file));
+
+        if (cacheKey != null) {
+            try {
+                response = responseCache.put(cacheKey, fileResult.file, response);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return response;
+    }
+
+    private static RawHttpResponse<Void> partialContent(HttpVersion httpVersion,
+                                                        FileResult fileResult,
+                                                        List<ByteRange> ranges) {
+        if (ranges.isEmpty()) {
+            return HttpResponses.getRangeNotSatisfiableResponse(httpVersion)
+                    .withHeaders(RawHttpHeaders.newBuilderSkippingValidation()
+                            .with("Content-Range", "bytes */" + fileResult.length)
+                            .build());
+        }
+        RawHttpResponse<Void> response = HttpResponses.getPartialContentResponse(httpVersion)
+                .withHeaders(fileResult.fileHttpHeaders.and(ACCEPT_RANGES_HEADER));
+        if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            return response.withHeaders(RawHttpHeaders.newBuilderSkippingValidation()
+                            .with("Content-Range", range.toContentRange(fileResult.length))
+                            .build())
+                    .withBody(new FileRangeBody(fileResult.file, range, fileResult.contentType));
+        }
+        return response.withBody(new MultipartByteRangesBody(
+                fileResult.file, fileResult.length, ranges, fileResult.contentType));
+    }
+
+    private static RawHttpResponse<Void> notModified(HttpVersion httpVersion, FileResult fileResult) {
+        // the validators are already known, so no disk access is needed
+        return HttpResponses.getNotModifiedResponse(httpVersion)
+                .withHeaders(fileResult.validatorHeaders());
+    }
+
+    /**
+     * Evaluate the If-Range condition of a request.
+     *
+     * @param request    the request
+     * @param fileResult the requested file
+     * @return true if the request has no If-Range header or its validator matches the current file, meaning that
+     * a Range request may be served partially; false otherwise, meaning that the full file must be sent.
+     */
+    static boolean ifRangeMatches(RawHttpRequest request, FileResult fileResult) {
+        Optional<String> ifRange = request.getHeaders().getFirst("If-Range");
+        if (!ifRange.isPresent()) {
+            return true;
+        }
+        String validator = ifRange.get().trim();
+        if (EntityTagUtil.isEntityTag(validator)) {
+            return EntityTagUtil.anyMatchesStrongly(Collections.singletonList(validator), fileResult.entityTag);
+        }
+        // a date only matches if it is exactly the last-modified date of the file
+        try {
+            long date = ZonedDateTime.from(DateTimeFormatter.RFC_1123_DATE_TIME.parse(validator))
+                    .toInstant().toEpochMilli();
+            return date / 1000L == fileResult.lastModified / 1000L;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Only unconditional GET requests are answered from the response cache.
+     */
+    private static boolean isCacheable(RawHttpRequest request) {
+        if (!request.getMethod().equals("GET")) {
+            return false;
+        }
+        RawHttpHeaders headers = request.getHeaders();
+        return !headers.contains("If-Modified-Since") && !headers.contains("If-Unmodified-Since") &&
+                !headers.contains("If-Match") && !headers.contains("If-None-Match") &&
+                !headers.contains("If-Range") && !headers.contains("Range");
+    }
+
+    private static String cacheKeyOf(RawHttpRequest request, FileResult fileResult) {
+        return request.getStartLine().getHttpVersion() + " " + fileResult.file.getAbsolutePath() + ' ' +
+                fileResult.contentType + (fileResult.varies ? " vary" : "");
     }
 
     static boolean isModified(long fileLastModified, String since) {
@@ -1,13 +1,24 @@
 package rawhttp.cli;
 
+import rawhttp.cli.util.EntityTagUtil;
 import rawhttp.cli.util.MediaTypeUtil;
 import rawhttp.core.RawHttpHeaders;
+import rawhttp.core.body.FileBody;
+import rawhttp.core.body.HttpMessageBody;
+import rawhttp.core.body.MappedFileBody;
+import rawhttp.core.server.ResponseCompressor;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -19,13 +30,73 @@ final class FileLocator {
 
     private static final List<String> ANY_CONTENT_TYPE = singletonList("*/*");
 
+    static final boolean IS_WINDOWS = System.getProperty("os.name", "").toLowerCase().startsWith("windows");
+
+    // maximum size of a file served from mapped memory when mapping is enabled
+    static final long DEFAULT_MAX_MAPPED_FILE_SIZE = 8L * 1024L * 1024L;
+    static final long DEFAULT_MAX_MAPPED_BYTES = 128L * 1024L * 1024L;
+
+    /**
+     * Default extensions of precompressed sidecar files by content-coding, in order of preference.
+     */
+    static final Map<String, String> DEFAULT_SIDECAR_EXTENSIONS;
+
+    static {
+        Map<String, String> sidecarExtensions = new LinkedHashMap<>(4);
+        sidecarExtensions.put("br", ".br");
+        sidecarExtensions.put("gzip", ".gz");
+        DEFAULT_SIDECAR_EXTENSIONS = Collections.unmodifiableMap(sidecarExtensions);
+    }
+
     static final class FileResult {
         final File file;
+        final String contentType;
+        @Nullable
+        final String contentEncoding;
+        final boolean varies;
+        final long length;
+        final long lastModified;
+        final String entityTag;
         final RawHttpHeaders fileHttpHeaders;
 
-        private FileResult(File file, RawHttpHeaders fileHttpHeaders) {
+        private FileResult(File file, String contentType) {
+            this(file, contentType, null, false);
+        }
+
+        /**
+         * @param file            the file to serve
+         * @param contentType     media type of the (decoded) file
+         * @param contentEncoding content-coding of the file, if it is a precompressed sidecar
+         * @param varies          whether other content-codings of the file are available
+         */
+        private FileResult(File file, String contentType, @Nullable String contentEncoding, boolean varies) {
             this.file = file;
-            this.fileHttpHeaders = fileHttpHeaders;
+            this.contentType = contentType;
+            this.contentEncoding = contentEncoding;
+            this.varies = varies;
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+            this.entityTag = contentEncoding == null
+                    ? EntityTagUtil.strongEntityTag(length, lastModified)
+                    : EntityTagUtil.strongEntityTag(length, lastModified, contentEncoding);
+            RawHttpHeaders.Builder headers = RawHttpHeaders.newBuilder()
+                    .with("Content-Type", contentType);
+            if (contentEncoding != null) {
+                headers.with("Content-Encoding", contentEncoding);
+            }
+            headers.with("Last-Modified", toDateField(lastModified))
+                    .with("ETag", entityTag);
+            if (varies) {
+                headers.with("Vary", "Accept-Encoding");
+            }
+            this.fileHttpHeaders = headers.build();
+        }
+
+        /**
+         * @return the headers that must be sent in a 304 (Not Modified) response for this file
+         */
+        RawHttpHeaders validatorHeaders() {
+            return fileHttpHeaders.except("Content-Type", "Content-Encoding");
         }
     }
 
@@ -39,12 +110,62 @@ final class FileLocator {
         }
     }
 
+    private static final class MappedFile {
+        final long lastModified;
+        final ByteBuffer contents;
+
+        MappedFile(long lastModified, ByteBuffer contents) {
+            this.lastModified = lastModified;
+            this.contents = contents;
+        }
+    }
+
     private final File rootDir;
     private final Map<String, String> mimeByFileExtension;
+    private final Map<String, String> sidecarExtensions;
+    private final long maxMappedFileSize;
+    private final long maxMappedBytes;
+
+    // LRU cache of memory-mapped files by canonical path, guarded by itself
+    private final LinkedHashMap<String, MappedFile> mappedFiles = new LinkedHashMap<>(16, 0.75f, true);
+    private long mappedBytes;
 
     FileLocator(File rootDir, Map<String, String> mimeByFileExtension) {
+        this(rootDir, mimeByFileExtension, false);
+    }
+
+    /**
+     * @param rootDir             directory from which files are served
+     * @param mimeByFileExtension media types by file extension
+     * @param mapFiles            whether to serve small files from mapped memory. Only safe if files are not
+     *                            truncated while being served, as reading a mapped file that has been truncated
+     *                            causes an {@link InternalError}. On Windows, mapped files cannot be modified.
+     */
+    FileLocator(File rootDir, Map<String, String> mimeByFileExtension, boolean mapFiles) {
+        this(rootDir, mimeByFileExtension, mapFiles ? DEFAULT_MAX_MAPPED_FILE_SIZE : 0L, DEFAULT_MAX_MAPPED_BYTES);
+    }
+
+    FileLocator(File rootDir, Map<String, String> mimeByFileExtension,
+                long maxMappedFileSize, long maxMappedBytes) {
+        this(rootDir, mimeByFileExtension, maxMappedFileSize, maxMappedBytes, DEFAULT_SIDECAR_EXTENSIONS);
+    }
+
+    /**
+     * @param rootDir             directory from which files are served
+     * @param mimeByFileExtension media types by file extension
+     * @param maxMappedFileSize   maximum size of a file for it to be served from memory
+     * @param maxMappedBytes      maximum number of bytes mapped into memory at any time by this locator.
+     *                            When exceeded, the least recently served files are removed from the cache.
+     * @param sidecarExtensions   extensions of precompressed sidecar files by content-coding, in order of preference
+     */
+    FileLocator(File rootDir, Map<String, String> mimeByFileExtension,
+                long maxMappedFileSize, long maxMappedBytes,
+                Map<String, String> sidecarExtensions) {
         this.rootDir = rootDir;
         this.mimeByFileExtension = mimeByFileExtension;
+        this.sidecarExtensions = sidecarExtensions;
+        this.maxMappedFileSize = maxMappedFileSize;
+        this.maxMappedBytes = maxMappedBytes;
     }
 
     Optional<FileResult> find(String path, List<String> accept) {
@@ -55,6 +176,122 @@ final class FileLocator {
         return result;
     }
 
+    /**
+     * Select the content-coding of a file to serve.
+     * <p>
+     * If a precompressed sidecar of the file exists (e.g. {@code file.js.gz} next to {@code file.js}) and its
+     * content-coding is accepted, the sidecar is selected. Sidecars older than the file are ignored, as they are
+     * probably out-of-date.
+     *
+     * @param fileResult     the file found by this locator
+     * @param acceptEncoding values of the request's Accept-Encoding header
+     * @return the sidecar with the best accepted content-coding, or the given file if there is none. In both cases,
+     * the result indicates whether other content-codings are available.
+     */
+    FileResult selectContentCoding(FileResult fileResult, List<String> acceptEncoding) {
+        if (sidecarExtensions.isEmpty()) {
+            return fileResult;
+        }
+        Map<String, Float> qualityByCoding = acceptEncoding.isEmpty()
+                ? Collections.emptyMap()
+                : ResponseCompressor.parseAcceptEncoding(acceptEncoding);
+        boolean varies = false;
+        File bestSidecar = null;
+        String bestCoding = null;
+        float bestQuality = 0.0f;
+        for (Map.Entry<String, String> entry : sidecarExtensions.entrySet()) {
+            File sidecar = new File(fileResult.file.getPath() + entry.getValue());
+            if (sidecar.lastModified() < fileResult.lastModified || !sidecar.isFile()) {
+                continue;
+            }
+            varies = true;
+            float quality = ResponseCompressor.qualityOf(qualityByCoding, entry.getKey());
+            if (quality > bestQuality) {
+                bestSidecar = sidecar;
+                bestCoding = entry.getKey();
+                bestQuality = quality;
+            }
+        }
+        if (bestSidecar != null) {
+            return new FileResult(bestSidecar, fileResult.contentType, bestCoding, true);
+        }
+        return varies ? new FileResult(fileResult.file, fileResult.contentType, null, true) : fileResult;
+    }
+
+    /**
+     * Get a body with the contents of the given file.
+     * <p>
+     * If mapping is enabled, files that are small enough are mapped into memory and kept in a LRU cache, so that
+     * they may be served again without being read from disk. A cached mapping is only used while the file's
+     * last-modified time and length remain the same as when it was mapped.
+     *
+     * @param file file found by this locator
+     * @return body with the file contents
+     */
+    HttpMessageBody bodyOf(File file) {
+        long length = file.length();
+        if (length == 0L || length > maxMappedFileSize) {
+            return new FileBody(file);
+        }
+        try {
+            String canonicalPath = file.getCanonicalPath();
+            long lastModified = file.lastModified();
+            ByteBuffer contents = getMappedContents(canonicalPath, lastModified, length);
+            if (contents == null) {
+                contents = MappedFileBody.map(file);
+                putMappedContents(canonicalPath, new MappedFile(lastModified, contents));
+            }
+            return new MappedFileBody(file, contents, null, null);
+        } catch (IOException e) {
+            // let FileBody report any error when the file is read
+            return new FileBody(file);
+        }
+    }
+
+    /**
+     * @return the number of bytes currently mapped into memory by this locator
+     */
+    long getMappedBytes() {
+        synchronized (mappedFiles) {
+            return mappedBytes;
+        }
+    }
+
+    @Nullable
+    private ByteBuffer getMappedContents(String canonicalPath, long lastModified, long length) {
+        synchronized (mappedFiles) {
+            MappedFile mappedFile = mappedFiles.get(canonicalPath);
+            if (mappedFile == null) {
+                return null;
+            }
+            if (mappedFile.lastModified != lastModified || mappedFile.contents.capacity() != length) {
+                // the file has changed since it was mapped
+                mappedFiles.remove(canonicalPath);
+                mappedBytes -= mappedFile.contents.capacity();
+                return null;
+            }
+            return mappedFile.contents;
+        }
+    }
+
+    private void putMappedContents(String canonicalPath, MappedFile mappedFile) {
+        synchronized (mappedFiles) {
+            MappedFile previous = mappedFiles.put(canonicalPath, mappedFile);
+            if (previous != null) {
+                mappedBytes -= previous.contents.capacity();
+            }
+            mappedBytes += mappedFile.contents.capacity();
+
+            // evict the least recently used files (never the one just added)
+            Iterator<MappedFile> iterator = mappedFiles.values().iterator();
+            while (mappedBytes > maxMappedBytes && mappedFiles.size() > 1) {
+                MappedFile eldest = iterator.next();
+                iterator.remove();
+                mappedBytes -= eldest.contents.capacity();
+            }
+        }
+    }
+
     // check if there's a resource with the same name, but an additional extension
     private Optional<FileResult> findWithExtension(String path, List<String> accept) {
         PathData pathData = getPathData(path);
@@ -65,7 +302,8 @@ final class FileLocator {
 
         // find files whose names start with the resource name + '.'
         String resourceNameDot = pathData.resourceName + '.';
-        File[] candidateFiles = pathData.dir.listFiles(f -> f.getName().startsWith(resourceNameDot));
+        File[] candidateFiles = pathData.dir.listFiles(f ->
+                f.getName().startsWith(resourceNameDot) && !isSidecar(f) && !isTemporaryFile(f));
 
         if (candidateFiles == null || candidateFiles.length == 0) {
             return Optional.empty();
@@ -73,7 +311,7 @@ final class FileLocator {
 
         // if anything is acceptable, return the first possible match
         if (accept.isEmpty() || accept.equals(ANY_CONTENT_TYPE)) {
-            return Optional.of(new FileResult(candidateFiles[0], fileHttpHeaders(candidateFiles[0])));
+            return Optional.of(fileResultOf(candidateFiles[0]));
         }
 
         // try to match resources with the best possible accepted content-type
@@ -84,13 +322,40 @@ final class FileLocator {
         for (String acceptableMediaType : acceptableMediaTypes) {
             File bestCandidate = fileByContentType.get(acceptableMediaType);
             if (bestCandidate != null) {
-                return Optional.of(new FileResult(bestCandidate,
-                        fileHttpHeaders(acceptableMediaType, bestCandidate.lastModified())));
+                return Optional.of(new FileResult(bestCandidate, acceptableMediaType));
             }
         }
 
         // no matching content-type found, return the first one
-        return Optional.of(new FileResult(candidateFiles[0], fileHttpHeaders(candidateFiles[0])));
+        return Optional.of(fileResultOf(candidateFiles[0]));
+    }
+
+    /**
+     * @param file a file
+     * @return true if the file is a precompressed sidecar of another existing file
+     */
+    boolean isSidecar(File file) {
+        String path = file.getPath();
+        for (String extension : sidecarExtensions.values()) {
+            if (path.endsWith(extension) &&
+                    new File(path.substring(0, path.length() - extension.length())).isFile()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param file a file
+     * @return true if the file is a temporary file written by {@link SidecarGenerator}, which must not be served
+     */
+    static boolean isTemporaryFile(File file) {
+        String name = file.getName();
+        return name.startsWith(SidecarGenerator.TEMP_FILE_PREFIX) && name.endsWith(SidecarGenerator.TEMP_FILE_SUFFIX);
+    }
+
+    File getRootDir() {
+        return rootDir;
     }
 
     private Map<String, File> groupCandidatesByMediaType(String resourceNameDot, File[] candidateFiles) {
@@ -109,21 +374,14 @@ final class FileLocator {
 
     private Optional<FileResult> findExactMatch(String path) {
         File exactMatch = new File(rootDir, path);
-        if (exactMatch.isFile()) {
-            return Optional.of(new FileResult(exactMatch, fileHttpHeaders(exactMatch)));
+        if (exactMatch.isFile() && !isTemporaryFile(exactMatch)) {
+            return Optional.of(fileResultOf(exactMatch));
         }
         return Optional.empty();
     }
 
-    private RawHttpHeaders fileHttpHeaders(File resource) {
-        return fileHttpHeaders(mimeTypeOf(resource.getName()), resource.lastModified());
-    }
-
-    private static RawHttpHeaders fileHttpHeaders(String contentType, long lastModified) {
-        return RawHttpHeaders.newBuilder()
-                .with("Content-Type", contentType)
-                .with("Last-Modified", toDateField(lastModified))
-                .build();
+    private FileResult fileResultOf(File resource) {
+        return new FileResult(resource, mimeTypeOf(resource.getName()));
     }
 
     private static String toDateField(long lastModified) {
@@ -19,6 +19,10 @@ final class HttpResponses {
     private static final StatusLine STATUS_304_HTTP1_1;
     private static final StatusLine STATUS_412_HTTP1_0;
     private static final StatusLine STATUS_412_HTTP1_1;
+    private static final StatusLine STATUS_206_HTTP1_0;
+    private static final StatusLine STATUS_206_HTTP1_1;
+    private static final StatusLine STATUS_416_HTTP1_0;
+    private static final StatusLine STATUS_416_HTTP1_1;
 
     private static final RawHttpResponse<Void> OK_RESPONSE_HTTP1_0;
     private static final RawHttpResponse<Void> OK_RESPONSE_HTTP1_1;
@@ -28,6 +32,10 @@ final class HttpResponses {
     private static final RawHttpResponse<Void> NOT_MODIFIED_RESPONSE_HTTP1_1;
     private static final RawHttpResponse<Void> PRE_CONDITION_FAILED_RESPONSE_HTTP1_0;
     private static final RawHttpResponse<Void> PRE_CONDITION_FAILED_RESPONSE_HTTP1_1;
+    private static final RawHttpResponse<Void> PARTIAL_CONTENT_RESPONSE_HTTP1_0;
+    private static final RawHttpResponse<Void> PARTIAL_CONTENT_RESPONSE_HTTP1_1;
+    private static final RawHttpResponse<Void> RANGE_NOT_SATISFIABLE_RESPONSE_HTTP1_0;
+    private static final RawHttpResponse<Void> RANGE_NOT_SATISFIABLE_RESPONSE_HTTP1_1;
 
     static {
         STATUS_200_HTTP1_0 = new StatusLine(HttpVersion.HTTP_1_0, 200, "OK");
@@ -38,6 +46,10 @@ final class HttpResponses {
         STATUS_304_HTTP1_1 = new StatusLine(HttpVersion.HTTP_1_1, 304, "Not Modified");
         STATUS_412_HTTP1_0 = new StatusLine(HttpVersion.HTTP_1_0, 412, "Precondition Failed");
         STATUS_412_HTTP1_1 = new StatusLine(HttpVersion.HTTP_1_1, 412, "Precondition Failed");
+        STATUS_206_HTTP1_0 = new StatusLine(HttpVersion.HTTP_1_0, 206, "Partial Content");
+        STATUS_206_HTTP1_1 = new StatusLine(HttpVersion.HTTP_1_1, 206, "Partial Content");
+        STATUS_416_HTTP1_0 = new StatusLine(HttpVersion.HTTP_1_0, 416, "Range Not Satisfiable");
+        STATUS_416_HTTP1_1 = new StatusLine(HttpVersion.HTTP_1_1, 416, "Range Not Satisfiable");
 
         final RawHttpHeaders basicHeaders = RawHttpHeaders.newBuilderSkippingValidation()
                 .with("Content-Type", "text/plain")
@@ -67,6 +79,20 @@ final class HttpResponses {
 
         PRE_CONDITION_FAILED_RESPONSE_HTTP1_1 = PRE_CONDITION_FAILED_RESPONSE_HTTP1_0
                 .withStatusLine(STATUS_412_HTTP1_1);
+
+        PARTIAL_CONTENT_RESPONSE_HTTP1_0 = new EagerHttpResponse<>(null, null,
+                STATUS_206_HTTP1_0, RawHttpHeaders.empty(), null);
+
+        PARTIAL_CONTENT_RESPONSE_HTTP1_1 = PARTIAL_CONTENT_RESPONSE_HTTP1_0
+                .withStatusLine(STATUS_206_HTTP1_1);
+
+        RANGE_NOT_SATISFIABLE_RESPONSE_HTTP1_0 = new EagerHttpResponse<>(null, null,
+                STATUS_416_HTTP1_0, RawHttpHeaders.newBuilderSkippingValidation()
+                .with("Content-Length", "0")
+                .build(), null);
+
+        RANGE_NOT_SATISFIABLE_RESPONSE_HTTP1_1 = RANGE_NOT_SATISFIABLE_RESPONSE_HTTP1_0
+                .withStatusLine(STATUS_416_HTTP1_1);
     }
 
     static RawHttpResponse<Void> getOkResponse(HttpVersion httpVersion) {
@@ -96,4 +122,16 @@ final class HttpResponses {
                 ? PRE_CONDITION_FAILED_RESPONSE_HTTP1_0
                 : PRE_CONDITION_FAILED_RESPONSE_HTTP1_1;
     }
+
+    static RawHttpResponse<Void> getPartialContentResponse(HttpVersion httpVersion) {
+        return httpVersion.isOlderThan(HttpVersion.HTTP_1_1)
+                ? PARTIAL_CONTENT_RESPONSE_HTTP1_0
+                : PARTIAL_CONTENT_RESPONSE_HTTP1_1;
+    }
+
+    static RawHttpResponse<Void> getRangeNotSatisfiableResponse(HttpVersion httpVersion) {
+        return httpVersion.isOlderThan(HttpVersion.HTTP_1_1)
+                ? RANGE_NOT_SATISFIABLE_RESPONSE_HTTP1_0
+                : RANGE_NOT_SATISFIABLE_RESPONSE_HTTP1_1;
+    }
 }
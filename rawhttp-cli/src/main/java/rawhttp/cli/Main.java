@@ -200,7 +200,13 @@ public class Main {
                         "  * -w --keystore-password\n" +
                         "      the keystore password. Ignored if keystore not given.\n" +
                         "  * -r --root-path <path>\n" +
-                        "      the path to use as the root path (not incl. in file path, only URL)\n");
+                        "      the path to use as the root path (not incl. in file path, only URL)\n" +
+                        "  * -z --precompress\n" +
+                        "      generate missing gzip sidecar files (e.g. 'app.js.gz') in the background.\n" +
+                        "      Sidecar files are served to clients that accept their Content-Encoding.\n" +
+                        "  * -x --map-files\n" +
+                        "      serve files up to 8 MB from memory-mapped buffers kept in a cache.\n" +
+                        "      Only use this if files are not truncated while being served.\n");
                 break;
             default:
                 return new CliError(ErrorCode.UNEXPECTED_ERROR, "Help option is not covered: " + options);
@@ -294,6 +300,7 @@ public class Main {
         RawHttpServer server = new TcpRawHttpServer(new CliServerOptions(options.port,
                 options.keystore, options.keystorePass, requestLogger));
 
+        CliServerRouter router;
         Optional<File> mediaTypesFile = options.getMediaTypesFile();
         if (mediaTypesFile.isPresent()) {
             Properties mediaTypeProperties = new Properties();
@@ -302,10 +309,14 @@ public class Main {
             } catch (IOException e) {
                 return new CliError(ErrorCode.IO_EXCEPTION, "Could not read media-types file: " + e.getMessage());
             }
-            server.start(new CliServerRouter(options.dir, options.rootPath, mediaTypeProperties));
+            router = new CliServerRouter(options.dir, options.rootPath, mediaTypeProperties, options.mapFiles);
         } else {
-            server.start(new CliServerRouter(options.dir, options.rootPath));
+            router = new CliServerRouter(options.dir, options.rootPath, options.mapFiles);
         }
+        if (options.precompress) {
+            router.precompressFiles();
+        }
+        server.start(router);
         return null;
     }
 
@@ -21,11 +21,14 @@ final class ServerOptions {
     final String rootPath;
     final URL keystore;
     final String keystorePass;
+    final boolean precompress;
+    final boolean mapFiles;
     private final File mediaTypesFile;
 
     ServerOptions(File dir, int port, boolean logRequests,
                   File mediaTypesFile, String rootPath,
-                  URL keystore, String keystorePass) {
+                  URL keystore, String keystorePass,
+                  boolean precompress, boolean mapFiles) {
         this.dir = dir;
         this.port = port;
         this.logRequests = logRequests;
@@ -33,6 +36,8 @@ final class ServerOptions {
         this.rootPath = rootPath;
         this.keystore = keystore;
         this.keystorePass = keystorePass;
+        this.precompress = precompress;
+        this.mapFiles = mapFiles;
     }
 
     public Optional<File> getMediaTypesFile() {
@@ -435,6 +440,8 @@ final class OptionsParser {
     private static Options parseServeCommand(String[] args) throws OptionsException {
         File dir = null;
         boolean logRequests = false;
+        boolean precompress = false;
+        boolean mapFiles = false;
         File mediaTypesFile = null;
         Integer port = null;
         String rootPath = "", keystore = null, keystorePass = null;
@@ -515,6 +522,14 @@ final class OptionsParser {
                         throw new OptionsException("Missing argument for " + arg + " flag");
                     }
                     break;
+                case "-z":
+                case "--precompress":
+                    precompress = true;
+                    break;
+                case "-x":
+                case "--map-files":
+                    mapFiles = true;
+                    break;
                 default:
                     throw new OptionsException("Unrecognized option: " + arg);
             }
@@ -543,7 +558,9 @@ final class OptionsParser {
                         mediaTypesFile,
                         rootPath,
                         keystoreURL,
-                        keystorePass));
+                        keystorePass,
+                        precompress,
+                        mapFiles));
     }
 
 }
@@ -0,0 +1,243 @@
+package rawhttp.cli;
+
+import rawhttp.core.EagerHttpResponse;
+import rawhttp.core.RawHttpHeaders;
+import rawhttp.core.RawHttpResponse;
+import rawhttp.core.body.EagerBodyReader;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Cache of fully serialized responses to requests for small, unchanged files.
+ * <p>
+ * Cached responses are written to the client with a single write. Only their "Date" header changes between
+ * writes: it is patched into a copy of the serialized response at most once per second.
+ */
+final class ResponseCache {
+
+    static final long DEFAULT_MAX_ENTRY_SIZE = 64L * 1024L;
+    static final long DEFAULT_MAX_BYTES = 16L * 1024L * 1024L;
+
+    // IMF-fixdate, which unlike RFC_1123_DATE_TIME always has the same length, so it can be patched in place
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter
+            .ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US)
+            .withZone(ZoneOffset.UTC);
+
+    private static final int DATE_LENGTH = 29;
+
+    // the headers that TcpRawHttpServerOptions#onResponse adds to all responses, except for "Date"
+    private static final RawHttpHeaders SERVER_HEADER = RawHttpHeaders.newBuilderSkippingValidation()
+            .with("Server", "RawHTTP")
+            .build();
+
+    private static volatile DateBytes currentDate = new DateBytes(0L);
+
+    private static final class DateBytes {
+        final long second;
+        final byte[] bytes;
+
+        DateBytes(long second) {
+            this.second = second;
+            this.bytes = DATE_FORMAT.format(Instant.ofEpochSecond(second)).getBytes(US_ASCII);
+        }
+    }
+
+    private static final class Serialized {
+        final long second;
+        final byte[] bytes;
+
+        Serialized(long second, byte[] bytes) {
+            this.second = second;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Entry {
+        final long lastModified;
+        final long length;
+        final int dateOffset;
+        final RawHttpResponse<Void> response;
+        volatile Serialized serialized;
+
+        Entry(long lastModified, long length, int dateOffset, RawHttpResponse<Void> response, byte[] bytes) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.dateOffset = dateOffset;
+            this.response = response;
+            this.serialized = new Serialized(0L, bytes);
+        }
+
+        byte[] currentBytes() {
+            DateBytes date = currentDate();
+            Serialized current = serialized;
+            if (current.second != date.second) {
+                // concurrent writers may both do this, but they produce the same bytes
+                byte[] bytes = current.bytes.clone();
+                System.arraycopy(date.bytes, 0, bytes, dateOffset, DATE_LENGTH);
+                serialized = current = new Serialized(date.second, bytes);
+            }
+            return current.bytes;
+        }
+    }
+
+    /**
+     * A response whose serialized form is cached.
+     * <p>
+     * It already contains all headers the server would add to it, so it should be sent as it is.
+     */
+    static final class CachedResponse extends RawHttpResponse<Void> {
+        private final Entry entry;
+
+        private CachedResponse(Entry entry) {
+            super(null, null, entry.response.getStartLine(), entry.response.getHeaders(),
+                    entry.response.getBody().orElse(null));
+            this.entry = entry;
+        }
+
+        @Override
+        public void writeTo(OutputStream out, int bufferSize) throws IOException {
+            out.write(entry.currentBytes());
+        }
+    }
+
+    private final long maxEntrySize;
+    private final long maxBytes;
+
+    // LRU map of entries, guarded by itself
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    ResponseCache() {
+        this(DEFAULT_MAX_ENTRY_SIZE, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxEntrySize maximum size of a serialized response for it to be cached
+     * @param maxBytes     maximum number of bytes cached at any time. When exceeded, the least recently used
+     *                     responses are removed from the cache.
+     */
+    ResponseCache(long maxEntrySize, long maxBytes) {
+        this.maxEntrySize = maxEntrySize;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get a cached response.
+     *
+     * @param key  cache key
+     * @param file the file the response was created from
+     * @return the cached response, or null if there is none or the file has changed since it was cached
+     */
+    @Nullable
+    CachedResponse get(String key, File file) {
+        long lastModified = file.lastModified();
+        long length = file.length();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.lastModified != lastModified || entry.length != length) {
+                entries.remove(key);
+                cachedBytes -= entry.serialized.bytes.length;
+                return null;
+            }
+            return new CachedResponse(entry);
+        }
+    }
+
+    /**
+     * Cache a response created from the contents of a file, if it is small enough.
+     *
+     * @param key      cache key
+     * @param file     the file the response was created from
+     * @param response the response. Its body must contain the full contents of the file.
+     * @return the cached response, or the given response if it could not be cached
+     * @throws IOException if the response body cannot be read
+     */
+    RawHttpResponse<Void> put(String key, File file, RawHttpResponse<Void> response) throws IOException {
+        // read the file metadata first, so that a file modified while being read is not cached as unchanged
+        long lastModified = file.lastModified();
+        long length = file.length();
+        if (length > maxEntrySize) {
+            return response;
+        }
+
+        EagerHttpResponse<Void> eagerResponse = response.withHeaders(SERVER_HEADER).eagerly();
+        byte[] body = eagerResponse.getBody().map(EagerBodyReader::asRawBytes).orElse(new byte[0]);
+        if (body.length != length) {
+            // the file changed while it was being read
+            return eagerResponse;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) length + 256);
+        eagerResponse.getStartLine().writeTo(out);
+        eagerResponse.getHeaders().except("Date").writeTo(out);
+        // replace the empty line ending the headers with the Date header
+        byte[] metadata = out.toByteArray();
+        out.reset();
+        out.write(metadata, 0, metadata.length - 2);
+        out.write("Date: ".getBytes(US_ASCII));
+        int dateOffset = out.size();
+        out.write(currentDate().bytes);
+        out.write('\r');
+        out.write('\n');
+        out.write('\r');
+        out.write('\n');
+        out.write(body);
+
+        byte[] bytes = out.toByteArray();
+        if (bytes.length > maxEntrySize) {
+            return eagerResponse;
+        }
+
+        Entry entry = new Entry(lastModified, length, dateOffset, eagerResponse, bytes);
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                cachedBytes -= previous.serialized.bytes.length;
+            }
+            cachedBytes += bytes.length;
+
+            // evict the least recently used responses (never the one just added)
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (cachedBytes > maxBytes && entries.size() > 1) {
+                Entry eldest = iterator.next();
+                iterator.remove();
+                cachedBytes -= eldest.serialized.bytes.length;
+            }
+        }
+        return new CachedResponse(entry);
+    }
+
+    /**
+     * @return the number of bytes currently cached
+     */
+    long getCachedBytes() {
+        synchronized (entries) {
+            return cachedBytes;
+        }
+    }
+
+    private static DateBytes currentDate() {
+        long second = System.currentTimeMillis() / 1000L;
+        DateBytes date = currentDate;
+        if (date.second != second) {
+            currentDate = date = new DateBytes(second);
+        }
+        return date;
+    }
+
+}
@@ -0,0 +1,146 @@
+package rawhttp.cli;
+
+import rawhttp.core.body.encoding.GzipEncoder;
+import rawhttp.core.server.ResponseCompressor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * Generator of precompressed "gzip" sidecar files (e.g. {@code app.js.gz} next to {@code app.js}).
+ * <p>
+ * Only files that are large enough and have a compressible media type get a sidecar, and only if the sidecar is
+ * missing or older than the file. Sidecars which are not smaller than the original file are discarded.
+ * <p>
+ * Sidecars are written to a temporary file in the same directory first, then moved into place, so a partially
+ * written sidecar is never served. {@link FileLocator} never serves such temporary files.
+ */
+final class SidecarGenerator {
+
+    static final String GZIP_EXTENSION = ".gz";
+    static final String TEMP_FILE_PREFIX = ".rawhttp-";
+    static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final FileLocator fileLocator;
+    private final GzipEncoder encoder;
+    private final long minSize;
+
+    SidecarGenerator(FileLocator fileLocator) {
+        this(fileLocator, ResponseCompressor.DEFAULT_MIN_SIZE);
+    }
+
+    /**
+     * @param fileLocator the file locator whose files should be precompressed
+     * @param minSize     minimum size of a file for it to be precompressed
+     */
+    SidecarGenerator(FileLocator fileLocator, long minSize) {
+        this.fileLocator = fileLocator;
+        this.minSize = minSize;
+        this.encoder = new GzipEncoder();
+        this.encoder.setCompressionLevel(Deflater.BEST_COMPRESSION);
+        this.encoder.setBufferSize(16 * 1024);
+    }
+
+    /**
+     * Generate missing or out-of-date sidecars in a daemon Thread.
+     *
+     * @return the started Thread
+     */
+    Thread startInBackground() {
+        Thread thread = new Thread(() -> {
+            try {
+                generate();
+            } catch (IOException e) {
+                System.err.println("Warning: could not precompress files: " + e);
+            }
+        }, "rawhttp-sidecar-generator");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Generate missing or out-of-date sidecars.
+     * <p>
+     * Failures to compress single files are reported, but do not stop the generation of other sidecars.
+     *
+     * @return the number of sidecars written
+     * @throws IOException if the root directory cannot be walked
+     */
+    int generate() throws IOException {
+        Path rootDir = fileLocator.getRootDir().toPath();
+        if (!Files.isDirectory(rootDir)) {
+            return 0;
+        }
+        AtomicInteger count = new AtomicInteger();
+        Files.walkFileTree(rootDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile() && shouldPrecompress(file.toFile(), attributes)) {
+                    try {
+                        if (writeSidecar(file, attributes.lastModifiedTime().toMillis())) {
+                            count.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        System.err.println("Warning: could not precompress " + file + ": " + e);
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return count.get();
+    }
+
+    private boolean shouldPrecompress(File file, BasicFileAttributes attributes) {
+        if (attributes.size() < minSize || fileLocator.isSidecar(file) || FileLocator.isTemporaryFile(file)) {
+            return false;
+        }
+        if (!ResponseCompressor.DEFAULT_COMPRESSIBLE_CONTENT_TYPES.test(fileLocator.mimeTypeOf(file.getName()))) {
+            return false;
+        }
+        File sidecar = new File(file.getPath() + GZIP_EXTENSION);
+        return sidecar.lastModified() < attributes.lastModifiedTime().toMillis();
+    }
+
+    private boolean writeSidecar(Path file, long lastModified) throws IOException {
+        Path sidecar = file.resolveSibling(file.getFileName() + GZIP_EXTENSION);
+        Path tempFile = Files.createTempFile(file.getParent(), TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+        try {
+            try (InputStream compressed = encoder.encode(Files.newInputStream(file))) {
+                Files.copy(compressed, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            // do not keep sidecars that do not help, or that were created from a file modified while being read
+            if (Files.size(tempFile) >= Files.size(file) ||
+                    Files.getLastModifiedTime(file).toMillis() != lastModified) {
+                return false;
+            }
+
+            try {
+                Files.move(tempFile, sidecar, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, sidecar, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+}
@@ -15,7 +15,6 @@ import javax.annotation.Nullable;
 import javax.net.ssl.SSLSocketFactory;
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.CookieHandler;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
@@ -26,7 +25,6 @@ import java.net.URI;
 public final class RawHttpCliClient extends TcpRawHttpClient {
 
     private final boolean logRequest;
-    private final ClientOptions clientOptions;
 
     public static RawHttpCliClient create(boolean logRequest, PrintResponseMode printResponseMode,
                                           boolean ignoreTlsCert) {
@@ -38,15 +36,13 @@ public final class RawHttpCliClient extends TcpRawHttpClient {
         ClientOptions clientOptions = new ClientOptions(ResponsePrinter.of(printResponseMode), ignoreTlsCert);
         ClientOptionsWithCookies parentOptions = new ClientOptionsWithCookies(
                 cookieManagerFor(cookieJar), clientOptions);
-        return new RawHttpCliClient(logRequest, parentOptions, clientOptions);
+        return new RawHttpCliClient(logRequest, parentOptions);
     }
 
     private RawHttpCliClient(boolean logRequest,
-                             TcpRawHttpClientOptions parentOptions,
-                             ClientOptions clientOptions) {
+                             TcpRawHttpClientOptions parentOptions) {
         super(parentOptions);
         this.logRequest = logRequest;
-        this.clientOptions = clientOptions;
     }
 
     private static CookieHandler cookieManagerFor(@Nullable File cookieJar) {
@@ -73,25 +69,6 @@ public final class RawHttpCliClient extends TcpRawHttpClient {
         return super.send(request);
     }
 
-    @Override
-    protected Runnable requestSender(RawHttpRequest request, OutputStream outputStream, boolean expectContinue) {
-        return new TimedRunnable(super.requestSender(request, outputStream, expectContinue));
-    }
-
-    private final class TimedRunnable implements Runnable {
-        private final Runnable delegate;
-
-        public TimedRunnable(Runnable delegate) {
-            this.delegate = delegate;
-        }
-
-        @Override
-        public void run() {
-            clientOptions.updateSendTime();
-            delegate.run();
-        }
-    }
-
     private static final class ClientOptions extends DefaultOptions {
         private final ResponsePrinter responsePrinter;
         private final boolean ignoreTlsCert;
@@ -102,8 +79,9 @@ public final class RawHttpCliClient extends TcpRawHttpClient {
             this.ignoreTlsCert = ignoreTlsCert;
         }
 
-        void updateSendTime() {
-            currentSocket.markHttpRequestSendTimeNow();
+        @Override
+        public void beforeSend(Socket socket, RawHttpRequest httpRequest) {
+            ((TimedSocket) socket).markHttpRequestSendTimeNow();
         }
 
         @Override
@@ -145,7 +123,7 @@ public final class RawHttpCliClient extends TcpRawHttpClient {
             if (statusCode == 100 || StatusLine.isRedirectCode(statusCode)) {
                 // temporary response, do not print its body or statistics yet
                 responsePrinter.waitFor();
-                return eagerResponse;
+                return super.onResponse(socket, uri, eagerResponse);
             }
 
             RequestStatistics stats = currentSocket.computeStatistics();
@@ -65,7 +65,7 @@ final class TimedSocket extends Socket {
     }
 
     @Override
-    public synchronized void close() throws IOException {
+    public void close() throws IOException {
         delegate.close();
     }
 
@@ -0,0 +1,108 @@
+package rawhttp.cli.util;
+
+import rawhttp.core.body.ByteRange;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+public final class ByteRangeUtil {
+
+    /**
+     * Maximum number of ranges a Range header may contain for it to be served.
+     */
+    public static final int MAX_RANGES = 32;
+
+    /**
+     * Parse the value of a Range header, resolving the requested ranges against the length of the representation.
+     * <p>
+     * Ranges that start after the end of the representation are not satisfiable, so they are dropped, and
+     * ranges that end after it are shortened to end at its last byte. Hence, no range of an empty representation
+     * can be satisfied.
+     * <p>
+     * The Range header is ignored (i.e. an empty {@link Optional} is returned) if it is not a valid
+     * {@code bytes} range, if any of its satisfiable ranges overlap, or if it contains more than
+     * {@link #MAX_RANGES} ranges, as allowed by
+     * <a href="https://tools.ietf.org/html/rfc7233#section-3.1">RFC-7233</a>.
+     *
+     * @param value          value of the Range header
+     * @param completeLength length of the representation
+     * @return the satisfiable ranges, in the order they were requested, which may be empty if no range can
+     * be satisfied; or empty if the Range header should be ignored
+     */
+    public static Optional<List<ByteRange>> parseByteRanges(String value, long completeLength) {
+        String trimmed = value.trim();
+        if (!trimmed.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return Optional.empty();
+        }
+        String[] items = trimmed.substring(6).split(",");
+        if (items.length > MAX_RANGES) {
+            return Optional.empty();
+        }
+        List<ByteRange> result = new ArrayList<>(items.length);
+        boolean anyRange = false;
+        for (String item : items) {
+            item = item.trim();
+            if (item.isEmpty()) continue;
+            int dash = item.indexOf('-');
+            if (dash < 0) {
+                return Optional.empty();
+            }
+            long first, last;
+            try {
+                if (dash == 0) {
+                    // suffix-byte-range-spec: the last N bytes
+                    long suffixLength = parseDigits(item.substring(1));
+                    if (suffixLength == 0L || completeLength == 0L) {
+                        // not satisfiable
+                        anyRange = true;
+                        continue;
+                    }
+                    first = Math.max(0L, completeLength - suffixLength);
+                    last = completeLength - 1L;
+                } else {
+                    first = parseDigits(item.substring(0, dash));
+                    String lastPos = item.substring(dash + 1);
+                    last = lastPos.isEmpty() ? Long.MAX_VALUE : parseDigits(lastPos);
+                    if (last < first) {
+                        return Optional.empty();
+                    }
+                    last = Math.min(last, completeLength - 1L);
+                }
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+            anyRange = true;
+            if (first >= completeLength) {
+                // not satisfiable
+                continue;
+            }
+            ByteRange range = new ByteRange(first, last);
+            for (ByteRange other : result) {
+                if (range.overlaps(other)) {
+                    return Optional.empty();
+                }
+            }
+            result.add(range);
+        }
+        if (!anyRange) {
+            return Optional.empty();
+        }
+        return Optional.of(result.isEmpty() ? Collections.emptyList() : result);
+    }
+
+    private static long parseDigits(String value) {
+        if (value.isEmpty()) {
+            throw new NumberFormatException("empty");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException(value);
+            }
+        }
+        return Long.parseLong(value);
+    }
+
+}
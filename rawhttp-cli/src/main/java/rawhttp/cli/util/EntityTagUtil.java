@@ -0,0 +1,140 @@
+package rawhttp.cli.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class EntityTagUtil {
+
+    /**
+     * Create a strong entity-tag for a file.
+     * <p>
+     * The entity-tag is derived from the file's length and last-modified time, so it can be computed without
+     * reading the file contents.
+     *
+     * @param length       length of the file
+     * @param lastModified last-modified time of the file, in milliseconds since the epoch
+     * @return the entity-tag, including its surrounding quotes
+     */
+    public static String strongEntityTag(long length, long lastModified) {
+        return '"' + Long.toHexString(length) + '-' + Long.toHexString(lastModified) + '"';
+    }
+
+    /**
+     * Create a strong entity-tag for a variant of a file, such as a precompressed sidecar file.
+     *
+     * @param length       length of the file
+     * @param lastModified last-modified time of the file, in milliseconds since the epoch
+     * @param variant      name of the variant, which must only contain characters allowed in entity-tags
+     * @return the entity-tag, including its surrounding quotes
+     */
+    public static String strongEntityTag(long length, long lastModified, String variant) {
+        return '"' + Long.toHexString(length) + '-' + Long.toHexString(lastModified) + '-' + variant + '"';
+    }
+
+    /**
+     * Check whether any of the entity-tags in the given header values (e.g. of the If-Match header) matches the
+     * given entity-tag using the strong comparison function, i.e. both tags must be strong and identical.
+     * <p>
+     * The special value {@code *} matches any entity-tag.
+     *
+     * @param headerValues header values, each of which may contain a list of entity-tags
+     * @param entityTag    the strong entity-tag of the current representation
+     * @return true if a match is found, false otherwise
+     */
+    public static boolean anyMatchesStrongly(List<String> headerValues, String entityTag) {
+        return anyMatches(headerValues, entityTag, true);
+    }
+
+    /**
+     * Check whether any of the entity-tags in the given header values (e.g. of the If-None-Match header) matches
+     * the given entity-tag using the weak comparison function, i.e. both tags must be identical once the weakness
+     * indicator is ignored.
+     * <p>
+     * The special value {@code *} matches any entity-tag.
+     *
+     * @param headerValues header values, each of which may contain a list of entity-tags
+     * @param entityTag    the entity-tag of the current representation
+     * @return true if a match is found, false otherwise
+     */
+    public static boolean anyMatchesWeakly(List<String> headerValues, String entityTag) {
+        return anyMatches(headerValues, entityTag, false);
+    }
+
+    private static boolean anyMatches(List<String> headerValues, String entityTag, boolean strong) {
+        if (strong && isWeak(entityTag)) {
+            return false;
+        }
+        String opaqueTag = opaqueTagOf(entityTag);
+        for (String headerValue : headerValues) {
+            if (headerValue.trim().equals("*")) {
+                return true;
+            }
+            for (String tag : parseEntityTags(headerValue)) {
+                if (strong && isWeak(tag)) {
+                    continue;
+                }
+                if (opaqueTagOf(tag).equals(opaqueTag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parse a comma-separated list of entity-tags.
+     * <p>
+     * Invalid entries are skipped.
+     *
+     * @param value header value
+     * @return the entity-tags, including their weakness indicator, if any, and quotes
+     */
+    public static List<String> parseEntityTags(String value) {
+        List<String> result = new ArrayList<>(2);
+        int index = 0;
+        int length = value.length();
+        while (index < length) {
+            char c = value.charAt(index);
+            if (c == ' ' || c == '\t' || c == ',') {
+                index++;
+                continue;
+            }
+            int start = index;
+            if (value.startsWith("W/", index)) {
+                index += 2;
+            }
+            if (index < length && value.charAt(index) == '"') {
+                // entity-tags may contain commas, so look for the closing quote
+                int end = value.indexOf('"', index + 1);
+                if (end < 0) {
+                    break;
+                }
+                result.add(value.substring(start, end + 1));
+                index = end + 1;
+            } else {
+                // not an entity-tag, skip to the next item
+                int nextComma = value.indexOf(',', index);
+                index = nextComma < 0 ? length : nextComma + 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param value value of a header that may contain either an entity-tag or a date, such as If-Range
+     * @return true if the value is an entity-tag, false otherwise
+     */
+    public static boolean isEntityTag(String value) {
+        String trimmed = value.trim();
+        return trimmed.startsWith("\"") || trimmed.startsWith("W/\"");
+    }
+
+    private static boolean isWeak(String entityTag) {
+        return entityTag.startsWith("W/");
+    }
+
+    private static String opaqueTagOf(String entityTag) {
+        return isWeak(entityTag) ? entityTag.substring(2) : entityTag;
+    }
+
+}
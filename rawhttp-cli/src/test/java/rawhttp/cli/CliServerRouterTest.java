@@ -1,9 +1,21 @@
 package rawhttp.cli;
 
 import org.junit.Test;
+import rawhttp.cli.util.EntityTagUtil;
+import rawhttp.core.RawHttp;
+import rawhttp.core.RawHttpResponse;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -24,4 +36,185 @@ public class CliServerRouterTest {
                 Instant.parse("1994-10-29T19:43:31.01Z").toEpochMilli(),
                 "Sat, 29 Oct 1994 19:43:31 GMT"));
     }
+
+    @Test
+    public void unconditionalGetRequestsAreAnsweredFromCache() throws IOException {
+        Path rootDir = Files.createTempDirectory(CliServerRouterTest.class.getSimpleName());
+        Files.write(rootDir.resolve("hello.txt"), "Hello".getBytes(US_ASCII));
+        CliServerRouter router = new CliServerRouter(rootDir.toFile(), "");
+        RawHttp http = new RawHttp();
+
+        RawHttpResponse<?> first = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost")).get();
+        RawHttpResponse<?> second = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost")).get();
+        RawHttpResponse<?> head = router.route(http.parseRequest("HEAD /hello.txt\r\nHost: localhost")).get();
+        RawHttpResponse<?> conditional = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost\r\n" +
+                "If-Modified-Since: Sat, 29 Oct 1994 19:43:31 GMT")).get();
+
+        assertTrue(first instanceof ResponseCache.CachedResponse);
+        assertTrue(second instanceof ResponseCache.CachedResponse);
+        assertFalse(head instanceof ResponseCache.CachedResponse);
+        assertFalse(conditional instanceof ResponseCache.CachedResponse);
+        assertEquals("Hello", second.getBody().get().decodeBodyToString(US_ASCII));
+        assertEquals("Hello", conditional.getBody().get().decodeBodyToString(US_ASCII));
+    }
+
+    @Test
+    public void responsesIncludeEntityTag() throws IOException {
+        Path rootDir = Files.createTempDirectory(CliServerRouterTest.class.getSimpleName());
+        Files.write(rootDir.resolve("hello.txt"), "Hello".getBytes(US_ASCII));
+        CliServerRouter router = new CliServerRouter(rootDir.toFile(), "");
+        RawHttp http = new RawHttp();
+        File file = rootDir.resolve("hello.txt").toFile();
+        String etag = EntityTagUtil.strongEntityTag(file.length(), file.lastModified());
+
+        RawHttpResponse<?> response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost")).get();
+        assertEquals(200, response.getStatusCode());
+        assertEquals(singletonList(etag), response.getHeaders().get("ETag"));
+
+        response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost\r\n" +
+                "If-None-Match: \"other\", W/" + etag)).get();
+        assertEquals(304, response.getStatusCode());
+        assertEquals(singletonList(etag), response.getHeaders().get("ETag"));
+        assertFalse(response.getBody().isPresent());
+
+        // If-Modified-Since is ignored when If-None-Match is present
+        response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost\r\n" +
+                "If-None-Match: \"other\"\r\n" +
+                "If-Modified-Since: Sat, 29 Oct 2500 19:43:31 GMT")).get();
+        assertEquals(200, response.getStatusCode());
+
+        response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost\r\n" +
+                "If-Match: \"other\"")).get();
+        assertEquals(412, response.getStatusCode());
+
+        response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost\r\n" +
+                "If-Match: " + etag)).get();
+        assertEquals(200, response.getStatusCode());
+        assertEquals("Hello", response.getBody().get().decodeBodyToString(US_ASCII));
+    }
+
+    @Test
+    public void canEvaluateIfRangeCondition() throws IOException {
+        Path rootDir = Files.createTempDirectory(CliServerRouterTest.class.getSimpleName());
+        Files.write(rootDir.resolve("hello.txt"), "Hello".getBytes(US_ASCII));
+        File file = rootDir.resolve("hello.txt").toFile();
+        assertTrue(file.setLastModified(Instant.parse("1994-10-29T19:43:31.00Z").toEpochMilli()));
+        FileLocator.FileResult fileResult = new FileLocator(rootDir.toFile(), emptyMap())
+                .find("hello.txt", emptyList()).get();
+        RawHttp http = new RawHttp();
+
+        assertTrue(CliServerRouter.ifRangeMatches(
+                http.parseRequest("GET /hello.txt\r\nHost: localhost"), fileResult));
+        assertTrue(CliServerRouter.ifRangeMatches(
+                http.parseRequest("GET /hello.txt\r\nHost: localhost\r\nIf-Range: " + fileResult.entityTag), fileResult));
+        assertTrue(CliServerRouter.ifRangeMatches(
+                http.parseRequest("GET /hello.txt\r\nHost: localhost\r\nIf-Range: Sat, 29 Oct 1994 19:43:31 GMT"), fileResult));
+        assertFalse(CliServerRouter.ifRangeMatches(
+                http.parseRequest("GET /hello.txt\r\nHost: localhost\r\nIf-Range: W/" + fileResult.entityTag), fileResult));
+        assertFalse(CliServerRouter.ifRangeMatches(
+                http.parseRequest("GET /hello.txt\r\nHost: localhost\r\nIf-Range: Sun, 30 Oct 1994 19:43:31 GMT"), fileResult));
+    }
+
+    @Test
+    public void canServeRangeRequests() throws IOException {
+        Path rootDir = Files.createTempDirectory(CliServerRouterTest.class.getSimpleName());
+        Files.write(rootDir.resolve("hello.txt"), "Hello world".getBytes(US_ASCII));
+        CliServerRouter router = new CliServerRouter(rootDir.toFile(), "");
+        RawHttp http = new RawHttp();
+
+        RawHttpResponse<?> response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost")).get();
+        assertEquals(200, response.getStatusCode());
+        assertEquals(singletonList("bytes"), response.getHeaders().get("Accept-Ranges"));
+        String etag = response.getHeaders().getFirst("ETag").get();
+
+        response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost\r\n" +
+                "Range: bytes=6-")).get().eagerly();
+        assertEquals(206, response.getStatusCode());
+        assertEquals(singletonList("bytes 6-10/11"), response.getHeaders().get("Content-Range"));
+        assertEquals(singletonList("text/plain"), response.getHeaders().get("Content-Type"));
+        assertEquals(singletonList(etag), response.getHeaders().get("ETag"));
+        assertEquals("world", response.getBody().get().decodeBodyToString(US_ASCII));
+
+        response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost\r\n" +
+                "Range: bytes=-5,0-0")).get().eagerly();
+        assertEquals(206, response.getStatusCode());
+        String contentType = response.getHeaders().getFirst("Content-Type").get();
+        assertTrue(contentType, contentType.startsWith("multipart/byteranges; boundary="));
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+        assertEquals("--" + boundary + "\r\n" +
+                "Content-Type: text/plain\r\n" +
+                "Content-Range: bytes 6-10/11\r\n\r\n" +
+                "world\r\n" +
+                "--" + boundary + "\r\n" +
+                "Content-Type: text/plain\r\n" +
+                "Content-Range: bytes 0-0/11\r\n\r\n" +
+                "H\r\n" +
+                "--" + boundary + "--\r\n", response.getBody().get().decodeBodyToString(US_ASCII));
+
+        response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost\r\n" +
+                "Range: bytes=20-30")).get();
+        assertEquals(416, response.getStatusCode());
+        assertEquals(singletonList("bytes */11"), response.getHeaders().get("Content-Range"));
+
+        // invalid ranges are ignored
+        response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost\r\n" +
+                "Range: bytes=5-1")).get().eagerly();
+        assertEquals(200, response.getStatusCode());
+        assertEquals("Hello world", response.getBody().get().decodeBodyToString(US_ASCII));
+    }
+
+    @Test
+    public void rangeIsIgnoredIfRangeConditionDoesNotMatch() throws IOException {
+        Path rootDir = Files.createTempDirectory(CliServerRouterTest.class.getSimpleName());
+        Files.write(rootDir.resolve("hello.txt"), "Hello world".getBytes(US_ASCII));
+        CliServerRouter router = new CliServerRouter(rootDir.toFile(), "");
+        RawHttp http = new RawHttp();
+        File file = rootDir.resolve("hello.txt").toFile();
+        String etag = EntityTagUtil.strongEntityTag(file.length(), file.lastModified());
+
+        RawHttpResponse<?> response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost\r\n" +
+                "Range: bytes=0-4\r\nIf-Range: " + etag)).get().eagerly();
+        assertEquals(206, response.getStatusCode());
+        assertEquals("Hello", response.getBody().get().decodeBodyToString(US_ASCII));
+
+        response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost\r\n" +
+                "Range: bytes=0-4\r\nIf-Range: \"outdated\"")).get().eagerly();
+        assertEquals(200, response.getStatusCode());
+        assertEquals("Hello world", response.getBody().get().decodeBodyToString(US_ASCII));
+    }
+
+    @Test
+    public void canServePrecompressedSidecar() throws IOException {
+        Path rootDir = Files.createTempDirectory(CliServerRouterTest.class.getSimpleName());
+        Files.write(rootDir.resolve("hello.txt"), "Hello world".getBytes(US_ASCII));
+        Files.write(rootDir.resolve("hello.txt.gz"), "compressed".getBytes(US_ASCII));
+        CliServerRouter router = new CliServerRouter(rootDir.toFile(), "");
+        RawHttp http = new RawHttp();
+
+        RawHttpResponse<?> response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost\r\n" +
+                "Accept-Encoding: gzip, deflate")).get();
+        assertEquals(200, response.getStatusCode());
+        assertEquals(singletonList("gzip"), response.getHeaders().get("Content-Encoding"));
+        assertEquals(singletonList("text/plain"), response.getHeaders().get("Content-Type"));
+        assertEquals(singletonList("Accept-Encoding"), response.getHeaders().get("Vary"));
+        assertEquals(singletonList("10"), response.getHeaders().get("Content-Length"));
+        String etag = response.getHeaders().getFirst("ETag").get();
+
+        response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost\r\n" +
+                "Accept-Encoding: gzip\r\nIf-None-Match: " + etag)).get();
+        assertEquals(304, response.getStatusCode());
+        assertEquals(singletonList("Accept-Encoding"), response.getHeaders().get("Vary"));
+        assertFalse(response.getHeaders().contains("Content-Encoding"));
+
+        response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost")).get().eagerly();
+        assertEquals(200, response.getStatusCode());
+        assertFalse(response.getHeaders().contains("Content-Encoding"));
+        assertEquals(singletonList("Accept-Encoding"), response.getHeaders().get("Vary"));
+        assertEquals("Hello world", response.getBody().get().decodeBodyToString(US_ASCII));
+
+        // the identity representation does not match the ETag of the sidecar
+        response = router.route(http.parseRequest("GET /hello.txt\r\nHost: localhost\r\n" +
+                "If-None-Match: " + etag)).get();
+        assertEquals(200, response.getStatusCode());
+    }
 }
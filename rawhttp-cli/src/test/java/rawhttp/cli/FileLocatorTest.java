@@ -1,10 +1,14 @@
 package rawhttp.cli;
 
 import org.junit.Test;
+import rawhttp.core.body.FileBody;
+import rawhttp.core.body.HttpMessageBody;
+import rawhttp.core.body.MappedFileBody;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.time.ZonedDateTime;
@@ -15,11 +19,13 @@ import java.util.Optional;
 import static java.nio.file.StandardOpenOption.CREATE;
 import static java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
 
 public class FileLocatorTest {
 
@@ -147,6 +153,150 @@ public class FileLocatorTest {
         assertFalse(result.isPresent());
     }
 
+    @Test
+    public void cannotFindTemporaryFilesOfSidecarGenerator() throws IOException {
+        Files.write(rootDir.resolve("p1/.rawhttp-123.tmp"), singletonList("partial sidecar"), CREATE);
+
+        Optional<FileLocator.FileResult> result = fileLocator.find("p1/.rawhttp-123.tmp", emptyList());
+        assertFalse(result.isPresent());
+
+        result = fileLocator.find("p1/.rawhttp-123", emptyList());
+        assertFalse(result.isPresent());
+    }
+
+    @Test
+    public void smallFilesAreServedFromMappedMemory() throws IOException {
+        File file = rootDir.resolve("p1/hello.json").toFile();
+        FileLocator locator = new FileLocator(rootDir.toFile(), emptyMap(), 1024L, 1024L);
+        HttpMessageBody body = locator.bodyOf(file);
+
+        assertTrue(body instanceof MappedFileBody);
+        assertEquals("Hello JSON" + System.lineSeparator(), body.toBodyReader().decodeBodyToString(StandardCharsets.UTF_8));
+        assertEquals(file.length(), locator.getMappedBytes());
+
+        // the same mapping is used again
+        HttpMessageBody body2 = locator.bodyOf(file);
+        assertEquals("Hello JSON" + System.lineSeparator(), body2.toBodyReader().decodeBodyToString(StandardCharsets.UTF_8));
+        assertEquals(file.length(), locator.getMappedBytes());
+    }
+
+    @Test
+    public void modifiedFilesAreMappedAgain() throws IOException {
+        // mapped files cannot be modified on Windows
+        assumeFalse(FileLocator.IS_WINDOWS);
+
+        File file = rootDir.resolve("hello").toFile();
+        FileLocator locator = new FileLocator(rootDir.toFile(), emptyMap(), 1024L, 1024L);
+        MappedFileBody body = (MappedFileBody) locator.bodyOf(file);
+        assertEquals("Hello root" + System.lineSeparator(), body.toBodyReader().decodeBodyToString(StandardCharsets.UTF_8));
+
+        Files.write(file.toPath(), singletonList("Hello modified root"));
+        assertTrue(file.setLastModified(file.lastModified() + 2000L));
+
+        MappedFileBody body2 = (MappedFileBody) locator.bodyOf(file);
+        assertEquals("Hello modified root" + System.lineSeparator(), body2.toBodyReader().decodeBodyToString(StandardCharsets.UTF_8));
+        assertEquals(file.length(), locator.getMappedBytes());
+    }
+
+    @Test
+    public void leastRecentlyUsedFilesAreEvictedWhenCacheIsFull() throws IOException {
+        File hello = rootDir.resolve("hello").toFile();
+        File json = rootDir.resolve("p1/hello.json").toFile();
+        File xml = rootDir.resolve("p1/hello.xml").toFile();
+
+        // room for two of the files only
+        FileLocator locator = new FileLocator(rootDir.toFile(), emptyMap(), 1024L, json.length() + hello.length());
+
+        locator.bodyOf(json);
+        locator.bodyOf(xml);
+        locator.bodyOf(json);
+        assertEquals(json.length() + xml.length(), locator.getMappedBytes());
+
+        locator.bodyOf(hello);
+        assertEquals(json.length() + hello.length(), locator.getMappedBytes());
+    }
+
+    @Test
+    public void largeFilesAreNotMapped() throws IOException {
+        File file = rootDir.resolve("p1/hello.json").toFile();
+        FileLocator locator = new FileLocator(rootDir.toFile(), emptyMap(), file.length() - 1, 1024L);
+
+        HttpMessageBody body = locator.bodyOf(file);
+
+        assertTrue(body instanceof FileBody);
+        assertEquals("Hello JSON" + System.lineSeparator(), body.toBodyReader().decodeBodyToString(StandardCharsets.UTF_8));
+        assertEquals(0L, locator.getMappedBytes());
+    }
+
+    @Test
+    public void canSelectPrecompressedSidecar() throws IOException {
+        File json = rootDir.resolve("p1/hello.json").toFile();
+        File gzip = rootDir.resolve("p1/hello.json.gz").toFile();
+        File brotli = rootDir.resolve("p1/hello.json.br").toFile();
+        Files.write(gzip.toPath(), new byte[]{1, 2});
+        Files.write(brotli.toPath(), new byte[]{3});
+        try {
+            FileLocator.FileResult identity = fileLocator.find("p1/hello.json", emptyList()).get();
+
+            FileLocator.FileResult result = fileLocator.selectContentCoding(identity, singletonList("gzip, deflate"));
+            assertEquals(gzip, result.file);
+            assertEquals(singletonList("gzip"), result.fileHttpHeaders.get("Content-Encoding"));
+            assertEquals(singletonList("application/json"), result.fileHttpHeaders.get("Content-Type"));
+            assertEquals(singletonList("Accept-Encoding"), result.fileHttpHeaders.get("Vary"));
+            assertTrue(result.entityTag, result.entityTag.endsWith("-gzip\""));
+
+            // the preferred sidecar is selected when both are acceptable
+            result = fileLocator.selectContentCoding(identity, singletonList("gzip, br"));
+            assertEquals(brotli, result.file);
+            assertEquals(singletonList("br"), result.fileHttpHeaders.get("Content-Encoding"));
+
+            // unless the client prefers another one
+            result = fileLocator.selectContentCoding(identity, singletonList("gzip, br;q=0.5"));
+            assertEquals(gzip, result.file);
+
+            result = fileLocator.selectContentCoding(identity, singletonList("*, br;q=0"));
+            assertEquals(gzip, result.file);
+
+            // the identity file varies when sidecars exist
+            for (String acceptEncoding : new String[]{"identity", "gzip;q=0, br;q=0", "deflate"}) {
+                result = fileLocator.selectContentCoding(identity, singletonList(acceptEncoding));
+                assertEquals(acceptEncoding, json, result.file);
+                assertFalse(acceptEncoding, result.fileHttpHeaders.contains("Content-Encoding"));
+                assertEquals(acceptEncoding, singletonList("Accept-Encoding"), result.fileHttpHeaders.get("Vary"));
+                assertEquals(acceptEncoding, identity.entityTag, result.entityTag);
+            }
+            result = fileLocator.selectContentCoding(identity, emptyList());
+            assertEquals(json, result.file);
+
+            // sidecars are not alternatives to files with other extensions
+            result = fileLocator.find("p1/hello", emptyList()).get();
+            assertFalse(result.file.getName(), result.file.getName().endsWith(".gz") ||
+                    result.file.getName().endsWith(".br"));
+        } finally {
+            Files.delete(gzip.toPath());
+            Files.delete(brotli.toPath());
+        }
+    }
+
+    @Test
+    public void staleSidecarIsNotSelected() throws IOException {
+        File xml = rootDir.resolve("p1/hello.xml").toFile();
+        File gzip = rootDir.resolve("p1/hello.xml.gz").toFile();
+        Files.write(gzip.toPath(), new byte[]{1, 2});
+        try {
+            assertTrue(gzip.setLastModified(xml.lastModified() - 10_000L));
+            FileLocator.FileResult identity = fileLocator.find("p1/hello.xml", emptyList()).get();
+
+            FileLocator.FileResult result = fileLocator.selectContentCoding(identity, singletonList("gzip"));
+
+            assertEquals(xml, result.file);
+            assertFalse(result.fileHttpHeaders.contains("Content-Encoding"));
+            assertFalse(result.fileHttpHeaders.contains("Vary"));
+        } finally {
+            Files.delete(gzip.toPath());
+        }
+    }
+
     private static void assertTimestampIsWithinSecondsAgo(String value) {
         ZonedDateTime time = ZonedDateTime.from(RFC_1123_DATE_TIME.parse(value));
         long timestamp = time.toEpochSecond();
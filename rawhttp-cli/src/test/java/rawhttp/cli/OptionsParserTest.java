@@ -651,6 +651,50 @@ public class OptionsParserTest {
         }
     }
 
+    @Test
+    public void canParseServeWithPrecompressOption() throws OptionsException {
+        String[][] examples = new String[][]{
+                {"serve", "boo", "-z"}, {"serve", "another/path", "--precompress"}
+        };
+
+        for (String[] example : examples) {
+            String exampleText = Arrays.toString(example);
+
+            Options options = OptionsParser.parse(example);
+
+            ServerOptions result = options.run(c -> null, h -> null, s -> s, h -> null);
+
+            assertNotNull("Parsed server options. Example: " + exampleText, result);
+            assertTrue("Example: " + exampleText, result.precompress);
+        }
+
+        ServerOptions result = OptionsParser.parse(new String[]{"serve", "."})
+                .run(c -> null, h -> null, s -> s, h -> null);
+        assertFalse(result.precompress);
+    }
+
+    @Test
+    public void canParseServeWithMapFilesOption() throws OptionsException {
+        String[][] examples = new String[][]{
+                {"serve", "boo", "-x"}, {"serve", "another/path", "--map-files"}
+        };
+
+        for (String[] example : examples) {
+            String exampleText = Arrays.toString(example);
+
+            Options options = OptionsParser.parse(example);
+
+            ServerOptions result = options.run(c -> null, h -> null, s -> s, h -> null);
+
+            assertNotNull("Parsed server options. Example: " + exampleText, result);
+            assertTrue("Example: " + exampleText, result.mapFiles);
+        }
+
+        ServerOptions result = OptionsParser.parse(new String[]{"serve", "."})
+                .run(c -> null, h -> null, s -> s, h -> null);
+        assertFalse(result.mapFiles);
+    }
+
     @Test
     public void canParseServeWithRootPathOption() throws OptionsException {
         String[][] examples = new String[][]{
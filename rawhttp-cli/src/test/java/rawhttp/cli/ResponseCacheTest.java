@@ -0,0 +1,114 @@
+package rawhttp.cli;
+
+import org.junit.Test;
+import rawhttp.core.HttpVersion;
+import rawhttp.core.RawHttpHeaders;
+import rawhttp.core.RawHttpResponse;
+import rawhttp.core.body.FileBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseCacheTest {
+
+    private final Path rootDir;
+
+    public ResponseCacheTest() throws IOException {
+        rootDir = Files.createTempDirectory(ResponseCacheTest.class.getSimpleName());
+        Files.write(rootDir.resolve("hello.txt"), "Hello cache".getBytes(US_ASCII));
+        Files.write(rootDir.resolve("bye.txt"), "Bye cache".getBytes(US_ASCII));
+    }
+
+    private static RawHttpResponse<Void> responseFor(File file) {
+        return HttpResponses.getOkResponse(HttpVersion.HTTP_1_1)
+                .withHeaders(RawHttpHeaders.newBuilder().with("Content-Type", "text/plain").build())
+                .withBody(new FileBody(file));
+    }
+
+    private static String write(RawHttpResponse<?> response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.writeTo(out);
+        return new String(out.toByteArray(), US_ASCII);
+    }
+
+    @Test
+    public void cachedResponseIsWrittenWithCurrentDate() throws IOException {
+        ResponseCache cache = new ResponseCache();
+        File file = rootDir.resolve("hello.txt").toFile();
+
+        RawHttpResponse<Void> response = cache.put("hello", file, responseFor(file));
+        assertTrue(response instanceof ResponseCache.CachedResponse);
+
+        String message = write(response);
+        assertTrue(message, message.startsWith("HTTP/1.1 200 OK\r\n"));
+        assertTrue(message, message.endsWith("\r\n\r\nHello cache"));
+        assertTrue(message, message.contains("Content-Type: text/plain\r\n"));
+        assertTrue(message, message.contains("Content-Length: 11\r\n"));
+        assertTrue(message, message.contains("Server: RawHTTP\r\n"));
+
+        int dateStart = message.indexOf("Date: ") + "Date: ".length();
+        String date = message.substring(dateStart, message.indexOf('\r', dateStart));
+        ZonedDateTime time = ZonedDateTime.from(RFC_1123_DATE_TIME.parse(date));
+        long diff = ZonedDateTime.now().toEpochSecond() - time.toEpochSecond();
+        assertTrue("Date is not current: " + date, diff >= 0 && diff <= 2);
+
+        // the same response is returned from the cache
+        RawHttpResponse<Void> cached = cache.get("hello", file);
+        assertTrue(cached instanceof ResponseCache.CachedResponse);
+        assertEquals(message.substring(0, dateStart), write(cached).substring(0, dateStart));
+        assertEquals("Hello cache", cached.getBody().get().decodeBodyToString(US_ASCII));
+    }
+
+    @Test
+    public void modifiedFileInvalidatesCachedResponse() throws IOException {
+        ResponseCache cache = new ResponseCache();
+        File file = rootDir.resolve("hello.txt").toFile();
+        cache.put("hello", file, responseFor(file));
+
+        Files.write(file.toPath(), "Hello modified cache".getBytes(US_ASCII));
+        assertTrue(file.setLastModified(file.lastModified() + 2000L));
+
+        assertNull(cache.get("hello", file));
+        assertEquals(0L, cache.getCachedBytes());
+    }
+
+    @Test
+    public void largeResponsesAreNotCached() throws IOException {
+        ResponseCache cache = new ResponseCache(8L, 1024L);
+        File file = rootDir.resolve("hello.txt").toFile();
+
+        RawHttpResponse<Void> response = cache.put("hello", file, responseFor(file));
+
+        assertFalse(response instanceof ResponseCache.CachedResponse);
+        assertTrue(write(response).endsWith("\r\n\r\nHello cache"));
+        assertNull(cache.get("hello", file));
+    }
+
+    @Test
+    public void leastRecentlyUsedResponsesAreEvictedWhenCacheIsFull() throws IOException {
+        File hello = rootDir.resolve("hello.txt").toFile();
+        File bye = rootDir.resolve("bye.txt").toFile();
+        ResponseCache cache = new ResponseCache(1024L, 1024L);
+        long helloSize = write(cache.put("hello", hello, responseFor(hello))).length();
+
+        // room for a single response
+        cache = new ResponseCache(1024L, helloSize + 1);
+        cache.put("hello", hello, responseFor(hello));
+        cache.put("bye", bye, responseFor(bye));
+
+        assertNull(cache.get("hello", hello));
+        assertTrue(cache.get("bye", bye) instanceof ResponseCache.CachedResponse);
+    }
+
+}
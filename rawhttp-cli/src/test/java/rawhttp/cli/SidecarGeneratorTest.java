@@ -0,0 +1,83 @@
+package rawhttp.cli;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SidecarGeneratorTest {
+
+    @Test
+    public void generatesMissingAndStaleSidecarsOfCompressibleFiles() throws IOException {
+        Map<String, String> mimeMapping = new HashMap<>(4);
+        mimeMapping.put("js", "application/javascript");
+        mimeMapping.put("css", "text/css");
+        mimeMapping.put("png", "image/png");
+
+        Path rootDir = Files.createTempDirectory(SidecarGeneratorTest.class.getSimpleName());
+        Files.createDirectories(rootDir.resolve("static"));
+        byte[] script = repeat("console.log('hello');\n", 200);
+        byte[] style = repeat("body { color: red; }\n", 200);
+        Files.write(rootDir.resolve("static/app.js"), script);
+        Files.write(rootDir.resolve("static/app.css"), style);
+        Files.write(rootDir.resolve("static/small.js"), "var a = 1;".getBytes(US_ASCII));
+        Files.write(rootDir.resolve("static/image.png"), repeat("not really an image", 200));
+
+        // stale sidecar
+        Path staleSidecar = rootDir.resolve("static/app.css.gz");
+        Files.write(staleSidecar, new byte[]{1, 2, 3});
+        assertTrue(staleSidecar.toFile().setLastModified(
+                rootDir.resolve("static/app.css").toFile().lastModified() - 10_000L));
+
+        SidecarGenerator generator = new SidecarGenerator(new FileLocator(rootDir.toFile(), mimeMapping));
+
+        assertEquals(2, generator.generate());
+
+        assertArrayEquals(script, gunzip(rootDir.resolve("static/app.js.gz")));
+        assertArrayEquals(style, gunzip(staleSidecar));
+        assertFalse(Files.exists(rootDir.resolve("static/small.js.gz")));
+        assertFalse(Files.exists(rootDir.resolve("static/image.png.gz")));
+
+        // no temporary files are left behind
+        try (Stream<Path> files = Files.list(rootDir.resolve("static"))) {
+            assertEquals(6L, files.count());
+        }
+
+        // sidecars are up-to-date now
+        assertEquals(0, generator.generate());
+    }
+
+    private static byte[] repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder(text.length() * times);
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString().getBytes(US_ASCII);
+    }
+
+    private static byte[] gunzip(Path file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+}
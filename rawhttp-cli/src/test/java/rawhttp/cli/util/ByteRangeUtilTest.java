@@ -0,0 +1,78 @@
+package rawhttp.cli.util;
+
+import org.junit.Test;
+import rawhttp.core.body.ByteRange;
+
+import java.util.Optional;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+
+public class ByteRangeUtilTest {
+
+    @Test
+    public void canParseSingleRanges() {
+        assertEquals(Optional.of(singletonList(new ByteRange(0, 499))),
+                ByteRangeUtil.parseByteRanges("bytes=0-499", 1000));
+        assertEquals(Optional.of(singletonList(new ByteRange(500, 999))),
+                ByteRangeUtil.parseByteRanges("bytes=500-", 1000));
+        assertEquals(Optional.of(singletonList(new ByteRange(900, 999))),
+                ByteRangeUtil.parseByteRanges("bytes=-100", 1000));
+    }
+
+    @Test
+    public void rangesAreLimitedToTheCompleteLength() {
+        assertEquals(Optional.of(singletonList(new ByteRange(500, 999))),
+                ByteRangeUtil.parseByteRanges("bytes=500-2000", 1000));
+        assertEquals(Optional.of(singletonList(new ByteRange(0, 999))),
+                ByteRangeUtil.parseByteRanges("bytes=-2000", 1000));
+    }
+
+    @Test
+    public void canParseMultipleRanges() {
+        assertEquals(Optional.of(asList(new ByteRange(500, 599), new ByteRange(0, 9), new ByteRange(990, 999))),
+                ByteRangeUtil.parseByteRanges("bytes=500-599, 0-9 ,-10", 1000));
+    }
+
+    @Test
+    public void unsatisfiableRangesAreDropped() {
+        assertEquals(Optional.of(singletonList(new ByteRange(0, 9))),
+                ByteRangeUtil.parseByteRanges("bytes=0-9,1000-1010", 1000));
+        assertEquals(Optional.of(emptyList()),
+                ByteRangeUtil.parseByteRanges("bytes=1000-1010", 1000));
+        assertEquals(Optional.of(emptyList()),
+                ByteRangeUtil.parseByteRanges("bytes=-0", 1000));
+        assertEquals(Optional.of(emptyList()),
+                ByteRangeUtil.parseByteRanges("bytes=-10", 0));
+    }
+
+    @Test
+    public void noRangeOfAnEmptyRepresentationIsSatisfiable() {
+        assertEquals(Optional.of(emptyList()),
+                ByteRangeUtil.parseByteRanges("bytes=0-", 0));
+        assertEquals(Optional.of(emptyList()),
+                ByteRangeUtil.parseByteRanges("bytes=0-0", 0));
+        assertEquals(Optional.of(emptyList()),
+                ByteRangeUtil.parseByteRanges("bytes=0-9, -5", 0));
+        assertEquals(Optional.empty(), ByteRangeUtil.parseByteRanges("bytes=9-0", 0));
+    }
+
+    @Test
+    public void invalidOrUnsupportedRangesAreIgnored() {
+        assertEquals(Optional.empty(), ByteRangeUtil.parseByteRanges("items=0-9", 1000));
+        assertEquals(Optional.empty(), ByteRangeUtil.parseByteRanges("bytes=", 1000));
+        assertEquals(Optional.empty(), ByteRangeUtil.parseByteRanges("bytes=10", 1000));
+        assertEquals(Optional.empty(), ByteRangeUtil.parseByteRanges("bytes=9-0", 1000));
+        assertEquals(Optional.empty(), ByteRangeUtil.parseByteRanges("bytes=a-9", 1000));
+        assertEquals(Optional.empty(), ByteRangeUtil.parseByteRanges("bytes=+1-9", 1000));
+        assertEquals(Optional.empty(), ByteRangeUtil.parseByteRanges("bytes=0-9,5-15", 1000));
+        StringBuilder manyRanges = new StringBuilder("bytes=0-0");
+        for (int i = 1; i <= ByteRangeUtil.MAX_RANGES; i++) {
+            manyRanges.append(',').append(i * 2).append('-').append(i * 2);
+        }
+        assertEquals(Optional.empty(), ByteRangeUtil.parseByteRanges(manyRanges.toString(), 1000));
+    }
+
+}
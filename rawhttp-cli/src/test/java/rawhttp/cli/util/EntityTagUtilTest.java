@@ -0,0 +1,53 @@
+package rawhttp.cli.util;
+
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EntityTagUtilTest {
+
+    @Test
+    public void canCreateStrongEntityTag() {
+        assertEquals("\"400-1f4\"", EntityTagUtil.strongEntityTag(1024L, 500L));
+    }
+
+    @Test
+    public void canParseEntityTags() {
+        assertEquals(emptyList(), EntityTagUtil.parseEntityTags(""));
+        assertEquals(singletonList("\"abc\""), EntityTagUtil.parseEntityTags("\"abc\""));
+        assertEquals(asList("\"a\"", "W/\"b\"", "\"c,d\""), EntityTagUtil.parseEntityTags(" \"a\", W/\"b\" ,\"c,d\""));
+        assertEquals(singletonList("\"ok\""), EntityTagUtil.parseEntityTags("invalid, \"ok\", \"unterminated"));
+    }
+
+    @Test
+    public void strongComparisonRequiresStrongIdenticalTags() {
+        assertTrue(EntityTagUtil.anyMatchesStrongly(singletonList("\"a\", \"b\""), "\"b\""));
+        assertTrue(EntityTagUtil.anyMatchesStrongly(asList("\"x\"", "\"b\""), "\"b\""));
+        assertTrue(EntityTagUtil.anyMatchesStrongly(singletonList("*"), "\"b\""));
+        assertFalse(EntityTagUtil.anyMatchesStrongly(singletonList("W/\"b\""), "\"b\""));
+        assertFalse(EntityTagUtil.anyMatchesStrongly(singletonList("\"b\""), "W/\"b\""));
+        assertFalse(EntityTagUtil.anyMatchesStrongly(singletonList("\"c\""), "\"b\""));
+        assertFalse(EntityTagUtil.anyMatchesStrongly(emptyList(), "\"b\""));
+    }
+
+    @Test
+    public void weakComparisonIgnoresWeaknessIndicator() {
+        assertTrue(EntityTagUtil.anyMatchesWeakly(singletonList("W/\"b\""), "\"b\""));
+        assertTrue(EntityTagUtil.anyMatchesWeakly(singletonList("\"a\", \"b\""), "W/\"b\""));
+        assertTrue(EntityTagUtil.anyMatchesWeakly(singletonList("*"), "\"b\""));
+        assertFalse(EntityTagUtil.anyMatchesWeakly(singletonList("\"c\""), "\"b\""));
+    }
+
+    @Test
+    public void canTellEntityTagsFromDates() {
+        assertTrue(EntityTagUtil.isEntityTag("\"a\""));
+        assertTrue(EntityTagUtil.isEntityTag(" W/\"a\""));
+        assertFalse(EntityTagUtil.isEntityTag("Sat, 29 Oct 1994 19:43:31 GMT"));
+    }
+
+}
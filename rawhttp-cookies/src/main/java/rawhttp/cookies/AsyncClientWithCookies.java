@@ -0,0 +1,67 @@
+package rawhttp.cookies;
+
+import rawhttp.core.RawHttpRequest;
+import rawhttp.core.RawHttpResponse;
+import rawhttp.core.client.AsyncRawHttpClient;
+
+import java.io.IOException;
+import java.net.CookieHandler;
+import java.net.CookieManager;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * An {@link AsyncRawHttpClient} that wraps another {@link AsyncRawHttpClient}, adding support for cookies to it.
+ * <p>
+ * Cookies are handled in the same way as by {@link ClientOptionsWithCookies}: the relevant cookies are added to each
+ * request before it is sent, and cookies sent by the server are given to the {@link CookieHandler} once the response
+ * is received.
+ * <p>
+ * To also store cookies sent in redirect responses, this client should be wrapped by a
+ * {@link rawhttp.core.client.RedirectingAsyncRawHttpClient}, not the other way around.
+ *
+ * @param <Response> type of response
+ * @see ClientOptionsWithCookies
+ */
+public class AsyncClientWithCookies<Response> implements AsyncRawHttpClient<Response> {
+
+    private final CookieHandler cookieHandler;
+    private final AsyncRawHttpClient<Response> delegate;
+
+    public AsyncClientWithCookies(AsyncRawHttpClient<Response> delegate) {
+        this(new CookieManager(), delegate);
+    }
+
+    public AsyncClientWithCookies(CookieHandler cookieHandler, AsyncRawHttpClient<Response> delegate) {
+        this.cookieHandler = cookieHandler;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Adds the relevant cookies to the request before sending it, then adds any cookies sent by the server in
+     * the response to the cookie handler.
+     *
+     * @param request HTTP request
+     * @return future HTTP response
+     */
+    @Override
+    public CompletableFuture<RawHttpResponse<Response>> sendAsync(RawHttpRequest request) {
+        RawHttpRequest requestWithCookies;
+        try {
+            requestWithCookies = ClientOptionsWithCookies.addCookies(cookieHandler, request);
+        } catch (IOException e) {
+            CompletableFuture<RawHttpResponse<Response>> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+        return delegate.sendAsync(requestWithCookies).thenApply(response -> {
+            try {
+                cookieHandler.put(request.getUri(), response.getHeaders().asMap());
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            return response;
+        });
+    }
+
+}
@@ -66,7 +66,7 @@ public class ClientOptionsWithCookies implements TcpRawHttpClient.TcpRawHttpClie
      */
     @Override
     public RawHttpRequest onRequest(RawHttpRequest httpRequest) throws IOException {
-        return delegate.onRequest(addCookies(httpRequest));
+        return delegate.onRequest(addCookies(cookieHandler, httpRequest));
     }
 
     /**
@@ -84,7 +84,23 @@ public class ClientOptionsWithCookies implements TcpRawHttpClient.TcpRawHttpClie
         return delegate.onResponse(socket, uri, httpResponse);
     }
 
-    private RawHttpRequest addCookies(RawHttpRequest request) throws IOException {
+    /**
+     * Adds any cookies sent by the server in the given pipelined httpResponse to the cookie handler.
+     *
+     * @param socket       the socket used to send out the pipelined HTTP requests
+     * @param uri          used to make the HTTP request
+     * @param httpResponse the HTTP response received from the server
+     * @return the httpResponse
+     * @throws IOException if any communication problem occurs
+     */
+    @Override
+    public RawHttpResponse<Void> onPipelinedResponse(Socket socket, URI uri, RawHttpResponse<Void> httpResponse)
+            throws IOException {
+        cookieHandler.put(uri, httpResponse.getHeaders().asMap());
+        return delegate.onPipelinedResponse(socket, uri, httpResponse);
+    }
+
+    static RawHttpRequest addCookies(CookieHandler cookieHandler, RawHttpRequest request) throws IOException {
         RawHttpHeaders headers = request.getHeaders();
         Set<Map.Entry<String, List<String>>> cookies = cookieHandler.get(request.getUri(), headers.asMap()).entrySet();
 
@@ -103,6 +119,16 @@ public class ClientOptionsWithCookies implements TcpRawHttpClient.TcpRawHttpClie
         return request;
     }
 
+    @Override
+    public void beforeSend(Socket socket, RawHttpRequest httpRequest) {
+        delegate.beforeSend(socket, httpRequest);
+    }
+
+    @Override
+    public void removeSocket(Socket socket) {
+        delegate.removeSocket(socket);
+    }
+
     @Override
     public void close() throws IOException {
         delegate.close();
@@ -9,6 +9,7 @@ import rawhttp.core.RawHttp.waitForPortToBeTaken
 import rawhttp.core.RawHttpHeaders
 import rawhttp.core.RawHttpResponse
 import rawhttp.core.body.StringBody
+import rawhttp.core.client.NioRawHttpClient
 import rawhttp.core.client.TcpRawHttpClient
 import rawhttp.core.server.TcpRawHttpServer
 import java.net.CookieManager
@@ -17,6 +18,7 @@ import java.net.HttpCookie
 import java.net.Socket
 import java.time.Duration
 import java.util.Optional
+import java.util.concurrent.TimeUnit
 
 class ClientCookiesTest {
 
@@ -112,6 +114,28 @@ class ClientCookiesTest {
         headersResponse.headers["Cookie"] shouldBe listOf("foo=bar; abc=def")
     }
 
+    @Test
+    fun asyncClientKeepsCookiesBetweenRequests() {
+        NioRawHttpClient().use { nioClient ->
+            val client = AsyncClientWithCookies(nioClient)
+
+            // ask the server to set a cookie
+            val response = client.sendAsync(HTTP.parseRequest("""
+                POST http://localhost:$port/cookies HTTP/1.1
+            """.trimIndent()).withBody(StringBody("path=/&name=foo&value=bar"))).get(5, TimeUnit.SECONDS)
+
+            response.statusCode shouldBe 200
+            response.headers["Set-Cookie"] shouldBe listOf("""foo="bar"; Path=/""")
+
+            // make a normal request that returns the headers we sent
+            val headersResponse = client.sendAsync(HTTP.parseRequest("GET http://localhost:$port/headers"))
+                .get(5, TimeUnit.SECONDS)
+
+            headersResponse.statusCode shouldBe 200
+            headersResponse.headers["Cookie"] shouldBe listOf("foo=bar")
+        }
+    }
+
     /**
      * According to MDN <a href="https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Set-Cookie">Set-Cookie</a>
      * docs:
@@ -0,0 +1,213 @@
+package rawhttp.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * A buffered {@link InputStream} that lets {@link HttpMetadataParser} scan HTTP metadata in bulk, rather than
+ * reading it one byte at a time.
+ * <p>
+ * Bytes that are buffered but not consumed by the parser remain in this stream, so they can be read by the body
+ * reader of a HTTP message, or by the parser of the next HTTP message. For this reason, a single instance of this
+ * class should be used for all HTTP messages read from the same connection, as in the example below:
+ *
+ * <pre>{@code
+ * InputStream in = new BufferedHttpInputStream(socket.getInputStream());
+ * RawHttpRequest request = http.parseRequest(in);
+ * ...
+ * // on the same connection, parse the next request with the same stream
+ * RawHttpRequest nextRequest = http.parseRequest(in);
+ * }</pre>
+ * <p>
+ * When a {@link RawHttp} or {@link HttpMetadataParser} method is given any other kind of {@link InputStream}, it
+ * never reads ahead of the HTTP metadata, but it also cannot take advantage of bulk scanning.
+ */
+public class BufferedHttpInputStream extends InputStream {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+
+    /**
+     * Buffered bytes, from {@link #position} (inclusive) to {@link #limit} (exclusive).
+     */
+    protected byte[] buffer;
+
+    /**
+     * The index of the next byte to be read from the buffer.
+     */
+    protected int position;
+
+    /**
+     * The index one greater than the index of the last valid byte in the buffer.
+     */
+    protected int limit;
+
+    /**
+     * Create a buffered stream with the default buffer size.
+     *
+     * @param in the underlying stream
+     */
+    public BufferedHttpInputStream(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a buffered stream with the given buffer size.
+     *
+     * @param in         the underlying stream
+     * @param bufferSize the buffer size, must be positive
+     */
+    public BufferedHttpInputStream(InputStream in, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Constructor for sub-types that provide bytes by overriding {@link #readFromSource(byte[], int, int)}.
+     *
+     * @param buffer the initial buffer
+     */
+    protected BufferedHttpInputStream(byte[] buffer) {
+        this.in = null;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Get a {@link BufferedHttpInputStream} that reads from the given stream.
+     * <p>
+     * If the stream is already a {@link BufferedHttpInputStream}, it is returned as it is. Otherwise, it's wrapped
+     * into a stream that never reads more bytes from the given stream than are actually consumed, so that the
+     * given stream may continue to be used as before.
+     *
+     * @param stream to read from
+     * @return buffered stream
+     */
+    static BufferedHttpInputStream of(InputStream stream) {
+        if (stream instanceof BufferedHttpInputStream) {
+            return (BufferedHttpInputStream) stream;
+        }
+        return new BufferedHttpInputStream(stream, 1);
+    }
+
+    /**
+     * Read bytes from the source of this stream.
+     * <p>
+     * This method must block until at least one byte is available, or the end of the stream is reached.
+     *
+     * @param bytes  destination
+     * @param offset start offset in the destination array
+     * @param length maximum number of bytes to read
+     * @return number of bytes read, or -1 if the end of the stream has been reached
+     * @throws IOException if an error occurs while reading
+     */
+    protected int readFromSource(byte[] bytes, int offset, int length) throws IOException {
+        return in.read(bytes, offset, length);
+    }
+
+    /**
+     * Make sure there are bytes available in the buffer, reading from the source if necessary.
+     *
+     * @return number of bytes available in the buffer, or -1 if the end of the stream has been reached
+     * @throws IOException if an error occurs while reading
+     */
+    protected final int fill() throws IOException {
+        if (position < limit) {
+            return limit - position;
+        }
+        position = limit = 0;
+        int count;
+        do {
+            count = readFromSource(buffer, 0, buffer.length);
+        } while (count == 0);
+        if (count < 0) {
+            return -1;
+        }
+        limit = count;
+        return count;
+    }
+
+    /**
+     * Un-read the last byte read by {@link #read()}.
+     * <p>
+     * Must only be called immediately after a call to {@link #read()} that did not return -1.
+     */
+    void unread() {
+        assert position > 0;
+        position--;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position >= limit && fill() < 0) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int available = limit - position;
+        if (available <= 0) {
+            if (len >= buffer.length) {
+                // no point in copying the bytes through the buffer
+                return readFromSource(b, off, len);
+            }
+            available = fill();
+            if (available < 0) {
+                return -1;
+            }
+        }
+        int count = Math.min(available, len);
+        System.arraycopy(buffer, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        int available = limit - position;
+        if (available <= 0) {
+            return in == null ? super.skip(n) : in.skip(n);
+        }
+        int count = (int) Math.min(available, n);
+        position += count;
+        return count;
+    }
+
+    /**
+     * Take the bytes that have been buffered, but not read yet, out of this stream.
+     * <p>
+     * This is useful when the connection stops being used for HTTP, e.g. when it becomes a tunnel after a CONNECT
+     * request, as the bytes sent after the last HTTP message may already be in the buffer.
+     *
+     * @return the buffered bytes, which can no longer be read from this stream
+     */
+    public byte[] takeBuffered() {
+        byte[] bytes = Arrays.copyOfRange(buffer, position, Math.max(position, limit));
+        position = limit;
+        return bytes;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (limit - position) + (in == null ? 0 : in.available());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package rawhttp.core;
 
+import rawhttp.core.body.BodyConsumer;
 import rawhttp.core.body.BodyReader;
+import rawhttp.core.body.BufferPool;
+import rawhttp.core.body.EagerBodyReader;
+import rawhttp.core.body.GatheringWriteTarget;
 import rawhttp.core.body.HttpMessageBody;
 
 import javax.annotation.Nullable;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.function.BiFunction;
 
 /**
@@ -144,21 +149,118 @@ public abstract class HttpMessage implements Writable {
 
     /**
      * Write this HTTP message to the given output.
+     * <p>
+     * The start-line and headers are assembled into a single pooled buffer, so that the message head is written
+     * with a single write. Small bodies of known length are appended to the same buffer, and bodies that are already
+     * in memory are written together with the head via {@link GatheringWriteTarget#write(ByteBuffer[])} if the
+     * output supports it. As a result, small messages reach the output with a single write, and buffered outputs
+     * never have to be flushed in the middle of a message.
+     * <p>
+     * This method does not flush the output.
      *
      * @param out        to write this HTTP message to
      * @param bufferSize size of the buffer to use for writing
      * @throws IOException if an error occurs while writing the message
      */
     public void writeTo(OutputStream out, int bufferSize) throws IOException {
-        // Write all metadata to a buffer in memory before flushing it all at once to the real Stream.
-        // This is a lot more efficient than emitting a few bytes at a time.
-        ByteArrayOutputStream metadata = new ByteArrayOutputStream(Math.min(bufferSize, 4096));
-        getStartLine().writeTo(metadata);
-        getHeaders().writeTo(metadata);
-        metadata.writeTo(out);
-        Optional<? extends BodyReader> body = getBody();
-        if (body.isPresent()) {
-            body.get().writeTo(out, bufferSize);
+        if (bufferSize <= 0) {
+            bufferSize = BodyConsumer.DEFAULT_BUFFER_SIZE;
+        }
+        HeadBuffer head = new HeadBuffer(getBufferPool(), Math.min(bufferSize, 4096));
+        try {
+            getStartLine().writeTo(head);
+            getHeaders().writeTo(head);
+            Optional<? extends BodyReader> body = getBody();
+            if (!body.isPresent()) {
+                head.writeTo(out);
+            } else if (body.get() instanceof EagerBodyReader && ((EagerBodyReader) body.get()).isInMemory()) {
+                byte[] bodyBytes = ((EagerBodyReader) body.get()).asRawBytes();
+                if (head.size() + bodyBytes.length <= bufferSize) {
+                    head.write(bodyBytes);
+                    head.writeTo(out);
+                } else if (out instanceof GatheringWriteTarget) {
+                    ((GatheringWriteTarget) out).write(new ByteBuffer[]{
+                            head.asByteBuffer(), ByteBuffer.wrap(bodyBytes)});
+                } else {
+                    head.writeTo(out);
+                    out.write(bodyBytes);
+                }
+            } else {
+                OptionalLong bodyLength = body.get().getLengthIfKnown();
+                if (bodyLength.isPresent() && head.size() + bodyLength.getAsLong() <= bufferSize) {
+                    body.get().writeTo(head, bufferSize);
+                    head.writeTo(out);
+                } else {
+                    head.writeTo(out);
+                    body.get().writeTo(out, bufferSize);
+                }
+            }
+        } finally {
+            head.release();
+        }
+    }
+
+    private BufferPool getBufferPool() {
+        StartLine startLine = getStartLine();
+        if (startLine instanceof RequestLine) {
+            return ((RequestLine) startLine).getOptions().getBufferPool();
+        }
+        if (startLine instanceof StatusLine) {
+            return ((StatusLine) startLine).getOptions().getBufferPool();
+        }
+        return BufferPool.defaultPool();
+    }
+
+    /**
+     * Growable in-memory output using buffers from a {@link BufferPool}.
+     */
+    private static final class HeadBuffer extends OutputStream {
+
+        private final BufferPool bufferPool;
+        private byte[] buffer;
+        private int size;
+
+        HeadBuffer(BufferPool bufferPool, int initialSize) {
+            this.bufferPool = bufferPool;
+            this.buffer = bufferPool.acquire(initialSize);
+        }
+
+        int size() {
+            return size;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(size + 1);
+            buffer[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(size + len);
+            System.arraycopy(b, off, buffer, size, len);
+            size += len;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(buffer, 0, size);
+        }
+
+        ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(buffer, 0, size);
+        }
+
+        void release() {
+            bufferPool.release(buffer);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > buffer.length) {
+                byte[] newBuffer = bufferPool.acquire(Math.max(capacity, buffer.length * 2));
+                System.arraycopy(buffer, 0, newBuffer, 0, size);
+                bufferPool.release(buffer);
+                buffer = newBuffer;
+            }
         }
     }
 
@@ -4,16 +4,15 @@ import rawhttp.core.errors.InvalidHttpRequest;
 import rawhttp.core.errors.InvalidHttpResponse;
 
 import javax.annotation.Nullable;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PushbackInputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -23,6 +22,7 @@ import java.util.function.BiFunction;
 import java.util.regex.Pattern;
 
 import static java.net.URLDecoder.decode;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
 
 /**
  * Parser of HTTP messages' metadata lines, i.e. start-line and header fields.
@@ -68,7 +68,7 @@ public final class HttpMetadataParser {
      */
     public RawHttpHeaders parseHeaders(InputStream inputStream,
                                        BiFunction<String, Integer, RuntimeException> createError) throws IOException {
-        RawHttpHeaders headers = buildHeaders(inputStream, createError).build();
+        RawHttpHeaders headers = buildHeaders(inputStream, createError);
         options.getHttpHeadersOptions().getHeadersValidator().accept(headers);
         return headers;
     }
@@ -81,7 +81,7 @@ public final class HttpMetadataParser {
      * @throws IOException if an error occurs while consuming the stream
      */
     public RequestLine parseRequestLine(InputStream inputStream) throws IOException {
-        return buildRequestLine(parseStartLine(inputStream,
+        return buildRequestLine(parseStartLine(BufferedHttpInputStream.of(inputStream),
                 InvalidHttpRequest::new,
                 options.allowIllegalStartLineCharacters() || options.ignoreLeadingEmptyLine()));
     }
@@ -191,7 +191,7 @@ public final class HttpMetadataParser {
      * @throws IOException         if an error occurs while consuming the stream
      */
     public StatusLine parseStatusLine(InputStream inputStream) throws IOException {
-        return buildStatusLine(parseStartLine(inputStream,
+        return buildStatusLine(parseStartLine(BufferedHttpInputStream.of(inputStream),
                 InvalidHttpResponse::new,
                 options.allowIllegalStartLineCharacters() || options.ignoreLeadingEmptyLine()));
     }
@@ -261,30 +261,58 @@ public final class HttpMetadataParser {
             throw new InvalidHttpResponse("Invalid status code", 1);
         }
 
-        return new StatusLine(version, Integer.parseInt(statusCode), reason);
+        return new StatusLine(version, Integer.parseInt(statusCode), reason, options);
     }
 
-    private RawHttpHeaders.Builder buildHeaders(
+    private RawHttpHeaders buildHeaders(
             InputStream stream,
             BiFunction<String, Integer, RuntimeException> createError) throws IOException {
-        RawHttpHeaders.Builder builder = RawHttpHeaders.newBuilderSkippingValidation()
-                .withHeaderValuesCharset(options.getHttpHeadersOptions().getHeaderValuesCharset());
+        Charset charset = options.getHttpHeadersOptions().getHeaderValuesCharset();
+        HeaderParserState state = new HeaderParserState(BufferedHttpInputStream.of(stream),
+                RawHttpHeaders.isAsciiCompatible(charset));
 
-        HeaderParserState state = new HeaderParserState(new PushbackInputStream(stream));
-        Map.Entry<String, String> header;
-        while ((header = parseHeaderField(state, createError)) != null) {
-            builder.with(header.getKey(), header.getValue());
+        //noinspection StatementWithEmptyBody
+        while (parseHeaderField(state, createError)) {
+            // each header field is added to the header block
         }
-        return builder;
+
+        return RawHttpHeaders.fromHeaderBlock(state.block.bytes, state.block.length,
+                state.offsets, state.count, charset);
     }
 
-    private String parseStartLine(InputStream inputStream,
+    private String parseStartLine(BufferedHttpInputStream inputStream,
                                   BiFunction<String, Integer, RuntimeException> createError,
                                   boolean skipLeadingNewLine) throws IOException {
-        StringBuilder metadataBuilder = new StringBuilder();
+        ByteAccumulator metadataBuilder = new ByteAccumulator(64);
         final boolean allowNewLineWithoutReturn = options.allowNewLineWithoutReturn();
-        int b;
-        while ((b = inputStream.read()) >= 0) {
+
+        while (inputStream.fill() > 0) {
+            final byte[] buffer = inputStream.buffer;
+            final int limit = inputStream.limit;
+            final int start = inputStream.position;
+            int index = start;
+
+            // scan all bytes that belong in the start-line in one go
+            while (index < limit) {
+                int b = buffer[index] & 0xFF;
+                if (b == ' ' || FieldValues.isAllowedInVCHARs(b)) {
+                    index++;
+                } else {
+                    break;
+                }
+            }
+            if (index > start) {
+                metadataBuilder.append(buffer, start, index);
+                skipLeadingNewLine = false;
+            }
+            if (index == limit) {
+                inputStream.position = limit;
+                continue;
+            }
+
+            int b = buffer[index] & 0xFF;
+            inputStream.position = index + 1;
+
             if (b == '\r') {
                 // expect new-line
                 int next = inputStream.read();
@@ -311,46 +339,54 @@ public final class HttpMetadataParser {
                 // unexpected, but let's accept new-line without returns
                 break;
             } else {
-                char c = (char) b;
-                if (c == ' ' || FieldValues.isAllowedInVCHARs(c)) {
-                    metadataBuilder.append(c);
-                } else {
-                    throw createError.apply("Illegal character in HTTP start line", 1);
-                }
+                throw createError.apply("Illegal character in HTTP start line", 1);
             }
-            skipLeadingNewLine = false;
         }
 
-        return metadataBuilder.toString();
+        return metadataBuilder.toString(ISO_8859_1);
     }
 
-    @Nullable
-    private Map.Entry<String, String> parseHeaderField(HeaderParserState state,
-                                                       BiFunction<String, Integer, RuntimeException> createError)
+    private boolean parseHeaderField(HeaderParserState state,
+                                     BiFunction<String, Integer, RuntimeException> createError)
             throws IOException {
-        @Nullable
-        String headerName = parseHeaderName(state, createError);
+        final ByteAccumulator block = state.block;
+        final int nameStart = block.length;
 
-        if (headerName == null) {
-            return null;
+        if (!parseHeaderName(state, createError)) {
+            return false;
         }
 
-        String headerValue = parseHeaderValue(state, createError);
+        block.append(':');
+        block.append(' ');
+        final int valueStart = block.length;
+
+        parseHeaderValue(state, createError);
 
-        return new AbstractMap.SimpleEntry<>(headerName, headerValue);
+        if (state.trimValues) {
+            block.trimFrom(valueStart);
+        }
+        block.append('\r');
+        block.append('\n');
+        state.addHeaderField(nameStart, valueStart);
+        return true;
     }
 
-    private String parseHeaderName(HeaderParserState state,
+    /**
+     * Parse a header name, adding it to the header block.
+     *
+     * @return true if a header name was parsed, false if the end of the headers was reached
+     */
+    private boolean parseHeaderName(HeaderParserState state,
                                    BiFunction<String, Integer, RuntimeException> createError)
             throws IOException {
-        InputStream inputStream = state.pbStream;
+        final BufferedHttpInputStream inputStream = state.stream;
         int b = inputStream.read();
 
         if (b == '\r') {
             // expect new-line
             int next = inputStream.read();
             if (next < 0 || next == '\n') {
-                return null; // end of headers stream
+                return false; // end of headers stream
             }
         } else if (b == '#' && options.allowComments()) {
             // consume the comment and continue
@@ -360,66 +396,119 @@ public final class HttpMetadataParser {
                     break;
                 }
             }
-            if (b < 0) return null; // EOF
+            if (b < 0) return false; // EOF
         }
 
         final boolean allowNewLineWithoutReturn = options.allowNewLineWithoutReturn();
 
         if (b == '\n') {
             if (allowNewLineWithoutReturn) {
-                return null; // end of headers stream
+                return false; // end of headers stream
             } else {
                 inputStream.close();
                 throw createError.apply("Illegal new-line character", state.lineNumber);
             }
         }
         if (b < 0) {
-            return null; // EOF
+            return false; // EOF
         }
 
-        String headerName = "";
-        StringBuilder metadataBuilder = new StringBuilder();
+        final ByteAccumulator metadataBuilder = state.block;
+        final int nameStart = metadataBuilder.length;
         int length = 0;
         final int lengthLimit = options.getHttpHeadersOptions().getMaxHeaderNameLength();
 
-        do {
-            length++;
+        if (b == '\r') {
+            // a return not followed by a new-line cannot start a header name
+            throw createError.apply("Invalid header: missing the ':' separator", state.lineNumber);
+        }
 
-            char c = (char) b;
-            if (c == ':') {
-                headerName = metadataBuilder.toString();
-                if (headerName.isEmpty()) {
-                    throw createError.apply("Header name is missing", state.lineNumber);
-                }
-                break;
-            } else if (c == '\n' || c == '\r') {
-                throw createError.apply("Invalid header: missing the ':' separator", state.lineNumber);
-            } else {
-                if (length > lengthLimit) {
-                    throw createError.apply("Header name is too long", state.lineNumber);
-                }
-                if (FieldValues.isAllowedInTokens(c)) {
-                    metadataBuilder.append(c);
+        // the first byte of the header name was just read, so it's still in the buffer
+        inputStream.unread();
+
+        while (inputStream.fill() > 0) {
+            final byte[] buffer = inputStream.buffer;
+            final int limit = inputStream.limit;
+            final int start = inputStream.position;
+
+            for (int index = start; index < limit; index++) {
+                b = buffer[index] & 0xFF;
+                length++;
+
+                if (b == ':') {
+                    inputStream.position = index + 1;
+                    metadataBuilder.append(buffer, start, index);
+                    if (metadataBuilder.length == nameStart) {
+                        throw createError.apply("Header name is missing", state.lineNumber);
+                    }
+                    return true;
+                } else if (b == '\n' || b == '\r') {
+                    inputStream.position = index + 1;
+                    throw createError.apply("Invalid header: missing the ':' separator", state.lineNumber);
                 } else {
-                    throw createError.apply("Illegal character in HTTP header name", state.lineNumber);
+                    if (length > lengthLimit) {
+                        inputStream.position = index + 1;
+                        throw createError.apply("Header name is too long", state.lineNumber);
+                    }
+                    if (!FieldValues.isAllowedInTokens(b)) {
+                        inputStream.position = index + 1;
+                        throw createError.apply("Illegal character in HTTP header name", state.lineNumber);
+                    }
                 }
             }
-        } while ((b = inputStream.read()) >= 0);
 
-        return metadataBuilder.toString().trim();
+            metadataBuilder.append(buffer, start, limit);
+            inputStream.position = limit;
+        }
+
+        // EOF
+        return true;
     }
 
-    private String parseHeaderValue(HeaderParserState state,
+    /**
+     * Parse a header value, adding it to the header block.
+     */
+    private void parseHeaderValue(HeaderParserState state,
                                     BiFunction<String, Integer, RuntimeException> createError)
             throws IOException {
-        final PushbackInputStream inputStream = state.pbStream;
+        final BufferedHttpInputStream inputStream = state.stream;
         final int lengthLimit = options.getHttpHeadersOptions().getMaxHeaderValueLength();
         final boolean allowNewLineWithoutReturn = options.allowNewLineWithoutReturn();
-        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(lengthLimit, 64));
+        final ByteAccumulator out = state.block;
         int length = 0;
-        int b;
 
-        while ((b = inputStream.read()) >= 0) {
+        while (inputStream.fill() > 0) {
+            final byte[] buffer = inputStream.buffer;
+            final int limit = inputStream.limit;
+            final int start = inputStream.position;
+            int index = start;
+
+            // scan all bytes that belong in the header value in one go
+            while (index < limit) {
+                int b = buffer[index] & 0xFF;
+                if (b == '\r' || b == '\n') {
+                    break;
+                }
+                if (length > lengthLimit) {
+                    inputStream.position = index + 1;
+                    throw createError.apply("Header value is too long", state.lineNumber);
+                }
+                if (!FieldValues.isAllowedInHeaderValue(b)) {
+                    inputStream.position = index + 1;
+                    throw createError.apply("Illegal character in HTTP header value", state.lineNumber);
+                }
+                length++;
+                index++;
+            }
+            out.append(buffer, start, index);
+            if (index == limit) {
+                inputStream.position = limit;
+                continue;
+            }
+
+            int b = buffer[index] & 0xFF;
+            inputStream.position = index + 1;
+
             if (b == '\r') {
                 // expect new-line
                 int next = inputStream.read();
@@ -434,14 +523,14 @@ public final class HttpMetadataParser {
                     // if multi-line header, continue as if nothing happened
                     if (!isMultilineHeader) {
                         // otherwise, return the byte and finish this header
-                        inputStream.unread(next);
+                        inputStream.unread();
                         break;
                     }
                 } else {
                     inputStream.close();
                     throw createError.apply("Illegal character after return", state.lineNumber);
                 }
-            } else if (b == '\n') {
+            } else {
                 if (!allowNewLineWithoutReturn) {
                     inputStream.close();
                     throw createError.apply("Illegal new-line character without preceding return", state.lineNumber);
@@ -454,30 +543,14 @@ public final class HttpMetadataParser {
                 int next = inputStream.read();
                 if (next < 0) break;
                 boolean isMultilineHeader = (next == ' ' || next == '\t');
-                // if multi-line header, continue as if nothing happened
                 if (!isMultilineHeader) {
-                    // otherwise, return the byte and finish this header
-                    inputStream.unread(next);
-                    break;
+                    // return the byte and finish this header
+                    inputStream.unread();
                 }
                 break;
-            } else {
-                if (length > lengthLimit) {
-                    throw createError.apply("Header value is too long", state.lineNumber);
-                }
-
-                if (FieldValues.isAllowedInHeaderValue(b)) {
-                    out.write(b);
-                } else {
-                    throw createError.apply("Illegal character in HTTP header value", state.lineNumber);
-                }
             }
             length++;
         }
-
-        Charset charset = options.getHttpHeadersOptions().getHeaderValuesCharset();
-
-        return new String(out.toByteArray(), charset).trim();
     }
 
     /**
@@ -589,11 +662,80 @@ public final class HttpMetadataParser {
     }
 
     private static final class HeaderParserState {
-        final PushbackInputStream pbStream;
+        final BufferedHttpInputStream stream;
+        final boolean trimValues;
+        final ByteAccumulator block = new ByteAccumulator(256);
+        int[] offsets = new int[16];
+        int count;
         int lineNumber = 1;
 
-        public HeaderParserState(PushbackInputStream pbStream) {
-            this.pbStream = pbStream;
+        public HeaderParserState(BufferedHttpInputStream stream, boolean trimValues) {
+            this.stream = stream;
+            this.trimValues = trimValues;
+        }
+
+        void addHeaderField(int nameStart, int valueStart) {
+            if (2 * count + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[2 * count] = nameStart;
+            offsets[2 * count + 1] = valueStart;
+            count++;
+        }
+    }
+
+    /**
+     * Growable byte array, similar to {@link java.io.ByteArrayOutputStream} but without synchronization
+     * or defensive copies.
+     */
+    private static final class ByteAccumulator {
+        byte[] bytes;
+        int length;
+
+        ByteAccumulator(int initialCapacity) {
+            this.bytes = new byte[initialCapacity];
+        }
+
+        void append(byte[] source, int start, int end) {
+            int count = end - start;
+            if (count <= 0) {
+                return;
+            }
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+            }
+            System.arraycopy(source, start, bytes, length, count);
+            length += count;
+        }
+
+        void append(int b) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = (byte) b;
+        }
+
+        /**
+         * Remove leading and trailing whitespace (as in {@link String#trim()}) from the bytes starting at the
+         * given index.
+         */
+        void trimFrom(int start) {
+            int end = length;
+            while (end > start && (bytes[end - 1] & 0xFF) <= ' ') {
+                end--;
+            }
+            int firstNonBlank = start;
+            while (firstNonBlank < end && (bytes[firstNonBlank] & 0xFF) <= ' ') {
+                firstNonBlank++;
+            }
+            if (firstNonBlank > start) {
+                System.arraycopy(bytes, firstNonBlank, bytes, start, end - firstNonBlank);
+            }
+            length = start + (end - firstNonBlank);
+        }
+
+        String toString(Charset charset) {
+            return new String(bytes, 0, length, charset);
         }
     }
 }
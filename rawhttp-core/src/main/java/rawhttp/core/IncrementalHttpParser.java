@@ -0,0 +1,494 @@
+package rawhttp.core;
+
+import rawhttp.core.body.ChunkedBodyParser;
+import rawhttp.core.body.FramedBody;
+import rawhttp.core.errors.InvalidHttpRequest;
+import rawhttp.core.errors.InvalidHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A non-blocking, resumable parser of HTTP messages.
+ * <p>
+ * Unlike {@link RawHttp#parseRequest(InputStream)} and {@link RawHttp#parseResponse(InputStream)}, this parser
+ * does not read from a blocking {@link InputStream}. Instead, bytes are pushed into it, in fragments of any size,
+ * via {@link #feed(ByteBuffer)}, and the parser emits events to its {@link Listener} as soon as enough bytes have
+ * arrived. This makes it possible to parse HTTP messages in NIO-based or reactive applications.
+ * <p>
+ * Any number of HTTP messages may be fed to the same parser (e.g. pipelined requests on a single connection).
+ * <p>
+ * The start-line, headers and trailer-part are validated by the {@link HttpMetadataParser} and
+ * {@link ChunkedBodyParser} configured with the {@link RawHttpOptions} of the given {@link RawHttp} instance,
+ * so they are accepted or rejected as by the blocking parsing methods. Only those bytes are copied by
+ * this parser: body data is emitted as slices of the buffers fed into it.
+ * <p>
+ * As the bytes of the metadata are kept until a whole block of lines has arrived, no line may be longer than the
+ * longest header line allowed by {@link RawHttpOptions.HttpHeadersOptions}, which is checked as each byte arrives.
+ * Headers and trailers exceeding the limits fail with the same errors as with the blocking parsing methods, but
+ * unlike them, this parser also applies that limit to the start-line and to chunk-size lines.
+ * <p>
+ * Instances of this class are not thread-safe.
+ *
+ * @param <S> type of start-line of the messages being parsed
+ */
+public final class IncrementalHttpParser<S extends StartLine> {
+
+    /**
+     * Listener of the events emitted by a {@link IncrementalHttpParser}.
+     * <p>
+     * For each HTTP message, the following events are emitted, in order:
+     * <ul>
+     *     <li>{@link #onStartLine(StartLine)} and {@link #onHeaders(RawHttpHeaders)}, once.</li>
+     *     <li>{@link #onBodyData(ByteBuffer)}, once for each slice of body data received, if any.</li>
+     *     <li>{@link #onTrailer(RawHttpHeaders)}, once, only if the message is chunked.</li>
+     *     <li>{@link #onMessageEnd()}, once.</li>
+     * </ul>
+     *
+     * @param <S> type of start-line of the messages being parsed
+     */
+    public interface Listener<S extends StartLine> {
+
+        /**
+         * Called when the start-line of a message has been parsed.
+         *
+         * @param startLine the start-line
+         */
+        void onStartLine(S startLine);
+
+        /**
+         * Called when the headers of a message have been parsed.
+         *
+         * @param headers the headers
+         */
+        void onHeaders(RawHttpHeaders headers);
+
+        /**
+         * Called when data belonging to the body of a message has been received.
+         * <p>
+         * The data does not include any framing (e.g. chunk-size lines) and is not decoded, i.e. if the message
+         * has a {@code Content-Encoding}, it must still be decoded by the listener.
+         * <p>
+         * The given buffer is a view of a buffer fed into the parser, so it is only valid during this call.
+         * Its contents must be copied if they are needed afterwards.
+         *
+         * @param data the body data
+         */
+        default void onBodyData(ByteBuffer data) {
+        }
+
+        /**
+         * Called when the trailer-part of a chunked message has been parsed.
+         *
+         * @param trailer the trailer-part (empty if the message did not include one)
+         */
+        default void onTrailer(RawHttpHeaders trailer) {
+        }
+
+        /**
+         * Called when a message has been fully parsed.
+         */
+        void onMessageEnd();
+    }
+
+    private enum State {
+        METADATA, CONTENT_LENGTH_BODY, CLOSE_TERMINATED_BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_DATA_END, TRAILER, FAILED
+    }
+
+    private final RawHttp http;
+    private final HttpMetadataParser metadataParser;
+    private final ChunkedBodyParser chunkedBodyParser;
+    private final Listener<S> listener;
+    private final boolean isRequestParser;
+    private final Supplier<RequestLine> requestLineSupplier;
+    private final boolean allowNewLineWithoutReturn;
+    private final boolean skipLeadingNewLine;
+    private final long maxLineLength;
+
+    private State state = State.METADATA;
+
+    // metadata (start-line and headers, chunk-size line or trailer-part) received so far
+    private byte[] metadata = new byte[256];
+    private int metadataLength;
+    private int lineStart;
+    private boolean leadingNewLineSkipped;
+
+    private long remainingBodyBytes;
+    private long bodyLength;
+    private boolean chunkDataEndReturnSeen;
+
+    private IncrementalHttpParser(RawHttp http, Listener<S> listener, boolean isRequestParser,
+                                  Supplier<RequestLine> requestLineSupplier) {
+        this.http = http;
+        this.metadataParser = http.getMetadataParser();
+        this.chunkedBodyParser = new ChunkedBodyParser(metadataParser);
+        this.listener = listener;
+        this.isRequestParser = isRequestParser;
+        this.requestLineSupplier = requestLineSupplier;
+        RawHttpOptions options = http.getOptions();
+        this.allowNewLineWithoutReturn = options.allowNewLineWithoutReturn();
+        this.skipLeadingNewLine = options.allowIllegalStartLineCharacters() || options.ignoreLeadingEmptyLine();
+        RawHttpOptions.HttpHeadersOptions headersOptions = options.getHttpHeadersOptions();
+        // the longest header line is a name, the ':' separator, a value (which the metadata parser allows to be
+        // one byte longer than the maximum, as it includes leading whitespace) and the return before the new-line
+        this.maxLineLength = (long) headersOptions.getMaxHeaderNameLength() +
+                headersOptions.getMaxHeaderValueLength() + 3L;
+    }
+
+    /**
+     * Create a parser of HTTP requests.
+     *
+     * @param http     the {@link RawHttp} instance whose options are used to validate requests
+     * @param listener listener of the parser events
+     * @return a new parser
+     */
+    public static IncrementalHttpParser<RequestLine> forRequests(RawHttp http, Listener<RequestLine> listener) {
+        return new IncrementalHttpParser<>(http, listener, true, () -> null);
+    }
+
+    /**
+     * Create a parser of HTTP responses.
+     * <p>
+     * As responses to HEAD requests never have a body, use
+     * {@link #forResponses(RawHttp, Listener, Supplier)} instead if the responses may be answering HEAD requests.
+     *
+     * @param http     the {@link RawHttp} instance whose options are used to validate responses
+     * @param listener listener of the parser events
+     * @return a new parser
+     */
+    public static IncrementalHttpParser<StatusLine> forResponses(RawHttp http, Listener<StatusLine> listener) {
+        return forResponses(http, listener, () -> null);
+    }
+
+    /**
+     * Create a parser of HTTP responses.
+     *
+     * @param http                the {@link RawHttp} instance whose options are used to validate responses
+     * @param listener            listener of the parser events
+     * @param requestLineSupplier supplier of the request-line of the request each response is answering,
+     *                            called once for each response. It may supply {@code null} if the request
+     *                            is not known. See {@link RawHttp#responseHasBody(StatusLine, RequestLine)}.
+     * @return a new parser
+     */
+    public static IncrementalHttpParser<StatusLine> forResponses(RawHttp http,
+                                                                 Listener<StatusLine> listener,
+                                                                 Supplier<RequestLine> requestLineSupplier) {
+        return new IncrementalHttpParser<>(http, listener, false, requestLineSupplier);
+    }
+
+    /**
+     * Feed bytes into this parser.
+     * <p>
+     * All remaining bytes of the buffer are consumed, and the listener is notified of any events they complete
+     * before this method returns.
+     *
+     * @param buffer the bytes to parse
+     * @throws InvalidHttpRequest    if a request's metadata is invalid
+     * @throws InvalidHttpResponse   if a response's metadata is invalid
+     * @throws IllegalStateException if a message's body framing is invalid, or this parser previously failed
+     */
+    public void feed(ByteBuffer buffer) {
+        if (state == State.FAILED) {
+            throw new IllegalStateException("Parser cannot be used after a parsing failure");
+        }
+        try {
+            while (buffer.hasRemaining()) {
+                switch (state) {
+                    case METADATA:
+                        if (appendLines(buffer, true)) {
+                            onMetadataEnd();
+                        }
+                        break;
+                    case CONTENT_LENGTH_BODY:
+                        emitBodyData(buffer, remainingBodyBytes);
+                        if (remainingBodyBytes == 0L) {
+                            endMessage();
+                        }
+                        break;
+                    case CLOSE_TERMINATED_BODY:
+                        emitBodyData(buffer, Long.MAX_VALUE);
+                        break;
+                    case CHUNK_SIZE:
+                        if (appendLines(buffer, false)) {
+                            onChunkSizeLine();
+                        }
+                        break;
+                    case CHUNK_DATA:
+                        emitBodyData(buffer, remainingBodyBytes);
+                        if (remainingBodyBytes == 0L) {
+                            state = State.CHUNK_DATA_END;
+                        }
+                        break;
+                    case CHUNK_DATA_END:
+                        consumeChunkDataEnd(buffer);
+                        break;
+                    case TRAILER:
+                        if (appendLines(buffer, true)) {
+                            onTrailerEnd();
+                        }
+                        break;
+                    default:
+                        throw new IllegalStateException("Unexpected parser state: " + state);
+                }
+            }
+        } catch (RuntimeException e) {
+            state = State.FAILED;
+            throw e;
+        }
+    }
+
+    /**
+     * Signal that no more bytes will be fed into this parser, e.g. because the connection was closed.
+     * <p>
+     * This ends a response whose body is terminated by the connection being closed.
+     *
+     * @throws IllegalStateException if a message was only partially received
+     */
+    public void endOfInput() {
+        if (state == State.CLOSE_TERMINATED_BODY ||
+                (state == State.CONTENT_LENGTH_BODY && http.getOptions().allowContentLengthMismatch())) {
+            endMessage();
+        } else if (state == State.CONTENT_LENGTH_BODY) {
+            state = State.FAILED;
+            throw new IllegalStateException("Input provided " + (bodyLength - remainingBodyBytes) +
+                    " byte(s), but " + bodyLength + " were expected");
+        } else if (state != State.METADATA || metadataLength > 0) {
+            state = State.FAILED;
+            throw new IllegalStateException("Unexpected end of input, the HTTP message is incomplete");
+        }
+    }
+
+    /**
+     * @return true if a message has been partially received, false if this parser is waiting for a new message
+     */
+    public boolean isParsingMessage() {
+        return state != State.METADATA || metadataLength > 0;
+    }
+
+    /**
+     * Append the bytes of the buffer, up to the end of a block of lines, to the metadata received so far.
+     *
+     * @param buffer        to read from
+     * @param endsWithEmpty whether the block ends with an empty line, or after a single line
+     * @return true if the end of the block was reached, false if more bytes are needed
+     */
+    private boolean appendLines(ByteBuffer buffer, boolean endsWithEmpty) {
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            appendMetadata(b);
+            if (b != '\n') {
+                if (metadataLength - lineStart > maxLineLength) {
+                    failLineTooLong();
+                }
+                continue;
+            }
+            int lineLength = metadataLength - 1 - lineStart;
+            boolean isEmptyLine = lineLength == 0 || (lineLength == 1 && metadata[lineStart] == '\r');
+            if (!endsWithEmpty) {
+                return true;
+            }
+            if (isEmptyLine) {
+                if (state == State.METADATA && lineStart == 0 && skipLeadingNewLine && !leadingNewLineSkipped) {
+                    // skip a single empty line before the start-line
+                    leadingNewLineSkipped = true;
+                    metadataLength = 0;
+                    continue;
+                }
+                // the trailer-part may be empty, but the start-line may not, which the metadata parser reports
+                return true;
+            }
+            lineStart = metadataLength;
+        }
+        return false;
+    }
+
+    /**
+     * Fail because the current line is longer than the maximum line length.
+     * <p>
+     * The metadata received so far is given to the blocking parsers so that they report the same error as when
+     * parsing the complete message, falling back to a generic error for the lines they do not limit.
+     */
+    private void failLineTooLong() {
+        boolean isStartLine = lineStart == 0;
+        InputStream stream = takeMetadata();
+        try {
+            switch (state) {
+                case METADATA:
+                    if (isStartLine) {
+                        String message = "Start-line is too long";
+                        throw isRequestParser
+                                ? new InvalidHttpRequest(message, 1)
+                                : new InvalidHttpResponse(message, 1);
+                    }
+                    if (isRequestParser) {
+                        metadataParser.parseRequestLine(stream);
+                        metadataParser.parseHeaders(stream, (message, lineNumber) ->
+                                new InvalidHttpRequest(message, lineNumber + 1));
+                        throw new InvalidHttpRequest("Header is too long", 1);
+                    }
+                    metadataParser.parseStatusLine(stream);
+                    metadataParser.parseHeaders(stream, (message, lineNumber) ->
+                            new InvalidHttpResponse(message, lineNumber + 1));
+                    throw new InvalidHttpResponse("Header is too long", 1);
+                case CHUNK_SIZE:
+                    chunkedBodyParser.readChunkSizeLine(stream);
+                    throw new IllegalStateException("Chunk-size line is too long");
+                default:
+                    chunkedBodyParser.readTrailer(stream);
+                    throw new IllegalStateException("Trailer header is too long");
+            }
+        } catch (IOException e) {
+            // impossible as the stream is in memory
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void appendMetadata(byte b) {
+        if (metadataLength == metadata.length) {
+            metadata = Arrays.copyOf(metadata, metadata.length * 2);
+        }
+        metadata[metadataLength++] = b;
+    }
+
+    private InputStream takeMetadata() {
+        InputStream stream = new ByteArrayInputStream(metadata, 0, metadataLength);
+        metadataLength = 0;
+        lineStart = 0;
+        return stream;
+    }
+
+    private void onMetadataEnd() {
+        InputStream stream = takeMetadata();
+        leadingNewLineSkipped = false;
+        try {
+            if (isRequestParser) {
+                parseRequestMetadata(stream);
+            } else {
+                parseResponseMetadata(stream);
+            }
+        } catch (IOException e) {
+            // impossible as the stream is in memory
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void parseRequestMetadata(InputStream stream) throws IOException {
+        RequestLine requestLine = metadataParser.parseRequestLine(stream);
+        RawHttpHeaders headers = metadataParser.parseHeaders(stream, (message, lineNumber) ->
+                // add 1 to the line number to correct for the start-line
+                new InvalidHttpRequest(message, lineNumber + 1));
+        Map.Entry<RequestLine, RawHttpHeaders> verifiedMetadata = http.verifyHost(requestLine, headers);
+        requestLine = verifiedMetadata.getKey();
+        headers = verifiedMetadata.getValue();
+
+        listener.onStartLine((S) requestLine);
+        listener.onHeaders(headers);
+
+        if (RawHttp.requestHasBody(headers)) {
+            startBody(requestLine, headers);
+        } else {
+            endMessage();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void parseResponseMetadata(InputStream stream) throws IOException {
+        StatusLine statusLine = metadataParser.parseStatusLine(stream);
+        RawHttpHeaders headers = metadataParser.parseHeaders(stream, (message, lineNumber) ->
+                // add 1 to the line number to correct for the start-line
+                new InvalidHttpResponse(message, lineNumber + 1));
+
+        listener.onStartLine((S) statusLine);
+        listener.onHeaders(headers);
+
+        if (RawHttp.responseHasBody(statusLine, requestLineSupplier.get())) {
+            startBody(statusLine, headers);
+        } else {
+            endMessage();
+        }
+    }
+
+    private void startBody(StartLine startLine, RawHttpHeaders headers) throws IOException {
+        FramedBody framedBody = http.getFramedBody(startLine, headers);
+        state = framedBody.use(contentLength -> {
+            bodyLength = remainingBodyBytes = contentLength.getBodyLength();
+            return State.CONTENT_LENGTH_BODY;
+        }, chunked -> State.CHUNK_SIZE, closeTerminated -> State.CLOSE_TERMINATED_BODY);
+        if (state == State.CONTENT_LENGTH_BODY && remainingBodyBytes == 0L) {
+            endMessage();
+        }
+    }
+
+    private void emitBodyData(ByteBuffer buffer, long maxBytes) {
+        int length = (int) Math.min(buffer.remaining(), maxBytes);
+        ByteBuffer data = buffer.slice();
+        data.limit(length);
+        buffer.position(buffer.position() + length);
+        if (maxBytes != Long.MAX_VALUE) {
+            remainingBodyBytes -= length;
+        }
+        listener.onBodyData(data);
+    }
+
+    private void onChunkSizeLine() {
+        int chunkSize;
+        try {
+            chunkSize = chunkedBodyParser.readChunkSizeLine(takeMetadata());
+        } catch (IOException e) {
+            // impossible as the stream is in memory
+            throw new UncheckedIOException(e);
+        }
+        if (chunkSize == 0) {
+            state = State.TRAILER;
+        } else {
+            remainingBodyBytes = chunkSize;
+            state = State.CHUNK_DATA;
+        }
+    }
+
+    private void consumeChunkDataEnd(ByteBuffer buffer) {
+        byte b = buffer.get();
+        if (chunkDataEndReturnSeen) {
+            if (b != '\n') {
+                throw new IllegalStateException("Illegal character after return (parsing chunk-size)");
+            }
+        } else if (b == '\r') {
+            chunkDataEndReturnSeen = true;
+            return;
+        } else if (b == '\n') {
+            if (!allowNewLineWithoutReturn) {
+                throw new IllegalStateException("Illegal character after chunk-data " +
+                        "(new-line character without preceding return)");
+            }
+        } else {
+            throw new IllegalStateException("Illegal character after chunk-data (missing CRLF)");
+        }
+        chunkDataEndReturnSeen = false;
+        state = State.CHUNK_SIZE;
+    }
+
+    private void onTrailerEnd() {
+        RawHttpHeaders trailer;
+        try {
+            trailer = chunkedBodyParser.readTrailer(takeMetadata());
+        } catch (IOException e) {
+            // impossible as the stream is in memory
+            throw new UncheckedIOException(e);
+        }
+        listener.onTrailer(trailer);
+        endMessage();
+    }
+
+    private void endMessage() {
+        state = State.METADATA;
+        listener.onMessageEnd();
+    }
+
+}
@@ -20,7 +20,9 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.AbstractMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeoutException;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -86,7 +88,7 @@ public class RawHttp {
      */
     public final RawHttpRequest parseRequest(String request) {
         try {
-            return parseRequest(new ByteArrayInputStream(request.getBytes(UTF_8)));
+            return parseRequest(new BufferedHttpInputStream(new ByteArrayInputStream(request.getBytes(UTF_8))));
         } catch (IOException e) {
             // IOException should be impossible
             throw new RuntimeException(e);
@@ -102,13 +104,16 @@ public class RawHttp {
      * @throws IOException        if a problem occurs reading the file
      */
     public final RawHttpRequest parseRequest(File file) throws IOException {
-        try (InputStream stream = Files.newInputStream(file.toPath())) {
+        try (InputStream stream = new BufferedHttpInputStream(Files.newInputStream(file.toPath()))) {
             return parseRequest(stream).eagerly();
         }
     }
 
     /**
      * Parses the HTTP request produced by the given stream.
+     * <p>
+     * To parse several HTTP messages from the same stream more efficiently, wrap it into a
+     * {@link BufferedHttpInputStream} once and always pass that to this method.
      *
      * @param inputStream producing a HTTP request
      * @return a parsed HTTP request object
@@ -130,16 +135,16 @@ public class RawHttp {
      */
     public RawHttpRequest parseRequest(InputStream inputStream,
                                        @Nullable InetAddress senderAddress) throws IOException {
+        inputStream = BufferedHttpInputStream.of(inputStream);
         RequestLine requestLine = metadataParser.parseRequestLine(inputStream);
         RawHttpHeaders originalHeaders = metadataParser.parseHeaders(inputStream, (message, lineNumber) ->
                 // add 1 to the line number to correct for the start-line
                 new InvalidHttpRequest(message, lineNumber + 1));
-        RawHttpHeaders.Builder modifiableHeaders = RawHttpHeaders.newBuilder(originalHeaders);
 
         // do a little cleanup to make sure the request is actually valid
-        requestLine = verifyHost(requestLine, modifiableHeaders);
-
-        RawHttpHeaders headers = modifiableHeaders.build();
+        Map.Entry<RequestLine, RawHttpHeaders> verifiedMetadata = verifyHost(requestLine, originalHeaders);
+        requestLine = verifiedMetadata.getKey();
+        RawHttpHeaders headers = verifiedMetadata.getValue();
 
         @Nullable BodyReader bodyReader = requestHasBody(headers)
                 ? createBodyReader(inputStream, requestLine, headers)
@@ -158,7 +163,7 @@ public class RawHttp {
     public final RawHttpResponse<Void> parseResponse(String response) {
         try {
             return parseResponse(
-                    new ByteArrayInputStream(response.getBytes(UTF_8)),
+                    new BufferedHttpInputStream(new ByteArrayInputStream(response.getBytes(UTF_8))),
                     null);
         } catch (IOException e) {
             // IOException should be impossible
@@ -175,13 +180,16 @@ public class RawHttp {
      * @throws IOException         if a problem occurs reading the file
      */
     public final RawHttpResponse<Void> parseResponse(File file) throws IOException {
-        try (InputStream stream = Files.newInputStream(file.toPath())) {
+        try (InputStream stream = new BufferedHttpInputStream(Files.newInputStream(file.toPath()))) {
             return parseResponse(stream, null).eagerly();
         }
     }
 
     /**
      * Parses the HTTP response produced by the given stream.
+     * <p>
+     * To parse several HTTP messages from the same stream more efficiently, wrap it into a
+     * {@link BufferedHttpInputStream} once and always pass that to this method.
      *
      * @param inputStream producing a HTTP response
      * @return a parsed HTTP response object
@@ -206,6 +214,7 @@ public class RawHttp {
      */
     public RawHttpResponse<Void> parseResponse(InputStream inputStream,
                                                @Nullable RequestLine requestLine) throws IOException {
+        inputStream = BufferedHttpInputStream.of(inputStream);
         StatusLine statusLine = metadataParser.parseStatusLine(inputStream);
         RawHttpHeaders headers = metadataParser.parseHeaders(inputStream, (message, lineNumber) ->
                 // add 1 to the line number to correct for the start-line
@@ -219,7 +228,8 @@ public class RawHttp {
     }
 
     private BodyReader createBodyReader(InputStream inputStream, StartLine startLine, RawHttpHeaders headers) {
-        return new LazyBodyReader(getFramedBody(startLine, headers), inputStream);
+        return new LazyBodyReader(getFramedBody(startLine, headers), inputStream, null,
+                options.getMaxInMemoryBodySize());
     }
 
     /**
@@ -239,7 +249,7 @@ public class RawHttp {
         List<String> contentEncodings = headers.get("Content-Encoding", ",\\s*");
 
         BodyDecoder bodyDecoder = new BodyDecoder(options.getEncodingRegistry(),
-                CollectionUtil.append(contentEncodings, transferEncodings));
+                CollectionUtil.append(contentEncodings, transferEncodings), options.getBufferPool());
 
         boolean isChunked = !transferEncodings.isEmpty() &&
                 transferEncodings.get(transferEncodings.size() - 1).equalsIgnoreCase("chunked");
@@ -251,7 +261,8 @@ public class RawHttp {
         if (lengthValues.isEmpty()) {
             if (startLine instanceof StatusLine) {
                 // response has no message framing information available
-                return new FramedBody.CloseTerminated(bodyDecoder);
+                return new FramedBody.CloseTerminated(bodyDecoder, options.getBufferPool(),
+                        options.getMaxBodySize());
             }
             // request body without framing is not allowed
             throw new InvalidMessageFrame("The length of the request body cannot be determined. " +
@@ -267,7 +278,8 @@ public class RawHttp {
         } catch (NumberFormatException e) {
             throw new InvalidMessageFrame("Content-Length header value is not a valid number");
         }
-        return new FramedBody.ContentLength(bodyDecoder, bodyLength, options.allowContentLengthMismatch());
+        return new FramedBody.ContentLength(bodyDecoder, bodyLength, options.allowContentLengthMismatch(),
+                options.getBufferPool(), options.getMaxBodySize());
     }
 
     /**
@@ -378,7 +390,7 @@ public class RawHttp {
         return minCode <= statusCode && statusCode <= maxCode;
     }
 
-    private RequestLine verifyHost(RequestLine requestLine, RawHttpHeaders.Builder headers) {
+    Map.Entry<RequestLine, RawHttpHeaders> verifyHost(RequestLine requestLine, RawHttpHeaders headers) {
         List<String> hostHeaderValues = headers.get("Host");
         URI requestLineUri = requestLine.getUri();
         @Nullable String requestLineHost = requestLineUri.getHost();
@@ -389,27 +401,31 @@ public class RawHttp {
                 throw new InvalidHttpRequest("Host not given either in request line or Host header", 1);
             } else {
                 // add the Host header to make sure the request is legal
-                headers.with("Host", requestLineHost);
+                headers = RawHttpHeaders.newBuilder(headers).with("Host", requestLineHost).build();
             }
-            return requestLine;
+            return new AbstractMap.SimpleImmutableEntry<>(requestLine, headers);
         } else if (hostHeaderValues.size() == 1) {
             if (requestLineHost == null) try {
-                RequestLine newRequestLine = requestLine.withHost(hostHeaderValues.iterator().next());
+                String hostHeaderValue = hostHeaderValues.get(0);
+                RequestLine newRequestLine = requestLine.withHost(hostHeaderValue);
                 // cleanup the host header
-                headers.overwrite("Host", RawHttpHeaders.hostHeaderValueFor(newRequestLine.getUri()));
-                return newRequestLine;
+                String newHostHeaderValue = RawHttpHeaders.hostHeaderValueFor(newRequestLine.getUri());
+                if (!hostHeaderValue.equals(newHostHeaderValue)) {
+                    headers = RawHttpHeaders.newBuilder(headers).overwrite("Host", newHostHeaderValue).build();
+                }
+                return new AbstractMap.SimpleImmutableEntry<>(newRequestLine, headers);
             } catch (IllegalArgumentException e) {
-                int lineNumber = headers.getLineNumberAt("Host", 0);
+                int lineNumber = RawHttpHeaders.newBuilder(headers).getLineNumberAt("Host", 0);
                 throw new InvalidHttpRequest("Invalid host header: " + e.getMessage(), lineNumber);
             }
             else {
                 // both host header and requestLineHost are present, allow both even if conflicting
                 // because proxies, for example, are supposed to ignore the Host header in such cases,
                 // which is what we do here.
-                return requestLine;
+                return new AbstractMap.SimpleImmutableEntry<>(requestLine, headers);
             }
         } else {
-            int lineNumber = headers.getLineNumberAt("Host", 1);
+            int lineNumber = RawHttpHeaders.newBuilder(headers).getLineNumberAt("Host", 1);
             throw new InvalidHttpRequest("More than one Host header specified", lineNumber);
         }
     }
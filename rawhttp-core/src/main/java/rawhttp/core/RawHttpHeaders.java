@@ -16,6 +16,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
@@ -48,8 +49,13 @@ public class RawHttpHeaders implements Writable {
             .with("Content-Length", "0")
             .build();
 
-    private final Map<String, Header> headersByCapitalizedName;
-    private final List<String> headerNames;
+    // parsed headers are kept in their compact form, and the fields below are only computed if needed
+    @Nullable
+    private final HeaderBlock headerBlock;
+    @Nullable
+    private volatile Map<String, Header> headersByCapitalizedName;
+    @Nullable
+    private volatile List<String> headerNames;
     private final Charset headerValuesCharset;
 
     private static final Header NULL_HEADER = new Header(emptyList());
@@ -59,6 +65,7 @@ public class RawHttpHeaders implements Writable {
                            boolean isModifiable,
                            Charset headerValuesCharset) {
         this.headerValuesCharset = headerValuesCharset;
+        this.headerBlock = null;
         if (isModifiable) {
             Map<String, Header> headers = new LinkedHashMap<>(headersByCapitalizedName);
             headers.entrySet().forEach(entry -> entry.setValue(entry.getValue().freeze()));
@@ -70,6 +77,79 @@ public class RawHttpHeaders implements Writable {
         }
     }
 
+    private RawHttpHeaders(HeaderBlock headerBlock) {
+        this.headerValuesCharset = headerBlock.charset;
+        this.headerBlock = headerBlock;
+    }
+
+    /**
+     * Create headers from a header block, i.e. the bytes of all header fields, each in the format
+     * {@code name: value\r\n}.
+     * <p>
+     * If the charset is compatible with ASCII (see {@link #isAsciiCompatible(Charset)}), the header block is used
+     * as the storage of the returned headers, so it must not be modified after calling this method.
+     * Values are expected to be already trimmed in this case. Otherwise, the header values are decoded and trimmed
+     * immediately.
+     *
+     * @param bytes   header block
+     * @param length  length of the header block
+     * @param offsets the start index of each header field, followed by the start index of its value
+     * @param count   number of header fields
+     * @param charset header values charset
+     * @return the headers
+     */
+    static RawHttpHeaders fromHeaderBlock(byte[] bytes, int length, int[] offsets, int count, Charset charset) {
+        HeaderBlock headerBlock = new HeaderBlock(bytes, length, offsets, count, charset);
+        if (isAsciiCompatible(charset)) {
+            return new RawHttpHeaders(headerBlock);
+        }
+        Builder builder = newBuilderSkippingValidation().withHeaderValuesCharset(charset);
+        for (int i = 0; i < count; i++) {
+            builder.with(headerBlock.name(i), headerBlock.value(i).trim());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param charset header values charset
+     * @return true if the charset encodes ASCII characters, and only those, as single bytes with the same values
+     * as in ASCII. In such charsets, trimming the bytes of a header value is equivalent to trimming the decoded
+     * value.
+     */
+    static boolean isAsciiCompatible(Charset charset) {
+        return charset.equals(StandardCharsets.ISO_8859_1)
+                || charset.equals(StandardCharsets.UTF_8)
+                || charset.equals(StandardCharsets.US_ASCII);
+    }
+
+    private Map<String, Header> headersByCapitalizedName() {
+        Map<String, Header> result = headersByCapitalizedName;
+        if (result == null) {
+            HeaderBlock block = Objects.requireNonNull(headerBlock);
+            Map<String, Header> headers = new LinkedHashMap<>();
+            for (int i = 0; i < block.count; i++) {
+                headers.computeIfAbsent(toUppercaseAscii(block.name(i)),
+                        (ignore) -> new Header(new ArrayList<>(2))).values.add(block.value(i));
+            }
+            headers.entrySet().forEach(entry -> entry.setValue(entry.getValue().freeze()));
+            headersByCapitalizedName = result = unmodifiableMap(headers);
+        }
+        return result;
+    }
+
+    private List<String> headerNames() {
+        List<String> result = headerNames;
+        if (result == null) {
+            HeaderBlock block = Objects.requireNonNull(headerBlock);
+            List<String> names = new ArrayList<>(block.count);
+            for (int i = 0; i < block.count; i++) {
+                names.add(block.name(i));
+            }
+            headerNames = result = unmodifiableList(names);
+        }
+        return result;
+    }
+
     /**
      * Get the "Host" header value for the given URI.
      *
@@ -90,7 +170,7 @@ public class RawHttpHeaders implements Writable {
      * @return the number of headers
      */
     public int size() {
-        return headersByCapitalizedName.size();
+        return headersByCapitalizedName().size();
     }
 
     /**
@@ -102,7 +182,11 @@ public class RawHttpHeaders implements Writable {
      * separated by a ','), then use {@link RawHttpHeaders#get(String, String)} to split the values.
      */
     public List<String> get(String headerName) {
-        return headersByCapitalizedName.getOrDefault(headerName.toUpperCase(Locale.ROOT), NULL_HEADER).values;
+        HeaderBlock block = headerBlock;
+        if (block != null && headersByCapitalizedName == null) {
+            return block.values(headerName);
+        }
+        return headersByCapitalizedName().getOrDefault(headerName.toUpperCase(Locale.ROOT), NULL_HEADER).values;
     }
 
     /**
@@ -125,6 +209,11 @@ public class RawHttpHeaders implements Writable {
      * @return the first value of the header, if any.
      */
     public Optional<String> getFirst(String headerName) {
+        HeaderBlock block = headerBlock;
+        if (block != null && headersByCapitalizedName == null) {
+            int index = block.indexOf(HeaderBlock.lookupName(headerName), 0);
+            return index < 0 ? Optional.empty() : Optional.of(block.value(index));
+        }
         List<String> values = get(headerName);
         if (values.isEmpty()) {
             return Optional.empty();
@@ -139,14 +228,14 @@ public class RawHttpHeaders implements Writable {
      * @see #getUniqueHeaderNames()
      */
     public List<String> getHeaderNames() {
-        return headerNames;
+        return headerNames();
     }
 
     /**
      * @return the unique names of all headers (names are upper-cased).
      */
     public Set<String> getUniqueHeaderNames() {
-        return headersByCapitalizedName.keySet();
+        return headersByCapitalizedName().keySet();
     }
 
     /**
@@ -156,6 +245,10 @@ public class RawHttpHeaders implements Writable {
      * @return true if the header is present, false otherwise.
      */
     public boolean contains(String headerName) {
+        HeaderBlock block = headerBlock;
+        if (block != null && headersByCapitalizedName == null) {
+            return block.indexOf(toUppercaseAscii(headerName), 0) >= 0;
+        }
         return getUniqueHeaderNames().contains(toUppercaseAscii(headerName));
     }
 
@@ -163,8 +256,9 @@ public class RawHttpHeaders implements Writable {
      * @return a {@link Map} representation of this set of headers.
      */
     public Map<String, List<String>> asMap() {
-        Map<String, List<String>> map = new LinkedHashMap<>(headersByCapitalizedName.size());
-        headersByCapitalizedName.forEach((name, value) -> map.put(name, value.values));
+        Map<String, Header> headers = headersByCapitalizedName();
+        Map<String, List<String>> map = new LinkedHashMap<>(headers.size());
+        headers.forEach((name, value) -> map.put(name, value.values));
         return map;
     }
 
@@ -175,15 +269,18 @@ public class RawHttpHeaders implements Writable {
 
         RawHttpHeaders that = (RawHttpHeaders) o;
 
-        boolean sameKeys = headersByCapitalizedName.keySet().equals(that.headersByCapitalizedName.keySet());
+        Map<String, Header> headers = headersByCapitalizedName();
+        Map<String, Header> otherHeaders = that.headersByCapitalizedName();
+
+        boolean sameKeys = headers.keySet().equals(otherHeaders.keySet());
 
         if (!sameKeys) {
             return false;
         }
 
         // check all values
-        for (Map.Entry<String, Header> entry : headersByCapitalizedName.entrySet()) {
-            if (!that.headersByCapitalizedName.get(entry.getKey()).values.equals(entry.getValue().values)) {
+        for (Map.Entry<String, Header> entry : headers.entrySet()) {
+            if (!otherHeaders.get(entry.getKey()).values.equals(entry.getValue().values)) {
                 return false;
             }
         }
@@ -200,6 +297,13 @@ public class RawHttpHeaders implements Writable {
      * @param consumer accepts the header name and value
      */
     public void forEach(BiConsumer<String, String> consumer) {
+        HeaderBlock block = headerBlock;
+        if (block != null) {
+            for (int i = 0; i < block.count; i++) {
+                consumer.accept(block.name(i), block.value(i));
+            }
+            return;
+        }
         class Index {
             private int value = -1;
 
@@ -208,10 +312,11 @@ public class RawHttpHeaders implements Writable {
             }
         }
         Map<String, Index> valueIndexByKey = new HashMap<>();
-        for (String headerName : headerNames) {
+        Map<String, Header> headers = headersByCapitalizedName();
+        for (String headerName : headerNames()) {
             String key = toUppercaseAscii(headerName);
             int index = valueIndexByKey.computeIfAbsent(key, k -> new Index()).increment();
-            consumer.accept(headerName, headersByCapitalizedName.get(key).values.get(index));
+            consumer.accept(headerName, headers.get(key).values.get(index));
         }
     }
 
@@ -243,7 +348,7 @@ public class RawHttpHeaders implements Writable {
 
     @Override
     public int hashCode() {
-        return headersByCapitalizedName.hashCode();
+        return headersByCapitalizedName().hashCode();
     }
 
     @Override
@@ -267,7 +372,7 @@ public class RawHttpHeaders implements Writable {
      */
     public RawHttpHeaders and(RawHttpHeaders headers) {
         Builder builder = RawHttpHeaders.newBuilderSkippingValidation(this);
-        Set<String> visitedNames = new HashSet<>(headers.headerNames.size());
+        Set<String> visitedNames = new HashSet<>(headers.getHeaderNames().size());
         headers.forEach((name, value) -> {
             String key = toUppercaseAscii(name);
             boolean isNewKey = visitedNames.add(key);
@@ -289,8 +394,8 @@ public class RawHttpHeaders implements Writable {
      * @return new set of headers containing this instance's values, except for the given headerNames
      */
     public RawHttpHeaders except(String... headerNames) {
-        Map<String, Header> headersByCapitalizedNameCopy = new LinkedHashMap<>(headersByCapitalizedName);
-        List<String> headerNamesCopy = new ArrayList<>(this.headerNames);
+        Map<String, Header> headersByCapitalizedNameCopy = new LinkedHashMap<>(headersByCapitalizedName());
+        List<String> headerNamesCopy = new ArrayList<>(headerNames());
         for (String headerName : headerNames) {
             String uppercaseName = toUppercaseAscii(headerName);
             headersByCapitalizedNameCopy.remove(uppercaseName);
@@ -363,11 +468,23 @@ public class RawHttpHeaders implements Writable {
      * @return true if there is no headers in this container, false otherwise.
      */
     public boolean isEmpty() {
-        return headerNames.isEmpty();
+        HeaderBlock block = headerBlock;
+        if (block != null) {
+            return block.count == 0;
+        }
+        return headerNames().isEmpty();
     }
 
     @Override
     public void writeTo(OutputStream outputStream) throws IOException {
+        HeaderBlock block = headerBlock;
+        if (block != null) {
+            // the header block is already in the wire format
+            outputStream.write(block.bytes, 0, block.length);
+            outputStream.write('\r');
+            outputStream.write('\n');
+            return;
+        }
         forEachIO((name, value) -> {
             outputStream.write(name.getBytes(StandardCharsets.US_ASCII));
             outputStream.write(':');
@@ -400,7 +517,17 @@ public class RawHttpHeaders implements Writable {
         private static Builder newBuilder(RawHttpHeaders headers, boolean validateHeaders) {
             Builder builder = new Builder(validateHeaders);
             builder.headerValuesCharset = headers.headerValuesCharset;
-            for (Map.Entry<String, Header> entry : headers.headersByCapitalizedName.entrySet()) {
+            HeaderBlock block = headers.headerBlock;
+            if (block != null && headers.headersByCapitalizedName == null) {
+                for (int i = 0; i < block.count; i++) {
+                    String name = block.name(i);
+                    builder.headersByCapitalizedName.computeIfAbsent(toUppercaseAscii(name),
+                            (ignore) -> new Header(new ArrayList<>(2))).values.add(block.value(i));
+                    builder.headerNames.add(name);
+                }
+                return builder;
+            }
+            for (Map.Entry<String, Header> entry : headers.headersByCapitalizedName().entrySet()) {
                 builder.headersByCapitalizedName.put(entry.getKey(), entry.getValue().unfreeze());
             }
             builder.headerNames.addAll(headers.getHeaderNames());
@@ -581,6 +708,124 @@ public class RawHttpHeaders implements Writable {
         }
     }
 
+    /**
+     * Header fields in the format they are sent in HTTP messages, with an index of where each header field starts,
+     * so that names and values can be decoded only when needed.
+     */
+    private static final class HeaderBlock {
+        private final byte[] bytes;
+        private final int length;
+        // for each header, the index of the name followed by the index of the value
+        private final int[] offsets;
+        private final int count;
+        private final Charset charset;
+
+        // decoded names and values (races are harmless as decoding always gives the same result)
+        private final String[] names;
+        private final String[] values;
+
+        HeaderBlock(byte[] bytes, int length, int[] offsets, int count, Charset charset) {
+            this.bytes = bytes;
+            this.length = length;
+            this.offsets = offsets;
+            this.count = count;
+            this.charset = charset;
+            this.names = new String[count];
+            this.values = new String[count];
+        }
+
+        String name(int index) {
+            String name = names[index];
+            if (name == null) {
+                int start = offsets[2 * index];
+                // the name is followed by ": "
+                int end = offsets[2 * index + 1] - 2;
+                names[index] = name = new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+            }
+            return name;
+        }
+
+        String value(int index) {
+            String value = values[index];
+            if (value == null) {
+                int start = offsets[2 * index + 1];
+                // the value is followed by "\r\n"
+                int end = (index + 1 < count ? offsets[2 * index + 2] : length) - 2;
+                values[index] = value = new String(bytes, start, end - start, charset);
+            }
+            return value;
+        }
+
+        List<String> values(String headerName) {
+            headerName = lookupName(headerName);
+            int index = indexOf(headerName, 0);
+            if (index < 0) {
+                return emptyList();
+            }
+            int nextIndex = indexOf(headerName, index + 1);
+            if (nextIndex < 0) {
+                return singletonList(value(index));
+            }
+            List<String> result = new ArrayList<>(4);
+            result.add(value(index));
+            do {
+                result.add(value(nextIndex));
+                nextIndex = indexOf(headerName, nextIndex + 1);
+            } while (nextIndex >= 0);
+            return unmodifiableList(result);
+        }
+
+        /**
+         * Get the name to look up, consistently with {@link RawHttpHeaders#get(String)}, which upper-cases names
+         * using {@link Locale#ROOT}. As header names in the block are always ASCII, that only makes a difference
+         * if the name contains non-ASCII characters.
+         *
+         * @param headerName case-insensitive header name
+         * @return the name to pass to {@link #indexOf(String, int)}
+         */
+        static String lookupName(String headerName) {
+            return isAscii(headerName) ? headerName : headerName.toUpperCase(Locale.ROOT);
+        }
+
+        /**
+         * Find the index of the header with the given name, ignoring the case of ASCII letters.
+         *
+         * @param headerName header name
+         * @param fromIndex  index to start searching from
+         * @return the index of the first header with the given name, or -1 if there's none
+         */
+        int indexOf(String headerName, int fromIndex) {
+            final int nameLength = headerName.length();
+            for (int i = fromIndex; i < count; i++) {
+                int start = offsets[2 * i];
+                if (offsets[2 * i + 1] - 2 - start != nameLength) {
+                    continue;
+                }
+                boolean matches = true;
+                for (int j = 0; j < nameLength; j++) {
+                    if (toUppercaseAscii((char) (bytes[start + j] & 0xFF)) !=
+                            toUppercaseAscii(headerName.charAt(j))) {
+                        matches = false;
+                        break;
+                    }
+                }
+                if (matches) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static boolean isAscii(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) > 127) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     private static final class Header {
         private final List<String> values;
 
@@ -1,5 +1,6 @@
 package rawhttp.core;
 
+import rawhttp.core.body.BufferPool;
 import rawhttp.core.body.encoding.HttpBodyEncodingRegistry;
 import rawhttp.core.body.encoding.HttpMessageDecoder;
 import rawhttp.core.body.encoding.ServiceLoaderHttpBodyEncodingRegistry;
@@ -29,6 +30,9 @@ public class RawHttpOptions {
     private final boolean allowIllegalConnectAuthority;
     private final HttpHeadersOptions httpHeadersOptions;
     private final HttpBodyEncodingRegistry encodingRegistry;
+    private final BufferPool bufferPool;
+    private final long maxInMemoryBodySize;
+    private final long maxBodySize;
 
     private RawHttpOptions(boolean insertHostHeaderIfMissing,
                            boolean insertHttpVersionIfMissing,
@@ -39,7 +43,10 @@ public class RawHttpOptions {
                            boolean allowIllegalConnectAuthority,
                            boolean allowContentLengthMismatch,
                            HttpHeadersOptions httpHeadersOptions,
-                           HttpBodyEncodingRegistry encodingRegistry) {
+                           HttpBodyEncodingRegistry encodingRegistry,
+                           BufferPool bufferPool,
+                           long maxInMemoryBodySize,
+                           long maxBodySize) {
         this.insertHostHeaderIfMissing = insertHostHeaderIfMissing;
         this.insertHttpVersionIfMissing = insertHttpVersionIfMissing;
         this.allowNewLineWithoutReturn = allowNewLineWithoutReturn;
@@ -50,6 +57,9 @@ public class RawHttpOptions {
         this.allowContentLengthMismatch = allowContentLengthMismatch;
         this.httpHeadersOptions = httpHeadersOptions;
         this.encodingRegistry = encodingRegistry;
+        this.bufferPool = bufferPool;
+        this.maxInMemoryBodySize = maxInMemoryBodySize;
+        this.maxBodySize = maxBodySize;
     }
 
     /**
@@ -152,6 +162,30 @@ public class RawHttpOptions {
         return encodingRegistry;
     }
 
+    /**
+     * @return the pool of buffers to use when reading and writing HTTP message bodies
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * @return the maximum size of a raw message body that is kept in memory when the body is read eagerly.
+     * Larger bodies are written to a temporary file, which is deleted when the body reader is closed.
+     * @see rawhttp.core.body.EagerBodyReader
+     */
+    public long getMaxInMemoryBodySize() {
+        return maxInMemoryBodySize;
+    }
+
+    /**
+     * @return the maximum size of the data of a message body. Reading a larger body fails with a
+     * {@link rawhttp.core.errors.BodyTooLargeException}.
+     */
+    public long getMaxBodySize() {
+        return maxBodySize;
+    }
+
     /**
      * @return a new builder of {@link RawHttpOptions}.
      */
@@ -224,6 +258,9 @@ public class RawHttpOptions {
         private boolean allowContentLengthMismatch = false;
         private HttpHeadersOptionsBuilder httpHeadersOptionsBuilder = new HttpHeadersOptionsBuilder();
         private HttpBodyEncodingRegistry encodingRegistry;
+        private BufferPool bufferPool = BufferPool.defaultPool();
+        private long maxInMemoryBodySize = Long.MAX_VALUE;
+        private long maxBodySize = Long.MAX_VALUE;
 
         /**
          * @return a new builder of {@link RawHttpOptions}.
@@ -379,6 +416,66 @@ public class RawHttpOptions {
             return this;
         }
 
+        /**
+         * Use a custom {@link BufferPool} to obtain the buffers used when reading and writing HTTP message bodies.
+         * <p>
+         * By default, a pool shared by all {@link RawHttpOptions} instances is used.
+         * Use {@link BufferPool#unpooled()} to always allocate new buffers instead.
+         *
+         * @param bufferPool the buffer pool to use
+         * @return this
+         */
+        public Builder withBufferPool(BufferPool bufferPool) {
+            this.bufferPool = requireNonNull(bufferPool);
+            return this;
+        }
+
+        /**
+         * Set the maximum size of a raw message body that is kept in memory when the body is read eagerly, as
+         * by {@link RawHttpRequest#eagerly()} and {@link RawHttpResponse#eagerly()}.
+         * <p>
+         * Larger bodies are written to a temporary file instead, so that memory usage does not grow with the size
+         * of the bodies being received. The file is deleted when the message's body reader is closed,
+         * so the body readers of large messages should always be closed once they are no longer needed.
+         * The file of a body reader which is never closed is only deleted after the reader has been
+         * garbage-collected, or when the JVM exits.
+         * <p>
+         * By default, all bodies are kept in memory.
+         *
+         * @param maxInMemoryBodySize maximum size, in bytes, of a body that is kept in memory
+         * @return this
+         */
+        public Builder withMaxInMemoryBodySize(long maxInMemoryBodySize) {
+            if (maxInMemoryBodySize < 0L) {
+                throw new IllegalArgumentException("Maximum in-memory body size must not be negative, invalid size: "
+                        + maxInMemoryBodySize);
+            }
+            this.maxInMemoryBodySize = maxInMemoryBodySize;
+            return this;
+        }
+
+        /**
+         * Set the maximum size of the data of a message body.
+         * <p>
+         * The size is checked as a body is read, so reading a larger body fails with a
+         * {@link rawhttp.core.errors.BodyTooLargeException} before it is fully read: a body framed with
+         * Content-Length fails before any data is read, while chunked and close-terminated bodies fail as soon as
+         * the maximum size is exceeded.
+         * <p>
+         * By default, the size of message bodies is not limited.
+         *
+         * @param maxBodySize maximum size, in bytes, of a message body
+         * @return this
+         */
+        public Builder withMaxBodySize(long maxBodySize) {
+            if (maxBodySize < 0L) {
+                throw new IllegalArgumentException("Maximum body size must not be negative, invalid size: "
+                        + maxBodySize);
+            }
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+
         /**
          * @return a configured instance of {@link RawHttpOptions}.
          * @see RawHttp#RawHttp(RawHttpOptions)
@@ -390,7 +487,8 @@ public class RawHttpOptions {
 
             return new RawHttpOptions(insertHostHeaderIfMissing, insertHttpVersionIfMissing,
                     allowNewLineWithoutReturn, ignoreLeadingEmptyLine, allowIllegalStartLineCharacters, allowComments,
-                    allowIllegalConnectAuthority, allowContentLengthMismatch, httpHeadersOptionsBuilder.getOptions(), registry);
+                    allowIllegalConnectAuthority, allowContentLengthMismatch, httpHeadersOptionsBuilder.getOptions(), registry,
+                    bufferPool, maxInMemoryBodySize, maxBodySize);
         }
 
         public class HttpHeadersOptionsBuilder {
@@ -68,6 +68,10 @@ public class RequestLine implements StartLine {
         return httpVersion;
     }
 
+    RawHttpOptions getOptions() {
+        return options;
+    }
+
     /**
      * Copy this {@link RequestLine}, replacing the host in its URI.
      * <p>
@@ -79,7 +83,7 @@ public class RequestLine implements StartLine {
      * @return a copy of this method line, but with the given host
      */
     public RequestLine withHost(String host) {
-        return new RequestLine(method, UriUtil.withHost(uri, host), httpVersion);
+        return new RequestLine(method, UriUtil.withHost(uri, host), httpVersion, options);
     }
 
     @Override
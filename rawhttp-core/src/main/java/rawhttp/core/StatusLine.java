@@ -14,11 +14,32 @@ public class StatusLine implements StartLine {
     private final HttpVersion httpVersion;
     private final int statusCode;
     private final String reason;
+    private final RawHttpOptions options;
 
+    /**
+     * Create a new {@link StatusLine} using the default options.
+     *
+     * @param httpVersion HTTP version of the message
+     * @param statusCode  status code
+     * @param reason      reason phrase
+     */
     public StatusLine(HttpVersion httpVersion, int statusCode, String reason) {
+        this(httpVersion, statusCode, reason, RawHttpOptions.defaultInstance());
+    }
+
+    /**
+     * Create a new {@link StatusLine}.
+     *
+     * @param httpVersion HTTP version of the message
+     * @param statusCode  status code
+     * @param reason      reason phrase
+     * @param options     RawHttp configuration options
+     */
+    public StatusLine(HttpVersion httpVersion, int statusCode, String reason, RawHttpOptions options) {
         this.httpVersion = httpVersion;
         this.statusCode = statusCode;
         this.reason = reason;
+        this.options = options;
     }
 
     @Override
@@ -60,6 +81,10 @@ public class StatusLine implements StartLine {
         return reason;
     }
 
+    RawHttpOptions getOptions() {
+        return options;
+    }
+
     @Override
     public void writeTo(OutputStream outputStream) throws IOException {
         writeTo(outputStream, true);
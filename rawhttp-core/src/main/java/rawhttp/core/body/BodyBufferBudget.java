@@ -0,0 +1,170 @@
+package rawhttp.core.body;
+
+import rawhttp.core.errors.BufferBudgetExhaustedException;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A budget of HTTP message body bytes which may be buffered in memory at the same time, shared by all the
+ * messages whose body readers hold a {@link Lease} from it.
+ * <p>
+ * Bytes are reserved as an {@link EagerBodyReader} buffers a body in memory (bytes written to a temporary file
+ * are not accounted for). When the budget is exhausted, the Thread reading the body waits for bytes to be released
+ * by other messages, so it stops reading from its connection, for at most the maximum wait time given to the
+ * budget. After that, reading the body fails with a {@link BufferBudgetExhaustedException}.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @see LazyBodyReader#LazyBodyReader(FramedBody, java.io.InputStream, Runnable, long, Lease)
+ */
+public final class BodyBufferBudget {
+
+    private final long capacity;
+    private final long maxWaitNanos;
+    // a lock is used instead of synchronization so that virtual Threads waiting for bytes are not pinned
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition bytesReleased = lock.newCondition();
+    private long available;
+
+    /**
+     * Create a budget of body bytes.
+     *
+     * @param capacity maximum number of body bytes which may be buffered in memory at the same time
+     * @param maxWait  maximum time to wait for bytes to become available in the budget
+     */
+    public BodyBufferBudget(long capacity, Duration maxWait) {
+        if (capacity < 0L) {
+            throw new IllegalArgumentException("Capacity must not be negative, invalid capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.available = capacity;
+    }
+
+    /**
+     * @return the maximum number of body bytes which may be buffered in memory at the same time
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of bytes which may currently be reserved
+     */
+    public long getAvailable() {
+        lock.lock();
+        try {
+            return available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return a new lease, through which the bytes buffered for a single message are reserved and released
+     */
+    public Lease newLease() {
+        return new Lease();
+    }
+
+    private void acquire(Lease lease, long bytes) throws BufferBudgetExhaustedException, InterruptedIOException {
+        if (bytes > capacity) {
+            throw new BufferBudgetExhaustedException("Cannot reserve " + bytes +
+                    " bytes from message body buffer budget of " + capacity + " bytes");
+        }
+        lock.lock();
+        try {
+            long remaining = maxWaitNanos;
+            while (available < bytes) {
+                if (remaining <= 0L) {
+                    throw new BufferBudgetExhaustedException("Message body buffer budget of " + capacity +
+                            " bytes has been exhausted");
+                }
+                remaining = bytesReleased.awaitNanos(remaining);
+            }
+            available -= bytes;
+            lease.held += bytes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for message body buffer budget");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void giveBack(Lease lease, long bytes) {
+        lock.lock();
+        try {
+            long released = Math.min(bytes, lease.held);
+            if (released > 0L) {
+                lease.held -= released;
+                available += released;
+                bytesReleased.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A reservation of bytes from a {@link BodyBufferBudget} made for a single message.
+     * <p>
+     * All bytes still held by a lease should be released via {@link #releaseAll()} once the message is no longer
+     * needed, e.g. after a server has sent the response to a request.
+     */
+    public final class Lease {
+
+        // guarded by the lock of the budget
+        private long held;
+
+        private Lease() {
+        }
+
+        /**
+         * Reserve bytes from the budget, waiting for them to become available if necessary.
+         *
+         * @param bytes number of bytes to reserve
+         * @throws BufferBudgetExhaustedException if the bytes do not become available within the maximum wait
+         *                                        time of the budget
+         * @throws InterruptedIOException         if the Thread is interrupted while waiting
+         */
+        public void reserve(long bytes) throws BufferBudgetExhaustedException, InterruptedIOException {
+            acquire(this, bytes);
+        }
+
+        /**
+         * Give back bytes to the budget.
+         * <p>
+         * At most the number of bytes currently held by this lease are given back.
+         *
+         * @param bytes number of bytes to release
+         */
+        public void release(long bytes) {
+            giveBack(this, bytes);
+        }
+
+        /**
+         * Give back all bytes held by this lease to the budget.
+         */
+        public void releaseAll() {
+            release(Long.MAX_VALUE);
+        }
+
+        /**
+         * @return the number of bytes currently held by this lease
+         */
+        public long getHeld() {
+            lock.lock();
+            try {
+                return held;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+    }
+
+}
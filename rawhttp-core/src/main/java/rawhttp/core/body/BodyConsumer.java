@@ -1,5 +1,7 @@
 package rawhttp.core.body;
 
+import rawhttp.core.errors.BodyTooLargeException;
+
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -90,19 +92,13 @@ public abstract class BodyConsumer {
                 InputStream inputStream,
                 OutputStream outputStream,
                 int bufferSize) throws IOException {
-            bodyParser.parseChunkedBody(inputStream,
-                    chunk -> chunk.writeTo(outputStream),
-                    trailer -> trailer.writeTo(outputStream));
+            bodyParser.copyChunkedBody(inputStream, outputStream, true, bufferSize);
         }
 
         @Override
         public void consumeDataInto(InputStream inputStream, OutputStream out, int bufferSize)
                 throws IOException {
-            bodyParser.parseChunkedBody(inputStream,
-                    chunk -> out.write(chunk.getData()),
-                    trailer -> {
-                        // ignore trailer
-                    });
+            bodyParser.copyChunkedBody(inputStream, out, false, bufferSize);
         }
 
         /**
@@ -127,21 +123,42 @@ public abstract class BodyConsumer {
 
         private final long bodyLength;
         private final boolean allowContentLengthMismatch;
+        private final BufferPool bufferPool;
+        private final long maxBodySize;
 
         ContentLengthBodyConsumer(long bodyLength) {
             this(bodyLength, false);
         }
 
         ContentLengthBodyConsumer(long bodyLength, boolean allowContentLengthMismatch) {
+            this(bodyLength, allowContentLengthMismatch, BufferPool.defaultPool());
+        }
+
+        ContentLengthBodyConsumer(long bodyLength, boolean allowContentLengthMismatch, BufferPool bufferPool) {
+            this(bodyLength, allowContentLengthMismatch, bufferPool, Long.MAX_VALUE);
+        }
+
+        ContentLengthBodyConsumer(long bodyLength, boolean allowContentLengthMismatch, BufferPool bufferPool,
+                                  long maxBodySize) {
             this.bodyLength = bodyLength;
             this.allowContentLengthMismatch = allowContentLengthMismatch;
+            this.bufferPool = bufferPool;
+            this.maxBodySize = maxBodySize;
         }
 
         @Override
         public void consumeInto(InputStream inputStream,
                                 OutputStream outputStream,
                                 int bufferSize) throws IOException {
-            readAndWriteBytesUpToLength(inputStream, bodyLength, outputStream, bufferSize);
+            if (bodyLength > maxBodySize) {
+                // fail before reading anything, the body is declared to be too large
+                throw new BodyTooLargeException(maxBodySize);
+            }
+            if (inputStream instanceof FileTransferSource && outputStream instanceof FileTransferTarget) {
+                transferBytesUpToLength((FileTransferSource) inputStream, bodyLength, outputStream);
+            } else {
+                readAndWriteBytesUpToLength(inputStream, bodyLength, outputStream, bufferSize);
+            }
         }
 
         @Override
@@ -156,21 +173,40 @@ public abstract class BodyConsumer {
             if (bufferSize <= 0) {
                 bufferSize = DEFAULT_BUFFER_SIZE;
             }
+            if (bodyLength <= 0L) {
+                return;
+            }
             long offset = 0L;
-            byte[] bytes = new byte[(int) Math.min(bodyLength, bufferSize)];
-            while (offset < bodyLength) {
-                int bytesToRead = (int) Math.min(bytes.length, bodyLength - offset);
-                int actuallyRead = inputStream.read(bytes, 0, bytesToRead);
-                if (actuallyRead < 0) {
-                    if (!allowContentLengthMismatch) {
-                        throw new IOException("InputStream provided " + offset + " byte(s), but " + bodyLength + " were expected");
+            byte[] bytes = bufferPool.acquire((int) Math.min(bodyLength, bufferSize));
+            try {
+                while (offset < bodyLength) {
+                    int bytesToRead = (int) Math.min(bytes.length, bodyLength - offset);
+                    int actuallyRead = inputStream.read(bytes, 0, bytesToRead);
+                    if (actuallyRead < 0) {
+                        if (!allowContentLengthMismatch) {
+                            throw new IOException("InputStream provided " + offset + " byte(s), but " + bodyLength + " were expected");
+                        }
+                        // pretend that the body has been fully read
+                        break;
+                    } else {
+                        outputStream.write(bytes, 0, actuallyRead);
                     }
-                    // pretend that the body has been fully read
-                    break;
-                } else {
-                    outputStream.write(bytes, 0, actuallyRead);
+                    offset += actuallyRead;
                 }
-                offset += actuallyRead;
+            } finally {
+                bufferPool.release(bytes);
+            }
+        }
+
+        private void transferBytesUpToLength(FileTransferSource inputStream,
+                                             long bodyLength,
+                                             OutputStream outputStream) throws IOException {
+            if (bodyLength <= 0L) {
+                return;
+            }
+            long transferred = inputStream.transferTo(outputStream, bodyLength);
+            if (transferred < bodyLength && !allowContentLengthMismatch) {
+                throw new IOException("InputStream provided " + transferred + " byte(s), but " + bodyLength + " were expected");
             }
         }
 
@@ -181,14 +217,42 @@ public abstract class BodyConsumer {
      */
     public static class CloseTerminatedBodyConsumer extends BodyConsumer {
 
-        private static final CloseTerminatedBodyConsumer INSTANCE = new CloseTerminatedBodyConsumer();
+        private static final CloseTerminatedBodyConsumer INSTANCE =
+                new CloseTerminatedBodyConsumer(BufferPool.defaultPool());
+
+        private final BufferPool bufferPool;
+        private final long maxBodySize;
 
         public static CloseTerminatedBodyConsumer getInstance() {
             return INSTANCE;
         }
 
-        private CloseTerminatedBodyConsumer() {
-            // hide
+        /**
+         * @param bufferPool pool of buffers to use
+         * @return a consumer that uses the given {@link BufferPool}
+         */
+        public static CloseTerminatedBodyConsumer getInstance(BufferPool bufferPool) {
+            return getInstance(bufferPool, Long.MAX_VALUE);
+        }
+
+        /**
+         * @param bufferPool  pool of buffers to use
+         * @param maxBodySize maximum number of bytes to consume before failing with a {@link BodyTooLargeException}
+         * @return a consumer that uses the given {@link BufferPool} and maximum body size
+         */
+        public static CloseTerminatedBodyConsumer getInstance(BufferPool bufferPool, long maxBodySize) {
+            return bufferPool == INSTANCE.bufferPool && maxBodySize == INSTANCE.maxBodySize
+                    ? INSTANCE
+                    : new CloseTerminatedBodyConsumer(bufferPool, maxBodySize);
+        }
+
+        private CloseTerminatedBodyConsumer(BufferPool bufferPool) {
+            this(bufferPool, Long.MAX_VALUE);
+        }
+
+        private CloseTerminatedBodyConsumer(BufferPool bufferPool, long maxBodySize) {
+            this.bufferPool = bufferPool;
+            this.maxBodySize = maxBodySize;
         }
 
         @Override
@@ -198,10 +262,19 @@ public abstract class BodyConsumer {
             if (bufferSize <= 0) {
                 bufferSize = DEFAULT_BUFFER_SIZE;
             }
-            byte[] buffer = new byte[bufferSize];
-            int bytesRead;
-            while ((bytesRead = inputStream.read(buffer)) > 0) {
-                outputStream.write(buffer, 0, bytesRead);
+            byte[] buffer = bufferPool.acquire(bufferSize);
+            try {
+                long totalRead = 0L;
+                int bytesRead;
+                while ((bytesRead = inputStream.read(buffer)) > 0) {
+                    totalRead += bytesRead;
+                    if (totalRead > maxBodySize) {
+                        throw new BodyTooLargeException(maxBodySize);
+                    }
+                    outputStream.write(buffer, 0, bytesRead);
+                }
+            } finally {
+                bufferPool.release(buffer);
             }
         }
 
@@ -6,6 +6,7 @@ import rawhttp.core.body.encoding.HttpMessageDecoder;
 import rawhttp.core.errors.UnknownEncodingException;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -23,6 +24,7 @@ public class BodyDecoder {
 
     private final HttpBodyEncodingRegistry registry;
     private final List<String> encodings;
+    private final BufferPool bufferPool;
 
     /**
      * Create a no-op body decoder.
@@ -42,8 +44,22 @@ public class BodyDecoder {
      * @param transferEncodings the encodings applied to the message body
      */
     public BodyDecoder(HttpBodyEncodingRegistry registry, List<String> transferEncodings) {
+        this(registry, transferEncodings, BufferPool.defaultPool());
+    }
+
+    /**
+     * Create a decoder that will use the given encodings to decode HTTP message bodies, giving the decoders
+     * the provided pool to obtain their buffers from.
+     *
+     * @param registry          the registry of {@link HttpMessageDecoder}s.
+     * @param transferEncodings the encodings applied to the message body
+     * @param bufferPool        pool from which decoders obtain their buffers
+     * @see #BodyDecoder(HttpBodyEncodingRegistry, List)
+     */
+    public BodyDecoder(HttpBodyEncodingRegistry registry, List<String> transferEncodings, BufferPool bufferPool) {
         this.registry = registry;
         this.encodings = transferEncodings;
+        this.bufferPool = bufferPool;
     }
 
     /**
@@ -69,12 +85,38 @@ public class BodyDecoder {
         }
 
         for (HttpMessageDecoder decoder : decoders) {
-            decoderStream = decoder.decode(decoderStream);
+            decoderStream = decoder.decode(decoderStream, bufferPool);
         }
 
         return decoderStream;
     }
 
+    /**
+     * Create an {@link InputStream} that decodes the contents of the given {@link InputStream} as it is read.
+     * <p>
+     * The given stream must provide the unframed message body, so the "chunked" encoding used to frame the message,
+     * if any, is not decoded by the returned stream.
+     *
+     * @param in stream providing the encoded contents
+     * @return a stream from which the decoded contents can be read
+     * @throws IOException if an error occurs while creating the decoder streams
+     */
+    public InputStream decoding(InputStream in) throws IOException {
+        ArrayList<HttpMessageDecoder> decoders = getDecoders();
+
+        if (!decoders.isEmpty() &&
+                decoders.get(decoders.size() - 1).encodingName().equalsIgnoreCase("chunked")) {
+            decoders.remove(decoders.size() - 1);
+        }
+
+        // the last encoding applied to the body must be decoded first
+        for (int i = decoders.size() - 1; i >= 0; i--) {
+            in = decoders.get(i).decode(in, bufferPool);
+        }
+
+        return in;
+    }
+
     /**
      * @return the encodings applied to the body of a HTTP message
      */
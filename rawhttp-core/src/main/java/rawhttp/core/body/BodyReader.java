@@ -11,16 +11,25 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.function.Supplier;
 
 /**
  * HTTP message body reader.
  */
 public abstract class BodyReader implements Writable, Closeable {
 
+    /**
+     * Maximum size of the buffers allocated by {@link #asByteBuffers()}.
+     */
+    public static final int MAX_BYTE_BUFFER_SIZE = 64 * 1024;
+
     private final FramedBody framedBody;
 
     public BodyReader(FramedBody framedBody) {
@@ -82,7 +91,11 @@ public abstract class BodyReader implements Writable, Closeable {
      * @see BodyReader#writeDecodedTo(OutputStream, int)
      */
     public void writeTo(OutputStream out, int bufferSize) throws IOException {
-        framedBody.getBodyConsumer().consumeInto(asRawStream(), out, bufferSize);
+        writeTo(asRawStream(), out, bufferSize);
+    }
+
+    void writeTo(InputStream rawStream, OutputStream out, int bufferSize) throws IOException {
+        framedBody.getBodyConsumer().consumeInto(rawStream, out, bufferSize);
     }
 
     /**
@@ -113,9 +126,13 @@ public abstract class BodyReader implements Writable, Closeable {
      *                                  by the {@link HttpBodyEncodingRegistry}.
      */
     public void writeDecodedTo(OutputStream out, int bufferSize) throws IOException {
+        writeDecodedTo(asRawStream(), out, bufferSize);
+    }
+
+    void writeDecodedTo(InputStream rawStream, OutputStream out, int bufferSize) throws IOException {
         DecodingOutputStream decodedStream = framedBody.getBodyDecoder().decoding(out);
         try {
-            framedBody.getBodyConsumer().consumeDataInto(asRawStream(), decodedStream, bufferSize);
+            framedBody.getBodyConsumer().consumeDataInto(rawStream, decodedStream, bufferSize);
             decodedStream.close();
         } catch (InterruptedIOException e) {
             // this thread is interrupted when there's an Exception in the consumer Thread...
@@ -127,6 +144,38 @@ public abstract class BodyReader implements Writable, Closeable {
         }
     }
 
+    /**
+     * Get a stream which unframes and decodes the HTTP message body as it is read.
+     * <p>
+     * Unlike {@link #writeDecodedTo(OutputStream)} and {@link #decodeBody()}, this method lets the caller pull the
+     * decoded body incrementally, so a large encoded body can be parsed as it arrives without buffering it whole.
+     * The body is read from {@link #asRawStream()} only as the decoded bytes are requested, within the reading
+     * Thread, and only small buffers are used to unframe and decode it.
+     * <p>
+     * Closing the returned stream releases the resources used for decoding the body, but does not close
+     * this {@link BodyReader}, which should still be closed once it is no longer needed.
+     *
+     * @return the unframed, decoded message body as a stream
+     * @throws IOException              if an error occurs while creating the stream
+     * @throws UnknownEncodingException if the body is encoded with an encoding that is unknown
+     *                                  by the {@link HttpBodyEncodingRegistry}.
+     */
+    public InputStream asDecodedStream() throws IOException {
+        return framedBody.getBodyDecoder().decoding(asUnframedStream());
+    }
+
+    /**
+     * @return a stream of the unframed, but not decoded, message body
+     * @throws IOException if an error occurs while creating the stream
+     */
+    InputStream asUnframedStream() throws IOException {
+        return framedBody.use(
+                cl -> new ContentLengthInputStream(asRawStream(), cl.getBodyLength(),
+                        cl.isAllowContentLengthMismatch()),
+                chunked -> new InputStreamChunkDecoder(chunked.getBodyParser(), asRawStream()),
+                ct -> asRawStream());
+    }
+
     /**
      * @return the raw HTTP message's body as bytes.
      * <p>
@@ -139,6 +188,68 @@ public abstract class BodyReader implements Writable, Closeable {
         return framedBody.getBodyConsumer().consume(asRawStream());
     }
 
+    /**
+     * Read the raw HTTP message body into a sequence of {@link ByteBuffer}s.
+     * <p>
+     * The body is read into heap buffers of up to {@link #MAX_BYTE_BUFFER_SIZE} bytes, which are not concatenated,
+     * so no single array as large as the body is allocated.
+     * <p>
+     * As with {@link #asRawBytes()}, this method does not unframe nor decode the body.
+     *
+     * @return the buffers containing the body, ready to be read
+     * @throws IOException if an error occurs while consuming the message body
+     */
+    public List<ByteBuffer> asByteBuffers() throws IOException {
+        OptionalLong length = getLengthIfKnown();
+        int[] nextSize = {length.isPresent()
+                ? (int) Math.max(1L, Math.min(length.getAsLong(), MAX_BYTE_BUFFER_SIZE))
+                : BodyConsumer.DEFAULT_BUFFER_SIZE};
+        return asByteBuffers(() -> {
+            ByteBuffer buffer = ByteBuffer.allocate(nextSize[0]);
+            nextSize[0] = Math.min(nextSize[0] * 2, MAX_BYTE_BUFFER_SIZE);
+            return buffer;
+        });
+    }
+
+    /**
+     * Read the raw HTTP message body into buffers obtained from the given supplier.
+     * <p>
+     * This method may be used to read the body into direct (off-heap) buffers, for example.
+     * A new buffer is requested from the supplier only once the previous one is full, and bytes are written into
+     * each buffer starting from its current position.
+     * <p>
+     * As with {@link #asRawBytes()}, this method does not unframe nor decode the body.
+     *
+     * @param bufferSupplier supplier of buffers to read the body into. Each supplied buffer must have some
+     *                       space remaining.
+     * @return the buffers that were written to, flipped so that they are ready to be read
+     * @throws IOException if an error occurs while consuming the message body
+     */
+    public List<ByteBuffer> asByteBuffers(Supplier<ByteBuffer> bufferSupplier) throws IOException {
+        ByteBuffersOutputStream out = new ByteBuffersOutputStream(bufferSupplier);
+        writeTo(out);
+        return out.getBuffers();
+    }
+
+    /**
+     * Read the raw HTTP message body, simultaneously writing it to the given channel.
+     * <p>
+     * This is equivalent to {@link #writeTo(OutputStream)}, but file bodies are transferred to the channel using
+     * {@link java.nio.channels.FileChannel#transferTo(long, long, WritableByteChannel)}, so they may be sent
+     * without being copied into memory.
+     * <p>
+     * The channel must be in blocking mode. It is not closed by this method.
+     *
+     * @param channel to write the HTTP body to
+     * @return the number of bytes written
+     * @throws IOException if an error occurs while writing the message
+     */
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        ByteChannelOutputStream out = new ByteChannelOutputStream(channel);
+        writeTo(out);
+        return out.getCount();
+    }
+
     /**
      * @return true if the body is framed with the "chunked" encoding, false otherwise.
      */
@@ -0,0 +1,88 @@
+package rawhttp.core.body;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of byte buffers used to read and write HTTP message bodies.
+ * <p>
+ * Buffers obtained via {@link #acquire(int)} should be given back via {@link #release(byte[])} once they are no
+ * longer in use, so that they may be reused, avoiding a new allocation every time a buffer is needed.
+ * A buffer must not be used after being released, and must not be released more than once.
+ * <p>
+ * Implementations must be thread-safe.
+ *
+ * @see SizeClassedBufferPool
+ * @see rawhttp.core.RawHttpOptions.Builder#withBufferPool(BufferPool)
+ */
+public interface BufferPool {
+
+    /**
+     * Acquire a buffer with at least the given size.
+     * <p>
+     * The returned buffer may be larger than requested and its contents are undefined.
+     *
+     * @param minimumSize minimum size of the buffer
+     * @return a buffer
+     */
+    byte[] acquire(int minimumSize);
+
+    /**
+     * Give back a buffer previously obtained via {@link #acquire(int)}.
+     *
+     * @param buffer the buffer to release
+     */
+    void release(byte[] buffer);
+
+    /**
+     * @return the number of times a buffer was acquired from this pool and a pooled buffer could be reused
+     */
+    long getHitCount();
+
+    /**
+     * @return the number of times a buffer was acquired from this pool and a new buffer had to be allocated
+     */
+    long getMissCount();
+
+    /**
+     * @return the default, shared {@link BufferPool}. It is used by the default {@link rawhttp.core.RawHttpOptions}.
+     */
+    static BufferPool defaultPool() {
+        return SizeClassedBufferPool.DEFAULT_INSTANCE;
+    }
+
+    /**
+     * @return a {@link BufferPool} that does not actually pool buffers, allocating a new buffer each time one is
+     * acquired (each allocation counts as a miss).
+     */
+    static BufferPool unpooled() {
+        return new BufferPool() {
+            private final LongAdder misses = new LongAdder();
+
+            @Override
+            public byte[] acquire(int minimumSize) {
+                misses.increment();
+                return new byte[minimumSize];
+            }
+
+            @Override
+            public void release(byte[] buffer) {
+                // nothing to do
+            }
+
+            @Override
+            public long getHitCount() {
+                return 0L;
+            }
+
+            @Override
+            public long getMissCount() {
+                return misses.sum();
+            }
+
+            @Override
+            public String toString() {
+                return "UnpooledBufferPool{misses=" + misses.sum() + '}';
+            }
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package rawhttp.core.body;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * {@link OutputStream} writing into a sequence of {@link ByteBuffer}s obtained from a supplier.
+ * <p>
+ * A new buffer is only requested once the current one is full, so bytes are never copied from one buffer into
+ * another. As it implements {@link FileTransferTarget}, file bodies are read directly into the buffers.
+ */
+final class ByteBuffersOutputStream extends OutputStream implements FileTransferTarget {
+
+    private final Supplier<ByteBuffer> bufferSupplier;
+    private final List<ByteBuffer> buffers = new ArrayList<>(2);
+    private ByteBuffer current;
+
+    ByteBuffersOutputStream(Supplier<ByteBuffer> bufferSupplier) {
+        this.bufferSupplier = bufferSupplier;
+    }
+
+    /**
+     * @return the buffers written to, ready to be read (i.e. flipped). Empty buffers are not included.
+     */
+    List<ByteBuffer> getBuffers() {
+        if (current != null) {
+            current.flip();
+            if (current.hasRemaining()) {
+                buffers.add(current);
+            }
+            current = null;
+        }
+        return Collections.unmodifiableList(buffers);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        currentBuffer().put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ByteBuffer buffer = currentBuffer();
+            int count = Math.min(len, buffer.remaining());
+            buffer.put(b, off, count);
+            off += count;
+            len -= count;
+        }
+    }
+
+    @Override
+    public void transferFrom(FileChannel file, long position, long count) throws IOException {
+        long end = position + count;
+        while (position < end) {
+            ByteBuffer buffer = currentBuffer();
+            int limit = buffer.limit();
+            if (buffer.remaining() > end - position) {
+                buffer.limit(buffer.position() + (int) (end - position));
+            }
+            int bytesRead;
+            try {
+                bytesRead = file.read(buffer, position);
+            } finally {
+                buffer.limit(limit);
+            }
+            if (bytesRead < 0) {
+                throw new EOFException("File ended before all bytes could be transferred");
+            }
+            position += bytesRead;
+        }
+    }
+
+    private ByteBuffer currentBuffer() {
+        ByteBuffer buffer = current;
+        if (buffer == null || !buffer.hasRemaining()) {
+            if (buffer != null) {
+                buffer.flip();
+                buffers.add(buffer);
+            }
+            buffer = bufferSupplier.get();
+            if (!buffer.hasRemaining()) {
+                throw new IllegalArgumentException("Buffer supplier provided a buffer without space remaining");
+            }
+            current = buffer;
+        }
+        return buffer;
+    }
+
+}
@@ -0,0 +1,86 @@
+package rawhttp.core.body;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Unbuffered {@link OutputStream} writing to a blocking {@link WritableByteChannel}, counting the bytes written.
+ * <p>
+ * As it implements {@link FileTransferTarget}, file bodies written to this stream are transferred to the channel
+ * with {@link FileChannel#transferTo(long, long, WritableByteChannel)}. If the channel is a
+ * {@link GatheringByteChannel}, buffers given to {@link #write(ByteBuffer[])} are written with a single gathering
+ * write.
+ * <p>
+ * Closing this stream does not close the channel.
+ */
+final class ByteChannelOutputStream extends OutputStream implements FileTransferTarget, GatheringWriteTarget {
+
+    private final WritableByteChannel channel;
+    private long count;
+
+    ByteChannelOutputStream(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @return the number of bytes written to the channel
+     */
+    long getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        write(ByteBuffer.wrap(b, off, len));
+    }
+
+    void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            count += channel.write(buffer);
+        }
+    }
+
+    @Override
+    public void write(ByteBuffer[] buffers) throws IOException {
+        if (channel instanceof GatheringByteChannel) {
+            GatheringByteChannel gatheringChannel = (GatheringByteChannel) channel;
+            long remaining = 0L;
+            for (ByteBuffer buffer : buffers) {
+                remaining += buffer.remaining();
+            }
+            while (remaining > 0L) {
+                long written = gatheringChannel.write(buffers);
+                count += written;
+                remaining -= written;
+            }
+        } else {
+            for (ByteBuffer buffer : buffers) {
+                write(buffer);
+            }
+        }
+    }
+
+    @Override
+    public void transferFrom(FileChannel file, long position, long count) throws IOException {
+        long end = position + count;
+        while (position < end) {
+            long transferred = file.transferTo(position, end - position, channel);
+            if (transferred == 0L && position >= file.size()) {
+                throw new EOFException("File ended before all bytes could be transferred");
+            }
+            position += transferred;
+            this.count += transferred;
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package rawhttp.core.body;
+
+/**
+ * A range of bytes, as used in the Range and Content-Range headers.
+ * <p>
+ * Both the first and the last byte positions are inclusive, so the range {@code 0-0} contains exactly one byte.
+ */
+public final class ByteRange {
+
+    private final long first;
+    private final long last;
+
+    /**
+     * Create a range of bytes.
+     *
+     * @param first position of the first byte in the range
+     * @param last  position of the last byte in the range (inclusive)
+     * @throws IllegalArgumentException if first is negative or last is smaller than first
+     */
+    public ByteRange(long first, long last) {
+        if (first < 0L) {
+            throw new IllegalArgumentException("Range first byte position must not be negative: " + first);
+        }
+        if (last < first) {
+            throw new IllegalArgumentException("Range last byte position must not be smaller than first: " +
+                    first + "-" + last);
+        }
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * @return position of the first byte in the range
+     */
+    public long getFirst() {
+        return first;
+    }
+
+    /**
+     * @return position of the last byte in the range (inclusive)
+     */
+    public long getLast() {
+        return last;
+    }
+
+    /**
+     * @return number of bytes in the range
+     */
+    public long length() {
+        return last - first + 1;
+    }
+
+    /**
+     * @param other another range
+     * @return true if the ranges have at least one byte in common, false otherwise
+     */
+    public boolean overlaps(ByteRange other) {
+        return first <= other.last && other.first <= last;
+    }
+
+    /**
+     * @param completeLength the length of the complete representation the range refers to
+     * @return the value of the Content-Range header for this range
+     */
+    public String toContentRange(long completeLength) {
+        return "bytes " + first + "-" + last + "/" + completeLength;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ByteRange byteRange = (ByteRange) o;
+        return first == byteRange.first && last == byteRange.last;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(first) + Long.hashCode(last);
+    }
+
+    @Override
+    public String toString() {
+        return first + "-" + last;
+    }
+
+}
@@ -94,7 +94,7 @@ public class ChunkedBody extends HttpMessageBody {
     @Override
     public LazyBodyReader toBodyReader() {
         return new LazyBodyReader(new FramedBody.Chunked(getBodyDecoder(), metadataParser),
-                new InputStreamChunkEncoder(stream, chunkLength));
+                new InputStreamChunkEncoder(stream, chunkLength, metadataParser.getOptions().getBufferPool()));
     }
 
     @Override
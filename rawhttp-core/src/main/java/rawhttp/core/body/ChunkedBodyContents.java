@@ -54,8 +54,17 @@ public class ChunkedBodyContents implements Writable {
 
         @Override
         public void writeTo(OutputStream out) throws IOException {
-            out.write(Integer.toString(size(), 16).getBytes());
-            getExtensions().forEachIO((name, value) -> {
+            writeChunkSizeLine(out, size(), getExtensions());
+            if (size() > 0) {
+                out.write(getData());
+                out.write('\r');
+                out.write('\n');
+            }
+        }
+
+        static void writeChunkSizeLine(OutputStream out, int size, RawHttpHeaders extensions) throws IOException {
+            out.write(Integer.toString(size, 16).getBytes());
+            extensions.forEachIO((name, value) -> {
                 out.write(';');
                 out.write(name.getBytes(US_ASCII));
                 if (!value.isEmpty()) {
@@ -65,11 +74,6 @@ public class ChunkedBodyContents implements Writable {
             });
             out.write('\r');
             out.write('\n');
-            if (size() > 0) {
-                out.write(getData());
-                out.write('\r');
-                out.write('\n');
-            }
         }
     }
 
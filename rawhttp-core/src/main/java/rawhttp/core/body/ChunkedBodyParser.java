@@ -3,11 +3,14 @@ package rawhttp.core.body;
 import rawhttp.core.HttpMetadataParser;
 import rawhttp.core.IOConsumer;
 import rawhttp.core.RawHttpHeaders;
+import rawhttp.core.errors.BodyTooLargeException;
 import rawhttp.core.errors.InvalidHttpHeader;
 import rawhttp.core.internal.Bool;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.function.BiFunction;
@@ -25,10 +28,14 @@ public final class ChunkedBodyParser {
     private static final int MAX_CHUNK_SIZE_BYTES = 64;
     private final HttpMetadataParser metadataParser;
     private final boolean allowNewLineWithoutReturn;
+    private final BufferPool bufferPool;
+    private final long maxBodySize;
 
     public ChunkedBodyParser(HttpMetadataParser metadataParser) {
         this.metadataParser = metadataParser;
         this.allowNewLineWithoutReturn = metadataParser.getOptions().allowNewLineWithoutReturn();
+        this.bufferPool = metadataParser.getOptions().getBufferPool();
+        this.maxBodySize = metadataParser.getOptions().getMaxBodySize();
     }
 
     /**
@@ -40,6 +47,7 @@ public final class ChunkedBodyParser {
     public Iterator<ChunkedBodyContents.Chunk> readLazily(InputStream inputStream) {
         return new Iterator<ChunkedBodyContents.Chunk>() {
             boolean hasMoreChunks = true;
+            long bodySize = 0L;
 
             @Override
             public boolean hasNext() {
@@ -53,6 +61,7 @@ public final class ChunkedBodyParser {
                 }
                 try {
                     ChunkedBodyContents.Chunk chunk = readNextChunk(inputStream);
+                    bodySize = addToBodySize(bodySize, chunk.size());
                     hasMoreChunks = chunk.size() > 0;
                     if (!hasMoreChunks) {
                         // throw away the trailer-part
@@ -79,9 +88,31 @@ public final class ChunkedBodyParser {
         if (chunkSize < 0) {
             throw new IllegalStateException("unexpected EOF, could not read chunked body");
         }
+        addToBodySize(0L, chunkSize);
         return readChunk(inputStream, chunkSize, hasExtensions.get());
     }
 
+    /**
+     * Read a chunk-size line, including any chunk extensions, from the given stream.
+     * <p>
+     * The chunk extensions are validated, then discarded.
+     *
+     * @param inputStream to read the chunk-size line from
+     * @return the chunk-size
+     * @throws IOException if an error occurs while reading the stream
+     */
+    public int readChunkSizeLine(InputStream inputStream) throws IOException {
+        Bool hasExtensions = new Bool();
+        int chunkSize = readChunkSize(inputStream, hasExtensions);
+        if (chunkSize < 0) {
+            throw new IllegalStateException("unexpected EOF, could not read chunked body");
+        }
+        if (hasExtensions.get()) {
+            parseExtensions(inputStream);
+        }
+        return chunkSize;
+    }
+
     /**
      * Parse the full contents of the chunked message.
      *
@@ -93,6 +124,7 @@ public final class ChunkedBodyParser {
     public void parseChunkedBody(InputStream inputStream,
                                  IOConsumer<ChunkedBodyContents.Chunk> chunkConsumer,
                                  IOConsumer<RawHttpHeaders> trailerConsumer) throws IOException {
+        long bodySize = 0L;
         int chunkSize = 1;
         while (chunkSize > 0) {
             Bool hasExtensions = new Bool();
@@ -100,6 +132,7 @@ public final class ChunkedBodyParser {
             if (chunkSize < 0) {
                 throw new IllegalStateException("unexpected EOF, could not read chunked body");
             }
+            bodySize = addToBodySize(bodySize, chunkSize);
             ChunkedBodyContents.Chunk chunk = readChunk(inputStream, chunkSize, hasExtensions.get());
             chunkConsumer.accept(chunk);
         }
@@ -108,6 +141,128 @@ public final class ChunkedBodyParser {
         trailerConsumer.accept(trailer);
     }
 
+    /**
+     * Copy the full contents of the chunked message into the given stream, without creating
+     * {@link ChunkedBodyContents.Chunk} instances.
+     * <p>
+     * The chunk data is copied through a buffer obtained from the {@link BufferPool} configured in the
+     * {@link rawhttp.core.RawHttpOptions} of the metadata parser.
+     *
+     * @param inputStream    to read message from
+     * @param outputStream   to write the message to
+     * @param includeFraming whether to also write the chunk metadata and trailer-part, or only the chunk data
+     * @param bufferSize     size of the buffer to use, ignored if not positive
+     * @throws IOException if an error occurs while reading or writing the streams
+     */
+    void copyChunkedBody(InputStream inputStream,
+                         OutputStream outputStream,
+                         boolean includeFraming,
+                         int bufferSize) throws IOException {
+        byte[] buffer = bufferPool.acquire(bufferSize > 0 ? bufferSize : BodyConsumer.DEFAULT_BUFFER_SIZE);
+        // when including the framing, it is assembled in the buffer together with the chunk data,
+        // so that each chunk that fits into the buffer is written out with a single write
+        int offset = 0;
+        try {
+            long bodySize = 0L;
+            int chunkSize = 1;
+            while (chunkSize > 0) {
+                Bool hasExtensions = new Bool();
+                chunkSize = readChunkSize(inputStream, hasExtensions);
+                if (chunkSize < 0) {
+                    throw new IllegalStateException("unexpected EOF, could not read chunked body");
+                }
+                bodySize = addToBodySize(bodySize, chunkSize);
+                RawHttpHeaders extensions = hasExtensions.get() ?
+                        parseExtensions(inputStream) :
+                        emptyRawHttpHeaders();
+                if (includeFraming) {
+                    ByteArrayOutputStream sizeLine = new ByteArrayOutputStream(16);
+                    ChunkedBodyContents.Chunk.writeChunkSizeLine(sizeLine, chunkSize, extensions);
+                    offset = append(sizeLine, buffer, offset, outputStream);
+                }
+                if (chunkSize > 0) {
+                    int remaining = chunkSize;
+                    while (remaining > 0) {
+                        if (offset == buffer.length) {
+                            outputStream.write(buffer, 0, offset);
+                            offset = 0;
+                        }
+                        int bytesRead = inputStream.read(buffer, offset, Math.min(buffer.length - offset, remaining));
+                        if (bytesRead < 0) {
+                            throw new IllegalStateException("Unexpected EOF while reading chunk data");
+                        }
+                        offset += bytesRead;
+                        remaining -= bytesRead;
+                        if (!includeFraming) {
+                            outputStream.write(buffer, 0, offset);
+                            offset = 0;
+                        }
+                    }
+                    consumeChunkDataEnd(inputStream);
+                    if (includeFraming) {
+                        if (offset + 2 > buffer.length) {
+                            outputStream.write(buffer, 0, offset);
+                            offset = 0;
+                        }
+                        buffer[offset++] = '\r';
+                        buffer[offset++] = '\n';
+                        outputStream.write(buffer, 0, offset);
+                        offset = 0;
+                    }
+                }
+            }
+
+            RawHttpHeaders trailer = readTrailer(inputStream);
+            if (includeFraming) {
+                // the last chunk is written out together with the trailer
+                ByteArrayOutputStream trailerBytes = new ByteArrayOutputStream(trailer.isEmpty() ? 2 : 64);
+                trailer.writeTo(trailerBytes);
+                offset = append(trailerBytes, buffer, offset, outputStream);
+                outputStream.write(buffer, 0, offset);
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Add the size of a chunk to the size of the body read so far, checking that the body does not become
+     * larger than the maximum body size configured in the {@link rawhttp.core.RawHttpOptions} of the metadata
+     * parser.
+     * <p>
+     * This is called before the chunk-data is read, so that reading a body that is too large fails as early
+     * as possible.
+     *
+     * @param bodySize  size of the body read so far
+     * @param chunkSize size of the next chunk
+     * @return the size of the body including the next chunk
+     * @throws BodyTooLargeException if the body becomes larger than the maximum body size
+     */
+    long addToBodySize(long bodySize, int chunkSize) throws BodyTooLargeException {
+        long newBodySize = bodySize + chunkSize;
+        if (newBodySize > maxBodySize) {
+            throw new BodyTooLargeException(maxBodySize);
+        }
+        return newBodySize;
+    }
+
+    private static int append(ByteArrayOutputStream bytes,
+                              byte[] buffer,
+                              int offset,
+                              OutputStream outputStream) throws IOException {
+        if (offset + bytes.size() > buffer.length) {
+            outputStream.write(buffer, 0, offset);
+            offset = 0;
+        }
+        if (bytes.size() > buffer.length) {
+            bytes.writeTo(outputStream);
+            return 0;
+        }
+        byte[] data = bytes.toByteArray();
+        System.arraycopy(data, 0, buffer, offset, data.length);
+        return offset + data.length;
+    }
+
     /**
      * Read the trailer-part.
      * <p>
@@ -151,26 +306,30 @@ public final class ChunkedBodyParser {
                 throw new IllegalStateException("Unexpected EOF while reading chunk data");
             }
 
-            // consume CRLF
-            int b = inputStream.read();
-            if (b == '\r') {
-                int next = inputStream.read();
-                if (next != '\n') {
-                    throw new IllegalStateException("Illegal character after return (parsing chunk-size)");
-                }
-            } else if (b == '\n') {
-                if (!allowNewLineWithoutReturn) {
-                    throw new IllegalStateException("Illegal character after chunk-data " +
-                            "(new-line character without preceding return)");
-                }
-            } else {
-                throw new IllegalStateException("Illegal character after chunk-data (missing CRLF)");
-            }
+            consumeChunkDataEnd(inputStream);
         }
 
         return new ChunkedBodyContents.Chunk(extensions, data);
     }
 
+    void consumeChunkDataEnd(InputStream inputStream) throws IOException {
+        // consume CRLF
+        int b = inputStream.read();
+        if (b == '\r') {
+            int next = inputStream.read();
+            if (next != '\n') {
+                throw new IllegalStateException("Illegal character after return (parsing chunk-size)");
+            }
+        } else if (b == '\n') {
+            if (!allowNewLineWithoutReturn) {
+                throw new IllegalStateException("Illegal character after chunk-data " +
+                        "(new-line character without preceding return)");
+            }
+        } else {
+            throw new IllegalStateException("Illegal character after chunk-data (missing CRLF)");
+        }
+    }
+
     int readChunkSize(InputStream inputStream,
                       Bool hasExtensions) throws IOException {
         StringBuilder builder = new StringBuilder("0");
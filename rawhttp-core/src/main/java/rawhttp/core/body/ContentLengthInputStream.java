@@ -0,0 +1,62 @@
+package rawhttp.core.body;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link InputStream} reading the body of a message framed with the {@link FramedBody.ContentLength} framing
+ * from the message's stream.
+ * <p>
+ * Only the bytes belonging to the body are read from the source stream, so closing this stream does not close
+ * the source stream, which may still provide further messages.
+ */
+final class ContentLengthInputStream extends InputStream {
+
+    private final InputStream in;
+    private final long bodyLength;
+    private final boolean allowContentLengthMismatch;
+    private final byte[] singleByte = new byte[1];
+
+    private long remaining;
+
+    ContentLengthInputStream(InputStream in, long bodyLength, boolean allowContentLengthMismatch) {
+        this.in = in;
+        this.bodyLength = bodyLength;
+        this.allowContentLengthMismatch = allowContentLengthMismatch;
+        this.remaining = Math.max(0L, bodyLength);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = read(singleByte, 0, 1);
+        return n < 0 ? -1 : singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (remaining == 0L) {
+            return -1;
+        }
+        int bytesRead = in.read(b, off, (int) Math.min(len, remaining));
+        if (bytesRead < 0) {
+            if (!allowContentLengthMismatch) {
+                throw new IOException("InputStream provided " + (bodyLength - remaining) +
+                        " byte(s), but " + bodyLength + " were expected");
+            }
+            // pretend that the body has been fully read
+            remaining = 0L;
+            return -1;
+        }
+        remaining -= bytesRead;
+        return bytesRead;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(in.available(), remaining);
+    }
+
+}
@@ -5,9 +5,19 @@ import javax.annotation.Nullable;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.OptionalLong;
 
 /**
@@ -15,12 +25,32 @@ import java.util.OptionalLong;
  * <p>
  * Because this implementation eagerly consumes the HTTP message, it is not considered "live"
  * (i.e. it can be stored after the HTTP connection is closed).
+ * <p>
+ * The body is normally kept in memory. If a maximum in-memory body size is given, a body larger than that is
+ * written to a temporary file instead, which is deleted when this reader is closed. Hence, a reader whose body may
+ * have been written to a file (see {@link #isInMemory()}) must be closed once it is no longer needed.
+ * Otherwise, the file is only deleted after the reader has been garbage-collected, or when the JVM exits.
+ * <p>
+ * If a {@link BodyBufferBudget.Lease} is given, the bytes of a body kept in memory are reserved from its budget,
+ * and released when this reader is closed.
+ *
+ * @see rawhttp.core.RawHttpOptions#getMaxInMemoryBodySize()
+ * @see BodyBufferBudget
  */
 public final class EagerBodyReader extends BodyReader {
 
     @Nullable
     private final InputStream rawInputStream;
+    @Nullable
     private final byte[] rawBytes;
+    @Nullable
+    private final Path bodyFile;
+    @Nullable
+    private final TemporaryFileCleaner.TrackedFile trackedBodyFile;
+    private final long bodyLength;
+    @Nullable
+    private final BodyBufferBudget.Lease lease;
+    private final long reservedBytes;
 
     /**
      * Create an {@link EagerBodyReader}.
@@ -31,9 +61,60 @@ public final class EagerBodyReader extends BodyReader {
      */
     public EagerBodyReader(FramedBody framedBody,
                            @Nonnull InputStream inputStream) throws IOException {
+        this(framedBody, inputStream, Long.MAX_VALUE);
+    }
+
+    /**
+     * Create an {@link EagerBodyReader} which writes the body to a temporary file if it is larger than the
+     * given maximum size.
+     * <p>
+     * The temporary file is deleted when this reader is closed.
+     *
+     * @param framedBody          the framed body
+     * @param inputStream         providing the body. The body is consumed immediately
+     * @param maxInMemoryBodySize maximum size of the raw body to keep in memory
+     * @throws IOException if the inputStream throws, or the temporary file cannot be written
+     */
+    public EagerBodyReader(FramedBody framedBody,
+                           @Nonnull InputStream inputStream,
+                           long maxInMemoryBodySize) throws IOException {
+        this(framedBody, inputStream, maxInMemoryBodySize, null);
+    }
+
+    /**
+     * Create an {@link EagerBodyReader} which writes the body to a temporary file if it is larger than the
+     * given maximum size, and which reserves the bytes it keeps in memory from the given lease.
+     * <p>
+     * If the budget of the lease is exhausted, this constructor waits for bytes to be released by other readers
+     * before it continues reading the body.
+     *
+     * @param framedBody          the framed body
+     * @param inputStream         providing the body. The body is consumed immediately
+     * @param maxInMemoryBodySize maximum size of the raw body to keep in memory
+     * @param lease               lease to reserve the bytes kept in memory from
+     * @throws IOException if the inputStream throws, the temporary file cannot be written, or the bytes cannot
+     *                     be reserved from the lease (see {@link rawhttp.core.errors.BufferBudgetExhaustedException})
+     */
+    public EagerBodyReader(FramedBody framedBody,
+                           @Nonnull InputStream inputStream,
+                           long maxInMemoryBodySize,
+                           @Nullable BodyBufferBudget.Lease lease) throws IOException {
         super(framedBody);
         this.rawInputStream = inputStream;
-        this.rawBytes = framedBody.getBodyConsumer().consume(inputStream);
+        this.lease = lease;
+        SpillingOutputStream out = new SpillingOutputStream(maxInMemoryBodySize, lease);
+        try {
+            framedBody.getBodyConsumer().consumeInto(inputStream, out, BodyConsumer.DEFAULT_BUFFER_SIZE);
+            out.close();
+        } catch (IOException | RuntimeException e) {
+            out.discard();
+            throw e;
+        }
+        this.rawBytes = out.getBytes();
+        this.bodyFile = out.getFile();
+        this.trackedBodyFile = bodyFile == null ? null : TemporaryFileCleaner.register(this, bodyFile);
+        this.bodyLength = out.size();
+        this.reservedBytes = out.inMemorySize();
     }
 
     /**
@@ -47,23 +128,142 @@ public final class EagerBodyReader extends BodyReader {
         super(new FramedBody.ContentLength(bytes.length));
         this.rawInputStream = null;
         this.rawBytes = bytes;
+        this.bodyFile = null;
+        this.trackedBodyFile = null;
+        this.bodyLength = bytes.length;
+        this.lease = null;
+        this.reservedBytes = 0L;
+    }
+
+    /**
+     * Create an instance of this class from the raw bytes of a body which has already been received.
+     * <p>
+     * The bytes must include the body framing (e.g. the chunk-size lines of a chunked body), exactly as they would
+     * be consumed from a stream by {@link #EagerBodyReader(FramedBody, InputStream)}. The given array is not copied,
+     * so it must not be modified afterwards.
+     *
+     * @param framedBody the framed body
+     * @param rawBytes   the raw body bytes, including framing
+     */
+    public EagerBodyReader(FramedBody framedBody, byte[] rawBytes) {
+        super(framedBody);
+        this.rawInputStream = null;
+        this.rawBytes = rawBytes;
+        this.bodyFile = null;
+        this.trackedBodyFile = null;
+        this.bodyLength = rawBytes.length;
+        this.lease = null;
+        this.reservedBytes = 0L;
+    }
+
+    /**
+     * @return true if the body is kept in memory, false if it was written to a temporary file
+     */
+    public boolean isInMemory() {
+        return rawBytes != null;
     }
 
+    /**
+     * @return the raw body bytes. If the body was written to a temporary file, the whole file is read into memory
+     * @throws RuntimeException if the temporary file cannot be read
+     */
     @Override
     public byte[] asRawBytes() {
-        return rawBytes;
+        if (rawBytes != null) {
+            return rawBytes;
+        }
+        try {
+            return Files.readAllBytes(bodyFile());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return a single read-only buffer wrapping the body bytes, which are not copied, or read-only buffers
+     * mapping the temporary file the body was written to
+     */
+    @Override
+    public List<ByteBuffer> asByteBuffers() {
+        if (rawBytes != null) {
+            return Collections.singletonList(ByteBuffer.wrap(rawBytes).asReadOnlyBuffer());
+        }
+        try (FileChannel channel = FileChannel.open(bodyFile(), StandardOpenOption.READ)) {
+            List<ByteBuffer> buffers = new ArrayList<>();
+            for (long position = 0L; position < bodyLength; position += Integer.MAX_VALUE) {
+                buffers.add(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(Integer.MAX_VALUE, bodyLength - position)));
+            }
+            return buffers;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        if (rawBytes != null) {
+            ByteBuffer buffer = ByteBuffer.wrap(rawBytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } else {
+            try (FileChannel fileChannel = FileChannel.open(bodyFile(), StandardOpenOption.READ)) {
+                long position = 0L;
+                while (position < bodyLength) {
+                    position += fileChannel.transferTo(position, bodyLength - position, channel);
+                }
+            }
+        }
+        return bodyLength;
+    }
+
+    @Override
+    public void writeTo(OutputStream out, int bufferSize) throws IOException {
+        if (rawBytes != null) {
+            super.writeTo(out, bufferSize);
+        } else {
+            try (InputStream rawStream = asRawStream()) {
+                writeTo(rawStream, out, bufferSize);
+            }
+        }
+    }
+
+    @Override
+    public void writeDecodedTo(OutputStream out, int bufferSize) throws IOException {
+        if (rawBytes != null) {
+            super.writeDecodedTo(out, bufferSize);
+        } else {
+            try (InputStream rawStream = asRawStream()) {
+                writeDecodedTo(rawStream, out, bufferSize);
+            }
+        }
     }
 
     @Override
     public OptionalLong getLengthIfKnown() {
-        // the eager body reader consumes the whole body, so we know it must fit into an array (of int size)
-        return OptionalLong.of(rawBytes.length);
+        return OptionalLong.of(bodyLength);
     }
 
+    /**
+     * Close the stream the body was read from, delete the temporary file the body may have been written to,
+     * and release the bytes reserved for the body from the lease this reader was given, if any.
+     *
+     * @throws IOException if an error occurs while closing the stream or deleting the temporary file
+     */
     @Override
     public void close() throws IOException {
-        if (rawInputStream != null) {
-            rawInputStream.close();
+        try {
+            if (rawInputStream != null) {
+                rawInputStream.close();
+            }
+        } finally {
+            if (lease != null) {
+                lease.release(reservedBytes);
+            }
+            if (trackedBodyFile != null) {
+                trackedBodyFile.delete();
+            }
         }
     }
 
@@ -74,7 +274,21 @@ public final class EagerBodyReader extends BodyReader {
 
     @Override
     public InputStream asRawStream() {
-        return new ByteArrayInputStream(rawBytes);
+        if (rawBytes != null) {
+            return new ByteArrayInputStream(rawBytes);
+        }
+        try {
+            return new FileChannelInputStream(FileChannel.open(bodyFile(), StandardOpenOption.READ));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Path bodyFile() {
+        if (bodyFile == null) {
+            throw new IllegalStateException("Body is not stored in a file");
+        }
+        return bodyFile;
     }
 
     /**
@@ -83,7 +297,7 @@ public final class EagerBodyReader extends BodyReader {
      */
     @Override
     public String toString() {
-        return new String(rawBytes, StandardCharsets.UTF_8);
+        return new String(asRawBytes(), StandardCharsets.UTF_8);
     }
 
     @Override
@@ -91,11 +305,11 @@ public final class EagerBodyReader extends BodyReader {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         EagerBodyReader that = (EagerBodyReader) o;
-        return Arrays.equals(rawBytes, that.rawBytes);
+        return bodyLength == that.bodyLength && Arrays.equals(asRawBytes(), that.asRawBytes());
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(rawBytes);
+        return Arrays.hashCode(asRawBytes());
     }
 }
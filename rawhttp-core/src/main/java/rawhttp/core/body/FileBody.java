@@ -1,14 +1,18 @@
 package rawhttp.core.body;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.OptionalLong;
 import javax.annotation.Nullable;
 
 /**
  * A {@link HttpMessageBody} containing the contents of a {@link File}.
+ * <p>
+ * When written to an {@link java.io.OutputStream} implementing {@link FileTransferTarget} (as done by the servers
+ * in the {@code rawhttp.core.server} package when the client connection is backed by a plain socket channel),
+ * the file contents are transferred directly from the file to the output without being copied through a buffer.
  */
 public class FileBody extends HttpMessageBody {
 
@@ -62,7 +66,7 @@ public class FileBody extends HttpMessageBody {
         try {
             return new LazyBodyReader(
                     new FramedBody.ContentLength(getBodyDecoder(), file.length()),
-                    new BufferedInputStream(Files.newInputStream(file.toPath())));
+                    new FileChannelInputStream(FileChannel.open(file.toPath(), StandardOpenOption.READ)));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
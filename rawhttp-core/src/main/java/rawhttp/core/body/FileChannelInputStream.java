@@ -0,0 +1,45 @@
+package rawhttp.core.body;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+/**
+ * Buffered {@link java.io.InputStream} over a {@link FileChannel} which, besides being read as usual, can transfer
+ * its remaining contents to a {@link FileTransferTarget} without copying them through its buffer.
+ */
+final class FileChannelInputStream extends BufferedInputStream implements FileTransferSource {
+
+    private final FileChannel channel;
+
+    FileChannelInputStream(FileChannel channel) {
+        super(Channels.newInputStream(channel));
+        this.channel = channel;
+    }
+
+    @Override
+    public long transferTo(OutputStream out, long maxBytes) throws IOException {
+        long transferred = 0L;
+
+        // bytes that have already been read into the buffer must be written out first
+        int buffered = count - pos;
+        if (buffered > 0 && maxBytes > 0L) {
+            int length = (int) Math.min(buffered, maxBytes);
+            out.write(buf, pos, length);
+            pos += length;
+            transferred += length;
+        }
+
+        long position = channel.position();
+        long remaining = Math.min(maxBytes - transferred, channel.size() - position);
+        if (remaining > 0L) {
+            ((FileTransferTarget) out).transferFrom(channel, position, remaining);
+            channel.position(position + remaining);
+            transferred += remaining;
+        }
+        return transferred;
+    }
+
+}
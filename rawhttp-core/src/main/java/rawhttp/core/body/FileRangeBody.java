@@ -0,0 +1,79 @@
+package rawhttp.core.body;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.OptionalLong;
+
+/**
+ * A {@link HttpMessageBody} containing a range of the contents of a {@link File}, as sent in a
+ * 206 (Partial Content) response to a request for a single range.
+ * <p>
+ * As with {@link FileBody}, the range is transferred directly from the file to an output implementing
+ * {@link FileTransferTarget}.
+ *
+ * @see MultipartByteRangesBody
+ */
+public class FileRangeBody extends HttpMessageBody {
+
+    private final File file;
+    private final ByteRange range;
+
+    /**
+     * Create a {@link HttpMessageBody} whose contents are provided by the given range of the given file.
+     *
+     * @param file  the file whose contents form this message
+     * @param range the range of the file to include in this message
+     */
+    public FileRangeBody(File file, ByteRange range) {
+        this(file, range, null);
+    }
+
+    /**
+     * Create a {@link HttpMessageBody} whose contents are provided by the given range of the given file.
+     *
+     * @param file        the file whose contents form this message
+     * @param range       the range of the file to include in this message
+     * @param contentType Content-Type of the body
+     */
+    public FileRangeBody(File file, ByteRange range, @Nullable String contentType) {
+        super(contentType, null);
+        this.file = file;
+        this.range = range;
+    }
+
+    /**
+     * @return the file associated with this instance.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the range of the file included in this body.
+     */
+    public ByteRange getRange() {
+        return range;
+    }
+
+    @Override
+    public LazyBodyReader toBodyReader() {
+        try {
+            return new LazyBodyReader(
+                    new FramedBody.ContentLength(getBodyDecoder(), range.length()),
+                    new FileRegionsInputStream.Builder()
+                            .addRegion(range)
+                            .build(FileChannel.open(file.toPath(), StandardOpenOption.READ)));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    protected OptionalLong getContentLength() {
+        return OptionalLong.of(range.length());
+    }
+
+}
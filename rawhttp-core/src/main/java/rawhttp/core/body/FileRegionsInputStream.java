@@ -0,0 +1,144 @@
+package rawhttp.core.body;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link InputStream} made up of regions of a file, possibly interleaved with bytes held in memory.
+ * <p>
+ * The file regions are read with positional reads, so they may be given in any order. When transferred to a
+ * {@link FileTransferTarget}, they are not copied through a buffer.
+ */
+final class FileRegionsInputStream extends InputStream implements FileTransferSource {
+
+    private static final class Segment {
+        @Nullable
+        final byte[] bytes;
+        final long offset;
+        final long length;
+
+        Segment(@Nullable byte[] bytes, long offset, long length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    static final class Builder {
+        private final List<Segment> segments = new ArrayList<>();
+
+        Builder addBytes(byte[] bytes) {
+            if (bytes.length > 0) {
+                segments.add(new Segment(bytes, 0L, bytes.length));
+            }
+            return this;
+        }
+
+        Builder addRegion(ByteRange range) {
+            segments.add(new Segment(null, range.getFirst(), range.length()));
+            return this;
+        }
+
+        long length() {
+            long length = 0L;
+            for (Segment segment : segments) {
+                length += segment.length;
+            }
+            return length;
+        }
+
+        FileRegionsInputStream build(FileChannel channel) {
+            return new FileRegionsInputStream(channel, new ArrayList<>(segments));
+        }
+    }
+
+    private final FileChannel channel;
+    private final List<Segment> segments;
+
+    // index of the current segment, and the position within it
+    private int index;
+    private long position;
+
+    private FileRegionsInputStream(FileChannel channel, List<Segment> segments) {
+        this.channel = channel;
+        this.segments = segments;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        Segment segment = currentSegment();
+        if (segment == null) {
+            return -1;
+        }
+        int n = (int) Math.min(len, segment.length - position);
+        if (segment.bytes != null) {
+            System.arraycopy(segment.bytes, (int) position, b, off, n);
+        } else {
+            n = channel.read(ByteBuffer.wrap(b, off, n), segment.offset + position);
+            if (n < 0) {
+                // the file is shorter than expected
+                return -1;
+            }
+        }
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long transferTo(OutputStream out, long maxBytes) throws IOException {
+        long transferred = 0L;
+        Segment segment;
+        while (transferred < maxBytes && (segment = currentSegment()) != null) {
+            long count = Math.min(maxBytes - transferred, segment.length - position);
+            if (segment.bytes != null) {
+                out.write(segment.bytes, (int) position, (int) count);
+            } else {
+                long filePosition = segment.offset + position;
+                count = Math.min(count, channel.size() - filePosition);
+                if (count <= 0L) {
+                    // the file is shorter than expected
+                    break;
+                }
+                ((FileTransferTarget) out).transferFrom(channel, filePosition, count);
+            }
+            position += count;
+            transferred += count;
+        }
+        return transferred;
+    }
+
+    @Nullable
+    private Segment currentSegment() {
+        while (index < segments.size()) {
+            Segment segment = segments.get(index);
+            if (position < segment.length) {
+                return segment;
+            }
+            index++;
+            position = 0L;
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -0,0 +1,23 @@
+package rawhttp.core.body;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An {@link java.io.InputStream} backed by a file, whose contents can be transferred to a
+ * {@link FileTransferTarget} without being copied through a buffer.
+ */
+interface FileTransferSource {
+
+    /**
+     * Transfer up to the given number of bytes to the given output, which must implement {@link FileTransferTarget}.
+     *
+     * @param out      output to transfer bytes to
+     * @param maxBytes maximum number of bytes to transfer
+     * @return the number of bytes actually transferred, which is less than {@code maxBytes} only if the end of the
+     * contents was reached
+     * @throws IOException if an error occurs while transferring the bytes
+     */
+    long transferTo(OutputStream out, long maxBytes) throws IOException;
+
+}
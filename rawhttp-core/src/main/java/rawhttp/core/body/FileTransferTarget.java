@@ -0,0 +1,31 @@
+package rawhttp.core.body;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * An {@link java.io.OutputStream} capable of receiving the contents of a file directly from a {@link FileChannel}.
+ * <p>
+ * When the body of a {@link FileBody} is written to an output stream implementing this interface, and the body is
+ * not being decoded, the file contents are handed to {@link #transferFrom(FileChannel, long, long)} instead of being
+ * copied through a buffer. Implementations that write to a {@link WritableByteChannel} can then use
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which lets the operating system send the file
+ * without copying it into user-space (e.g. via {@code sendfile} on Linux).
+ */
+public interface FileTransferTarget {
+
+    /**
+     * Write the given region of a file to this output.
+     * <p>
+     * Any bytes previously written to this output that are still buffered must be written out first.
+     * This method must only return once all requested bytes have been written.
+     *
+     * @param file     the file to transfer bytes from
+     * @param position position within the file where the transfer must start
+     * @param count    number of bytes to transfer
+     * @throws IOException if an error occurs while transferring the bytes
+     */
+    void transferFrom(FileChannel file, long position, long count) throws IOException;
+
+}
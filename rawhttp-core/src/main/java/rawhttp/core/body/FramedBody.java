@@ -89,6 +89,8 @@ public abstract class FramedBody {
 
         private final long bodyLength;
         private final boolean allowContentLengthMismatch;
+        private final BufferPool bufferPool;
+        private final long maxBodySize;
 
         /**
          * Create a new instance of the {@link ContentLength} framed body.
@@ -129,9 +131,40 @@ public abstract class FramedBody {
          *                                   message's body length.
          */
         public ContentLength(BodyDecoder bodyDecoder, long bodyLength, boolean allowContentLengthMismatch) {
+            this(bodyDecoder, bodyLength, allowContentLengthMismatch, BufferPool.defaultPool());
+        }
+
+        /**
+         * Create a new instance of the {@link ContentLength} framed body.
+         *
+         * @param bodyDecoder                the body encoding
+         * @param bodyLength                 the length of the HTTP message body
+         * @param allowContentLengthMismatch allow the content-length header to not match exactly a HTTP
+         *                                   message's body length.
+         * @param bufferPool                 pool of buffers to use when consuming the body
+         */
+        public ContentLength(BodyDecoder bodyDecoder, long bodyLength, boolean allowContentLengthMismatch,
+                             BufferPool bufferPool) {
+            this(bodyDecoder, bodyLength, allowContentLengthMismatch, bufferPool, Long.MAX_VALUE);
+        }
+
+        /**
+         * Create a new instance of the {@link ContentLength} framed body.
+         *
+         * @param bodyDecoder                the body encoding
+         * @param bodyLength                 the length of the HTTP message body
+         * @param allowContentLengthMismatch allow the content-length header to not match exactly a HTTP
+         *                                   message's body length.
+         * @param bufferPool                 pool of buffers to use when consuming the body
+         * @param maxBodySize                maximum body length allowed when consuming the body
+         */
+        public ContentLength(BodyDecoder bodyDecoder, long bodyLength, boolean allowContentLengthMismatch,
+                             BufferPool bufferPool, long maxBodySize) {
             super(bodyDecoder);
             this.bodyLength = bodyLength;
             this.allowContentLengthMismatch = allowContentLengthMismatch;
+            this.bufferPool = bufferPool;
+            this.maxBodySize = maxBodySize;
         }
 
         public long getBodyLength() {
@@ -144,7 +177,8 @@ public abstract class FramedBody {
 
         @Override
         protected BodyConsumer getBodyConsumer() {
-            return new BodyConsumer.ContentLengthBodyConsumer(bodyLength, allowContentLengthMismatch);
+            return new BodyConsumer.ContentLengthBodyConsumer(bodyLength, allowContentLengthMismatch, bufferPool,
+                    maxBodySize);
         }
 
         @Override
@@ -237,18 +271,44 @@ public abstract class FramedBody {
      */
     public static final class CloseTerminated extends FramedBody {
 
+        private final BufferPool bufferPool;
+        private final long maxBodySize;
+
         /**
          * Create a new instance of the {@link CloseTerminated} body type.
          *
          * @param bodyDecoder the body encoding
          */
         public CloseTerminated(BodyDecoder bodyDecoder) {
+            this(bodyDecoder, BufferPool.defaultPool());
+        }
+
+        /**
+         * Create a new instance of the {@link CloseTerminated} body type.
+         *
+         * @param bodyDecoder the body encoding
+         * @param bufferPool  pool of buffers to use when consuming the body
+         */
+        public CloseTerminated(BodyDecoder bodyDecoder, BufferPool bufferPool) {
+            this(bodyDecoder, bufferPool, Long.MAX_VALUE);
+        }
+
+        /**
+         * Create a new instance of the {@link CloseTerminated} body type.
+         *
+         * @param bodyDecoder the body encoding
+         * @param bufferPool  pool of buffers to use when consuming the body
+         * @param maxBodySize maximum body length allowed when consuming the body
+         */
+        public CloseTerminated(BodyDecoder bodyDecoder, BufferPool bufferPool, long maxBodySize) {
             super(bodyDecoder);
+            this.bufferPool = bufferPool;
+            this.maxBodySize = maxBodySize;
         }
 
         @Override
         protected BodyConsumer getBodyConsumer() {
-            return BodyConsumer.CloseTerminatedBodyConsumer.getInstance();
+            return BodyConsumer.CloseTerminatedBodyConsumer.getInstance(bufferPool, maxBodySize);
         }
 
         @Override
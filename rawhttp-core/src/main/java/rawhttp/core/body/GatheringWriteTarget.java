@@ -0,0 +1,29 @@
+package rawhttp.core.body;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+/**
+ * An {@link java.io.OutputStream} capable of writing several buffers at once.
+ * <p>
+ * When a HTTP message whose body is already in memory is written to an output stream implementing this interface,
+ * the message head and body are handed to {@link #write(ByteBuffer[])} together instead of being written one
+ * after the other. Implementations that write to a {@link GatheringByteChannel} can then send them with a single
+ * {@link GatheringByteChannel#write(ByteBuffer[])} call, which usually results in a single system call and,
+ * for sockets, fewer packets.
+ */
+public interface GatheringWriteTarget {
+
+    /**
+     * Write all remaining bytes of the given buffers to this output, in order.
+     * <p>
+     * Any bytes previously written to this output that are still buffered must be written out first.
+     * This method must only return once all bytes have been written.
+     *
+     * @param buffers the buffers to write
+     * @throws IOException if an error occurs while writing the buffers
+     */
+    void write(ByteBuffer[] buffers) throws IOException;
+
+}
@@ -9,16 +9,26 @@ import rawhttp.core.RawHttpHeaders;
 /**
  * A {@link InputStream} implementation that wraps another InputStream, decoding its contents with the
  * "chunked" encoding.
+ * <p>
+ * When read as a stream, the chunk-data is read directly from the source stream as it is requested, so no buffer
+ * as large as a chunk is allocated. Closing this stream does not close the source stream.
  */
 public class InputStreamChunkDecoder extends InputStream {
 
     private final ChunkedBodyParser parser;
     private final InputStream inputStream;
+    private final byte[] singleByte = new byte[1];
 
     private boolean done = false;
     private ByteArrayInputStream currentSource;
     private RawHttpHeaders trailer;
 
+    // bytes of the chunk-data still to be read directly from the source stream
+    private int chunkRemaining;
+
+    // size of the chunk-data read so far, checked against the maximum body size
+    private long bodySize;
+
     public InputStreamChunkDecoder(ChunkedBodyParser parser, InputStream inputStream) {
         this.parser = parser;
         this.inputStream = inputStream;
@@ -44,13 +54,18 @@ public class InputStreamChunkDecoder extends InputStream {
      *
      * @return the next chunk
      * @throws IOException           if an error occurs while reading the original stream
-     * @throws IllegalStateException if this method is called after the empty chunk is returned
+     * @throws IllegalStateException if this method is called after the empty chunk is returned, or while
+     *                               the data of a chunk is only partially read via this stream
      */
     public ChunkedBodyContents.Chunk readChunk() throws IOException {
+        if (chunkRemaining > 0) {
+            throw new IllegalStateException("Chunk is being read as a stream");
+        }
         if (done) {
             throw new IllegalStateException("HTTP message body is already consumed");
         }
         ChunkedBodyContents.Chunk chunk = parser.readNextChunk(inputStream);
+        bodySize = parser.addToBodySize(bodySize, chunk.size());
         if (chunk.size() == 0) {
             trailer = parser.readTrailer(inputStream);
             done = true;
@@ -63,22 +78,45 @@ public class InputStreamChunkDecoder extends InputStream {
 
     @Override
     public int read() throws IOException {
+        int n = read(singleByte, 0, 1);
+        return n < 0 ? -1 : singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (currentSource != null) {
+            // a chunk returned by readChunk() may not have been fully read yet
+            int bytesRead = currentSource.read(b, off, len);
+            if (bytesRead > 0) {
+                return bytesRead;
+            }
+            currentSource = null;
+        }
         if (done) {
             return -1;
         }
-        if (currentSource == null) {
-            readChunk();
-            if (currentSource == null) {
+        if (chunkRemaining == 0) {
+            int chunkSize = parser.readChunkSizeLine(inputStream);
+            bodySize = parser.addToBodySize(bodySize, chunkSize);
+            if (chunkSize == 0) {
+                trailer = parser.readTrailer(inputStream);
+                done = true;
                 return -1;
             }
+            chunkRemaining = chunkSize;
         }
-        int b = currentSource.read();
-        if (b == -1) {
-            // read the next chunk
-            currentSource = null;
-            return read();
+        int bytesRead = inputStream.read(b, off, Math.min(len, chunkRemaining));
+        if (bytesRead < 0) {
+            throw new IllegalStateException("Unexpected EOF while reading chunk data");
+        }
+        chunkRemaining -= bytesRead;
+        if (chunkRemaining == 0) {
+            parser.consumeChunkDataEnd(inputStream);
         }
-        return b & 0xFF;
+        return bytesRead;
     }
 
     /**
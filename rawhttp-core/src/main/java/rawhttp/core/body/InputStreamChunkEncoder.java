@@ -2,7 +2,6 @@ package rawhttp.core.body;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 
 /**
  * A {@link InputStream} implementation that wraps another InputStream, encoding its contents with the
@@ -12,11 +11,17 @@ public class InputStreamChunkEncoder extends InputStream {
 
     // TODO allow users to insert chunk extensions and a trailer
 
+    // room for the chunk-size (up to 8 hex digits) and CRLF, written right before the chunk data
+    private static final int CHUNK_SIZE_LINE_LENGTH = 10;
+
     private final InputStream stream;
     private final int chunkSize;
+    private final BufferPool bufferPool;
 
-    private byte[] buffer = new byte[0];
+    // holds the current chunk, from index (inclusive) to limit (exclusive)
+    private byte[] buffer;
     private int index = 0;
+    private int limit = 0;
     private boolean terminated = false;
 
     /**
@@ -26,52 +31,96 @@ public class InputStreamChunkEncoder extends InputStream {
      * @param chunkSize maximum chunk-size
      */
     public InputStreamChunkEncoder(InputStream stream, int chunkSize) {
+        this(stream, chunkSize, BufferPool.defaultPool());
+    }
+
+    /**
+     * Create a {@link InputStreamChunkEncoder} to encode the contents of the given stream.
+     * <p>
+     * A single buffer is acquired from the given pool to encode all chunks. It's released back to the pool
+     * once the last chunk has been read, or when this stream is closed.
+     *
+     * @param stream     to encode
+     * @param chunkSize  maximum chunk-size
+     * @param bufferPool pool to obtain the chunk buffer from
+     */
+    public InputStreamChunkEncoder(InputStream stream, int chunkSize, BufferPool bufferPool) {
         this.stream = stream;
         this.chunkSize = chunkSize;
+        this.bufferPool = bufferPool;
     }
 
     @Override
     public int available() {
-        return terminated ? 0 : buffer.length - index;
+        return terminated ? 0 : limit - index;
     }
 
-    private void readNextChunk() throws IOException {
-        byte[] chunkData = new byte[chunkSize];
-        int bytesRead = stream.read(chunkData);
+    private boolean readNextChunk() throws IOException {
+        if (terminated) {
+            releaseBuffer();
+            return false;
+        }
+        if (buffer == null) {
+            buffer = bufferPool.acquire(CHUNK_SIZE_LINE_LENGTH + chunkSize + 2);
+        }
+        int bytesRead = stream.read(buffer, CHUNK_SIZE_LINE_LENGTH, chunkSize);
         if (bytesRead <= 0) {
             terminated = true;
             bytesRead = 0;
         }
 
-        byte[] chunkSizeBytes = (Integer.toString(bytesRead, 16) + "\r\n").getBytes(StandardCharsets.US_ASCII);
-
-        buffer = new byte[chunkSizeBytes.length + bytesRead + 2];
-        System.arraycopy(chunkSizeBytes, 0, buffer, 0, chunkSizeBytes.length);
-        if (bytesRead > 0) {
-            System.arraycopy(chunkData, 0, buffer, chunkSizeBytes.length, bytesRead);
+        String chunkSizeHex = Integer.toString(bytesRead, 16);
+        index = CHUNK_SIZE_LINE_LENGTH - 2 - chunkSizeHex.length();
+        for (int i = 0; i < chunkSizeHex.length(); i++) {
+            buffer[index + i] = (byte) chunkSizeHex.charAt(i);
         }
-        buffer[buffer.length - 2] = '\r';
-        buffer[buffer.length - 1] = '\n';
+        buffer[CHUNK_SIZE_LINE_LENGTH - 2] = '\r';
+        buffer[CHUNK_SIZE_LINE_LENGTH - 1] = '\n';
+        limit = CHUNK_SIZE_LINE_LENGTH + bytesRead;
+        buffer[limit++] = '\r';
+        buffer[limit++] = '\n';
+        return true;
     }
 
     @Override
     public int read() throws IOException {
-        if (index >= buffer.length) {
-            if (terminated) {
-                return -1;
-            }
-            readNextChunk();
-            if (buffer.length == 0) {
-                return -1;
-            }
-            index = 0;
+        if (index >= limit && !readNextChunk()) {
+            return -1;
         }
         return buffer[index++] & 0xFF;
     }
 
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (index >= limit && !readNextChunk()) {
+            return -1;
+        }
+        int count = Math.min(len, limit - index);
+        System.arraycopy(buffer, index, b, off, count);
+        index += count;
+        return count;
+    }
+
     @Override
     public boolean markSupported() {
         return false;
     }
 
+    @Override
+    public void close() {
+        terminated = true;
+        index = limit = 0;
+        releaseBuffer();
+    }
+
+    private void releaseBuffer() {
+        if (buffer != null) {
+            bufferPool.release(buffer);
+            buffer = null;
+        }
+    }
+
 }
@@ -2,6 +2,8 @@ package rawhttp.core.body;
 
 import rawhttp.core.internal.Bool;
 
+import javax.annotation.Nullable;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -25,11 +27,89 @@ public final class LazyBodyReader extends BodyReader {
 
     private final Bool isConsumed = new Bool();
     private final InputStream inputStream;
+    private final long maxInMemoryBodySize;
+    @Nullable
+    private final BodyBufferBudget.Lease lease;
+    @Nullable
+    private Runnable onBodyRead;
 
     public LazyBodyReader(FramedBody framedBody,
                           InputStream inputStream) {
+        this(framedBody, inputStream, null);
+    }
+
+    /**
+     * Create a {@link LazyBodyReader} that runs the given callback once the message body has been fully read.
+     * <p>
+     * The callback is run at most once, after the body is successfully read via {@link #writeTo(OutputStream, int)},
+     * {@link #writeDecodedTo(OutputStream, int)}, {@link #asRawBytes()}, {@link #asChunkedBodyContents()} or
+     * {@link #eager()} (or any method which delegates to one of these), and once the stream returned by
+     * {@link #asDecodedStream()} has been read to the end or closed. It is not run if the body is read via
+     * {@link #asRawStream()} or {@link #asChunkStream()}, or if an error occurs while reading it, until this reader
+     * is closed: closing the reader always runs the callback, after closing the stream which provides the body.
+     * <p>
+     * This can be used, for example, to return a connection to a pool once it may be used to send other requests,
+     * or to let the pool forget about it once it has been closed.
+     *
+     * @param framedBody  the framed body
+     * @param inputStream the stream which provides the message body
+     * @param onBodyRead  callback to run once the body has been read
+     */
+    public LazyBodyReader(FramedBody framedBody,
+                          InputStream inputStream,
+                          @Nullable Runnable onBodyRead) {
+        this(framedBody, inputStream, onBodyRead, Long.MAX_VALUE);
+    }
+
+    /**
+     * Create a {@link LazyBodyReader} that runs the given callback once the message body has been fully read,
+     * and which writes the body to a temporary file when it's read via {@link #eager()} if the body is larger
+     * than the given maximum size.
+     *
+     * @param framedBody          the framed body
+     * @param inputStream         the stream which provides the message body
+     * @param onBodyRead          callback to run once the body has been read
+     * @param maxInMemoryBodySize maximum size of the raw body to keep in memory when it's read eagerly
+     * @see LazyBodyReader#LazyBodyReader(FramedBody, InputStream, Runnable)
+     */
+    public LazyBodyReader(FramedBody framedBody,
+                          InputStream inputStream,
+                          @Nullable Runnable onBodyRead,
+                          long maxInMemoryBodySize) {
+        this(framedBody, inputStream, onBodyRead, maxInMemoryBodySize, null);
+    }
+
+    /**
+     * Create a {@link LazyBodyReader} that, when the body is read via {@link #eager()}, reserves the bytes it
+     * keeps in memory from the given lease.
+     * <p>
+     * This allows a server to limit the number of body bytes buffered in memory across all of its connections.
+     *
+     * @param framedBody          the framed body
+     * @param inputStream         the stream which provides the message body
+     * @param onBodyRead          callback to run once the body has been read
+     * @param maxInMemoryBodySize maximum size of the raw body to keep in memory when it's read eagerly
+     * @param lease               lease to reserve the bytes kept in memory from
+     * @see LazyBodyReader#LazyBodyReader(FramedBody, InputStream, Runnable, long)
+     * @see BodyBufferBudget
+     */
+    public LazyBodyReader(FramedBody framedBody,
+                          InputStream inputStream,
+                          @Nullable Runnable onBodyRead,
+                          long maxInMemoryBodySize,
+                          @Nullable BodyBufferBudget.Lease lease) {
         super(framedBody);
         this.inputStream = inputStream;
+        this.onBodyRead = onBodyRead;
+        this.maxInMemoryBodySize = maxInMemoryBodySize;
+        this.lease = lease;
+    }
+
+    /**
+     * @return the maximum size of the raw body to keep in memory when it's read eagerly
+     */
+    public long getMaxInMemoryBodySize() {
+        return maxInMemoryBodySize;
     }
 
     @Override
@@ -48,25 +128,40 @@ public final class LazyBodyReader extends BodyReader {
     public void writeTo(OutputStream out, int bufferSize) throws IOException {
         markConsumed();
         super.writeTo(out, bufferSize);
+        bodyRead();
+    }
+
+    @Override
+    public void writeDecodedTo(OutputStream out, int bufferSize) throws IOException {
+        super.writeDecodedTo(out, bufferSize);
+        bodyRead();
     }
 
     @Override
     public byte[] asRawBytes() throws IOException {
         markConsumed();
-        return super.asRawBytes();
+        byte[] bytes = super.asRawBytes();
+        bodyRead();
+        return bytes;
     }
 
     @Override
     public Optional<ChunkedBodyContents> asChunkedBodyContents() throws IOException {
         markConsumed();
-        return super.asChunkedBodyContents();
+        Optional<ChunkedBodyContents> contents = super.asChunkedBodyContents();
+        if (contents.isPresent()) {
+            bodyRead();
+        }
+        return contents;
     }
 
     @Override
     public EagerBodyReader eager() throws IOException {
         markConsumed();
         try {
-            return new EagerBodyReader(getFramedBody(), inputStream);
+            EagerBodyReader reader = new EagerBodyReader(getFramedBody(), inputStream, maxInMemoryBodySize, lease);
+            bodyRead();
+            return reader;
         } catch (IOException e) {
             // error while trying to read message body, we cannot keep the connection alive
             try {
@@ -79,6 +174,24 @@ public final class LazyBodyReader extends BodyReader {
         }
     }
 
+    /**
+     * Get a stream which unframes and decodes the HTTP message body as it is read.
+     * <p>
+     * This reader is marked as "consumed" when this method is called. Once the returned stream has been read to
+     * the end, any bytes of the message body left by the decoder (e.g. the last chunk of a chunked body) are also
+     * read, so that the connection may be used for another message. If the stream is closed before that,
+     * the stream associated with this reader is closed, as the rest of the body cannot be skipped.
+     *
+     * @return the unframed, decoded message body as a stream
+     * @throws IOException if an error occurs while creating the stream
+     */
+    @Override
+    public InputStream asDecodedStream() throws IOException {
+        markConsumed();
+        UnframedBodyStream unframed = new UnframedBodyStream(asUnframedStream());
+        return new DecodedBodyStream(getFramedBody().getBodyDecoder().decoding(unframed), unframed);
+    }
+
     /**
      * Get the raw {@link InputStream} associated with this reader.
      * <p>
@@ -96,10 +209,28 @@ public final class LazyBodyReader extends BodyReader {
         return inputStream;
     }
 
+    /**
+     * Close the stream which provides the message body, then run the {@code onBodyRead} callback if it has not
+     * run yet, so that any resources waiting for the body to be read can be released.
+     *
+     * @throws IOException if an error occurs while closing the stream
+     */
     @Override
     public void close() throws IOException {
         isConsumed.set(true);
-        inputStream.close();
+        try {
+            inputStream.close();
+        } finally {
+            bodyRead();
+        }
+    }
+
+    private void bodyRead() {
+        Runnable callback = onBodyRead;
+        if (callback != null) {
+            onBodyRead = null;
+            callback.run();
+        }
     }
 
     private void markConsumed() {
@@ -109,6 +240,94 @@ public final class LazyBodyReader extends BodyReader {
         }
     }
 
+    /**
+     * Stream of the unframed message body which keeps track of whether the whole body has been read.
+     */
+    private static final class UnframedBodyStream extends FilterInputStream {
+
+        private boolean ended;
+
+        UnframedBodyStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                ended = true;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int bytesRead = super.read(b, off, len);
+            if (bytesRead < 0) {
+                ended = true;
+            }
+            return bytesRead;
+        }
+
+        void skipToEnd() throws IOException {
+            byte[] buffer = new byte[512];
+            while (!ended) {
+                read(buffer, 0, buffer.length);
+            }
+        }
+    }
+
+    /**
+     * Stream of the decoded message body which runs the {@code onBodyRead} callback once the body has been read
+     * to the end, or the stream is closed.
+     */
+    private final class DecodedBodyStream extends FilterInputStream {
+
+        private final UnframedBodyStream unframed;
+
+        DecodedBodyStream(InputStream decoded, UnframedBodyStream unframed) {
+            super(decoded);
+            this.unframed = unframed;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                endOfBody();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int bytesRead = super.read(b, off, len);
+            if (bytesRead < 0) {
+                endOfBody();
+            }
+            return bytesRead;
+        }
+
+        private void endOfBody() throws IOException {
+            // the decoder may not have needed the whole body, e.g. the last chunk of a chunked body
+            unframed.skipToEnd();
+            bodyRead();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!unframed.ended) {
+                    // the rest of the body was not read, so the connection cannot be used anymore
+                    inputStream.close();
+                }
+                bodyRead();
+            }
+        }
+    }
+
     /**
      * @return the {@literal "<lazy body reader>"} String.
      * To obtain the String representation of a HTTP message's body, first call
@@ -0,0 +1,133 @@
+package rawhttp.core.body;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.OptionalLong;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link HttpMessageBody} containing the contents of a {@link File} mapped into memory.
+ * <p>
+ * The file contents are read from a {@link MappedByteBuffer}, so sending the body does not require any read
+ * system calls once the file is in the operating system's page cache. As the mapped buffer is never modified,
+ * a single mapping may be shared by any number of bodies (and Threads) by using
+ * {@link #MappedFileBody(File, ByteBuffer, String, BodyDecoder)}, which allows applications to cache the mappings
+ * of frequently used files.
+ * <p>
+ * Notice that the contents of a mapped file are undefined if the file is modified while mapped. If the file is
+ * truncated, reading the body may fail with an unspecified error. Prefer {@link FileBody} for files that may change
+ * while being served.
+ */
+public class MappedFileBody extends HttpMessageBody {
+
+    private final File file;
+    private final ByteBuffer contents;
+
+    /**
+     * Create a {@link HttpMessageBody} whose contents are provided by the given file, which is mapped into memory.
+     *
+     * @param file the file whose contents form this message
+     * @throws IOException if the file cannot be mapped
+     */
+    public MappedFileBody(File file) throws IOException {
+        this(file, null, null);
+    }
+
+    /**
+     * Create a {@link HttpMessageBody} whose contents are provided by the given file, which is mapped into memory.
+     *
+     * @param file        the file whose contents form this message
+     * @param contentType Content-Type of the body
+     * @throws IOException if the file cannot be mapped
+     */
+    public MappedFileBody(File file,
+                          @Nullable String contentType) throws IOException {
+        this(file, contentType, null);
+    }
+
+    /**
+     * Create a {@link HttpMessageBody} whose contents are provided by the given file, which is mapped into memory.
+     * <p>
+     * The body is assumed to be in encoded form and can be decoded with the provided {@link BodyDecoder}.
+     *
+     * @param file        the file whose contents form this message
+     * @param contentType Content-Type of the body
+     * @param bodyDecoder decoder capable of decoding the body
+     * @throws IOException if the file cannot be mapped
+     */
+    public MappedFileBody(File file,
+                          @Nullable String contentType,
+                          @Nullable BodyDecoder bodyDecoder) throws IOException {
+        this(file, map(file), contentType, bodyDecoder);
+    }
+
+    /**
+     * Create a {@link HttpMessageBody} whose contents are provided by a buffer which has already been mapped from
+     * the given file, normally via {@link #map(File)}.
+     * <p>
+     * The remaining bytes of the buffer form the body. The buffer itself is not modified, so it can be shared.
+     *
+     * @param file        the file whose contents form this message
+     * @param contents    the mapped contents of the file
+     * @param contentType Content-Type of the body
+     * @param bodyDecoder decoder capable of decoding the body
+     */
+    public MappedFileBody(File file,
+                          ByteBuffer contents,
+                          @Nullable String contentType,
+                          @Nullable BodyDecoder bodyDecoder) {
+        super(contentType, bodyDecoder);
+        this.file = file;
+        this.contents = contents.asReadOnlyBuffer();
+    }
+
+    /**
+     * Map the whole contents of a file into memory, in read-only mode.
+     *
+     * @param file the file to map
+     * @return the mapped contents of the file
+     * @throws IOException              if the file cannot be mapped
+     * @throws IllegalArgumentException if the file is too large to be mapped into a single buffer
+     */
+    public static MappedByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("File is too large to be mapped: " + file);
+            }
+            // the mapping remains valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+        }
+    }
+
+    /**
+     * @return the file associated with this instance.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return a read-only view of the contents of this body.
+     */
+    public ByteBuffer getContents() {
+        return contents.duplicate();
+    }
+
+    @Override
+    public LazyBodyReader toBodyReader() {
+        return new LazyBodyReader(
+                new FramedBody.ContentLength(getBodyDecoder(), (long) contents.remaining()),
+                new ByteBufferInputStream(contents.duplicate()));
+    }
+
+    @Override
+    protected OptionalLong getContentLength() {
+        return OptionalLong.of(contents.remaining());
+    }
+
+}
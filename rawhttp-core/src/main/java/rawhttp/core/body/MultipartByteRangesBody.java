@@ -0,0 +1,129 @@
+package rawhttp.core.body;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * A {@link HttpMessageBody} of type {@code multipart/byteranges} containing several ranges of the contents of a
+ * {@link File}, as sent in a 206 (Partial Content) response to a request for multiple ranges.
+ * <p>
+ * The body is streamed from the file: only the headers of each part are kept in memory, and the ranges are
+ * transferred directly from the file to an output implementing {@link FileTransferTarget}. Because its length
+ * is known in advance, the body is sent with a Content-Length header.
+ *
+ * @see FileRangeBody
+ */
+public class MultipartByteRangesBody extends HttpMessageBody {
+
+    private final File file;
+    private final List<ByteRange> ranges;
+    private final String boundary;
+    private final FileRegionsInputStream.Builder contents;
+    private final long length;
+
+    /**
+     * Create a {@link HttpMessageBody} whose parts contain the given ranges of the given file.
+     * <p>
+     * A random boundary is used to delimit the parts.
+     *
+     * @param file            the file whose contents form this message
+     * @param completeLength  the length of the file, to be included in each part's Content-Range header
+     * @param ranges          the ranges of the file to include in this message, in the order they should be sent
+     * @param partContentType Content-Type of the file, to be included in each part's headers
+     */
+    public MultipartByteRangesBody(File file,
+                                   long completeLength,
+                                   List<ByteRange> ranges,
+                                   @Nullable String partContentType) {
+        this(file, completeLength, ranges, partContentType, randomBoundary());
+    }
+
+    /**
+     * Create a {@link HttpMessageBody} whose parts contain the given ranges of the given file.
+     *
+     * @param file            the file whose contents form this message
+     * @param completeLength  the length of the file, to be included in each part's Content-Range header
+     * @param ranges          the ranges of the file to include in this message, in the order they should be sent
+     * @param partContentType Content-Type of the file, to be included in each part's headers
+     * @param boundary        the boundary delimiting the parts. It must not occur in the contents of the file.
+     */
+    public MultipartByteRangesBody(File file,
+                                   long completeLength,
+                                   List<ByteRange> ranges,
+                                   @Nullable String partContentType,
+                                   String boundary) {
+        super("multipart/byteranges; boundary=" + boundary, null);
+        this.file = file;
+        this.ranges = ranges;
+        this.boundary = boundary;
+        this.contents = new FileRegionsInputStream.Builder();
+        boolean first = true;
+        for (ByteRange range : ranges) {
+            StringBuilder partHeader = new StringBuilder(128);
+            if (!first) {
+                partHeader.append("\r\n");
+            }
+            partHeader.append("--").append(boundary).append("\r\n");
+            if (partContentType != null) {
+                partHeader.append("Content-Type: ").append(partContentType).append("\r\n");
+            }
+            partHeader.append("Content-Range: ").append(range.toContentRange(completeLength)).append("\r\n\r\n");
+            contents.addBytes(partHeader.toString().getBytes(US_ASCII));
+            contents.addRegion(range);
+            first = false;
+        }
+        contents.addBytes(("\r\n--" + boundary + "--\r\n").getBytes(US_ASCII));
+        this.length = contents.length();
+    }
+
+    private static String randomBoundary() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return "RAWHTTP_" + Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+    }
+
+    /**
+     * @return the file associated with this instance.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the ranges of the file included in this body.
+     */
+    public List<ByteRange> getRanges() {
+        return ranges;
+    }
+
+    /**
+     * @return the boundary delimiting the parts of this body.
+     */
+    public String getBoundary() {
+        return boundary;
+    }
+
+    @Override
+    public LazyBodyReader toBodyReader() {
+        try {
+            return new LazyBodyReader(
+                    new FramedBody.ContentLength(getBodyDecoder(), length),
+                    contents.build(FileChannel.open(file.toPath(), StandardOpenOption.READ)));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    protected OptionalLong getContentLength() {
+        return OptionalLong.of(length);
+    }
+
+}
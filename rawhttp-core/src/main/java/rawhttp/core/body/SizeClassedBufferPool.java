@@ -0,0 +1,181 @@
+package rawhttp.core.body;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link BufferPool} that keeps buffers in size classes.
+ * <p>
+ * Each size class holds buffers of a single size, which is a power of two between the minimum and the maximum
+ * buffer sizes of the pool. Requests for a buffer are served from the smallest size class that fits the requested
+ * size. Requests for buffers larger than the maximum buffer size are not pooled, so a new buffer is always
+ * allocated for them.
+ * <p>
+ * Released buffers are first kept in a small cache owned by the releasing Thread (one buffer per size class), which
+ * can be accessed without any synchronization. If that slot is already taken, the buffer is put in a shared pool
+ * which is split into stripes to reduce contention between Threads: each Thread starts looking for a free slot, or
+ * for a pooled buffer, in its own stripe before looking into the others. If the shared pool is full, the buffer is
+ * simply dropped and left for the garbage collector.
+ * <p>
+ * Notice that when using virtual Threads, which are normally not reused, the Thread-local cache is of little use
+ * and may be disabled, leaving only the shared pool.
+ */
+public final class SizeClassedBufferPool implements BufferPool {
+
+    public static final int DEFAULT_MIN_BUFFER_SIZE = 512;
+    public static final int DEFAULT_MAX_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_BUFFERS_PER_STRIPE = 4;
+
+    static final SizeClassedBufferPool DEFAULT_INSTANCE = new SizeClassedBufferPool();
+
+    private final int minSizeShift;
+    private final int sizeClasses;
+    private final int maxBufferSize;
+    private final int stripes;
+    private final int buffersPerStripe;
+    private final AtomicReferenceArray<byte[]> shared;
+    private final ThreadLocal<byte[][]> threadCache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create a pool with the default settings.
+     */
+    public SizeClassedBufferPool() {
+        this(DEFAULT_MIN_BUFFER_SIZE, DEFAULT_MAX_BUFFER_SIZE, DEFAULT_BUFFERS_PER_STRIPE, true);
+    }
+
+    /**
+     * Create a pool with the given settings.
+     * <p>
+     * The number of stripes in the shared pool is derived from the number of available processors.
+     *
+     * @param minBufferSize    the size of the smallest buffers in the pool (must be a power of two)
+     * @param maxBufferSize    the size of the largest buffers in the pool (must be a power of two)
+     * @param buffersPerStripe the maximum number of buffers of each size class in each stripe of the shared pool
+     * @param threadLocalCache whether to cache one buffer per size class in each Thread
+     */
+    public SizeClassedBufferPool(int minBufferSize,
+                                 int maxBufferSize,
+                                 int buffersPerStripe,
+                                 boolean threadLocalCache) {
+        if (Integer.bitCount(minBufferSize) != 1 || Integer.bitCount(maxBufferSize) != 1) {
+            throw new IllegalArgumentException("Buffer sizes must be powers of two");
+        }
+        if (minBufferSize > maxBufferSize) {
+            throw new IllegalArgumentException("minBufferSize must not be greater than maxBufferSize");
+        }
+        if (buffersPerStripe < 0) {
+            throw new IllegalArgumentException("buffersPerStripe must not be negative");
+        }
+        this.minSizeShift = Integer.numberOfTrailingZeros(minBufferSize);
+        this.sizeClasses = Integer.numberOfTrailingZeros(maxBufferSize) - minSizeShift + 1;
+        this.maxBufferSize = maxBufferSize;
+        this.stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.buffersPerStripe = buffersPerStripe;
+        this.shared = new AtomicReferenceArray<>(sizeClasses * stripes * buffersPerStripe);
+        this.threadCache = threadLocalCache ? ThreadLocal.withInitial(() -> new byte[sizeClasses][]) : null;
+    }
+
+    @Override
+    public byte[] acquire(int minimumSize) {
+        if (minimumSize > maxBufferSize) {
+            misses.increment();
+            return new byte[minimumSize];
+        }
+        int sizeClass = sizeClassOf(minimumSize);
+        if (threadCache != null) {
+            byte[][] cache = threadCache.get();
+            byte[] buffer = cache[sizeClass];
+            if (buffer != null) {
+                cache[sizeClass] = null;
+                hits.increment();
+                return buffer;
+            }
+        }
+        int classStart = sizeClass * stripes * buffersPerStripe;
+        int stripe = currentStripe();
+        for (int s = 0; s < stripes; s++) {
+            int start = classStart + ((stripe + s) & (stripes - 1)) * buffersPerStripe;
+            for (int i = start; i < start + buffersPerStripe; i++) {
+                if (shared.get(i) != null) {
+                    byte[] buffer = shared.getAndSet(i, null);
+                    if (buffer != null) {
+                        hits.increment();
+                        return buffer;
+                    }
+                }
+            }
+        }
+        misses.increment();
+        return new byte[1 << (sizeClass + minSizeShift)];
+    }
+
+    @Override
+    public void release(byte[] buffer) {
+        int length = buffer.length;
+        if (length > maxBufferSize || Integer.bitCount(length) != 1 || length < (1 << minSizeShift)) {
+            // not a buffer from this pool
+            return;
+        }
+        int sizeClass = Integer.numberOfTrailingZeros(length) - minSizeShift;
+        if (threadCache != null) {
+            byte[][] cache = threadCache.get();
+            if (cache[sizeClass] == null) {
+                cache[sizeClass] = buffer;
+                return;
+            }
+        }
+        int classStart = sizeClass * stripes * buffersPerStripe;
+        int stripe = currentStripe();
+        for (int s = 0; s < stripes; s++) {
+            int start = classStart + ((stripe + s) & (stripes - 1)) * buffersPerStripe;
+            for (int i = start; i < start + buffersPerStripe; i++) {
+                if (shared.get(i) == null && shared.compareAndSet(i, null, buffer)) {
+                    return;
+                }
+            }
+        }
+        // the pool is full, let the buffer be garbage collected
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the size of the largest buffers kept by this pool
+     */
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    private int sizeClassOf(int size) {
+        if (size <= 1) {
+            return 0;
+        }
+        int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+        return Math.max(0, shift - minSizeShift);
+    }
+
+    private int currentStripe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & (stripes - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "SizeClassedBufferPool{" +
+                "minBufferSize=" + (1 << minSizeShift) +
+                ", maxBufferSize=" + maxBufferSize +
+                ", hits=" + hits.sum() +
+                ", misses=" + misses.sum() +
+                '}';
+    }
+}
@@ -0,0 +1,146 @@
+package rawhttp.core.body;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@link OutputStream} which keeps the bytes written to it in memory until their total size exceeds a threshold,
+ * then moves them to a temporary file, where any further bytes are also written.
+ * <p>
+ * If a {@link BodyBufferBudget.Lease} is given, the bytes kept in memory are reserved from it before they are
+ * written, and released when they are moved to the file or the stream is discarded.
+ * <p>
+ * Once the stream has been closed, the bytes can be obtained from either {@link #getBytes()} or
+ * {@link #getFile()}. The caller is responsible for deleting the file once it is no longer needed.
+ */
+final class SpillingOutputStream extends OutputStream {
+
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+    private final long maxInMemorySize;
+    @Nullable
+    private final BodyBufferBudget.Lease lease;
+    private final byte[] singleByte = new byte[1];
+
+    @Nullable
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    @Nullable
+    private Path file;
+    @Nullable
+    private OutputStream fileStream;
+
+    private long size;
+
+    SpillingOutputStream(long maxInMemorySize) {
+        this(maxInMemorySize, null);
+    }
+
+    SpillingOutputStream(long maxInMemorySize, @Nullable BodyBufferBudget.Lease lease) {
+        this.maxInMemorySize = maxInMemorySize;
+        this.lease = lease;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        singleByte[0] = (byte) b;
+        write(singleByte, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (memory != null && size + len > maxInMemorySize) {
+            spill(memory);
+        }
+        if (memory != null) {
+            if (lease != null) {
+                lease.reserve(len);
+            }
+            memory.write(b, off, len);
+        } else if (fileStream != null) {
+            fileStream.write(b, off, len);
+        }
+        size += len;
+    }
+
+    private void spill(ByteArrayOutputStream memory) throws IOException {
+        file = Files.createTempFile("rawhttp-body-", ".tmp");
+        fileStream = new BufferedOutputStream(Files.newOutputStream(file), FILE_BUFFER_SIZE);
+        memory.writeTo(fileStream);
+        this.memory = null;
+        if (lease != null) {
+            lease.release(memory.size());
+        }
+    }
+
+    /**
+     * @return the number of bytes written to this stream
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * @return the bytes written to this stream, or null if they were written to a file
+     */
+    @Nullable
+    byte[] getBytes() {
+        return memory == null ? null : memory.toByteArray();
+    }
+
+    /**
+     * @return the file the bytes were written to, or null if the bytes are kept in memory
+     */
+    @Nullable
+    Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (fileStream != null) {
+            fileStream.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileStream != null) {
+            fileStream.close();
+        }
+    }
+
+    /**
+     * @return the number of bytes kept in memory, which are reserved from the lease, if any
+     */
+    long inMemorySize() {
+        return memory == null ? 0L : memory.size();
+    }
+
+    /**
+     * Close this stream, delete the file it may have written to and release the bytes reserved for the
+     * bytes kept in memory.
+     */
+    void discard() {
+        if (lease != null) {
+            lease.release(inMemorySize());
+        }
+        try {
+            close();
+        } catch (IOException e) {
+            // ignore
+        }
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+}
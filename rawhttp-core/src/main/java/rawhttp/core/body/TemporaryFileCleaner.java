@@ -0,0 +1,96 @@
+package rawhttp.core.body;
+
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deletes temporary files which are owned by objects that may never be closed, such as the files bodies are
+ * written to by {@link EagerBodyReader}.
+ * <p>
+ * A file registered with this class is deleted when its {@link TrackedFile} is deleted explicitly, when its owner
+ * becomes unreachable and is garbage-collected, or when the JVM shuts down, whichever happens first.
+ * This is the same mechanism as {@code java.lang.ref.Cleaner}, which is not available on Java 8.
+ */
+final class TemporaryFileCleaner {
+
+    private static final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    private static final Set<TrackedFile> trackedFiles = ConcurrentHashMap.newKeySet();
+
+    static {
+        Thread thread = new Thread(TemporaryFileCleaner::run, "rawhttp-temporary-file-cleaner");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (TrackedFile trackedFile : trackedFiles) {
+                trackedFile.deleteQuietly();
+            }
+        }, "rawhttp-temporary-file-cleaner-shutdown"));
+    }
+
+    private TemporaryFileCleaner() {
+    }
+
+    /**
+     * Register a temporary file to be deleted once its owner is no longer reachable.
+     *
+     * @param owner the object owning the file. The returned {@link TrackedFile} must not refer to it.
+     * @param file  the temporary file
+     * @return the tracked file, which should be deleted explicitly as soon as the owner no longer needs it
+     */
+    static TrackedFile register(Object owner, Path file) {
+        TrackedFile trackedFile = new TrackedFile(owner, file);
+        trackedFiles.add(trackedFile);
+        return trackedFile;
+    }
+
+    private static void run() {
+        while (true) {
+            try {
+                Reference<?> reference = queue.remove();
+                ((TrackedFile) reference).deleteQuietly();
+            } catch (InterruptedException e) {
+                // keep cleaning up until the JVM exits
+            }
+        }
+    }
+
+    /**
+     * A temporary file registered with {@link TemporaryFileCleaner}.
+     */
+    static final class TrackedFile extends PhantomReference<Object> {
+
+        private final Path file;
+
+        private TrackedFile(Object owner, Path file) {
+            super(owner, queue);
+            this.file = file;
+        }
+
+        /**
+         * Delete the file, unless it has already been deleted by this object.
+         *
+         * @throws IOException if the file cannot be deleted
+         */
+        void delete() throws IOException {
+            if (trackedFiles.remove(this)) {
+                clear();
+                Files.deleteIfExists(file);
+            }
+        }
+
+        private void deleteQuietly() {
+            try {
+                delete();
+            } catch (IOException e) {
+                // nothing else can be done
+            }
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package rawhttp.core.body.encoding;
+
+import rawhttp.core.body.BufferPool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} that decodes the bytes read from another stream using the {@link DecodingOutputStream}
+ * of a {@link HttpMessageDecoder}.
+ * <p>
+ * The encoded bytes are only read from the source stream as the decoded bytes are requested, and are given to the
+ * decoder in small slices, so the decoded bytes held by this stream at any time are bounded by the maximum
+ * expansion of one slice. No other Thread is used.
+ */
+final class DecodingInputStream extends InputStream {
+
+    static final int SLICE_SIZE = 512;
+
+    private final InputStream in;
+    private final DecodedBytes decodedBytes = new DecodedBytes();
+    private final DecodingOutputStream decoder;
+    private final byte[] slice = new byte[SLICE_SIZE];
+    private final byte[] singleByte = new byte[1];
+
+    private int position;
+    private boolean finished;
+    private boolean failed;
+
+    DecodingInputStream(InputStream in, HttpMessageDecoder messageDecoder, BufferPool bufferPool)
+            throws IOException {
+        this.in = in;
+        this.decoder = messageDecoder.decode(decodedBytes, bufferPool);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = read(singleByte, 0, 1);
+        return n < 0 ? -1 : singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (failed) {
+            throw new IOException("Decoding of the stream has failed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (position == decodedBytes.size()) {
+            if (finished) {
+                return -1;
+            }
+            decodedBytes.reset();
+            position = 0;
+            try {
+                int bytesRead = in.read(slice, 0, slice.length);
+                if (bytesRead < 0) {
+                    finished = true;
+                    decoder.finishDecoding();
+                } else {
+                    decoder.write(slice, 0, bytesRead);
+                }
+            } catch (IOException | RuntimeException e) {
+                finished = true;
+                failed = true;
+                throw e;
+            }
+        }
+        int length = Math.min(len, decodedBytes.size() - position);
+        System.arraycopy(decodedBytes.bytes(), position, b, off, length);
+        position += length;
+        return length;
+    }
+
+    @Override
+    public int available() {
+        return decodedBytes.size() - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!finished) {
+                finished = true;
+                try {
+                    // release any resources held by the decoder
+                    decoder.finishDecoding();
+                } catch (IOException e) {
+                    // the body was not fully read, so the decoder is expected to complain
+                }
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static final class DecodedBytes extends ByteArrayOutputStream {
+        byte[] bytes() {
+            return buf;
+        }
+    }
+
+}
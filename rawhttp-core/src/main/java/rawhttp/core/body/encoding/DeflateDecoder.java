@@ -1,6 +1,8 @@
 package rawhttp.core.body.encoding;
 
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.zip.InflaterInputStream;
 import java.util.zip.InflaterOutputStream;
 
 /**
@@ -17,4 +19,9 @@ public class DeflateDecoder implements HttpMessageDecoder {
         return new DecodingOutputStream(new InflaterOutputStream(outputStream));
     }
 
+    @Override
+    public InputStream decode(InputStream inputStream) {
+        return new InflaterInputStream(inputStream);
+    }
+
 }
@@ -0,0 +1,50 @@
+package rawhttp.core.body.encoding;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * A bounded pool of {@link Deflater} instances.
+ * <p>
+ * As with {@link InflaterPool}, resetting and reusing instances avoids allocating native memory for every message
+ * body that needs to be encoded.
+ */
+final class DeflaterPool {
+
+    /**
+     * Pool of deflaters producing raw deflate data, as required by the gzip format.
+     */
+    static final DeflaterPool NOWRAP = new DeflaterPool(true,
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+    /**
+     * Pool of deflaters producing data in the zlib format, as required by the deflate encoding.
+     */
+    static final DeflaterPool ZLIB = new DeflaterPool(false,
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+    private final boolean nowrap;
+    private final ArrayBlockingQueue<Deflater> deflaters;
+
+    DeflaterPool(boolean nowrap, int capacity) {
+        this.nowrap = nowrap;
+        this.deflaters = new ArrayBlockingQueue<>(capacity);
+    }
+
+    Deflater acquire(int level) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            return new Deflater(level, nowrap);
+        }
+        deflater.setLevel(level);
+        return deflater;
+    }
+
+    void release(Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+}
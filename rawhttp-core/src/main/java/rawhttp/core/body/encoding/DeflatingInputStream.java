@@ -0,0 +1,134 @@
+package rawhttp.core.body.encoding;
+
+import rawhttp.core.body.BufferPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An {@link InputStream} that compresses the bytes read from another stream, producing either the zlib format
+ * (for the "deflate" encoding) or the gzip format (for the "gzip" encoding).
+ * <p>
+ * The {@link Deflater} and input buffer are only acquired on the first read, and released once the compressed
+ * data has been fully read or this stream is closed.
+ * <p>
+ * See <a href="https://tools.ietf.org/html/rfc1952">RFC-1952</a> for details about the gzip format.
+ */
+final class DeflatingInputStream extends InputStream {
+
+    // ID1, ID2, CM (deflate), FLG (none), MTIME (none), XFL, OS (unknown)
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private final InputStream in;
+    private final boolean gzip;
+    private final int level;
+    private final int bufferSize;
+    private final BufferPool bufferPool;
+    private final CRC32 crc;
+    private final byte[] singleByte = new byte[1];
+
+    private Deflater deflater;
+    private byte[] buffer;
+
+    // gzip header or trailer bytes still to be read
+    private byte[] pending;
+    private int pendingIndex;
+
+    private boolean done;
+
+    DeflatingInputStream(InputStream in, boolean gzip, int level, int bufferSize, BufferPool bufferPool) {
+        this.in = in;
+        this.gzip = gzip;
+        this.level = level;
+        this.bufferSize = bufferSize;
+        this.bufferPool = bufferPool;
+        this.crc = gzip ? new CRC32() : null;
+        this.pending = gzip ? GZIP_HEADER : null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = read(singleByte, 0, 1);
+        return n < 0 ? -1 : singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            if (pending != null) {
+                int n = Math.min(len, pending.length - pendingIndex);
+                System.arraycopy(pending, pendingIndex, b, off, n);
+                pendingIndex += n;
+                if (pendingIndex == pending.length) {
+                    pending = null;
+                    pendingIndex = 0;
+                }
+                return n;
+            }
+            if (done) {
+                return -1;
+            }
+            if (deflater == null) {
+                deflater = (gzip ? DeflaterPool.NOWRAP : DeflaterPool.ZLIB).acquire(level);
+                buffer = bufferPool.acquire(bufferSize);
+            }
+            if (deflater.finished()) {
+                if (gzip) {
+                    pending = gzipTrailer(crc.getValue(), deflater.getBytesRead());
+                }
+                release();
+                done = true;
+                continue;
+            }
+            int n = deflater.deflate(b, off, len);
+            if (n > 0) {
+                return n;
+            }
+            if (deflater.needsInput()) {
+                int bytesRead = in.read(buffer, 0, buffer.length);
+                if (bytesRead < 0) {
+                    deflater.finish();
+                } else if (bytesRead > 0) {
+                    deflater.setInput(buffer, 0, bytesRead);
+                    if (gzip) {
+                        crc.update(buffer, 0, bytesRead);
+                    }
+                }
+            }
+        }
+    }
+
+    private static byte[] gzipTrailer(long crc, long size) {
+        return new byte[]{
+                (byte) crc, (byte) (crc >> 8), (byte) (crc >> 16), (byte) (crc >> 24),
+                (byte) size, (byte) (size >> 8), (byte) (size >> 16), (byte) (size >> 24)
+        };
+    }
+
+    private void release() {
+        if (deflater != null) {
+            (gzip ? DeflaterPool.NOWRAP : DeflaterPool.ZLIB).release(deflater);
+            deflater = null;
+        }
+        if (buffer != null) {
+            bufferPool.release(buffer);
+            buffer = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        done = true;
+        pending = null;
+        release();
+        in.close();
+    }
+
+}
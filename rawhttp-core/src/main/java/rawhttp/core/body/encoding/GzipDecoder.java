@@ -1,5 +1,9 @@
 package rawhttp.core.body.encoding;
 
+import rawhttp.core.body.BufferPool;
+
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 
 /**
@@ -10,7 +14,7 @@ public class GzipDecoder implements HttpMessageDecoder {
     private int bufferSize = 4096;
 
     /**
-     * Set the size of the buffer to use when transferring data from the inflater InputStream to the
+     * Set the size of the buffer to use when transferring data from the inflater to the
      * target OutputStream.
      *
      * @param bufferSize size of transfer buffer
@@ -29,7 +33,17 @@ public class GzipDecoder implements HttpMessageDecoder {
 
     @Override
     public DecodingOutputStream decode(OutputStream out) {
-        return new GZipUncompressorOutputStream(out, bufferSize);
+        return decode(out, BufferPool.defaultPool());
+    }
+
+    @Override
+    public DecodingOutputStream decode(OutputStream out, BufferPool bufferPool) {
+        return new GzipDecodingOutputStream(out, bufferSize, bufferPool);
+    }
+
+    @Override
+    public InputStream decode(InputStream in, BufferPool bufferPool) throws IOException {
+        return new DecodingInputStream(in, this, bufferPool);
     }
 
 }
@@ -0,0 +1,256 @@
+package rawhttp.core.body.encoding;
+
+import rawhttp.core.body.BufferPool;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A {@link DecodingOutputStream} that decodes gzip-encoded bytes as they are written to it.
+ * <p>
+ * The gzip header and trailer are parsed incrementally, and the compressed data is inflated by an
+ * {@link Inflater} obtained from a pool, all within the Thread that writes to this stream.
+ * <p>
+ * As with {@link java.util.zip.GZIPInputStream}, concatenated gzip members are decoded as a single stream, and
+ * any bytes following the last member which do not form a valid gzip header are ignored.
+ * <p>
+ * See <a href="https://tools.ietf.org/html/rfc1952">RFC-1952</a> for details about the gzip format.
+ */
+final class GzipDecodingOutputStream extends DecodingOutputStream {
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    // states, in the order they may occur within a gzip member
+    private static final int HEADER = 0;
+    private static final int EXTRA_LENGTH = 1;
+    private static final int EXTRA = 2;
+    private static final int NAME = 3;
+    private static final int COMMENT = 4;
+    private static final int HEADER_CRC = 5;
+    private static final int DATA = 6;
+    private static final int TRAILER = 7;
+    private static final int DONE = 8;
+
+    private final int bufferSize;
+    private final BufferPool bufferPool;
+    private final CRC32 crc = new CRC32();
+    private final byte[] fields = new byte[10];
+    private final byte[] singleByte = new byte[1];
+
+    private Inflater inflater;
+    private byte[] buffer;
+
+    private int state = HEADER;
+    private int count;
+    private int flags;
+    private int extraLength;
+    private int members;
+    private long uncompressedSize;
+
+    GzipDecodingOutputStream(OutputStream out, int bufferSize, BufferPool bufferPool) {
+        super(out);
+        this.bufferSize = bufferSize;
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        singleByte[0] = (byte) b;
+        write(singleByte, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int end = off + len;
+        try {
+            while (off < end && state != DONE) {
+                if (state == DATA) {
+                    off = inflate(b, off, end);
+                } else if (state == TRAILER) {
+                    off = readTrailer(b, off, end);
+                } else {
+                    readHeaderByte(b[off++] & 0xFF);
+                }
+            }
+        } catch (IOException e) {
+            state = DONE;
+            releaseResources();
+            throw e;
+        }
+    }
+
+    private void readHeaderByte(int b) throws IOException {
+        if (state != HEADER_CRC) {
+            if (state == HEADER && count == 0) {
+                crc.reset();
+            }
+            crc.update(b);
+        }
+        switch (state) {
+            case HEADER:
+                fields[count++] = (byte) b;
+                if ((count == 1 && b != 0x1f) || (count == 2 && b != 0x8b)) {
+                    invalidHeader("Not in GZIP format");
+                } else if (count == 3 && b != 8) {
+                    invalidHeader("Unsupported compression method");
+                } else if (count == fields.length) {
+                    flags = fields[3] & 0xFF;
+                    nextHeaderState();
+                }
+                break;
+            case EXTRA_LENGTH:
+                if (count++ == 0) {
+                    extraLength = b;
+                } else {
+                    extraLength |= b << 8;
+                    count = 0;
+                    state = EXTRA;
+                    if (extraLength == 0) {
+                        nextHeaderState();
+                    }
+                }
+                break;
+            case EXTRA:
+                if (++count == extraLength) {
+                    nextHeaderState();
+                }
+                break;
+            case NAME:
+            case COMMENT:
+                if (b == 0) {
+                    nextHeaderState();
+                }
+                break;
+            case HEADER_CRC:
+                fields[count++] = (byte) b;
+                if (count == 2) {
+                    int expected = (fields[0] & 0xFF) | ((fields[1] & 0xFF) << 8);
+                    if (expected != ((int) crc.getValue() & 0xFFFF)) {
+                        invalidHeader("Corrupt GZIP header");
+                    } else {
+                        nextHeaderState();
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unexpected state: " + state);
+        }
+    }
+
+    private void nextHeaderState() {
+        count = 0;
+        if (state < EXTRA_LENGTH && (flags & FEXTRA) != 0) {
+            state = EXTRA_LENGTH;
+        } else if (state < NAME && (flags & FNAME) != 0) {
+            state = NAME;
+        } else if (state < COMMENT && (flags & FCOMMENT) != 0) {
+            state = COMMENT;
+        } else if (state < HEADER_CRC && (flags & FHCRC) != 0) {
+            state = HEADER_CRC;
+        } else {
+            state = DATA;
+            crc.reset();
+            uncompressedSize = 0L;
+            if (inflater == null) {
+                inflater = InflaterPool.NOWRAP.acquire();
+                buffer = bufferPool.acquire(bufferSize);
+            }
+        }
+    }
+
+    private void invalidHeader(String message) throws IOException {
+        if (members > 0) {
+            // trailing bytes after a gzip member are ignored, as in GZIPInputStream
+            state = DONE;
+        } else {
+            throw new IOException(new ZipException(message));
+        }
+    }
+
+    private int inflate(byte[] b, int off, int end) throws IOException {
+        inflater.setInput(b, off, end - off);
+        try {
+            while (true) {
+                int bytesInflated = inflater.inflate(buffer, 0, buffer.length);
+                if (bytesInflated > 0) {
+                    crc.update(buffer, 0, bytesInflated);
+                    uncompressedSize += bytesInflated;
+                    out.write(buffer, 0, bytesInflated);
+                } else if (inflater.finished()) {
+                    state = TRAILER;
+                    count = 0;
+                    return end - inflater.getRemaining();
+                } else if (inflater.needsDictionary()) {
+                    throw new IOException(new ZipException("Unexpected preset dictionary in GZIP data"));
+                } else if (inflater.needsInput()) {
+                    return end;
+                }
+            }
+        } catch (DataFormatException e) {
+            String message = e.getMessage();
+            throw new IOException(new ZipException(message == null ? "Invalid ZLIB data format" : message));
+        }
+    }
+
+    private int readTrailer(byte[] b, int off, int end) throws IOException {
+        // the trailer contains the CRC-32 of the uncompressed data followed by its size
+        int previousCount = count;
+        int bytesToCopy = Math.min(8 - count, end - off);
+        System.arraycopy(b, off, fields, count, bytesToCopy);
+        count += bytesToCopy;
+        if (previousCount < 4 && count >= 4 && readUInt32(0) != crc.getValue()) {
+            throw new IOException(new ZipException("Corrupt GZIP trailer"));
+        }
+        if (count == 8) {
+            if (readUInt32(4) != (uncompressedSize & 0xFFFFFFFFL)) {
+                throw new IOException(new ZipException("Corrupt GZIP trailer"));
+            }
+            members++;
+            inflater.reset();
+            state = HEADER;
+            count = 0;
+        }
+        return off + bytesToCopy;
+    }
+
+    private long readUInt32(int index) {
+        return ((fields[index] & 0xFFL))
+                | ((fields[index + 1] & 0xFFL) << 8)
+                | ((fields[index + 2] & 0xFFL) << 16)
+                | ((fields[index + 3] & 0xFFL) << 24);
+    }
+
+    @Override
+    public void finishDecoding() throws IOException {
+        try {
+            // a stream may only end between gzip members (or without any bytes at all),
+            // but an incomplete header following a gzip member is ignored, as in GZIPInputStream
+            if (state != DONE && !(state == HEADER && count == 0) && !(members > 0 && state < DATA)) {
+                state = DONE;
+                throw new IOException(new EOFException("Unexpected end of ZLIB input stream"));
+            }
+            state = DONE;
+            super.finishDecoding();
+        } finally {
+            releaseResources();
+        }
+    }
+
+    private void releaseResources() {
+        if (inflater != null) {
+            InflaterPool.NOWRAP.release(inflater);
+            bufferPool.release(buffer);
+            inflater = null;
+            buffer = null;
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package rawhttp.core.body.encoding;
+
+import rawhttp.core.body.BufferPool;
+
+import java.io.InputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Encoder for the "gzip" encoding.
+ */
+public class GzipEncoder implements HttpMessageEncoder {
+
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private int bufferSize = 4096;
+
+    /**
+     * Set the compression level to use, from 0 (no compression) to 9 (best compression).
+     * <p>
+     * By default, {@link Deflater#DEFAULT_COMPRESSION} is used.
+     *
+     * @param compressionLevel compression level
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if ((compressionLevel < 0 || compressionLevel > 9) && compressionLevel != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Set the size of the buffer to use when transferring data from the source InputStream to the deflater.
+     *
+     * @param bufferSize size of transfer buffer
+     */
+    public void setBufferSize(int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive, invalid size: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public String encodingName() {
+        return "gzip";
+    }
+
+    @Override
+    public InputStream encode(InputStream in) {
+        return new DeflatingInputStream(in, true, compressionLevel, bufferSize, BufferPool.defaultPool());
+    }
+
+}
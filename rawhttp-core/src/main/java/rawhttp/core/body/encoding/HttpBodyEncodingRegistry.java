@@ -3,7 +3,7 @@ package rawhttp.core.body.encoding;
 import java.util.Optional;
 
 /**
- * A registry of encodings and related {@link HttpMessageDecoder}s.
+ * A registry of encodings and related {@link HttpMessageDecoder}s and {@link HttpMessageEncoder}s.
  */
 public interface HttpBodyEncodingRegistry {
 
@@ -14,4 +14,16 @@ public interface HttpBodyEncodingRegistry {
      * @return the decoder associated with the encoding, or empty if none is available
      */
     Optional<HttpMessageDecoder> get(String encoding);
+
+    /**
+     * Get the encoder mapped to the given encoding, if available.
+     * <p>
+     * By default, no encoders are available.
+     *
+     * @param encoding case-insensitive encoding name
+     * @return the encoder associated with the encoding, or empty if none is available
+     */
+    default Optional<HttpMessageEncoder> getEncoder(String encoding) {
+        return Optional.empty();
+    }
 }
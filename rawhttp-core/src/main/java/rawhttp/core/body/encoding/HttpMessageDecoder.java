@@ -1,6 +1,9 @@
 package rawhttp.core.body.encoding;
 
+import rawhttp.core.body.BufferPool;
+
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 
 /**
@@ -23,4 +26,54 @@ public interface HttpMessageDecoder {
      */
     DecodingOutputStream decode(OutputStream out) throws IOException;
 
+    /**
+     * Create an {@link OutputStream} that decodes the bytes being written into it, as {@link #decode(OutputStream)}
+     * does, taking any buffers it needs from the given pool.
+     * <p>
+     * {@link rawhttp.core.body.BodyDecoder} calls this method with the pool configured in
+     * {@link rawhttp.core.RawHttpOptions}. By default, the pool is ignored.
+     *
+     * @param out        receiver of decoded messages
+     * @param bufferPool pool from which to obtain buffers
+     * @return a stream into which encoded messages can be written to be decoded
+     * @throws IOException if an error occurs while creating the decoder stream
+     */
+    default DecodingOutputStream decode(OutputStream out, BufferPool bufferPool) throws IOException {
+        return decode(out);
+    }
+
+    /**
+     * Create an {@link InputStream} that decodes the bytes read from the given stream according to the encoding
+     * supported by this decoder.
+     * <p>
+     * The bytes are decoded as the returned stream is read, within the reading Thread. By default, the encoded
+     * bytes are given in small slices to the stream returned by {@link #decode(OutputStream)}, so decoders
+     * only need to override this method if they can decode with less memory or copying.
+     * <p>
+     * Closing the returned stream closes the given stream.
+     *
+     * @param in stream providing the encoded bytes
+     * @return a stream from which the decoded bytes can be read
+     * @throws IOException if an error occurs while creating the decoder stream
+     */
+    default InputStream decode(InputStream in) throws IOException {
+        return new DecodingInputStream(in, this, BufferPool.defaultPool());
+    }
+
+    /**
+     * Create an {@link InputStream} that decodes the bytes read from the given stream, as
+     * {@link #decode(InputStream)} does, taking any buffers it needs from the given pool.
+     * <p>
+     * {@link rawhttp.core.body.BodyDecoder} calls this method with the pool configured in
+     * {@link rawhttp.core.RawHttpOptions}. By default, the pool is ignored.
+     *
+     * @param in         stream providing the encoded bytes
+     * @param bufferPool pool from which to obtain buffers
+     * @return a stream from which the decoded bytes can be read
+     * @throws IOException if an error occurs while creating the decoder stream
+     */
+    default InputStream decode(InputStream in, BufferPool bufferPool) throws IOException {
+        return decode(in);
+    }
+
 }
@@ -0,0 +1,33 @@
+package rawhttp.core.body.encoding;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A HTTP message body encoder.
+ * <p>
+ * Encoders are pull-based: the encoded bytes are produced as the stream returned by {@link #encode(InputStream)}
+ * is read, so a message body can be encoded without buffering it whole or using another Thread.
+ *
+ * @see HttpMessageDecoder
+ */
+public interface HttpMessageEncoder {
+
+    /**
+     * @return the name of the encoding supported by this encoder.
+     */
+    String encodingName();
+
+    /**
+     * Create an {@link InputStream} that encodes the bytes read from the given stream according to the encoding
+     * supported by this encoder.
+     * <p>
+     * Closing the returned stream closes the given stream.
+     *
+     * @param in stream providing the bytes to encode
+     * @return a stream from which the encoded bytes can be read
+     * @throws IOException if an error occurs while creating the encoder stream
+     */
+    InputStream encode(InputStream in) throws IOException;
+
+}
@@ -1,6 +1,6 @@
 package rawhttp.core.body.encoding;
 
-
+import java.io.InputStream;
 import java.io.OutputStream;
 
 /**
@@ -19,4 +19,9 @@ public final class IdentityDecoder implements HttpMessageDecoder {
         }
         return new DecodingOutputStream(out);
     }
+
+    @Override
+    public InputStream decode(InputStream in) {
+        return in;
+    }
 }
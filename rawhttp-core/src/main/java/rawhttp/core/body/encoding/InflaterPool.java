@@ -0,0 +1,40 @@
+package rawhttp.core.body.encoding;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Inflater;
+
+/**
+ * A bounded pool of {@link Inflater} instances.
+ * <p>
+ * Creating an {@link Inflater} allocates native memory, so it's much cheaper to reset and reuse instances than to
+ * create a new one for every message body that needs to be decoded.
+ */
+final class InflaterPool {
+
+    /**
+     * Pool of inflaters for raw deflate data, as required by the gzip format.
+     */
+    static final InflaterPool NOWRAP = new InflaterPool(true,
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+    private final boolean nowrap;
+    private final ArrayBlockingQueue<Inflater> inflaters;
+
+    InflaterPool(boolean nowrap, int capacity) {
+        this.nowrap = nowrap;
+        this.inflaters = new ArrayBlockingQueue<>(capacity);
+    }
+
+    Inflater acquire() {
+        Inflater inflater = inflaters.poll();
+        return inflater == null ? new Inflater(nowrap) : inflater;
+    }
+
+    void release(Inflater inflater) {
+        inflater.reset();
+        if (!inflaters.offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+}
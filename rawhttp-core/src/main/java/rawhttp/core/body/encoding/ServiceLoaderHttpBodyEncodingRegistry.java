@@ -13,11 +13,15 @@ import java.util.ServiceLoader;
  * <p>
  * This is the default registry used by RawHTTP. To provide extra encodings, you can just put the decoders
  * implementations on the classpath and register them via a file at
- * {@code META-INF/services/rawhttp.core.body.encoding.HttpBodyEncodingRegistry}.
+ * {@code META-INF/services/rawhttp.core.body.encoding.HttpMessageDecoder}.
+ * <p>
+ * Encoders are registered in the same way, via a file at
+ * {@code META-INF/services/rawhttp.core.body.encoding.HttpMessageEncoder}.
  */
 public final class ServiceLoaderHttpBodyEncodingRegistry implements HttpBodyEncodingRegistry {
 
     private final Map<String, HttpMessageDecoder> encoderByName;
+    private final Map<String, HttpMessageEncoder> messageEncoderByName;
 
     public ServiceLoaderHttpBodyEncodingRegistry() {
         Map<String, HttpMessageDecoder> encoderByName = new HashMap<>();
@@ -27,6 +31,14 @@ public final class ServiceLoaderHttpBodyEncodingRegistry implements HttpBodyEnco
             encoderByName.put(encoder.encodingName().toLowerCase(), encoder);
         }
         this.encoderByName = Collections.unmodifiableMap(encoderByName);
+
+        Map<String, HttpMessageEncoder> messageEncoderByName = new HashMap<>();
+        ServiceLoader<HttpMessageEncoder> encoderLoader = ServiceLoader.load(HttpMessageEncoder.class,
+                RawHttp.class.getClassLoader());
+        for (HttpMessageEncoder encoder : encoderLoader) {
+            messageEncoderByName.put(encoder.encodingName().toLowerCase(), encoder);
+        }
+        this.messageEncoderByName = Collections.unmodifiableMap(messageEncoderByName);
     }
 
     @Override
@@ -34,4 +46,9 @@ public final class ServiceLoaderHttpBodyEncodingRegistry implements HttpBodyEnco
         return Optional.ofNullable(encoderByName.get(encoding.toLowerCase()));
     }
 
+    @Override
+    public Optional<HttpMessageEncoder> getEncoder(String encoding) {
+        return Optional.ofNullable(messageEncoderByName.get(encoding.toLowerCase()));
+    }
+
 }
@@ -0,0 +1,31 @@
+package rawhttp.core.client;
+
+import rawhttp.core.RawHttpRequest;
+import rawhttp.core.RawHttpResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Definition of a HTTP client that sends out Raw HTTP requests asynchronously.
+ * <p>
+ * Unlike {@link RawHttpClient}, the calling Thread does not wait for the response, which is given to the returned
+ * {@link CompletableFuture} once it is received.
+ *
+ * @param <Response> library-specific HTTP response
+ * @see NioRawHttpClient
+ * @see RedirectingAsyncRawHttpClient
+ */
+@FunctionalInterface
+public interface AsyncRawHttpClient<Response> {
+
+    /**
+     * Send the given HTTP request.
+     * <p>
+     * Errors, including errors transmitting the message, complete the returned future exceptionally.
+     *
+     * @param request HTTP request
+     * @return future HTTP response
+     */
+    CompletableFuture<RawHttpResponse<Response>> sendAsync(RawHttpRequest request);
+
+}
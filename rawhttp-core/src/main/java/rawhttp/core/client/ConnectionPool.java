@@ -0,0 +1,711 @@
+package rawhttp.core.client;
+
+import rawhttp.core.IOSupplier;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.ref.WeakReference;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe pool of client connections.
+ * <p>
+ * Connections are grouped by a route key (for example, the scheme, host and port of the server). A connection is
+ * leased via {@link #lease(Object, IOSupplier)} and, once the response to the last request sent on it has been fully
+ * read, must be given back via {@link #release(Socket)} so it can be reused, or closed and removed from the pool
+ * via {@link #evict(Socket)} if it can no longer be used.
+ * <p>
+ * The number of connections per route, as well as the total number of connections, is limited. When a limit is
+ * reached, callers wait for up to the lease timeout for a connection to be released. If the total limit is reached
+ * while idle connections to other routes exist, the least recently used of those is closed to make room.
+ * <p>
+ * Idle connections are reused in LIFO order, so that the least used ones can expire. A connection is closed when it
+ * has been idle for longer than the idle timeout, or when it reaches its maximum lifetime. Before an idle connection
+ * is reused, it is checked for having been closed by the server. This check is cheap, but if the connection has been
+ * idle for longer than the configured inactivity period, it also probes the connection with a read that times out
+ * after 1 millisecond.
+ * <p>
+ * Expired connections are removed by a background reaper which runs periodically while the pool is open.
+ */
+public final class ConnectionPool implements Closeable {
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 16;
+    public static final int DEFAULT_MAX_CONNECTIONS = 64;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_LEASE_TIMEOUT = Duration.ofSeconds(5);
+    public static final Duration DEFAULT_VALIDATE_AFTER_INACTIVITY = Duration.ofSeconds(2);
+    public static final Duration DEFAULT_REAPER_INTERVAL = Duration.ofSeconds(5);
+
+    private final int maxConnectionsPerHost;
+    private final int maxConnections;
+    private final long idleTimeoutNanos;
+    private final long maxLifetimeNanos;
+    private final long leaseTimeoutNanos;
+    private final long validateAfterInactivityNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition connectionReleased = lock.newCondition();
+    private final Map<Object, Route> routes = new HashMap<>();
+    private final Map<Socket, Connection> leased = new IdentityHashMap<>();
+    private int totalConnections;
+    private boolean closed;
+
+    @Nullable
+    private final ScheduledFuture<?> reaper;
+
+    private final LongAdder leases = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private ConnectionPool(Builder builder) {
+        this.maxConnectionsPerHost = builder.maxConnectionsPerHost;
+        this.maxConnections = builder.maxConnections;
+        this.idleTimeoutNanos = builder.idleTimeout.toNanos();
+        this.maxLifetimeNanos = builder.maxLifetime.toNanos();
+        this.leaseTimeoutNanos = builder.leaseTimeout.toNanos();
+        this.validateAfterInactivityNanos = builder.validateAfterInactivity.toNanos();
+        long reaperIntervalMillis = builder.reaperInterval.toMillis();
+        this.reaper = reaperIntervalMillis > 0L
+                ? Reaper.schedule(this, reaperIntervalMillis)
+                : null;
+    }
+
+    /**
+     * Create a pool with the default settings.
+     *
+     * @return a new connection pool
+     */
+    public static ConnectionPool createDefault() {
+        return newBuilder().build();
+    }
+
+    /**
+     * @return a builder of {@link ConnectionPool}.
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Lease a connection for the given route.
+     * <p>
+     * An idle connection for the route is reused if one is available and still usable, otherwise a new connection
+     * is created by calling the given socket creator, unless a limit on the number of connections has been reached,
+     * in which case this method blocks until a connection is released or the lease timeout elapses.
+     *
+     * @param route         the route key. Must implement {@code equals} and {@code hashCode}.
+     * @param socketCreator creates a new connection for the route
+     * @return a leased connection
+     * @throws IOException if the pool is closed, the lease timeout elapses, the current Thread is interrupted
+     *                     while waiting, or the socket creator throws
+     */
+    public Socket lease(Object route, IOSupplier<Socket> socketCreator) throws IOException {
+        long deadline = System.nanoTime() + leaseTimeoutNanos;
+        while (true) {
+            Connection connection = acquire(route, deadline);
+            if (connection.socket == null) {
+                return connect(connection, socketCreator);
+            }
+            if (isUsable(connection)) {
+                leases.increment();
+                return connection.socket;
+            }
+            evict(connection.socket);
+        }
+    }
+
+    /**
+     * Give back a leased connection so it can be reused.
+     * <p>
+     * The connection is closed instead if it has exceeded its maximum lifetime, or if this pool has been closed.
+     * Sockets which were not leased from this pool are ignored.
+     *
+     * @param socket the leased connection
+     */
+    public void release(Socket socket) {
+        boolean close = false;
+        lock.lock();
+        try {
+            Connection connection = leased.remove(socket);
+            if (connection == null) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (closed || socket.isClosed() || isExpired(connection, now, false)) {
+                close = !socket.isClosed();
+                if (close && !closed) {
+                    evictions.increment();
+                }
+                discard(connection);
+            } else {
+                connection.lastUsedAt = now;
+                connection.route.idle.addFirst(connection);
+            }
+            connectionReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (close) {
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * Close a connection and remove it from the pool.
+     * <p>
+     * This method should be called when a connection cannot be used for further requests, for example,
+     * because an error occurred or because the server asked for the connection to be closed.
+     *
+     * @param socket the connection to evict
+     */
+    public void evict(Socket socket) {
+        lock.lock();
+        try {
+            Connection connection = leased.remove(socket);
+            if (connection == null) {
+                connection = removeIdle(socket);
+            }
+            if (connection != null) {
+                evictions.increment();
+                discard(connection);
+                connectionReleased.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(socket);
+    }
+
+    /**
+     * Close all idle connections which have expired, and forget about leased connections that have been closed
+     * without being released.
+     * <p>
+     * This method is called periodically by a background reaper, so it does not normally need to be called
+     * explicitly.
+     */
+    public void closeExpired() {
+        List<Socket> toClose = new ArrayList<>();
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            int before = totalConnections;
+            for (Iterator<Route> routeIterator = routes.values().iterator(); routeIterator.hasNext(); ) {
+                Route route = routeIterator.next();
+                for (Iterator<Connection> iterator = route.idle.iterator(); iterator.hasNext(); ) {
+                    Connection connection = iterator.next();
+                    if (isExpired(connection, now, true) || !isOpen(connection.socket)) {
+                        iterator.remove();
+                        evictions.increment();
+                        route.count--;
+                        totalConnections--;
+                        toClose.add(connection.socket);
+                    }
+                }
+                if (route.count == 0) {
+                    routeIterator.remove();
+                }
+            }
+            purgeClosedLeases();
+            if (totalConnections < before) {
+                connectionReleased.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        toClose.forEach(ConnectionPool::closeQuietly);
+    }
+
+    /**
+     * Close this pool and all of its connections, including those currently leased.
+     * <p>
+     * Callers waiting for a connection fail immediately, as do further attempts to lease a connection.
+     */
+    @Override
+    public void close() {
+        List<Socket> toClose = new ArrayList<>();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Route route : routes.values()) {
+                for (Connection connection : route.idle) {
+                    toClose.add(connection.socket);
+                }
+            }
+            toClose.addAll(leased.keySet());
+            routes.clear();
+            leased.clear();
+            totalConnections = 0;
+            connectionReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (reaper != null) {
+            reaper.cancel(false);
+        }
+        toClose.forEach(ConnectionPool::closeQuietly);
+    }
+
+    /**
+     * @return the number of times a connection was leased from this pool
+     */
+    public long getLeaseCount() {
+        return leases.sum();
+    }
+
+    /**
+     * @return the number of times a caller had to wait for a connection because a limit had been reached
+     */
+    public long getWaitCount() {
+        return waits.sum();
+    }
+
+    /**
+     * @return the number of connections created by this pool
+     */
+    public long getCreatedCount() {
+        return created.sum();
+    }
+
+    /**
+     * @return the number of connections closed by this pool because they expired, were found to be stale,
+     * were evicted by a caller, or had to make room for other connections
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of connections currently leased
+     */
+    public int getLeasedCount() {
+        lock.lock();
+        try {
+            return leased.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of idle connections currently in the pool
+     */
+    public int getIdleCount() {
+        lock.lock();
+        try {
+            int count = 0;
+            for (Route route : routes.values()) {
+                count += route.idle.size();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Connection acquire(Object routeKey, long deadline) throws IOException {
+        List<Socket> toClose = new ArrayList<>(2);
+        boolean waited = false;
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new IOException("Connection pool has been closed");
+                }
+                Route route = routes.computeIfAbsent(routeKey, Route::new);
+                long now = System.nanoTime();
+                Connection connection;
+                while ((connection = route.idle.pollFirst()) != null) {
+                    if (isExpired(connection, now, true)) {
+                        evictions.increment();
+                        discard(connection);
+                        toClose.add(connection.socket);
+                    } else {
+                        leased.put(connection.socket, connection);
+                        return connection;
+                    }
+                }
+                if (route.count < maxConnectionsPerHost) {
+                    if (totalConnections >= maxConnections) {
+                        if (purgeClosedLeases()) {
+                            continue;
+                        }
+                        evictLeastRecentlyUsed(toClose);
+                    }
+                    if (totalConnections < maxConnections) {
+                        // reserve a slot for the new connection, which is created without holding the lock
+                        route.count++;
+                        totalConnections++;
+                        return new Connection(route);
+                    }
+                } else if (purgeClosedLeases()) {
+                    continue;
+                }
+                long remaining = deadline - now;
+                if (remaining <= 0L) {
+                    throw new IOException("Timeout waiting for a connection to " + routeKey);
+                }
+                if (!waited) {
+                    waited = true;
+                    waits.increment();
+                }
+                try {
+                    connectionReleased.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for a connection to " + routeKey);
+                }
+            }
+        } finally {
+            lock.unlock();
+            toClose.forEach(ConnectionPool::closeQuietly);
+        }
+    }
+
+    private Socket connect(Connection connection, IOSupplier<Socket> socketCreator) throws IOException {
+        Socket socket;
+        try {
+            socket = socketCreator.get();
+        } catch (Throwable e) {
+            lock.lock();
+            try {
+                if (!closed) {
+                    discard(connection);
+                    connectionReleased.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                closeQuietly(socket);
+                throw new IOException("Connection pool has been closed");
+            }
+            connection.socket = socket;
+            connection.lastUsedAt = connection.createdAt;
+            leased.put(socket, connection);
+        } finally {
+            lock.unlock();
+        }
+        created.increment();
+        leases.increment();
+        return socket;
+    }
+
+    private boolean isUsable(Connection connection) {
+        Socket socket = connection.socket;
+        if (!isOpen(socket)) {
+            return false;
+        }
+        if (System.nanoTime() - connection.lastUsedAt < validateAfterInactivityNanos) {
+            return true;
+        }
+        return !isStale(socket);
+    }
+
+    private boolean isExpired(Connection connection, long now, boolean checkIdleTime) {
+        return (maxLifetimeNanos > 0L && now - connection.createdAt >= maxLifetimeNanos) ||
+                (checkIdleTime && idleTimeoutNanos > 0L && now - connection.lastUsedAt >= idleTimeoutNanos);
+    }
+
+    private void discard(Connection connection) {
+        Route route = connection.route;
+        route.count--;
+        totalConnections--;
+        if (route.count == 0 && routes.get(route.key) == route) {
+            routes.remove(route.key);
+        }
+    }
+
+    @Nullable
+    private Connection removeIdle(Socket socket) {
+        for (Route route : routes.values()) {
+            for (Iterator<Connection> iterator = route.idle.iterator(); iterator.hasNext(); ) {
+                Connection connection = iterator.next();
+                if (connection.socket == socket) {
+                    iterator.remove();
+                    return connection;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void evictLeastRecentlyUsed(List<Socket> toClose) {
+        @Nullable Connection oldest = null;
+        for (Route route : routes.values()) {
+            Connection candidate = route.idle.peekLast();
+            if (candidate != null && (oldest == null || candidate.lastUsedAt - oldest.lastUsedAt < 0L)) {
+                oldest = candidate;
+            }
+        }
+        if (oldest != null) {
+            oldest.route.idle.removeLast();
+            evictions.increment();
+            discard(oldest);
+            toClose.add(oldest.socket);
+        }
+    }
+
+    private boolean purgeClosedLeases() {
+        // leased connections that were closed by their users without being released or evicted
+        boolean purged = false;
+        for (Iterator<Connection> iterator = leased.values().iterator(); iterator.hasNext(); ) {
+            Connection connection = iterator.next();
+            if (connection.socket.isClosed()) {
+                iterator.remove();
+                discard(connection);
+                purged = true;
+            }
+        }
+        return purged;
+    }
+
+    private static boolean isOpen(Socket socket) {
+        if (socket.isClosed() || !socket.isConnected() || socket.isInputShutdown() || socket.isOutputShutdown()) {
+            return false;
+        }
+        try {
+            // an idle connection should have nothing to read, unless the server sent something before closing it
+            return socket.getInputStream().available() == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isStale(Socket socket) {
+        try {
+            int soTimeout = socket.getSoTimeout();
+            socket.setSoTimeout(1);
+            try {
+                InputStream in = socket.getInputStream();
+                // reading anything, even the end of the stream, means the connection cannot be reused
+                in.read();
+                return true;
+            } catch (SocketTimeoutException e) {
+                return false;
+            } finally {
+                socket.setSoTimeout(soTimeout);
+            }
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static void closeQuietly(@Nullable Socket socket) {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool{" +
+                "maxConnectionsPerHost=" + maxConnectionsPerHost +
+                ", maxConnections=" + maxConnections +
+                ", leased=" + getLeasedCount() +
+                ", idle=" + getIdleCount() +
+                ", leases=" + leases.sum() +
+                ", waits=" + waits.sum() +
+                ", created=" + created.sum() +
+                ", evictions=" + evictions.sum() +
+                '}';
+    }
+
+    private static final class Route {
+        final Object key;
+        final ArrayDeque<Connection> idle = new ArrayDeque<>(4);
+
+        // all connections for this route, including leased ones and those being created
+        int count;
+
+        Route(Object key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Connection {
+        final Route route;
+        final long createdAt = System.nanoTime();
+        Socket socket;
+        long lastUsedAt;
+
+        Connection(Route route) {
+            this.route = route;
+        }
+    }
+
+    /**
+     * Periodically closes expired connections of a pool.
+     * <p>
+     * The reaper only keeps a weak reference to the pool, so that a pool which is not closed can still be
+     * garbage collected, in which case the reaper cancels itself.
+     */
+    private static final class Reaper implements Runnable {
+        private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rawhttp-connection-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private final WeakReference<ConnectionPool> pool;
+        private volatile ScheduledFuture<?> future;
+
+        private Reaper(ConnectionPool pool) {
+            this.pool = new WeakReference<>(pool);
+        }
+
+        static ScheduledFuture<?> schedule(ConnectionPool pool, long intervalMillis) {
+            Reaper reaper = new Reaper(pool);
+            reaper.future = EXECUTOR.scheduleWithFixedDelay(reaper,
+                    intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            return reaper.future;
+        }
+
+        @Override
+        public void run() {
+            ConnectionPool connectionPool = pool.get();
+            if (connectionPool == null) {
+                ScheduledFuture<?> scheduledFuture = future;
+                if (scheduledFuture != null) {
+                    scheduledFuture.cancel(false);
+                }
+            } else {
+                connectionPool.closeExpired();
+            }
+        }
+    }
+
+    /**
+     * Builder of {@link ConnectionPool}.
+     */
+    public static final class Builder {
+        private int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+        private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+        private Duration idleTimeout = DEFAULT_IDLE_TIMEOUT;
+        private Duration maxLifetime = Duration.ZERO;
+        private Duration leaseTimeout = DEFAULT_LEASE_TIMEOUT;
+        private Duration validateAfterInactivity = DEFAULT_VALIDATE_AFTER_INACTIVITY;
+        private Duration reaperInterval = DEFAULT_REAPER_INTERVAL;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxConnectionsPerHost maximum number of connections to the same route (default: 16)
+         * @return this builder
+         */
+        public Builder withMaxConnectionsPerHost(int maxConnectionsPerHost) {
+            if (maxConnectionsPerHost < 1) {
+                throw new IllegalArgumentException("maxConnectionsPerHost must be positive");
+            }
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            return this;
+        }
+
+        /**
+         * @param maxConnections maximum number of connections in the pool (default: 64)
+         * @return this builder
+         */
+        public Builder withMaxConnections(int maxConnections) {
+            if (maxConnections < 1) {
+                throw new IllegalArgumentException("maxConnections must be positive");
+            }
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * @param idleTimeout how long a connection may stay idle in the pool before it is closed
+         *                    (default: 30 seconds). Zero means no limit.
+         * @return this builder
+         */
+        public Builder withIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = requireNotNegative(idleTimeout, "idleTimeout");
+            return this;
+        }
+
+        /**
+         * @param maxLifetime maximum time a connection may be used for since it was created
+         *                    (default: zero, meaning no limit). Leased connections are closed when released after
+         *                    reaching this age.
+         * @return this builder
+         */
+        public Builder withMaxLifetime(Duration maxLifetime) {
+            this.maxLifetime = requireNotNegative(maxLifetime, "maxLifetime");
+            return this;
+        }
+
+        /**
+         * @param leaseTimeout how long to wait for a connection when a limit has been reached (default: 5 seconds)
+         * @return this builder
+         */
+        public Builder withLeaseTimeout(Duration leaseTimeout) {
+            this.leaseTimeout = requireNotNegative(leaseTimeout, "leaseTimeout");
+            return this;
+        }
+
+        /**
+         * @param validateAfterInactivity how long a connection must have been idle for before it is probed for
+         *                                having been closed by the server before being reused (default: 2 seconds)
+         * @return this builder
+         */
+        public Builder withValidateAfterInactivity(Duration validateAfterInactivity) {
+            this.validateAfterInactivity = requireNotNegative(validateAfterInactivity, "validateAfterInactivity");
+            return this;
+        }
+
+        /**
+         * @param reaperInterval interval between runs of the background reaper which closes expired connections
+         *                       (default: 5 seconds). Zero disables the reaper.
+         * @return this builder
+         */
+        public Builder withReaperInterval(Duration reaperInterval) {
+            this.reaperInterval = requireNotNegative(reaperInterval, "reaperInterval");
+            return this;
+        }
+
+        /**
+         * @return a new connection pool with the configuration of this builder
+         */
+        public ConnectionPool build() {
+            return new ConnectionPool(this);
+        }
+
+        private static Duration requireNotNegative(Duration duration, String name) {
+            if (duration.isNegative()) {
+                throw new IllegalArgumentException(name + " must not be negative");
+            }
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,773 @@
+package rawhttp.core.client;
+
+import rawhttp.core.IncrementalHttpParser;
+import rawhttp.core.RawHttp;
+import rawhttp.core.RawHttpHeaders;
+import rawhttp.core.RawHttpOptions;
+import rawhttp.core.RawHttpRequest;
+import rawhttp.core.RawHttpResponse;
+import rawhttp.core.RequestLine;
+import rawhttp.core.StatusLine;
+import rawhttp.core.body.BodyReader;
+import rawhttp.core.body.EagerBodyReader;
+import rawhttp.core.body.FramedBody;
+import rawhttp.core.errors.BodyTooLargeException;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation of {@link AsyncRawHttpClient} based on non-blocking NIO channels.
+ * <p>
+ * Connections are watched by a small number of event-loop Threads, each running a {@link java.nio.channels.Selector},
+ * so no Thread waits for a response while it is in flight. Requests are written with a single gathering write
+ * whenever the socket accepts all bytes, and responses are framed incrementally by an
+ * {@link IncrementalHttpParser} as bytes arrive. Connections are kept alive and reused for further requests to the
+ * same host unless the server indicates that it will close them.
+ * <p>
+ * Request bodies are read into memory by the Thread calling {@link #sendAsync(RawHttpRequest)}, and responses are
+ * received fully (they are eager) before the returned future is completed. Responses are built from the events of
+ * the parser, and their body is kept in memory, in an {@link EagerBodyReader}, regardless of
+ * {@link RawHttpOptions#getMaxInMemoryBodySize()}. A response whose body is larger than
+ * {@link RawHttpOptions#getMaxBodySize()} fails with a {@link BodyTooLargeException} as soon as the excess
+ * bytes arrive. The future is completed by an event-loop Thread, so dependent actions which may block should be
+ * registered with one of the {@code *Async} methods of {@link CompletableFuture}.
+ * <p>
+ * Only the {@code http} scheme is supported.
+ * <p>
+ * It is possible to configure this client by passing an instance of {@link NioRawHttpClientOptions} to its
+ * constructor.
+ */
+public class NioRawHttpClient implements AsyncRawHttpClient<Void>, Closeable {
+
+    private final NioRawHttpClientOptions options;
+    private final RawHttp http;
+    private final long maxBodySize;
+    private final long readTimeout;
+    private final long idleTimeout;
+    private final int maxIdleConnectionsPerHost;
+    private final EventLoop[] eventLoops;
+    private final AtomicInteger nextEventLoop = new AtomicInteger();
+    private final ConcurrentHashMap<String, ConcurrentLinkedDeque<Connection>> idleConnections =
+            new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Create a new {@link NioRawHttpClient} using the default options.
+     *
+     * @throws IOException if the event-loop selectors cannot be opened
+     */
+    public NioRawHttpClient() throws IOException {
+        this(new NioRawHttpClientOptions() {
+        });
+    }
+
+    /**
+     * Create a new {@link NioRawHttpClient} using the given options.
+     *
+     * @param options configuration for this client
+     * @throws IOException if the event-loop selectors cannot be opened
+     */
+    public NioRawHttpClient(NioRawHttpClientOptions options) throws IOException {
+        this.options = options;
+        this.http = options.getRawHttp();
+        this.maxBodySize = http.getOptions().getMaxBodySize();
+        this.readTimeout = options.getReadTimeout().toMillis();
+        this.idleTimeout = options.getIdleTimeout().toMillis();
+        this.maxIdleConnectionsPerHost = options.getMaxIdleConnectionsPerHost();
+        this.eventLoops = new EventLoop[Math.max(1, options.getEventLoopCount())];
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new EventLoop(Selector.open());
+        }
+        for (int i = 0; i < eventLoops.length; i++) {
+            Thread thread = new Thread(eventLoops[i], "nio-rawhttp-client-loop-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * @return the options used by this client
+     */
+    public NioRawHttpClientOptions getOptions() {
+        return options;
+    }
+
+    @Override
+    public CompletableFuture<RawHttpResponse<Void>> sendAsync(RawHttpRequest request) {
+        CompletableFuture<RawHttpResponse<Void>> future = new CompletableFuture<>();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Client has been closed");
+            }
+            URI uri = request.getUri();
+            if (!"http".equalsIgnoreCase(uri.getScheme())) {
+                throw new IllegalArgumentException("Unsupported URI scheme: " + uri.getScheme());
+            }
+            String host = Optional.ofNullable(uri.getHost()).orElseThrow(() ->
+                    new IllegalArgumentException("Host is not available in the URI"));
+            int port = uri.getPort() < 1 ? 80 : uri.getPort();
+            send(new Exchange(host, port, request.getStartLine(), toByteBuffers(request), future));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void send(Exchange exchange) {
+        Connection connection = pollIdleConnection(exchange.hostKey);
+        if (connection != null) {
+            connection.eventLoop.execute(() -> connection.start(exchange));
+        } else {
+            EventLoop loop = eventLoops[Math.floorMod(nextEventLoop.getAndIncrement(), eventLoops.length)];
+            loop.execute(() -> loop.connect(exchange));
+        }
+    }
+
+    /**
+     * Send an exchange again on a new connection after it failed on a reused connection, which the server
+     * may have closed while it was idle.
+     * <p>
+     * Only exchanges which are safe to repeat may be retried, see {@link Exchange#mayRetry(boolean)}.
+     */
+    private void retry(Exchange exchange, Exception error) {
+        if (closed) {
+            exchange.future.completeExceptionally(error);
+        } else {
+            exchange.retried = true;
+            EventLoop loop = eventLoops[Math.floorMod(nextEventLoop.getAndIncrement(), eventLoops.length)];
+            loop.execute(() -> loop.connect(exchange));
+        }
+    }
+
+    @Nullable
+    private Connection pollIdleConnection(String hostKey) {
+        ConcurrentLinkedDeque<Connection> connections = idleConnections.get(hostKey);
+        if (connections != null) {
+            Connection connection;
+            // prefer the most recently used connection, which is the least likely to have been closed by the server
+            while ((connection = connections.pollLast()) != null) {
+                if (connection.state.compareAndSet(Connection.IDLE, Connection.BUSY)) {
+                    return connection;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static ByteBuffer[] toByteBuffers(RawHttpRequest request) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream(256);
+        request.getStartLine().writeTo(head);
+        request.getHeaders().writeTo(head);
+        Optional<? extends BodyReader> body = request.getBody();
+        List<ByteBuffer> bodyBuffers = body.isPresent()
+                ? body.get().asByteBuffers()
+                : Collections.emptyList();
+        ByteBuffer[] buffers = new ByteBuffer[1 + bodyBuffers.size()];
+        buffers[0] = ByteBuffer.wrap(head.toByteArray());
+        for (int i = 0; i < bodyBuffers.size(); i++) {
+            buffers[i + 1] = bodyBuffers.get(i);
+        }
+        return buffers;
+    }
+
+    /**
+     * Close this client.
+     * <p>
+     * All connections are closed, and requests that have not yet received a response fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.stop();
+        }
+    }
+
+    /**
+     * Configuration options for {@link NioRawHttpClient}.
+     */
+    public interface NioRawHttpClientOptions {
+
+        /**
+         * @return the number of event-loop Threads used to watch connections.
+         * By default, half the number of available processors is used, with a minimum of 1 and a maximum of 4.
+         */
+        default int getEventLoopCount() {
+            return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        }
+
+        /**
+         * @return maximum time the client waits for the server to accept more bytes of a request, or to send more
+         * bytes of a response. When exceeded, the request fails with a {@link SocketTimeoutException}.
+         * Defaults to 5 seconds.
+         */
+        default Duration getReadTimeout() {
+            return Duration.ofSeconds(5);
+        }
+
+        /**
+         * @return maximum time a keep-alive connection may stay idle before the client closes it.
+         * Defaults to 30 seconds.
+         */
+        default Duration getIdleTimeout() {
+            return Duration.ofSeconds(30);
+        }
+
+        /**
+         * @return maximum number of idle connections kept open for each host. Defaults to 8.
+         */
+        default int getMaxIdleConnectionsPerHost() {
+            return 8;
+        }
+
+        /**
+         * @return the {@link RawHttp} instance to use to parse responses
+         */
+        default RawHttp getRawHttp() {
+            return new RawHttp(RawHttpOptions.newBuilder()
+                    .doNotAllowNewLineWithoutReturn()
+                    .build());
+        }
+    }
+
+    /**
+     * A request waiting for a response.
+     */
+    private static final class Exchange {
+
+        // methods that can be repeated without changing their effect on the server, see RFC 7231 section 4.2.2
+        private static final Set<String> IDEMPOTENT_METHODS = Collections.unmodifiableSet(new HashSet<>(
+                Arrays.asList("GET", "HEAD", "PUT", "DELETE", "OPTIONS", "TRACE")));
+
+        final String host;
+        final int port;
+        final String hostKey;
+        final RequestLine requestLine;
+        final ByteBuffer[] requestBytes;
+        final CompletableFuture<RawHttpResponse<Void>> future;
+        boolean retried;
+
+        Exchange(String host,
+                 int port,
+                 RequestLine requestLine,
+                 ByteBuffer[] requestBytes,
+                 CompletableFuture<RawHttpResponse<Void>> future) {
+            this.host = host;
+            this.port = port;
+            this.hostKey = host + ":" + port;
+            this.requestLine = requestLine;
+            this.requestBytes = requestBytes;
+            this.future = future;
+        }
+
+        /**
+         * A request which failed on a reused connection may only be sent again automatically if the server cannot
+         * have acted on it, which is the case if none of its bytes were written, or if it is idempotent
+         * (see RFC 7230 section 6.3.1).
+         *
+         * @param wroteRequestBytes whether any bytes of the request were written to the failed connection
+         * @return true if the request may be sent again on a new connection
+         */
+        boolean mayRetry(boolean wroteRequestBytes) {
+            return !retried && (!wroteRequestBytes || IDEMPOTENT_METHODS.contains(requestLine.getMethod()));
+        }
+
+        /**
+         * @return buffers for writing the request from its start, which can be used even if a previous attempt
+         * to send the request failed
+         */
+        ByteBuffer[] newRequestBuffers() {
+            ByteBuffer[] buffers = new ByteBuffer[requestBytes.length];
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = requestBytes[i].duplicate();
+            }
+            return buffers;
+        }
+    }
+
+    /**
+     * An event-loop watching a set of connections.
+     * <p>
+     * Selection keys and connections must only be modified from the event-loop Thread, other Threads must submit
+     * tasks via {@link EventLoop#execute(Runnable)} to do that.
+     */
+    private final class EventLoop implements Runnable {
+
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        // connections only use the buffer while reading, as the parser copies the bytes it keeps
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(16 * 1024);
+        private volatile boolean running = true;
+
+        EventLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+            if (!running) {
+                // the event-loop may have stopped before running the task, which fails when it runs now
+                failPendingTasks();
+            }
+        }
+
+        void stop() {
+            running = false;
+            selector.wakeup();
+        }
+
+        void connect(Exchange exchange) {
+            if (!running) {
+                exchange.future.completeExceptionally(new IOException("Client has been closed"));
+                return;
+            }
+            SocketChannel channel = null;
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Connection connection = new Connection(channel, this, exchange.hostKey);
+                connection.exchange = exchange;
+                connection.lastActivity = System.currentTimeMillis();
+                if (channel.connect(new InetSocketAddress(exchange.host, exchange.port))) {
+                    connection.key = channel.register(selector, 0, connection);
+                    connection.writeRequest();
+                } else {
+                    connection.key = channel.register(selector, SelectionKey.OP_CONNECT, connection);
+                }
+            } catch (Exception e) {
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException e2) {
+                        // nothing else to do
+                    }
+                }
+                exchange.future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            long lastTimeoutCheck = System.currentTimeMillis();
+            try {
+                while (running) {
+                    selector.select(100L);
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+                    Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                    while (selectedKeys.hasNext()) {
+                        SelectionKey key = selectedKeys.next();
+                        selectedKeys.remove();
+                        if (key.isValid()) {
+                            ((Connection) key.attachment()).onReady(key);
+                        }
+                    }
+                    long now = System.currentTimeMillis();
+                    if (now - lastTimeoutCheck >= 100L) {
+                        lastTimeoutCheck = now;
+                        closeTimedOutConnections(now);
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) {
+                    e.printStackTrace();
+                }
+            } finally {
+                closeAll();
+            }
+        }
+
+        private void closeTimedOutConnections(long now) {
+            for (SelectionKey key : selector.keys()) {
+                Connection connection = (Connection) key.attachment();
+                if (connection.exchange != null) {
+                    if (now - connection.lastActivity > readTimeout) {
+                        connection.fail(new SocketTimeoutException("Timed out waiting for the server"), false);
+                    }
+                } else if (now - connection.lastActivity > idleTimeout) {
+                    connection.closeIfIdle();
+                }
+            }
+        }
+
+        private void closeAll() {
+            try {
+                for (SelectionKey key : selector.keys()) {
+                    ((Connection) key.attachment()).fail(new IOException("Client has been closed"), false);
+                }
+            } catch (ClosedSelectorException e) {
+                // nothing to close
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            failPendingTasks();
+        }
+
+        private void failPendingTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                // tasks fail their exchange when they run after the event-loop has stopped
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // the selector has been closed
+                }
+            }
+        }
+    }
+
+    /**
+     * The raw bytes of a response body, including its framing, which are copied from the read buffer as they arrive.
+     */
+    private static final class BodyBytes extends ByteArrayOutputStream {
+
+        static final int MAX_INITIAL_CAPACITY = 1024 * 1024;
+
+        BodyBytes(long expectedSize) {
+            super((int) Math.max(32L, Math.min(expectedSize, MAX_INITIAL_CAPACITY)));
+        }
+
+        /**
+         * @return the body bytes, in the internal buffer of this stream if it has exactly the size of the body,
+         * which is normally the case for bodies with a Content-Length, or in a copy of it otherwise
+         */
+        byte[] toRawBytes() {
+            return count == buf.length ? buf : toByteArray();
+        }
+    }
+
+    /**
+     * A connection to a server.
+     * <p>
+     * A connection is used by a single exchange at a time. Idle connections are kept in
+     * {@link NioRawHttpClient#idleConnections}, from where they are taken by changing their state atomically.
+     */
+    private final class Connection implements IncrementalHttpParser.Listener<StatusLine> {
+
+        static final int BUSY = 0;
+        static final int IDLE = 1;
+        static final int CLOSED = 2;
+
+        final AtomicInteger state = new AtomicInteger(BUSY);
+        final SocketChannel channel;
+        final EventLoop eventLoop;
+        final String hostKey;
+        final IncrementalHttpParser<StatusLine> parser;
+
+        // the response being received
+        @Nullable
+        private StatusLine statusLine;
+        @Nullable
+        private RawHttpHeaders headers;
+        @Nullable
+        private FramedBody framedBody;
+        @Nullable
+        private BodyBytes bodyBytes;
+
+        SelectionKey key;
+        @Nullable
+        Exchange exchange;
+        long lastActivity;
+
+        @Nullable
+        private ByteBuffer[] requestBuffers;
+        private boolean reused;
+        private boolean wroteRequestBytes;
+        private boolean receivedResponseBytes;
+        private int segmentStart;
+        private long bodyDataSize;
+
+        Connection(SocketChannel channel, EventLoop eventLoop, String hostKey) {
+            this.channel = channel;
+            this.eventLoop = eventLoop;
+            this.hostKey = hostKey;
+            this.parser = IncrementalHttpParser.forResponses(http, this, () -> {
+                Exchange current = exchange;
+                if (current == null) {
+                    throw new IllegalStateException("Received bytes from the server without a request");
+                }
+                return current.requestLine;
+            });
+        }
+
+        /**
+         * Start an exchange on this connection, which has been taken from the idle connections.
+         */
+        void start(Exchange exchange) {
+            if (!eventLoop.running) {
+                close();
+                exchange.future.completeExceptionally(new IOException("Client has been closed"));
+                return;
+            }
+            if (!channel.isOpen() || !key.isValid()) {
+                // the connection was closed after it was taken from the idle connections
+                send(exchange);
+                return;
+            }
+            this.exchange = exchange;
+            this.reused = true;
+            this.lastActivity = System.currentTimeMillis();
+            writeRequest();
+        }
+
+        void onReady(SelectionKey key) {
+            try {
+                if (key.isConnectable()) {
+                    channel.finishConnect();
+                    writeRequest();
+                    return;
+                }
+                if (key.isWritable()) {
+                    writeRequest();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    read();
+                }
+            } catch (Exception e) {
+                fail(e, true);
+            }
+        }
+
+        void writeRequest() {
+            if (requestBuffers == null) {
+                Exchange current = exchange;
+                if (current == null) {
+                    return;
+                }
+                requestBuffers = current.newRequestBuffers();
+            }
+            try {
+                long written;
+                do {
+                    written = channel.write(requestBuffers);
+                    if (written > 0) {
+                        lastActivity = System.currentTimeMillis();
+                        wroteRequestBytes = true;
+                    }
+                } while (written > 0 && requestBuffers[requestBuffers.length - 1].hasRemaining());
+            } catch (IOException e) {
+                fail(e, true);
+                return;
+            }
+            if (requestBuffers[requestBuffers.length - 1].hasRemaining()) {
+                // keep reading while writing as the server may respond before reading the whole request
+                key.interestOps(SelectionKey.OP_WRITE | SelectionKey.OP_READ);
+            } else {
+                requestBuffers = null;
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        private void read() throws IOException {
+            ByteBuffer buffer = eventLoop.readBuffer;
+            buffer.clear();
+            segmentStart = 0;
+            int bytesRead = channel.read(buffer);
+            if (bytesRead < 0) {
+                if (parser.isParsingMessage()) {
+                    // the message may end with the connection, e.g. a close-terminated body
+                    try {
+                        parser.endOfInput();
+                    } catch (UncheckedIOException e) {
+                        throw e.getCause();
+                    }
+                }
+                if (exchange != null) {
+                    fail(new IOException("Connection closed before a response was received"), true);
+                } else {
+                    close();
+                }
+                return;
+            }
+            lastActivity = System.currentTimeMillis();
+            buffer.flip();
+            if (exchange != null && buffer.hasRemaining()) {
+                receivedResponseBytes = true;
+            }
+            feed(buffer);
+            if (state.get() != CLOSED && bodyBytes != null && segmentStart < buffer.limit()) {
+                // the body continues in the next read
+                bodyBytes.write(buffer.array(), segmentStart, buffer.limit() - segmentStart);
+            }
+        }
+
+        private void feed(ByteBuffer buffer) throws IOException {
+            try {
+                parser.feed(buffer);
+            } catch (UncheckedIOException e) {
+                // thrown by the listener methods, which cannot throw IOException
+                throw e.getCause();
+            }
+        }
+
+        @Override
+        public void onStartLine(StatusLine startLine) {
+            statusLine = startLine;
+            bodyDataSize = 0L;
+        }
+
+        @Override
+        public void onHeaders(RawHttpHeaders headers) {
+            Exchange current = exchange;
+            if (current == null || statusLine == null) {
+                throw new IllegalStateException("Received bytes from the server without a request");
+            }
+            this.headers = headers;
+            if (RawHttp.responseHasBody(statusLine, current.requestLine)) {
+                framedBody = http.getFramedBody(statusLine, headers);
+                bodyBytes = new BodyBytes(framedBody instanceof FramedBody.ContentLength
+                        ? ((FramedBody.ContentLength) framedBody).getBodyLength()
+                        : 0L);
+                // the raw body bytes, including any framing, start after the headers
+                segmentStart = eventLoop.readBuffer.position();
+            }
+        }
+
+        @Override
+        public void onBodyData(ByteBuffer data) {
+            // fail before the body bytes are kept, so that a large response cannot exhaust the memory
+            bodyDataSize += data.remaining();
+            if (bodyDataSize > maxBodySize) {
+                throw new UncheckedIOException(new BodyTooLargeException(maxBodySize));
+            }
+        }
+
+        @Override
+        public void onMessageEnd() {
+            ByteBuffer buffer = eventLoop.readBuffer;
+            Exchange current = exchange;
+            if (current == null || statusLine == null || headers == null) {
+                throw new IllegalStateException("Received bytes from the server without a request");
+            }
+            @Nullable BodyReader body = null;
+            if (bodyBytes != null && framedBody != null) {
+                bodyBytes.write(buffer.array(), segmentStart, buffer.position() - segmentStart);
+                body = new EagerBodyReader(framedBody, bodyBytes.toRawBytes());
+            }
+            segmentStart = buffer.position();
+            RawHttpResponse<Void> response = new RawHttpResponse<>(null, null, statusLine, headers, body);
+            statusLine = null;
+            headers = null;
+            framedBody = null;
+            bodyBytes = null;
+
+            int statusCode = response.getStatusCode();
+            if (statusCode >= 100 && statusCode < 200 && statusCode != 101) {
+                // informational response, the final response will follow
+                return;
+            }
+            exchange = null;
+            wroteRequestBytes = false;
+            receivedResponseBytes = false;
+            reused = false;
+            boolean keepAlive = requestBuffers == null && statusCode != 101 &&
+                    !RawHttpResponse.shouldCloseConnectionAfter(current.requestLine, response);
+            if (keepAlive && buffer.position() == buffer.limit()) {
+                release();
+            } else {
+                close();
+            }
+            current.future.complete(response);
+        }
+
+        /**
+         * Fail the current exchange, if any, and close this connection.
+         *
+         * @param error    the cause of the failure
+         * @param mayRetry whether the exchange may be sent again on a new connection
+         */
+        void fail(Exception error, boolean mayRetry) {
+            Exchange current = exchange;
+            exchange = null;
+            close();
+            if (current != null) {
+                if (mayRetry && reused && !receivedResponseBytes && current.mayRetry(wroteRequestBytes)) {
+                    retry(current, error);
+                } else {
+                    current.future.completeExceptionally(error);
+                }
+            }
+        }
+
+        void closeIfIdle() {
+            if (state.compareAndSet(IDLE, CLOSED)) {
+                removeFromIdleConnections();
+                closeChannel();
+            }
+        }
+
+        private void release() {
+            ConcurrentLinkedDeque<Connection> connections =
+                    idleConnections.computeIfAbsent(hostKey, k -> new ConcurrentLinkedDeque<>());
+            if (closed || connections.size() >= maxIdleConnectionsPerHost) {
+                close();
+                return;
+            }
+            lastActivity = System.currentTimeMillis();
+            // keep watching the connection so that it is closed as soon as the server closes it
+            key.interestOps(SelectionKey.OP_READ);
+            state.set(IDLE);
+            connections.addLast(this);
+        }
+
+        private void close() {
+            if (state.getAndSet(CLOSED) == IDLE) {
+                removeFromIdleConnections();
+            }
+            closeChannel();
+        }
+
+        private void removeFromIdleConnections() {
+            ConcurrentLinkedDeque<Connection> connections = idleConnections.get(hostKey);
+            if (connections != null) {
+                connections.remove(this);
+            }
+        }
+
+        private void closeChannel() {
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing else to do
+            }
+        }
+    }
+
+}
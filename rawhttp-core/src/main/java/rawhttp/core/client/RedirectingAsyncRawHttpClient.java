@@ -0,0 +1,64 @@
+package rawhttp.core.client;
+
+import rawhttp.core.RawHttpRequest;
+import rawhttp.core.RawHttpResponse;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * An {@link AsyncRawHttpClient} that wraps another {@link AsyncRawHttpClient}, enhancing it with the ability to
+ * follow redirects.
+ * <p>
+ * Redirects are followed in the same way as by {@link RedirectingRawHttpClient}.
+ *
+ * @param <Response> type of response
+ */
+public class RedirectingAsyncRawHttpClient<Response> implements AsyncRawHttpClient<Response> {
+    private final AsyncRawHttpClient<Response> delegate;
+    private final int maxRedirects;
+
+    public RedirectingAsyncRawHttpClient(AsyncRawHttpClient<Response> delegate) {
+        this(delegate, 4);
+    }
+
+    public RedirectingAsyncRawHttpClient(AsyncRawHttpClient<Response> delegate, int maxRedirects) {
+        if (maxRedirects < 1) {
+            throw new IllegalArgumentException("maxRedirects must be at least 1");
+        }
+        this.delegate = delegate;
+        this.maxRedirects = maxRedirects;
+    }
+
+    @Override
+    public CompletableFuture<RawHttpResponse<Response>> sendAsync(RawHttpRequest request) {
+        return send(request, 0, new LinkedHashSet<>(maxRedirects));
+    }
+
+    private CompletableFuture<RawHttpResponse<Response>> send(RawHttpRequest request,
+                                                              int totalRedirects,
+                                                              Set<String> locations) {
+        return delegate.sendAsync(request).thenCompose(response -> {
+            if (!response.getStartLine().isRedirect()) {
+                return CompletableFuture.completedFuture(response);
+            }
+            RawHttpResponse<Response> redirect;
+            try {
+                redirect = response.eagerly(); // consume body
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            RawHttpRequest nextRequest = RedirectingRawHttpClient.nextRequest(
+                    request, redirect, totalRedirects + 1, maxRedirects, locations);
+            if (nextRequest == null) {
+                // cannot follow redirect automatically
+                return CompletableFuture.completedFuture(redirect);
+            }
+            return send(nextRequest, totalRedirects + 1, locations);
+        });
+    }
+
+}
@@ -5,6 +5,7 @@ import rawhttp.core.RawHttpResponse;
 import rawhttp.core.RequestLine;
 import rawhttp.core.UriUtil;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.net.URI;
 import java.util.LinkedHashSet;
@@ -41,18 +42,9 @@ public class RedirectingRawHttpClient<Response> implements RawHttpClient<Respons
             if (response.getStartLine().isRedirect()) {
                 response = response.eagerly(); // consume body
                 totalRedirects++;
-                if (totalRedirects >= maxRedirects) {
-                    throw new IllegalStateException("Too many redirects (" + totalRedirects + ")");
-                }
-                String location = response.getHeaders().getFirst("Location").orElse("");
-                if (location.isEmpty()) {
+                request = nextRequest(request, response, totalRedirects, maxRedirects, locations);
+                if (request == null) {
                     break; // cannot follow redirect automatically
-                } else {
-                    if (!locations.add(location)) {
-                        throw new IllegalStateException("Redirect cycle detected. " +
-                                "Visited locations: " + String.join(", ", locations) + ". Next location: " + location);
-                    }
-                    request = redirect(request, location, response.getStatusCode());
                 }
             } else {
                 break; // not a redirect
@@ -61,7 +53,38 @@ public class RedirectingRawHttpClient<Response> implements RawHttpClient<Respons
         return response;
     }
 
-    private RawHttpRequest redirect(RawHttpRequest request, String location, int statusCode) {
+    /**
+     * Get the request that follows the given redirect response.
+     *
+     * @param request        the request that resulted in the redirect response
+     * @param response       the redirect response
+     * @param totalRedirects number of redirects received so far, including the given response
+     * @param maxRedirects   maximum number of redirects to follow
+     * @param locations      the locations visited so far, to which the new location is added
+     * @return the next request, or null if the redirect cannot be followed automatically
+     * @throws IllegalStateException if there are too many redirects or a redirect cycle is detected
+     */
+    @Nullable
+    static RawHttpRequest nextRequest(RawHttpRequest request,
+                                      RawHttpResponse<?> response,
+                                      int totalRedirects,
+                                      int maxRedirects,
+                                      Set<String> locations) {
+        if (totalRedirects >= maxRedirects) {
+            throw new IllegalStateException("Too many redirects (" + totalRedirects + ")");
+        }
+        String location = response.getHeaders().getFirst("Location").orElse("");
+        if (location.isEmpty()) {
+            return null;
+        }
+        if (!locations.add(location)) {
+            throw new IllegalStateException("Redirect cycle detected. " +
+                    "Visited locations: " + String.join(", ", locations) + ". Next location: " + location);
+        }
+        return redirect(request, location, response.getStatusCode());
+    }
+
+    private static RawHttpRequest redirect(RawHttpRequest request, String location, int statusCode) {
         URI newUri;
         if (location.matches("^http(s)?://.*")) {
             newUri = URI.create(location);
@@ -1,5 +1,6 @@
 package rawhttp.core.client;
 
+import rawhttp.core.EagerHttpResponse;
 import rawhttp.core.HttpVersion;
 import rawhttp.core.IOSupplier;
 import rawhttp.core.RawHttp;
@@ -8,9 +9,13 @@ import rawhttp.core.RawHttpRequest;
 import rawhttp.core.RawHttpResponse;
 import rawhttp.core.RequestLine;
 import rawhttp.core.body.BodyReader;
+import rawhttp.core.body.EagerBodyReader;
+import rawhttp.core.body.LazyBodyReader;
+import rawhttp.core.internal.VirtualThreads;
 
 import javax.annotation.Nullable;
 import javax.net.ssl.SSLSocketFactory;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
@@ -19,11 +24,14 @@ import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.URI;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -37,6 +45,18 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class TcpRawHttpClient implements RawHttpClient<Void>, Closeable {
 
+    /**
+     * Maximum length of a request body that is always written by the Thread sending the request.
+     * <p>
+     * Larger bodies, and bodies of unknown length, are written by a Thread of the
+     * {@link TcpRawHttpClientOptions#getExecutorService()} while the response is read.
+     */
+    public static final int MAX_INLINE_BODY_SIZE = 64 * 1024;
+
+    // a pipelined response reader waits for as long as the server takes to respond, so it must not take a Thread
+    // from the options' executor, which request bodies need in order to be sent out
+    private static final ExecutorService PIPELINED_RESPONSE_READERS = newPipelinedResponseReaders();
+
     protected final TcpRawHttpClientOptions options;
     private final RawHttp rawHttp;
 
@@ -91,26 +111,49 @@ public class TcpRawHttpClient implements RawHttpClient<Void>, Closeable {
         boolean expectContinue = !startLine.getHttpVersion().isOlderThan(HttpVersion.HTTP_1_1) &&
                 finalRequest.expectContinue();
 
+        Optional<? extends BodyReader> body = finalRequest.getBody();
+
+        // The whole request is normally written by the calling Thread. Only a body which may not fit into the
+        // socket buffers is written by another Thread, because the server may respond before reading all of it,
+        // and the response must be read concurrently in that case to avoid a deadlock.
+        boolean sendBodyConcurrently = !expectContinue && body.isPresent() &&
+                !isSmallBody(body.get().getLengthIfKnown());
+
+        RawHttpRequest request = finalRequest;
+        if (!expectContinue && !sendBodyConcurrently && body.isPresent()
+                && !(body.get() instanceof EagerBodyReader)) {
+            // small bodies are read into memory so that the request can be sent again if the socket fails
+            request = finalRequest.eagerly();
+        }
+
         OutputStream outputStream = socket.getOutputStream();
         InputStream inputStream = socket.getInputStream();
 
-        // probe the socket before continuing as it may have been closed by the server
         try {
-            startLine.writeTo(outputStream);
-            outputStream.flush(); // make sure the bytes are actually sent
+            options.beforeSend(socket, request);
+            if (expectContinue || sendBodyConcurrently) {
+                writeHead(request, outputStream);
+            } else {
+                // the request is written with as few writes as possible, then flushed once
+                request.writeTo(outputStream, MAX_INLINE_BODY_SIZE);
+            }
+            outputStream.flush();
         } catch (SocketException e) {
             socket.close();
+            options.removeSocket(socket);
 
             // there's a good chance we can retry it without side effects
             // as the request could not have been fully accepted by the server yet
             if (retryOnSocketError) {
                 Socket replacementSocket = getSocket(startLine.getUri());
-                return send(finalRequest, startLine, replacementSocket, false);
+                return send(request, startLine, replacementSocket, false);
             }
             throw e;
         }
 
-        options.getExecutorService().submit(requestSender(finalRequest, outputStream, expectContinue));
+        Future<?> bodySent = sendBodyConcurrently
+                ? options.getExecutorService().submit(bodySender(body.get(), socket, outputStream))
+                : null;
 
         RawHttpResponse<Void> response;
         if (expectContinue) {
@@ -119,7 +162,8 @@ public class TcpRawHttpClient implements RawHttpClient<Void>, Closeable {
             try {
                 if (options.shouldContinue(responseWaiter)) {
                     //noinspection OptionalGetWithoutIsPresent (Expect continue is only valid when there is a body)
-                    finalRequest.getBody().get().writeTo(outputStream);
+                    body.get().writeTo(outputStream);
+                    outputStream.flush();
                     // call the response waiter if the custom shouldContinue implementation hasn't yet done that
                     if (!responseWaiter.wasCalled.get()) {
                         responseWaiter.call();
@@ -138,20 +182,213 @@ public class TcpRawHttpClient implements RawHttpClient<Void>, Closeable {
                         "request not being continued", e);
             }
         } else {
-            response = rawHttp.parseResponse(inputStream, startLine);
+            response = parseResponse(socket, inputStream, startLine);
         }
 
         if (response.getStatusCode() == 100) {
             // 100-Continue: ignore the first response, then expect a new one...
             options.onResponse(socket, finalRequest.getUri(), response);
 
-            return options.onResponse(socket, finalRequest.getUri(),
-                    rawHttp.parseResponse(socket.getInputStream(), startLine));
+            response = parseResponse(socket, socket.getInputStream(), startLine);
+        }
+
+        if (bodySent != null && !bodySent.isDone()) {
+            // the server responded before the whole request body was sent, so the rest of the body may still be
+            // written to the connection: it must not be given to another request
+            try {
+                response = response.eagerly(false);
+            } finally {
+                socket.close();
+                options.removeSocket(socket);
+                bodySent.cancel(true);
+            }
         }
 
         return options.onResponse(socket, finalRequest.getUri(), response);
     }
 
+    private RawHttpResponse<Void> parseResponse(Socket socket,
+                                                InputStream inputStream,
+                                                RequestLine startLine) throws IOException {
+        try {
+            return rawHttp.parseResponse(inputStream, startLine);
+        } catch (IOException | RuntimeException e) {
+            // the connection is in an unknown state, so it cannot be reused
+            socket.close();
+            options.removeSocket(socket);
+            throw e;
+        }
+    }
+
+    /**
+     * Send the given requests back-to-back on a single persistent connection, without waiting for the response
+     * to each request before sending the next one (HTTP/1.1 pipelining).
+     * <p>
+     * All requests must be sent to the same origin (same scheme, host and port), and none of them may have the
+     * {@code Expect: 100-continue} header. Requests are written by the calling Thread, which returns once all
+     * requests have been sent. Responses are read by a Thread dedicated to the connection (a virtual Thread on
+     * Java 21+), and each future in the returned list is completed, in order, with the eagerly-read response to
+     * the request at the same position.
+     * <p>
+     * If a response indicates that the server will close the connection (e.g. it has the {@code Connection: close}
+     * header), the requests following it were not processed by the server, so they are sent again on a new
+     * connection. If the connection fails in any other way, the futures of all requests which have not received
+     * a response are completed exceptionally. For this reason, request bodies are read into memory before
+     * any request is sent.
+     * <p>
+     * {@link TcpRawHttpClientOptions#onResponse(Socket, URI, RawHttpResponse)} is called with the last response
+     * received on each connection, and
+     * {@link TcpRawHttpClientOptions#onPipelinedResponse(Socket, URI, RawHttpResponse)} with the others.
+     * <p>
+     * Notice that servers are not required to support pipelining, and that non-idempotent requests should
+     * only be pipelined if the server is known to handle them correctly.
+     *
+     * @param requests the requests to send
+     * @return futures for the responses to each request, in the same order as the requests
+     * @throws IOException if the requests cannot be sent
+     */
+    public List<CompletableFuture<RawHttpResponse<Void>>> sendPipelined(List<RawHttpRequest> requests)
+            throws IOException {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<RawHttpRequest> finalRequests = new ArrayList<>(requests.size());
+        List<CompletableFuture<RawHttpResponse<Void>>> responses = new ArrayList<>(requests.size());
+        URI origin = requests.get(0).getUri();
+        for (RawHttpRequest request : requests) {
+            RawHttpRequest finalRequest = options.onRequest(request);
+            if (!isSameOrigin(origin, finalRequest.getUri())) {
+                throw new IllegalArgumentException("Pipelined requests must be sent to the same origin, " +
+                        "but got requests for " + origin + " and " + finalRequest.getUri());
+            }
+            if (finalRequest.expectContinue()) {
+                throw new IllegalArgumentException("Pipelined requests cannot expect 100-continue");
+            }
+            // bodies are read into memory so that requests may be sent again if the connection is closed
+            finalRequests.add(finalRequest.getBody().isPresent() ? finalRequest.eagerly() : finalRequest);
+            responses.add(new CompletableFuture<>());
+        }
+        sendPipelined(finalRequests, responses, true);
+        return Collections.unmodifiableList(responses);
+    }
+
+    private void sendPipelined(List<RawHttpRequest> requests,
+                               List<CompletableFuture<RawHttpResponse<Void>>> responses,
+                               boolean retryOnSocketError) throws IOException {
+        Socket socket = getSocket(requests.get(0).getUri());
+        OutputStream outputStream = socket.getOutputStream();
+
+        // probe the socket before continuing as it may have been closed by the server
+        try {
+            requests.get(0).getStartLine().writeTo(outputStream);
+            outputStream.flush();
+        } catch (SocketException e) {
+            socket.close();
+            options.removeSocket(socket);
+            if (retryOnSocketError) {
+                sendPipelined(requests, responses, false);
+                return;
+            }
+            throw e;
+        }
+
+        InputStream inputStream = socket.getInputStream();
+        PIPELINED_RESPONSE_READERS.submit(() ->
+                readPipelinedResponses(socket, inputStream, requests, responses));
+
+        BufferedOutputStream out = new BufferedOutputStream(outputStream, 8192);
+        try {
+            for (int i = 0; i < requests.size(); i++) {
+                RawHttpRequest request = requests.get(i);
+                if (i > 0) {
+                    request.getStartLine().writeTo(out);
+                }
+                request.getHeaders().writeTo(out);
+                Optional<? extends BodyReader> body = request.getBody();
+                if (body.isPresent()) {
+                    body.get().writeTo(out);
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            // the server may have closed the connection after responding to one of the requests,
+            // which is handled by the response reader, so just stop writing
+            try {
+                socket.shutdownOutput();
+            } catch (IOException | UnsupportedOperationException ignore) {
+                // the response reader will fail on its own
+            }
+        }
+    }
+
+    private void readPipelinedResponses(Socket socket,
+                                        InputStream inputStream,
+                                        List<RawHttpRequest> requests,
+                                        List<CompletableFuture<RawHttpResponse<Void>>> responses) {
+        int index = 0;
+        try {
+            for (; index < requests.size(); index++) {
+                RawHttpRequest request = requests.get(index);
+                RequestLine startLine = request.getStartLine();
+                RawHttpResponse<Void> response = rawHttp.parseResponse(inputStream, startLine);
+                while (response.getStatusCode() == 100) {
+                    response = rawHttp.parseResponse(inputStream, startLine);
+                }
+                EagerHttpResponse<Void> eagerResponse = response.eagerly();
+                boolean isLast = index == requests.size() - 1;
+                boolean willClose = RawHttpResponse.shouldCloseConnectionAfter(eagerResponse);
+                responses.get(index).complete(isLast || willClose
+                        ? options.onResponse(socket, request.getUri(), eagerResponse)
+                        : options.onPipelinedResponse(socket, request.getUri(), eagerResponse));
+                if (willClose && !isLast) {
+                    // the server does not process requests received after it decides to close the connection,
+                    // so the remaining requests can be safely sent again on a new connection
+                    index++;
+                    sendPipelined(requests.subList(index, requests.size()),
+                            responses.subList(index, responses.size()), true);
+                    return;
+                }
+            }
+        } catch (Throwable e) {
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+                // already failing
+            }
+            options.removeSocket(socket);
+            for (; index < responses.size(); index++) {
+                responses.get(index).completeExceptionally(e);
+            }
+        }
+    }
+
+    private static ExecutorService newPipelinedResponseReaders() {
+        if (VirtualThreads.isSupported()) {
+            return VirtualThreads.newVirtualThreadPerTaskExecutor("tcp-rawhttp-pipeline-reader-");
+        }
+        final AtomicInteger threadCount = new AtomicInteger(1);
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread t = new Thread(runnable);
+            t.setDaemon(true);
+            t.setName("tcp-rawhttp-pipeline-reader-" + threadCount.getAndIncrement());
+            return t;
+        });
+    }
+
+    private static boolean isSameOrigin(URI origin, URI uri) {
+        return Objects.equals(origin.getHost(), uri.getHost()) &&
+                effectivePort(origin) == effectivePort(uri) &&
+                String.valueOf(origin.getScheme()).equalsIgnoreCase(String.valueOf(uri.getScheme()));
+    }
+
+    private static int effectivePort(URI uri) {
+        int port = uri.getPort();
+        if (port < 1) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return port;
+    }
+
     private Socket getSocket(URI uri) throws IOException {
         try {
             return options.getSocket(uri);
@@ -164,6 +401,36 @@ public class TcpRawHttpClient implements RawHttpClient<Void>, Closeable {
         }
     }
 
+    private static boolean isSmallBody(OptionalLong bodyLength) {
+        return bodyLength.isPresent() && bodyLength.getAsLong() <= MAX_INLINE_BODY_SIZE;
+    }
+
+    private static void writeHead(RawHttpRequest request, OutputStream outputStream) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        request.getStartLine().writeTo(buffer);
+        request.getHeaders().writeTo(buffer);
+        buffer.writeTo(outputStream);
+    }
+
+    private static Runnable bodySender(BodyReader body, Socket socket, OutputStream outputStream) {
+        return () -> {
+            try {
+                body.writeTo(outputStream);
+                outputStream.flush();
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    // otherwise, the exchange was abandoned, e.g. because the server responded early
+                    e.printStackTrace();
+                }
+                try {
+                    outputStream.close();
+                } catch (IOException ex) {
+                    // nothing better to do here
+                }
+            }
+        };
+    }
+
     /**
      * This method returns a {@link Runnable} that when called, submits the request
      * to the server.
@@ -177,7 +444,10 @@ public class TcpRawHttpClient implements RawHttpClient<Void>, Closeable {
      * @param outputStream   stream connected to a HTTP server
      * @param expectContinue whether this request expects a 100-Continue response
      * @return a Runnable that submits the request when called.
+     * @deprecated this method is no longer used by {@link #send(RawHttpRequest)}, which writes the request from the
+     * calling Thread, using another Thread only to write large or streamed bodies.
      */
+    @Deprecated
     protected Runnable requestSender(RawHttpRequest request,
                                      OutputStream outputStream,
                                      boolean expectContinue) {
@@ -235,6 +505,21 @@ public class TcpRawHttpClient implements RawHttpClient<Void>, Closeable {
             return httpRequest;
         }
 
+        /**
+         * Callback that will be called just before the HTTP client starts writing a request to a socket.
+         * <p>
+         * Unlike {@link #onRequest(RawHttpRequest)}, this method is called after a socket has been obtained for the
+         * request, so it may be used, for example, to measure how long it takes for the response to arrive.
+         * It may be called more than once for the same request if the request must be sent again on a new socket.
+         * <p>
+         * The default implementation does nothing.
+         *
+         * @param socket      the socket the request is about to be written to
+         * @param httpRequest the HTTP request to be sent
+         */
+        default void beforeSend(Socket socket, RawHttpRequest httpRequest) {
+        }
+
         /**
          * Callback that will be called every time the HTTP client receives a response.
          * <p>
@@ -254,6 +539,29 @@ public class TcpRawHttpClient implements RawHttpClient<Void>, Closeable {
         RawHttpResponse<Void> onResponse(
                 Socket socket, URI uri, RawHttpResponse<Void> httpResponse) throws IOException;
 
+        /**
+         * Callback that will be called every time the HTTP client receives a response to a pipelined request
+         * which is followed by other requests on the same connection.
+         * <p>
+         * The socket is still in use after this method returns, so unlike
+         * {@link #onResponse(Socket, URI, RawHttpResponse)}, this method must not close or release it.
+         * The last response received on a connection is given to {@link #onResponse(Socket, URI, RawHttpResponse)}
+         * as usual.
+         * <p>
+         * The default implementation returns the unmodified response.
+         *
+         * @param socket       the socket used to send out the pipelined HTTP requests
+         * @param uri          used to make the HTTP request
+         * @param httpResponse the HTTP response received from the server, with its body already read
+         * @return a possibly transformed httpResponse
+         * @throws IOException if any communication problem occurs
+         * @see TcpRawHttpClient#sendPipelined(List)
+         */
+        default RawHttpResponse<Void> onPipelinedResponse(
+                Socket socket, URI uri, RawHttpResponse<Void> httpResponse) throws IOException {
+            return httpResponse;
+        }
+
         /**
          * Decide whether the body of a request with the 100-continue expectation should be sent to the server
          * after obtaining a HTTP response from it.
@@ -307,22 +615,68 @@ public class TcpRawHttpClient implements RawHttpClient<Void>, Closeable {
      * in the {@link URI}, port 80 will be used for "http" requests,
      * and port 43 for "https" requests.
      * <p>
-     * Sockets are re-used if possible (following the {@code Connection} header as described
-     * in <a href="https://tools.ietf.org/html/rfc7230#section-6.3">Section 6.3</a> of RFC-7230).
+     * Sockets are kept in a {@link ConnectionPool} and re-used if possible (following the {@code Connection} header
+     * as described in <a href="https://tools.ietf.org/html/rfc7230#section-6.3">Section 6.3</a> of RFC-7230).
+     * A Socket is leased from the pool by {@link #getSocket(URI)} and returned to the pool once the response
+     * body has been fully read (or immediately, if the response has no body), so that concurrent requests to the same
+     * host use different connections.
+     * <p>
+     * Responses whose body is not fully read (including bodies read via {@link BodyReader#asRawStream()}) must have
+     * their body closed: that closes the Socket and frees its place in the pool. Otherwise, once the pool's limit of
+     * connections to a host has been reached by such responses, further requests to that host wait for the pool's
+     * lease timeout, then fail.
+     * <p>
+     * Request bodies are sent out by a fixed pool of 4 Threads, or by virtual Threads if requested
+     * via {@link DefaultOptions#DefaultOptions(boolean)} and running on Java 21+.
      */
     public static class DefaultOptions implements TcpRawHttpClientOptions {
 
-        private final Map<HostKey, Socket> socketByHost = new HashMap<>(4);
+        private final ConnectionPool connectionPool;
         private final ExecutorService executorService;
 
         public DefaultOptions() {
-            final AtomicInteger threadCount = new AtomicInteger(1);
-            this.executorService = Executors.newFixedThreadPool(4, runnable -> {
-                Thread t = new Thread(runnable);
-                t.setDaemon(true);
-                t.setName("tcp-rawhttp-client-" + threadCount.incrementAndGet());
-                return t;
-            });
+            this(false);
+        }
+
+        /**
+         * Create the default options, optionally using virtual Threads to send out request bodies.
+         *
+         * @param useVirtualThreads whether to use virtual Threads. This has no effect if virtual Threads are
+         *                          not supported by the current JVM (they require Java 21+).
+         */
+        public DefaultOptions(boolean useVirtualThreads) {
+            this(useVirtualThreads, ConnectionPool.createDefault());
+        }
+
+        /**
+         * Create the default options using the given connection pool.
+         * <p>
+         * The connection pool is closed when these options are closed.
+         *
+         * @param useVirtualThreads whether to use virtual Threads. This has no effect if virtual Threads are
+         *                          not supported by the current JVM (they require Java 21+).
+         * @param connectionPool    the pool of connections to use
+         */
+        public DefaultOptions(boolean useVirtualThreads, ConnectionPool connectionPool) {
+            this.connectionPool = connectionPool;
+            if (useVirtualThreads && VirtualThreads.isSupported()) {
+                this.executorService = VirtualThreads.newVirtualThreadPerTaskExecutor("tcp-rawhttp-client-");
+            } else {
+                final AtomicInteger threadCount = new AtomicInteger(1);
+                this.executorService = Executors.newFixedThreadPool(4, runnable -> {
+                    Thread t = new Thread(runnable);
+                    t.setDaemon(true);
+                    t.setName("tcp-rawhttp-client-" + threadCount.incrementAndGet());
+                    return t;
+                });
+            }
+        }
+
+        /**
+         * @return the pool of connections used by these options
+         */
+        public ConnectionPool getConnectionPool() {
+            return connectionPool;
         }
 
         @Override
@@ -330,24 +684,24 @@ public class TcpRawHttpClient implements RawHttpClient<Void>, Closeable {
             String host = Optional.ofNullable(uri.getHost()).orElseThrow(() ->
                     new RuntimeException("Host is not available in the URI"));
             boolean useHttps = "https".equalsIgnoreCase(uri.getScheme());
+            int port = uri.getPort();
+            if (port < 1) {
+                port = useHttps ? 443 : 80;
+            }
+            int finalPort = port;
 
-            @Nullable Socket socket = socketByHost.get(new HostKey(host, useHttps));
-
-            if (socket == null || socket.isClosed() || !socket.isConnected()) {
-                int port = uri.getPort();
-                if (port < 1) {
-                    port = useHttps ? 443 : 80;
-                }
-                try {
-                    socket = createSocket(useHttps, host, port);
+            try {
+                return connectionPool.lease(new HostKey(host, finalPort, useHttps), () -> {
+                    Socket socket = createSocket(useHttps, host, finalPort);
                     socket.setSoTimeout(5_000);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-                socketByHost.put(new HostKey(host, useHttps), socket);
+                    // requests are written with as few writes as possible, so there is nothing to gain from
+                    // delaying small packets
+                    socket.setTcpNoDelay(true);
+                    return socket;
+                });
+            } catch (IOException e) {
+                throw new RuntimeException(e);
             }
-
-            return socket;
         }
 
         protected Socket createSocket(boolean useHttps, String host, int port) throws IOException {
@@ -360,15 +714,34 @@ public class TcpRawHttpClient implements RawHttpClient<Void>, Closeable {
         public RawHttpResponse<Void> onResponse(Socket socket,
                                                 URI uri,
                                                 RawHttpResponse<Void> httpResponse) throws IOException {
-            if (RawHttpResponse.shouldCloseConnectionAfter(httpResponse)) {
-                boolean useHttps = "https".equalsIgnoreCase(uri.getScheme());
+            if (httpResponse.getStatusCode() < 200) {
+                // informational response, the final response will follow on the same connection
+                return httpResponse;
+            }
 
+            if (RawHttpResponse.shouldCloseConnectionAfter(httpResponse)) {
                 // resolve the full response before closing the socket
-                try (Socket ignore = socketByHost.remove(new HostKey(uri.getHost(), useHttps))) {
+                try {
                     return httpResponse.eagerly(false);
+                } finally {
+                    connectionPool.evict(socket);
                 }
             }
 
+            Optional<? extends BodyReader> body = httpResponse.getBody();
+            if (body.isPresent() && body.get() instanceof LazyBodyReader) {
+                // only give back the socket once the body has been read from it
+                BodyReader bodyReader = body.get();
+                return new RawHttpResponse<>(httpResponse.getLibResponse().orElse(null),
+                        httpResponse.getRequest().orElse(null),
+                        httpResponse.getStartLine(),
+                        httpResponse.getHeaders(),
+                        new LazyBodyReader(bodyReader.getFramedBody(), bodyReader.asRawStream(),
+                                () -> connectionPool.release(socket),
+                                ((LazyBodyReader) bodyReader).getMaxInMemoryBodySize()));
+            }
+
+            connectionPool.release(socket);
             return httpResponse;
         }
 
@@ -384,18 +757,12 @@ public class TcpRawHttpClient implements RawHttpClient<Void>, Closeable {
             } catch (Exception e) {
                 e.printStackTrace();
             }
-            for (Socket socket : socketByHost.values()) {
-                try {
-                    socket.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
+            connectionPool.close();
         }
 
         @Override
         public void removeSocket(Socket socket) {
-            socketByHost.values().remove(socket);
+            connectionPool.evict(socket);
         }
 
     }
@@ -422,10 +789,12 @@ public class TcpRawHttpClient implements RawHttpClient<Void>, Closeable {
 
     private static final class HostKey {
         final String host;
+        final int port;
         final boolean https;
 
-        HostKey(String host, boolean https) {
+        HostKey(String host, int port, boolean https) {
             this.host = host;
+            this.port = port;
             this.https = https;
         }
 
@@ -436,6 +805,7 @@ public class TcpRawHttpClient implements RawHttpClient<Void>, Closeable {
 
             HostKey hostKey = (HostKey) o;
 
+            if (port != hostKey.port) return false;
             if (https != hostKey.https) return false;
             return Objects.equals(host, hostKey.host);
         }
@@ -443,9 +813,15 @@ public class TcpRawHttpClient implements RawHttpClient<Void>, Closeable {
         @Override
         public int hashCode() {
             int result = host != null ? host.hashCode() : 0;
+            result = 31 * result + port;
             result = 31 * result + (https ? 1 : 0);
             return result;
         }
+
+        @Override
+        public String toString() {
+            return (https ? "https://" : "http://") + host + ":" + port;
+        }
     }
 
 }
@@ -0,0 +1,31 @@
+package rawhttp.core.errors;
+
+import java.io.IOException;
+
+/**
+ * An Exception that occurs when the body of a HTTP message is larger than the maximum body size allowed.
+ *
+ * @see rawhttp.core.RawHttpOptions#getMaxBodySize()
+ */
+public class BodyTooLargeException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long maxBodySize;
+
+    public BodyTooLargeException(long maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * @return the maximum body size that was exceeded
+     */
+    public long getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Message body is larger than the maximum size of " + maxBodySize + " bytes";
+    }
+}
@@ -0,0 +1,17 @@
+package rawhttp.core.errors;
+
+import java.io.IOException;
+
+/**
+ * An Exception that occurs when a HTTP message body cannot be buffered in memory because the
+ * {@link rawhttp.core.body.BodyBufferBudget} it is accounted in has been exhausted for too long.
+ */
+public class BufferBudgetExhaustedException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BufferBudgetExhaustedException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,33 @@
+package rawhttp.core.internal;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Support for virtual Threads.
+ * <p>
+ * Virtual Threads are only available on Java 21+, hence this version of the class always reports them as not
+ * supported. The multi-release jar contains an implementation of this class for Java 21+.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return whether virtual Threads are supported by the current JVM
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * Create an {@link ExecutorService} that runs each task on a new virtual Thread.
+     *
+     * @param threadNamePrefix prefix of the name of the Threads created by the executor
+     * @return executor service
+     * @throws UnsupportedOperationException if virtual Threads are not supported
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String threadNamePrefix) {
+        throw new UnsupportedOperationException("Virtual Threads require Java 21 or newer");
+    }
+}
@@ -14,12 +14,20 @@ final class HttpResponses {
     private static final EagerHttpResponse<Void> NOT_FOUND_404_HTTP1_1;
     private static final EagerHttpResponse<Void> SERVER_ERROR_500_HTTP1_0;
     private static final EagerHttpResponse<Void> SERVER_ERROR_500_HTTP1_1;
+    private static final EagerHttpResponse<Void> PAYLOAD_TOO_LARGE_413_HTTP1_0;
+    private static final EagerHttpResponse<Void> PAYLOAD_TOO_LARGE_413_HTTP1_1;
+    private static final EagerHttpResponse<Void> SERVICE_UNAVAILABLE_503_HTTP1_0;
+    private static final EagerHttpResponse<Void> SERVICE_UNAVAILABLE_503_HTTP1_1;
     private static final EagerHttpResponse<Void> _100_CONTINUE;
 
     private static final StatusLine STATUS_404_HTTP1_0;
     private static final StatusLine STATUS_404_HTTP1_1;
     private static final StatusLine STATUS_500_HTTP1_0;
     private static final StatusLine STATUS_500_HTTP1_1;
+    private static final StatusLine STATUS_413_HTTP1_0;
+    private static final StatusLine STATUS_413_HTTP1_1;
+    private static final StatusLine STATUS_503_HTTP1_0;
+    private static final StatusLine STATUS_503_HTTP1_1;
 
     static {
         STATUS_404_HTTP1_0 = new StatusLine(HttpVersion.HTTP_1_0, 404, "Not Found");
@@ -28,6 +36,12 @@ final class HttpResponses {
         STATUS_500_HTTP1_0 = new StatusLine(HttpVersion.HTTP_1_0, 500, "Server Error");
         STATUS_500_HTTP1_1 = new StatusLine(HttpVersion.HTTP_1_1, 500, "Server Error");
 
+        STATUS_413_HTTP1_0 = new StatusLine(HttpVersion.HTTP_1_0, 413, "Payload Too Large");
+        STATUS_413_HTTP1_1 = new StatusLine(HttpVersion.HTTP_1_1, 413, "Payload Too Large");
+
+        STATUS_503_HTTP1_0 = new StatusLine(HttpVersion.HTTP_1_0, 503, "Service Unavailable");
+        STATUS_503_HTTP1_1 = new StatusLine(HttpVersion.HTTP_1_1, 503, "Service Unavailable");
+
         final RawHttpHeaders basicHeaders = RawHttpHeaders.newBuilderSkippingValidation()
                 .with("Content-Type", "text/plain")
                 .with("Cache-Control", "no-cache")
@@ -56,6 +70,32 @@ final class HttpResponses {
 
         SERVER_ERROR_500_HTTP1_0 = SERVER_ERROR_500_HTTP1_1.withStatusLine(STATUS_500_HTTP1_0);
 
+        // the request body may not have been fully read when these responses are sent,
+        // so the connection must be closed after them
+        byte[] payloadTooLargeResponseBody = "The request body is too large.".getBytes(US_ASCII);
+
+        PAYLOAD_TOO_LARGE_413_HTTP1_1 = new EagerHttpResponse<>(null, null,
+                STATUS_413_HTTP1_1,
+                RawHttpHeaders.newBuilderSkippingValidation(basicHeaders)
+                        .overwrite("Content-Length", Integer.toString(payloadTooLargeResponseBody.length))
+                        .overwrite("Connection", "close")
+                        .build(),
+                new EagerBodyReader(payloadTooLargeResponseBody));
+
+        PAYLOAD_TOO_LARGE_413_HTTP1_0 = PAYLOAD_TOO_LARGE_413_HTTP1_1.withStatusLine(STATUS_413_HTTP1_0);
+
+        byte[] serviceUnavailableResponseBody = "The server is too busy to handle the request.".getBytes(US_ASCII);
+
+        SERVICE_UNAVAILABLE_503_HTTP1_1 = new EagerHttpResponse<>(null, null,
+                STATUS_503_HTTP1_1,
+                RawHttpHeaders.newBuilderSkippingValidation(basicHeaders)
+                        .overwrite("Content-Length", Integer.toString(serviceUnavailableResponseBody.length))
+                        .overwrite("Connection", "close")
+                        .build(),
+                new EagerBodyReader(serviceUnavailableResponseBody));
+
+        SERVICE_UNAVAILABLE_503_HTTP1_0 = SERVICE_UNAVAILABLE_503_HTTP1_1.withStatusLine(STATUS_503_HTTP1_0);
+
         _100_CONTINUE = new EagerHttpResponse<>(null, null,
                 new StatusLine(HttpVersion.HTTP_1_1, 100, "Continue"), RawHttpHeaders.empty(), null);
     }
@@ -76,6 +116,22 @@ final class HttpResponses {
         }
     }
 
+    static EagerHttpResponse<Void> getPayloadTooLargeResponse(HttpVersion httpVersion) {
+        if (httpVersion.isOlderThan(HttpVersion.HTTP_1_1)) {
+            return PAYLOAD_TOO_LARGE_413_HTTP1_0;
+        } else {
+            return PAYLOAD_TOO_LARGE_413_HTTP1_1;
+        }
+    }
+
+    static EagerHttpResponse<Void> getServiceUnavailableResponse(HttpVersion httpVersion) {
+        if (httpVersion.isOlderThan(HttpVersion.HTTP_1_1)) {
+            return SERVICE_UNAVAILABLE_503_HTTP1_0;
+        } else {
+            return SERVICE_UNAVAILABLE_503_HTTP1_1;
+        }
+    }
+
     static EagerHttpResponse<Void> get100ContinueResponse() {
         return _100_CONTINUE;
     }
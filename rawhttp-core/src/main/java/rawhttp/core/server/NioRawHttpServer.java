@@ -0,0 +1,898 @@
+package rawhttp.core.server;
+
+import rawhttp.core.BufferedHttpInputStream;
+import rawhttp.core.EagerHttpResponse;
+import rawhttp.core.HttpVersion;
+import rawhttp.core.RawHttp;
+import rawhttp.core.RawHttpHeaders;
+import rawhttp.core.RawHttpRequest;
+import rawhttp.core.RawHttpResponse;
+import rawhttp.core.body.FileTransferTarget;
+import rawhttp.core.body.GatheringWriteTarget;
+import rawhttp.core.errors.InvalidHttpRequest;
+import rawhttp.core.internal.VirtualThreads;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static rawhttp.core.RawHttp.responseHasBody;
+import static rawhttp.core.server.TcpRawHttpServer.STRICT_HTTP;
+import static rawhttp.core.server.TcpRawHttpServer.getCurrentDateHeader;
+
+/**
+ * Implementation of {@link RawHttpServer} based on non-blocking NIO channels.
+ * <p>
+ * Unlike {@link TcpRawHttpServer}, this server does not dedicate a Thread to each connected client.
+ * Connections are watched by a small number of event-loop Threads, each running a {@link Selector}, and are only
+ * handed over to a worker Thread once the full head of a request (the request-line and headers) has been received.
+ * The worker routes the request with the same semantics as {@link TcpRawHttpServer}, writes the response and then
+ * gives the connection back to its event-loop, so idle keep-alive connections do not consume any worker Threads.
+ * <p>
+ * It is possible to configure this server by passing an instance of {@link NioRawHttpServerOptions} to its
+ * constructor.
+ */
+public class NioRawHttpServer implements RawHttpServer {
+
+    private static final RawHttpHeaders SERVER_HEADER = RawHttpHeaders.newBuilder()
+            .with("Server", "RawHTTP")
+            .build();
+
+    private final AtomicReference<RouterAndChannel> routerRef = new AtomicReference<>();
+    private final NioRawHttpServerOptions options;
+
+    public NioRawHttpServer(int port) {
+        this.options = () -> ServerSocketChannel.open().bind(new InetSocketAddress(port));
+    }
+
+    public NioRawHttpServer(NioRawHttpServerOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * @return the options used by this server
+     */
+    public NioRawHttpServerOptions getOptions() {
+        return options;
+    }
+
+    @Override
+    public void start(Router router) {
+        try {
+            stop();
+        } catch (RuntimeException e) {
+            // ignore because this means the previous channel probably was already dead,
+            // but that shouldn't make it impossible to start another server
+        }
+
+        try {
+            routerRef.set(new RouterAndChannel(router, options));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        RouterAndChannel current = routerRef.getAndSet(null);
+        if (current != null) {
+            current.stop();
+        }
+    }
+
+    /**
+     * Configuration options for {@link NioRawHttpServer}.
+     */
+    public interface NioRawHttpServerOptions {
+
+        /**
+         * Create a bound server socket channel for the server to use.
+         * <p>
+         * The server configures the channel to be non-blocking.
+         *
+         * @return a bound server socket channel
+         * @throws IOException if an error occurs when opening or binding the channel
+         */
+        ServerSocketChannel getServerSocketChannel() throws IOException;
+
+        /**
+         * @return the number of event-loop Threads used to watch client connections.
+         * By default, half the number of available processors is used, with a minimum of 1 and a maximum of 4.
+         */
+        default int getEventLoopCount() {
+            return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        }
+
+        /**
+         * @return maximum time a keep-alive connection may stay idle, waiting for a new request, before the server
+         * closes it. Defaults to 30 seconds.
+         */
+        default Duration getIdleTimeout() {
+            return Duration.ofSeconds(30);
+        }
+
+        /**
+         * @return maximum time the server waits for the client to send more bytes, or to accept more bytes, once
+         * the client has started sending a request. Defaults to 5 seconds.
+         */
+        default Duration getReadTimeout() {
+            return Duration.ofSeconds(5);
+        }
+
+        /**
+         * @return maximum number of bytes a request head (request-line and headers) may have.
+         * Connections that send larger request heads are closed. Defaults to 64KB.
+         */
+        default int getMaxRequestHeadSize() {
+            return 64 * 1024;
+        }
+
+        /**
+         * @return the {@link RawHttp} instance to use to parse requests and responses
+         */
+        default RawHttp getRawHttp() {
+            return STRICT_HTTP;
+        }
+
+        /**
+         * Whether to handle each request on its own virtual Thread.
+         * <p>
+         * Virtual Threads are only available on Java 21+. On older Java versions, this option has no effect.
+         * <p>
+         * This option is only used by the default implementation of {@link #createExecutorService()}.
+         *
+         * @return true to use virtual Threads if available, false otherwise (the default).
+         */
+        default boolean useVirtualThreads() {
+            return false;
+        }
+
+        /**
+         * @return executor service to use to route requests. Each {@link Runnable} runs only while a request is
+         * being handled, the connection is given back to an event-loop as soon as the response has been sent.
+         * By default, a fixed pool of 25 Threads is used, unless {@link #useVirtualThreads()} returns true
+         * and virtual Threads are supported, in which case a new virtual Thread is used for each request.
+         */
+        default ExecutorService createExecutorService() {
+            if (useVirtualThreads() && VirtualThreads.isSupported()) {
+                return VirtualThreads.newVirtualThreadPerTaskExecutor("nio-rawhttp-server-worker-");
+            }
+            final AtomicInteger threadCount = new AtomicInteger(1);
+            return Executors.newFixedThreadPool(25, runnable -> {
+                Thread t = new Thread(runnable);
+                t.setDaemon(true);
+                t.setName("nio-rawhttp-server-worker-" + threadCount.incrementAndGet());
+                return t;
+            });
+        }
+
+        /**
+         * @param request received by the server
+         * @return the default ServerError (500) response to send out when an Exception occurs in the {@link Router}.
+         */
+        default Optional<EagerHttpResponse<Void>> serverErrorResponse(RawHttpRequest request) {
+            return Optional.empty();
+        }
+
+        /**
+         * @param request received by the server
+         * @return the default NotFound (404) response to send out when an Exception occurs in the {@link Router}.
+         */
+        default Optional<EagerHttpResponse<Void>> notFoundResponse(RawHttpRequest request) {
+            return Optional.empty();
+        }
+
+        /**
+         * Callback that will be called every time the server receives a HTTP request, but before it sends out a
+         * HTTP response.
+         * <p>
+         * The actual response the client will see is the one returned by this method.
+         * <p>
+         * By default, this method adds "Date" and "Server" headers (the latter with the value of "RawHTTP").
+         * <p>
+         * Responses can be compressed here with a {@link ResponseCompressor}.
+         *
+         * @param request  received by the server
+         * @param response the server routed to. Normally, this callback should return this response with possibly
+         *                 minor alterations.
+         * @return the response the client should receive. Must not be null.
+         * @throws IOException if an error occurs reading/writing HTTP messages
+         */
+        default RawHttpResponse<Void> onResponse(RawHttpRequest request, RawHttpResponse<Void> response)
+                throws IOException {
+            return response.withHeaders(getCurrentDateHeader().and(SERVER_HEADER));
+        }
+
+    }
+
+    private static final class RouterAndChannel {
+
+        private final Router router;
+        private final ServerSocketChannel serverChannel;
+        private final ExecutorService executorService;
+        private final RawHttp http;
+        private final NioRawHttpServerOptions options;
+        private final EventLoop[] eventLoops;
+        private final long idleTimeout;
+        private final long readTimeout;
+        private final int maxRequestHeadSize;
+        private final AtomicInteger nextEventLoop = new AtomicInteger();
+
+        RouterAndChannel(Router router,
+                         NioRawHttpServerOptions options) throws IOException {
+            this.router = router;
+            this.options = options;
+            this.http = options.getRawHttp();
+            this.idleTimeout = options.getIdleTimeout().toMillis();
+            this.readTimeout = options.getReadTimeout().toMillis();
+            this.maxRequestHeadSize = options.getMaxRequestHeadSize();
+            this.serverChannel = options.getServerSocketChannel();
+            this.serverChannel.configureBlocking(false);
+            this.executorService = options.createExecutorService();
+            this.eventLoops = new EventLoop[Math.max(1, options.getEventLoopCount())];
+
+            for (int i = 0; i < eventLoops.length; i++) {
+                eventLoops[i] = new EventLoop(Selector.open());
+            }
+
+            start();
+        }
+
+        private void start() throws IOException {
+            serverChannel.register(eventLoops[0].selector, SelectionKey.OP_ACCEPT);
+            for (int i = 0; i < eventLoops.length; i++) {
+                new Thread(eventLoops[i], "nio-rawhttp-server-loop-" + i).start();
+            }
+        }
+
+        private void accept(EventLoop acceptingLoop) {
+            while (true) {
+                SocketChannel channel;
+                try {
+                    channel = serverChannel.accept();
+                } catch (IOException e) {
+                    if (serverChannel.isOpen()) {
+                        e.printStackTrace();
+                    }
+                    return;
+                }
+                if (channel == null) {
+                    return;
+                }
+                EventLoop loop = eventLoops[Math.floorMod(nextEventLoop.getAndIncrement(), eventLoops.length)];
+                if (loop == acceptingLoop) {
+                    loop.register(channel);
+                } else {
+                    loop.execute(() -> loop.register(channel));
+                }
+            }
+        }
+
+        private void handle(Connection connection) {
+            RawHttpRequest request;
+            boolean serverWillCloseConnection = false;
+
+            do {
+                try {
+                    request = http.parseRequest(connection.inputStream, connection.remoteAddress);
+                    HttpVersion httpVersion = request.getStartLine().getHttpVersion();
+                    Optional<String> connectionOption = request.getHeaders().getFirst("Connection");
+
+                    // If the "close" connection option is present, the connection will
+                    // not persist after the current response
+                    serverWillCloseConnection = connectionOption
+                            .map("close"::equalsIgnoreCase)
+                            .orElse(false);
+
+                    RawHttpResponse<?> response = null;
+                    boolean expects100 = request.expectContinue();
+
+                    if (expects100 && !httpVersion.isOlderThan(HttpVersion.HTTP_1_1)) {
+                        RawHttpResponse<Void> interimResponse = router
+                                .continueResponse(request.getStartLine(), request.getHeaders())
+                                .orElse(HttpResponses.get100ContinueResponse());
+                        if (interimResponse.getStatusCode() == 100) {
+                            // tell the client that we shall continue
+                            interimResponse.writeTo(connection.outputStream);
+                            connection.outputStream.flush();
+                        } else {
+                            // if we don't accept the request body, we must close the connection
+                            serverWillCloseConnection = true;
+                            response = interimResponse;
+                        }
+                    }
+
+                    if (!serverWillCloseConnection) {
+                        // https://tools.ietf.org/html/rfc7230#section-6.3
+                        boolean serverShouldPersistConnection =
+                                !httpVersion.isOlderThan(HttpVersion.HTTP_1_1)
+                                        || (httpVersion == HttpVersion.HTTP_1_0 && connectionOption
+                                        .map("keep-alive"::equalsIgnoreCase)
+                                        .orElse(false));
+                        serverWillCloseConnection = !serverShouldPersistConnection;
+                    }
+
+                    try {
+                        if (response == null) {
+                            response = route(request);
+                        }
+                        serverWillCloseConnection |= RawHttpResponse.shouldCloseConnectionAfter(
+                                request.getStartLine(), response);
+                        response.writeTo(connection.outputStream);
+                        connection.outputStream.flush();
+                    } finally {
+                        closeBodyOf(response);
+                    }
+                    if (request.getMethod().equalsIgnoreCase("CONNECT") &&
+                            response.getStartLine().isSuccess()) {
+                        connection.tunnel(request);
+                        return; // now it's between the client and the router
+                    }
+                } catch (SocketTimeoutException e) {
+                    serverWillCloseConnection = true;
+                } catch (Exception e) {
+                    // only print stack trace if this is not due to a client closing the connection
+                    boolean clientClosedConnection = e instanceof IOException ||
+                            (e instanceof InvalidHttpRequest && ((InvalidHttpRequest) e).getLineNumber() == 0);
+
+                    if (!clientClosedConnection) {
+                        e.printStackTrace();
+                    }
+
+                    serverWillCloseConnection = true; // cannot keep listening anymore
+                }
+            } while (!serverWillCloseConnection && serverChannel.isOpen() && connection.hasNextRequestHead());
+
+            if (serverWillCloseConnection || !serverChannel.isOpen()) {
+                connection.close();
+            } else {
+                connection.waitForNextRequest();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private RawHttpResponse<?> route(RawHttpRequest request) throws IOException {
+            RawHttpResponse<Void> response;
+            try {
+                response = router.route(request).map(res -> (RawHttpResponse<Void>) res)
+                        .orElseGet(() -> options.notFoundResponse(request).orElseGet(() ->
+                                HttpResponses.getNotFoundResponse(request.getStartLine().getHttpVersion())));
+            } catch (Exception e) {
+                e.printStackTrace();
+                response = options.serverErrorResponse(request).orElseGet(() ->
+                        HttpResponses.getServerErrorResponse(request.getStartLine().getHttpVersion()));
+            }
+            if (request.getMethod().equals("HEAD") && response.getBody().isPresent()) {
+                response = response.withBody(null, false);
+            } else if (!response.getBody().isPresent() &&
+                    responseHasBody(response.getStartLine(), request.getStartLine())) {
+                // we must tell the client the response is empty
+                response = response.withHeaders(RawHttpHeaders.CONTENT_LENGTH_ZERO, true);
+            }
+            return options.onResponse(request, response);
+        }
+
+        void stop() {
+            try {
+                serverChannel.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                for (EventLoop eventLoop : eventLoops) {
+                    eventLoop.stop();
+                }
+                executorService.shutdown();
+                boolean ok = false;
+                try {
+                    ok = executorService.awaitTermination(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (!ok) {
+                    executorService.shutdownNow();
+                }
+            }
+        }
+
+        private static void closeBodyOf(RawHttpResponse<?> response) {
+            if (response != null) {
+                response.getBody().ifPresent(b -> {
+                    try {
+                        b.close();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                });
+            }
+        }
+
+        /**
+         * An event-loop watching a set of connections.
+         * <p>
+         * Selection keys must only be modified from the event-loop Thread, other Threads must submit tasks via
+         * {@link EventLoop#execute(Runnable)} to do that.
+         */
+        private final class EventLoop implements Runnable {
+
+            private final Selector selector;
+            private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+            private volatile boolean running = true;
+
+            EventLoop(Selector selector) {
+                this.selector = selector;
+            }
+
+            void execute(Runnable task) {
+                tasks.add(task);
+                selector.wakeup();
+            }
+
+            void stop() {
+                running = false;
+                selector.wakeup();
+            }
+
+            void register(SocketChannel channel) {
+                try {
+                    channel.configureBlocking(false);
+                    Connection connection = new Connection(channel, this);
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    try {
+                        channel.close();
+                    } catch (IOException e2) {
+                        // nothing else to do
+                    }
+                }
+            }
+
+            @Override
+            public void run() {
+                long lastTimeoutCheck = System.currentTimeMillis();
+                try {
+                    while (running) {
+                        selector.select(1_000L);
+                        Runnable task;
+                        while ((task = tasks.poll()) != null) {
+                            task.run();
+                        }
+                        Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                        while (selectedKeys.hasNext()) {
+                            SelectionKey key = selectedKeys.next();
+                            selectedKeys.remove();
+                            if (!key.isValid()) {
+                                continue;
+                            }
+                            if (key.isAcceptable()) {
+                                accept(this);
+                            } else {
+                                onReady((Connection) key.attachment());
+                            }
+                        }
+                        long now = System.currentTimeMillis();
+                        if (now - lastTimeoutCheck >= 1_000L) {
+                            lastTimeoutCheck = now;
+                            closeTimedOutConnections(now);
+                        }
+                    }
+                } catch (IOException | ClosedSelectorException e) {
+                    if (running) {
+                        e.printStackTrace();
+                    }
+                } finally {
+                    closeAll();
+                }
+            }
+
+            private void onReady(Connection connection) {
+                if (connection.processing) {
+                    // a worker is waiting for the channel to become readable or writable
+                    connection.key.interestOps(0);
+                    connection.ready.release();
+                    return;
+                }
+                try {
+                    if (!connection.readRequestHead()) {
+                        connection.close();
+                        return;
+                    }
+                } catch (IOException e) {
+                    connection.close();
+                    return;
+                }
+                if (connection.hasRequestHead()) {
+                    connection.key.interestOps(0);
+                    connection.processing = true;
+                    try {
+                        executorService.submit(() -> handle(connection));
+                    } catch (RejectedExecutionException e) {
+                        connection.close();
+                    }
+                }
+            }
+
+            private void closeTimedOutConnections(long now) {
+                for (SelectionKey key : selector.keys()) {
+                    Object attachment = key.attachment();
+                    if (attachment instanceof Connection) {
+                        Connection connection = (Connection) attachment;
+                        if (!connection.processing) {
+                            long timeout = connection.isEmpty() ? idleTimeout : readTimeout;
+                            if (now - connection.lastActivity > timeout) {
+                                connection.close();
+                            }
+                        }
+                    }
+                }
+            }
+
+            private void closeAll() {
+                try {
+                    for (SelectionKey key : selector.keys()) {
+                        Object attachment = key.attachment();
+                        if (attachment instanceof Connection) {
+                            ((Connection) attachment).close();
+                        }
+                    }
+                } catch (ClosedSelectorException e) {
+                    // nothing to close
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+
+        /**
+         * A client connection.
+         * <p>
+         * While {@link Connection#processing} is false, the connection is owned by its event-loop, which reads bytes
+         * into the connection's buffer until a full request head is available. After that, it's owned by a worker
+         * Thread until the response is sent.
+         */
+        private final class Connection {
+
+            private final SocketChannel channel;
+            private final EventLoop eventLoop;
+            private final InetAddress remoteAddress;
+            private final Semaphore ready = new Semaphore(0);
+            private final ConnectionInputStream inputStream = new ConnectionInputStream();
+            private final ConnectionOutputStream outputStream = new ConnectionOutputStream();
+
+            private SelectionKey key;
+            private volatile boolean processing;
+            private volatile long lastActivity = System.currentTimeMillis();
+
+            Connection(SocketChannel channel, EventLoop eventLoop) throws IOException {
+                this.channel = channel;
+                this.eventLoop = eventLoop;
+                this.remoteAddress = ((InetSocketAddress) channel.getRemoteAddress()).getAddress();
+            }
+
+            boolean isEmpty() {
+                return inputStream.isEmpty();
+            }
+
+            /**
+             * Read available bytes from the channel without blocking.
+             *
+             * @return false if the connection must be closed, true otherwise
+             * @throws IOException if an error occurs reading from the channel
+             */
+            boolean readRequestHead() throws IOException {
+                return inputStream.readRequestHead();
+            }
+
+            /**
+             * Check whether the buffered bytes contain a full request head, i.e. the request-line and the headers
+             * followed by an empty line.
+             *
+             * @return true if a full request head is available
+             */
+            boolean hasRequestHead() {
+                return inputStream.hasRequestHead();
+            }
+
+            /**
+             * Check whether the bytes buffered after the request that has just been handled contain a full
+             * request head.
+             * Must only be called by the worker Thread that owns this connection.
+             *
+             * @return true if a full request head is available
+             */
+            boolean hasNextRequestHead() {
+                inputStream.resetScan();
+                return inputStream.hasRequestHead();
+            }
+
+            /**
+             * Wait until the channel is ready for the given operation.
+             * Must only be called by the worker Thread that owns this connection.
+             */
+            void awaitReady(int operation) throws IOException {
+                ready.drainPermits();
+                eventLoop.execute(() -> {
+                    if (key.isValid()) {
+                        key.interestOps(operation);
+                    }
+                });
+                boolean isReady;
+                try {
+                    isReady = ready.tryAcquire(readTimeout, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for client");
+                }
+                if (!isReady) {
+                    throw new SocketTimeoutException();
+                }
+                if (!channel.isOpen()) {
+                    throw new IOException("Connection closed");
+                }
+            }
+
+            /**
+             * Give this connection back to the event-loop so it can wait for the next request.
+             */
+            void waitForNextRequest() {
+                inputStream.resetScan();
+                lastActivity = System.currentTimeMillis();
+                processing = false;
+                eventLoop.execute(() -> {
+                    if (key.isValid()) {
+                        key.interestOps(SelectionKey.OP_READ);
+                    }
+                });
+            }
+
+            /**
+             * Hand over this connection to the router as a blocking {@link java.net.Socket}.
+             */
+            void tunnel(RawHttpRequest request) throws IOException {
+                CompletableFuture<Void> deregistered = new CompletableFuture<>();
+                eventLoop.execute(() -> {
+                    try {
+                        key.cancel();
+                        eventLoop.selector.selectNow();
+                        channel.configureBlocking(true);
+                        deregistered.complete(null);
+                    } catch (IOException e) {
+                        deregistered.completeExceptionally(e);
+                    }
+                });
+                try {
+                    deregistered.get(readTimeout, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while preparing tunnel");
+                } catch (ExecutionException | java.util.concurrent.TimeoutException e) {
+                    close();
+                    throw new IOException("Unable to prepare tunnel", e);
+                }
+                // the client may have sent bytes for the tunnel which were buffered with the request
+                router.tunnel(request, TunnelSocket.of(channel.socket(), inputStream.takeBuffered()));
+            }
+
+            void close() {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // not a problem
+                }
+                // wake up any worker waiting on this connection
+                ready.release();
+            }
+
+            /**
+             * The buffered bytes of this connection.
+             * <p>
+             * The event-loop reads into the buffer directly until a full request head is available, then the
+             * worker Thread reads from it via the {@link BufferedHttpInputStream} methods, which lets the HTTP parser
+             * scan the buffer without copying it.
+             */
+            private final class ConnectionInputStream extends BufferedHttpInputStream {
+
+                // index from which to continue looking for the end of a request head
+                private int scanFrom;
+
+                ConnectionInputStream() {
+                    super(new byte[4096]);
+                }
+
+                @Override
+                protected int readFromSource(byte[] bytes, int offset, int length) throws IOException {
+                    while (true) {
+                        int count = channel.read(ByteBuffer.wrap(bytes, offset, length));
+                        if (count != 0) {
+                            return count;
+                        }
+                        awaitReady(SelectionKey.OP_READ);
+                    }
+                }
+
+                boolean isEmpty() {
+                    return position == limit;
+                }
+
+                boolean readRequestHead() throws IOException {
+                    if (limit == buffer.length) {
+                        if (position > 0) {
+                            compact();
+                        } else if (buffer.length < maxRequestHeadSize) {
+                            byte[] newBuffer = new byte[Math.min(maxRequestHeadSize, buffer.length * 2)];
+                            System.arraycopy(buffer, 0, newBuffer, 0, limit);
+                            buffer = newBuffer;
+                        } else {
+                            return false; // request head is too big
+                        }
+                    }
+                    int count = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+                    if (count < 0) {
+                        return false;
+                    }
+                    limit += count;
+                    lastActivity = System.currentTimeMillis();
+                    return true;
+                }
+
+                boolean hasRequestHead() {
+                    for (int i = Math.max(position, scanFrom); i < limit; i++) {
+                        if (buffer[i] == '\n') {
+                            int j = i - 1;
+                            if (j >= position && buffer[j] == '\r') {
+                                j--;
+                            }
+                            if (j >= position && buffer[j] == '\n') {
+                                return true;
+                            }
+                        }
+                    }
+                    scanFrom = limit;
+                    return false;
+                }
+
+                /**
+                 * Forget about previous scans, as the bytes before the current position have been consumed.
+                 */
+                void resetScan() {
+                    if (isEmpty()) {
+                        position = limit = 0;
+                    }
+                    scanFrom = position;
+                }
+
+                private void compact() {
+                    System.arraycopy(buffer, position, buffer, 0, limit - position);
+                    limit -= position;
+                    scanFrom = Math.max(0, scanFrom - position);
+                    position = 0;
+                }
+
+                @Override
+                public int available() {
+                    return limit - position;
+                }
+
+                @Override
+                public void close() {
+                    Connection.this.close();
+                }
+            }
+
+            private final class ConnectionOutputStream extends OutputStream
+                    implements FileTransferTarget, GatheringWriteTarget {
+
+                private final ByteBuffer writeBuffer = ByteBuffer.allocate(8192);
+
+                @Override
+                public void write(int b) throws IOException {
+                    if (!writeBuffer.hasRemaining()) {
+                        flush();
+                    }
+                    writeBuffer.put((byte) b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    if (len > writeBuffer.remaining()) {
+                        flush();
+                        if (len > writeBuffer.capacity()) {
+                            writeFully(ByteBuffer.wrap(b, off, len));
+                            return;
+                        }
+                    }
+                    writeBuffer.put(b, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    writeBuffer.flip();
+                    try {
+                        writeFully(writeBuffer);
+                    } finally {
+                        writeBuffer.clear();
+                    }
+                }
+
+                @Override
+                public void close() {
+                    Connection.this.close();
+                }
+
+                @Override
+                public void write(ByteBuffer[] buffers) throws IOException {
+                    // send any buffered bytes in the same gathering write as the given buffers
+                    writeBuffer.flip();
+                    ByteBuffer[] allBuffers = new ByteBuffer[buffers.length + 1];
+                    allBuffers[0] = writeBuffer;
+                    System.arraycopy(buffers, 0, allBuffers, 1, buffers.length);
+                    try {
+                        long remaining = SocketChannelOutputStream.remaining(allBuffers);
+                        while (remaining > 0L) {
+                            long written = channel.write(allBuffers);
+                            if (written == 0L) {
+                                awaitReady(SelectionKey.OP_WRITE);
+                            }
+                            remaining -= written;
+                        }
+                    } finally {
+                        writeBuffer.clear();
+                    }
+                }
+
+                @Override
+                public void transferFrom(FileChannel file, long position, long count) throws IOException {
+                    flush();
+                    long end = position + count;
+                    while (position < end) {
+                        long transferred = file.transferTo(position, end - position, channel);
+                        if (transferred == 0L) {
+                            if (position >= file.size()) {
+                                throw new EOFException("File ended before all bytes could be transferred");
+                            }
+                            awaitReady(SelectionKey.OP_WRITE);
+                        }
+                        position += transferred;
+                    }
+                }
+
+                private void writeFully(ByteBuffer bytes) throws IOException {
+                    while (bytes.hasRemaining()) {
+                        if (channel.write(bytes) == 0) {
+                            awaitReady(SelectionKey.OP_WRITE);
+                        }
+                    }
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,379 @@
+package rawhttp.core.server;
+
+import rawhttp.core.HttpVersion;
+import rawhttp.core.RawHttpHeaders;
+import rawhttp.core.RawHttpOptions;
+import rawhttp.core.RawHttpRequest;
+import rawhttp.core.RawHttpResponse;
+import rawhttp.core.body.BodyReader;
+import rawhttp.core.body.ChunkedBody;
+import rawhttp.core.body.encoding.HttpBodyEncodingRegistry;
+import rawhttp.core.body.encoding.HttpMessageEncoder;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Predicate;
+
+/**
+ * Compresses HTTP responses with the best encoding accepted by the client.
+ * <p>
+ * It is meant to be used in a server's {@code onResponse} callback, for example:
+ * <pre>{@code
+ * ResponseCompressor compressor = ResponseCompressor.createDefault();
+ * TcpRawHttpServer server = new TcpRawHttpServer(new TcpRawHttpServer.TcpRawHttpServerOptions() {
+ *     public ServerSocket getServerSocket() throws IOException {
+ *         return new ServerSocket(8080);
+ *     }
+ *
+ *     public RawHttpResponse<Void> onResponse(RawHttpRequest request, RawHttpResponse<Void> response)
+ *             throws IOException {
+ *         return compressor.compress(request,
+ *                 TcpRawHttpServer.TcpRawHttpServerOptions.super.onResponse(request, response));
+ *     }
+ * });
+ * }</pre>
+ * <p>
+ * The encoding is chosen by the q-values of the request's Accept-Encoding header, with ties being broken by the
+ * order in which the encodings were configured. The encoders are obtained from a {@link HttpBodyEncodingRegistry}.
+ * <p>
+ * A response is only compressed if it has a body with a known length of at least the configured minimum size,
+ * a compressible Content-Type, no Content-Encoding, and a 200 (OK) or similar status code. The compressed body is
+ * streamed with the "chunked" Transfer-Encoding as it is produced, so responses are never buffered whole.
+ * As HTTP/1.0 does not support chunked bodies, responses to HTTP/1.0 requests are not compressed.
+ * <p>
+ * Responses which could be compressed receive a "Vary: Accept-Encoding" header, and their strong ETag, if any, is
+ * made weak, as the compressed representation is not byte-for-byte identical to the original one.
+ */
+public final class ResponseCompressor {
+
+    public static final long DEFAULT_MIN_SIZE = 1024L;
+    public static final int DEFAULT_CHUNK_LENGTH = 8192;
+    public static final List<String> DEFAULT_ENCODINGS = Collections.unmodifiableList(
+            Arrays.asList("gzip", "deflate"));
+
+    /**
+     * Accepts textual media types, JSON, XML and JavaScript.
+     */
+    public static final Predicate<String> DEFAULT_COMPRESSIBLE_CONTENT_TYPES = contentType -> {
+        String mediaType = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        return mediaType.startsWith("text/") ||
+                mediaType.endsWith("+json") || mediaType.endsWith("+xml") ||
+                mediaType.equals("application/json") ||
+                mediaType.equals("application/xml") ||
+                mediaType.equals("application/javascript") ||
+                mediaType.equals("image/svg+xml");
+    };
+
+    private final List<HttpMessageEncoder> encoders;
+    private final long minSize;
+    private final int chunkLength;
+    private final Predicate<String> compressibleContentTypes;
+
+    private ResponseCompressor(List<HttpMessageEncoder> encoders,
+                               long minSize,
+                               int chunkLength,
+                               Predicate<String> compressibleContentTypes) {
+        this.encoders = encoders;
+        this.minSize = minSize;
+        this.chunkLength = chunkLength;
+        this.compressibleContentTypes = compressibleContentTypes;
+    }
+
+    /**
+     * Create a compressor with the default settings.
+     *
+     * @return a new compressor
+     */
+    public static ResponseCompressor createDefault() {
+        return newBuilder().build();
+    }
+
+    /**
+     * @return a builder of {@link ResponseCompressor}.
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Compress the given response if the request accepts a supported encoding and the response is compressible.
+     *
+     * @param request  the request being answered
+     * @param response the response to the request
+     * @return the compressed response, or the given response if it should not be compressed
+     */
+    public RawHttpResponse<Void> compress(RawHttpRequest request, RawHttpResponse<Void> response) {
+        if (!isCompressible(request, response)) {
+            return response;
+        }
+        RawHttpHeaders.Builder headers = RawHttpHeaders.newBuilderSkippingValidation(response.getHeaders());
+        addVary(headers, response.getHeaders());
+
+        Optional<HttpMessageEncoder> encoder = selectEncoder(request.getHeaders().get("Accept-Encoding"));
+        if (!encoder.isPresent()) {
+            return response.withHeaders(headers.build(), false);
+        }
+
+        response.getHeaders().getFirst("ETag").ifPresent(etag -> {
+            if (!etag.startsWith("W/")) {
+                headers.overwrite("ETag", "W/" + etag);
+            }
+        });
+        headers.overwrite("Content-Encoding", encoder.get().encodingName());
+
+        BodyReader bodyReader = response.getBody().orElseThrow(IllegalStateException::new);
+        long length = bodyReader.getLengthIfKnown().orElseThrow(IllegalStateException::new);
+        InputStream encoded;
+        try {
+            encoded = encoder.get().encode(new LimitedInputStream(bodyReader.asRawStream(), length));
+        } catch (IOException e) {
+            // the response can still be sent uncompressed
+            return response;
+        }
+
+        return response.withHeaders(headers.build(), false)
+                .withBody(new ChunkedBody(encoded, null, chunkLength));
+    }
+
+    private boolean isCompressible(RawHttpRequest request, RawHttpResponse<Void> response) {
+        if (request.getStartLine().getHttpVersion().isOlderThan(HttpVersion.HTTP_1_1)) {
+            return false;
+        }
+        int statusCode = response.getStatusCode();
+        if (statusCode < 200 || statusCode == 204 || statusCode == 206 || statusCode == 304) {
+            return false;
+        }
+        RawHttpHeaders headers = response.getHeaders();
+        if (headers.contains("Content-Encoding") || headers.contains("Transfer-Encoding")) {
+            return false;
+        }
+        Optional<String> contentType = headers.getFirst("Content-Type");
+        if (!contentType.isPresent() || !compressibleContentTypes.test(contentType.get())) {
+            return false;
+        }
+        OptionalLong length = response.getBody()
+                .map(BodyReader::getLengthIfKnown)
+                .orElse(OptionalLong.empty());
+        return length.isPresent() && length.getAsLong() >= minSize;
+    }
+
+    private static void addVary(RawHttpHeaders.Builder builder, RawHttpHeaders headers) {
+        List<String> vary = headers.get("Vary");
+        for (String value : vary) {
+            for (String item : value.split(",")) {
+                String name = item.trim();
+                if (name.equals("*") || name.equalsIgnoreCase("Accept-Encoding")) {
+                    return;
+                }
+            }
+        }
+        if (vary.isEmpty()) {
+            builder.with("Vary", "Accept-Encoding");
+        } else {
+            builder.overwrite("Vary", String.join(", ", vary) + ", Accept-Encoding");
+        }
+    }
+
+    /**
+     * Select the encoder to use given the values of the Accept-Encoding header of a request.
+     *
+     * @param acceptEncoding values of the Accept-Encoding header
+     * @return the encoder with the highest q-value among the available ones, or empty if the client does not
+     * accept any of them
+     */
+    public Optional<HttpMessageEncoder> selectEncoder(List<String> acceptEncoding) {
+        Map<String, Float> qualityByEncoding = parseAcceptEncoding(acceptEncoding);
+        HttpMessageEncoder best = null;
+        float bestQuality = 0.0f;
+        for (HttpMessageEncoder encoder : encoders) {
+            float quality = qualityOf(qualityByEncoding, encoder.encodingName());
+            if (quality > bestQuality) {
+                best = encoder;
+                bestQuality = quality;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * Parse the values of the Accept-Encoding header of a request.
+     *
+     * @param acceptEncoding values of the Accept-Encoding header
+     * @return the quality (q-value) of each content-coding, including "*" if present, by lower-case name
+     */
+    public static Map<String, Float> parseAcceptEncoding(List<String> acceptEncoding) {
+        Map<String, Float> result = new HashMap<>();
+        for (String value : acceptEncoding) {
+            for (String item : value.split(",")) {
+                String[] itemPlusParams = item.split(";");
+                String coding = itemPlusParams[0].trim().toLowerCase(Locale.ROOT);
+                if (coding.isEmpty()) continue;
+                float quality = 1.0f;
+                for (int i = 1; i < itemPlusParams.length; i++) {
+                    String[] param = itemPlusParams[i].split("=", 2);
+                    if (param.length == 2 && param[0].trim().equalsIgnoreCase("q")) {
+                        try {
+                            quality = Float.parseFloat(param[1].trim());
+                        } catch (NumberFormatException e) {
+                            quality = 0.0f;
+                        }
+                        break;
+                    }
+                }
+                result.put(coding, quality);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param qualityByCoding the result of {@link #parseAcceptEncoding(List)}
+     * @param coding          content-coding
+     * @return the quality of the content-coding, which is 0 if it is not acceptable
+     */
+    public static float qualityOf(Map<String, Float> qualityByCoding, String coding) {
+        Float quality = qualityByCoding.get(coding.toLowerCase(Locale.ROOT));
+        if (quality == null) {
+            quality = qualityByCoding.get("*");
+        }
+        return quality == null ? 0.0f : quality;
+    }
+
+    /**
+     * Stream which provides only the given number of bytes from another stream.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0L) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0L) {
+                return -1;
+            }
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+    }
+
+    /**
+     * Builder of {@link ResponseCompressor}.
+     */
+    public static final class Builder {
+        private HttpBodyEncodingRegistry encodingRegistry;
+        private List<String> encodings = DEFAULT_ENCODINGS;
+        private long minSize = DEFAULT_MIN_SIZE;
+        private int chunkLength = DEFAULT_CHUNK_LENGTH;
+        private Predicate<String> compressibleContentTypes = DEFAULT_COMPRESSIBLE_CONTENT_TYPES;
+
+        private Builder() {
+        }
+
+        /**
+         * @param encodingRegistry registry to obtain encoders from (default: the registry of
+         *                         {@link RawHttpOptions#defaultInstance()})
+         * @return this builder
+         */
+        public Builder withEncodingRegistry(HttpBodyEncodingRegistry encodingRegistry) {
+            this.encodingRegistry = encodingRegistry;
+            return this;
+        }
+
+        /**
+         * @param encodings the encodings to use, in order of preference (default: gzip, deflate)
+         * @return this builder
+         */
+        public Builder withEncodings(String... encodings) {
+            this.encodings = Arrays.asList(encodings);
+            return this;
+        }
+
+        /**
+         * @param minSize minimum length of a response body for it to be compressed (default: 1024)
+         * @return this builder
+         */
+        public Builder withMinSize(long minSize) {
+            if (minSize < 0L) {
+                throw new IllegalArgumentException("minSize must not be negative");
+            }
+            this.minSize = minSize;
+            return this;
+        }
+
+        /**
+         * @param chunkLength maximum length of the chunks the compressed body is sent in (default: 8192)
+         * @return this builder
+         */
+        public Builder withChunkLength(int chunkLength) {
+            if (chunkLength < 1) {
+                throw new IllegalArgumentException("chunkLength must be positive");
+            }
+            this.chunkLength = chunkLength;
+            return this;
+        }
+
+        /**
+         * @param compressibleContentTypes predicate accepting the Content-Type of responses which should be
+         *                                 compressed (default: {@link #DEFAULT_COMPRESSIBLE_CONTENT_TYPES})
+         * @return this builder
+         */
+        public Builder withCompressibleContentTypes(Predicate<String> compressibleContentTypes) {
+            this.compressibleContentTypes = compressibleContentTypes;
+            return this;
+        }
+
+        /**
+         * @return a new {@link ResponseCompressor}
+         * @throws IllegalArgumentException if no encoder is available for any of the configured encodings
+         */
+        public ResponseCompressor build() {
+            HttpBodyEncodingRegistry registry = encodingRegistry == null
+                    ? RawHttpOptions.defaultInstance().getEncodingRegistry()
+                    : encodingRegistry;
+            List<HttpMessageEncoder> encoders = new ArrayList<>(encodings.size());
+            for (String encoding : encodings) {
+                registry.getEncoder(encoding).ifPresent(encoders::add);
+            }
+            if (encoders.isEmpty() && !encodings.isEmpty()) {
+                throw new IllegalArgumentException("No encoder available for any of the encodings: " + encodings);
+            }
+            return new ResponseCompressor(Collections.unmodifiableList(encoders), minSize, chunkLength,
+                    compressibleContentTypes);
+        }
+    }
+
+}
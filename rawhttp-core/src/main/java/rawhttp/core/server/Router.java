@@ -59,6 +59,10 @@ public interface Router {
      * This method is called from a request Thread, so it's advisable that implementations that
      * support tunneling fork the handling to a different Thread immediately.
      * <p>
+     * The client may send bytes for the tunnel right after the CONNECT request, in which case the server may have
+     * already read them. They are then the first bytes provided by the input stream of the given socket, so the
+     * client's bytes should be read from that stream rather than from the socket's channel.
+     * <p>
      * See <a href="https://www.rfc-editor.org/rfc/rfc9110#CONNECT">RFC-9110 Section 9.3.6</a>.
      *
      * @param request the CONNECT request
@@ -0,0 +1,146 @@
+package rawhttp.core.server;
+
+import rawhttp.core.body.BodyConsumer;
+import rawhttp.core.body.FileTransferTarget;
+import rawhttp.core.body.GatheringWriteTarget;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Unbuffered {@link OutputStream} writing directly to a blocking {@link SocketChannel}.
+ * <p>
+ * As it implements {@link FileTransferTarget}, file bodies written to this stream are sent to the client with
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}, and as it implements
+ * {@link GatheringWriteTarget}, a message head and in-memory body are sent with a single gathering write.
+ * <p>
+ * The channel may be switched to non-blocking mode while this stream is in use (on Java 8, a read with a timeout
+ * from the socket's own input stream does so until the read returns). A write that makes no progress in that case
+ * falls back to the socket's own output stream, which waits for the channel to be in blocking mode again,
+ * rather than spinning on the channel.
+ */
+final class SocketChannelOutputStream extends OutputStream implements FileTransferTarget, GatheringWriteTarget {
+
+    private final Socket socket;
+    private final SocketChannel channel;
+
+    private SocketChannelOutputStream(Socket socket, SocketChannel channel) {
+        this.socket = socket;
+        this.channel = channel;
+    }
+
+    /**
+     * Get an {@link OutputStream} to write to the given socket.
+     * <p>
+     * If the socket is backed by a blocking {@link SocketChannel}, the returned stream allows file bodies to be
+     * transferred without copying. Otherwise (e.g. for TLS sockets), the socket's own stream is returned.
+     *
+     * @param socket the socket to write to
+     * @return a stream writing to the socket
+     * @throws IOException if the socket's stream cannot be obtained
+     */
+    static OutputStream of(Socket socket) throws IOException {
+        SocketChannel channel = socket.getChannel();
+        if (channel != null && channel.isBlocking()) {
+            return new SocketChannelOutputStream(socket, channel);
+        }
+        return socket.getOutputStream();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        while (buffer.hasRemaining()) {
+            if (channel.write(buffer) == 0 && !channel.isBlocking()) {
+                socket.getOutputStream().write(b, buffer.position(), buffer.remaining());
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void write(ByteBuffer[] buffers) throws IOException {
+        long remaining = remaining(buffers);
+        while (remaining > 0L) {
+            long written = channel.write(buffers);
+            if (written == 0L && !channel.isBlocking()) {
+                writeToSocketStream(buffers);
+                return;
+            }
+            remaining -= written;
+        }
+    }
+
+    private void writeToSocketStream(ByteBuffer[] buffers) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        for (ByteBuffer buffer : buffers) {
+            if (buffer.hasArray()) {
+                out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                buffer.position(buffer.limit());
+            } else {
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                out.write(bytes);
+            }
+        }
+    }
+
+    static long remaining(ByteBuffer[] buffers) {
+        long remaining = 0L;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        return remaining;
+    }
+
+    @Override
+    public void transferFrom(FileChannel file, long position, long count) throws IOException {
+        long end = position + count;
+        while (position < end) {
+            long transferred = file.transferTo(position, end - position, channel);
+            if (transferred == 0L) {
+                if (position >= file.size()) {
+                    throw new EOFException("File ended before all bytes could be transferred");
+                }
+                if (!channel.isBlocking()) {
+                    copyToSocketStream(file, position, end);
+                    return;
+                }
+            }
+            position += transferred;
+        }
+    }
+
+    private void copyToSocketStream(FileChannel file, long position, long end) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(end - position, BodyConsumer.DEFAULT_BUFFER_SIZE));
+        while (position < end) {
+            buffer.clear();
+            if (buffer.remaining() > end - position) {
+                buffer.limit((int) (end - position));
+            }
+            int bytesRead = file.read(buffer, position);
+            if (bytesRead < 0) {
+                throw new EOFException("File ended before all bytes could be transferred");
+            }
+            out.write(buffer.array(), 0, bytesRead);
+            position += bytesRead;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
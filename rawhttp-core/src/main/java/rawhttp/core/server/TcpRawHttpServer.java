@@ -1,27 +1,47 @@
 package rawhttp.core.server;
 
+import rawhttp.core.BufferedHttpInputStream;
+import rawhttp.core.EagerHttpRequest;
 import rawhttp.core.EagerHttpResponse;
+import rawhttp.core.HttpMessage;
 import rawhttp.core.HttpVersion;
 import rawhttp.core.RawHttp;
 import rawhttp.core.RawHttpHeaders;
 import rawhttp.core.RawHttpOptions;
 import rawhttp.core.RawHttpRequest;
 import rawhttp.core.RawHttpResponse;
+import rawhttp.core.body.BodyBufferBudget;
+import rawhttp.core.body.BodyReader;
+import rawhttp.core.body.LazyBodyReader;
+import rawhttp.core.errors.BodyTooLargeException;
+import rawhttp.core.errors.BufferBudgetExhaustedException;
 import rawhttp.core.errors.InvalidHttpRequest;
+import rawhttp.core.internal.VirtualThreads;
 
+import javax.annotation.Nullable;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedChannelException;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static rawhttp.core.RawHttp.responseHasBody;
 
@@ -101,6 +121,11 @@ public class TcpRawHttpServer implements RawHttpServer {
 
         /**
          * Create a server socket for the server to use.
+         * <p>
+         * If the server socket is obtained from a {@link java.nio.channels.ServerSocketChannel}, e.g.
+         * {@code ServerSocketChannel.open().bind(new InetSocketAddress(port)).socket()}, the accepted client
+         * sockets are backed by a channel, which allows the server to send {@link rawhttp.core.body.FileBody}
+         * responses without copying the file contents through user-space buffers.
          *
          * @return a server socket
          * @throws IOException if an error occurs when binding the socket
@@ -128,11 +153,29 @@ public class TcpRawHttpServer implements RawHttpServer {
             return STRICT_HTTP;
         }
 
+        /**
+         * Whether to serve each client on its own virtual Thread.
+         * <p>
+         * Virtual Threads are only available on Java 21+. On older Java versions, this option has no effect.
+         * <p>
+         * This option is only used by the default implementation of {@link #createExecutorService()}.
+         *
+         * @return true to use virtual Threads if available, false otherwise (the default).
+         */
+        default boolean useVirtualThreads() {
+            return false;
+        }
+
         /**
          * @return executor service to use to run client-serving {@link Runnable}s. Each {@link Runnable} runs until
          * the connection with the client is closed or lost.
+         * By default, a fixed pool of 25 Threads is used, unless {@link #useVirtualThreads()} returns true
+         * and virtual Threads are supported, in which case a new virtual Thread is used for each client.
          */
         default ExecutorService createExecutorService() {
+            if (useVirtualThreads() && VirtualThreads.isSupported()) {
+                return VirtualThreads.newVirtualThreadPerTaskExecutor("tcp-rawhttp-server-client-");
+            }
             final AtomicInteger threadCount = new AtomicInteger(1);
             return Executors.newFixedThreadPool(25, runnable -> {
                 Thread t = new Thread(runnable);
@@ -142,6 +185,71 @@ public class TcpRawHttpServer implements RawHttpServer {
             });
         }
 
+        /**
+         * The maximum number of pipelined requests from the same connection which may be in flight at the same time.
+         * <p>
+         * If this is greater than 1, requests using safe methods (see {@link RawHttpRequest#usesSafeMethod()})
+         * that a client sends without waiting for the previous responses are read ahead (including their bodies)
+         * and routed concurrently by the executor returned by {@link #createPipelinedRequestsExecutorService()}.
+         * Responses are still sent in the order the requests were received, so a response that is ready
+         * waits in a per-connection buffer until all previous responses have been sent.
+         * When the maximum is reached, no further requests are read from the connection until the oldest request
+         * in flight is answered.
+         * <p>
+         * Requests using other methods, or which expect 100-continue, or after which the connection will be closed,
+         * are only handled after all previous requests have been answered, as usual.
+         *
+         * @return the maximum number of pipelined requests in flight per connection.
+         * By default, 1, which means that requests are read and routed one at a time.
+         */
+        default int getMaxPipelinedRequestsInFlight() {
+            return 1;
+        }
+
+        /**
+         * Create the executor service used to route pipelined requests concurrently.
+         * <p>
+         * This method is only called if {@link #getMaxPipelinedRequestsInFlight()} is greater than 1.
+         * A separate executor is used because the Threads of the executor returned by {@link #createExecutorService()}
+         * are busy reading requests from their clients.
+         *
+         * @return executor service to use to route pipelined requests. By default, a cached pool of Threads is used,
+         * unless {@link #useVirtualThreads()} returns true and virtual Threads are supported, in which case a new
+         * virtual Thread is used for each request.
+         */
+        default ExecutorService createPipelinedRequestsExecutorService() {
+            if (useVirtualThreads() && VirtualThreads.isSupported()) {
+                return VirtualThreads.newVirtualThreadPerTaskExecutor("tcp-rawhttp-server-pipeline-");
+            }
+            final AtomicInteger threadCount = new AtomicInteger(1);
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread t = new Thread(runnable);
+                t.setDaemon(true);
+                t.setName("tcp-rawhttp-server-pipeline-" + threadCount.incrementAndGet());
+                return t;
+            });
+        }
+
+        /**
+         * Get the budget of request body bytes which may be buffered in memory at the same time by all
+         * connections to the server.
+         * <p>
+         * This method is called only once, when the server starts, so the same budget is shared by all connections.
+         * Bytes are reserved from the budget when a request body is read eagerly (e.g. when pipelined requests are
+         * read, or when the {@link Router} calls {@link RawHttpRequest#eagerly()}), and released once the response
+         * to the request has been sent.
+         * <p>
+         * When the budget is exhausted, the Thread reading a request body stops reading from its connection until
+         * other requests release enough bytes. If that does not happen within the maximum wait time of the budget,
+         * the server responds with 503 (Service Unavailable) and closes the connection.
+         *
+         * @return the budget of request body bytes shared by all connections. By default, no budget is used.
+         * @see RawHttpOptions#getMaxBodySize()
+         */
+        default Optional<BodyBufferBudget> getBodyBufferBudget() {
+            return Optional.empty();
+        }
+
         /**
          * @param request received by the server
          * @return the default ServerError (500) response to send out when an Exception occurs in the {@link Router}.
@@ -165,6 +273,8 @@ public class TcpRawHttpServer implements RawHttpServer {
          * The actual response the client will see is the one returned by this method.
          * <p>
          * By default, this method adds "Date" and "Server" headers (the latter with the value of "RawHTTP").
+         * <p>
+         * Responses can be compressed here with a {@link ResponseCompressor}.
          *
          * @param request  received by the server
          * @param response the server routed to. Normally, this callback should return this response with possibly
@@ -184,8 +294,13 @@ public class TcpRawHttpServer implements RawHttpServer {
         private final Router router;
         private final ServerSocket socket;
         private final ExecutorService executorService;
+        @Nullable
+        private final ExecutorService pipelineExecutorService;
+        private final int maxRequestsInFlight;
         private final RawHttp http;
         private final TcpRawHttpServerOptions options;
+        @Nullable
+        private final BodyBufferBudget bodyBufferBudget;
 
         RouterAndSocket(Router router,
                         TcpRawHttpServerOptions options) throws IOException {
@@ -193,7 +308,12 @@ public class TcpRawHttpServer implements RawHttpServer {
             this.socket = options.getServerSocket();
             this.http = options.getRawHttp();
             this.executorService = options.createExecutorService();
+            this.maxRequestsInFlight = options.getMaxPipelinedRequestsInFlight();
+            this.pipelineExecutorService = maxRequestsInFlight > 1
+                    ? options.createPipelinedRequestsExecutorService()
+                    : null;
             this.options = options;
+            this.bodyBufferBudget = options.getBodyBufferBudget().orElse(null);
 
             start();
         }
@@ -207,7 +327,7 @@ public class TcpRawHttpServer implements RawHttpServer {
                         Socket client = socket.accept();
                         executorService.submit(() -> handle(client, socket));
                         failedAccepts = 0;
-                    } catch (SocketException e) {
+                    } catch (SocketException | ClosedChannelException e) {
                         break; // server socket was closed or got broken
                     } catch (IOException e) {
                         failedAccepts++;
@@ -223,6 +343,10 @@ public class TcpRawHttpServer implements RawHttpServer {
         private void handle(Socket client, ServerSocket serverSocket) {
             RawHttpRequest request;
             boolean serverWillCloseConnection = false;
+            // the same buffered stream must be used for all requests, as it may read ahead of the current request
+            BufferedHttpInputStream inputStream = null;
+            OutputStream outputStream = null;
+            PipelinedResponses pipeline = null;
             try {
                 client = options.configureClientSocket(client);
             } catch (IOException e) {
@@ -236,13 +360,19 @@ public class TcpRawHttpServer implements RawHttpServer {
             }
 
             while (!serverWillCloseConnection) {
+                // bytes of the request body buffered in memory, released once the response has been sent
+                BodyBufferBudget.Lease lease = null;
                 try {
                     if (serverSocket.isClosed()) {
                         client.close();
                         break;
                     }
+                    if (inputStream == null) {
+                        inputStream = new BufferedHttpInputStream(new ClientInputStream(client));
+                        outputStream = SocketChannelOutputStream.of(client);
+                    }
                     request = http.parseRequest(
-                            client.getInputStream(),
+                            inputStream,
                             ((InetSocketAddress) client.getRemoteSocketAddress()).getAddress());
                     HttpVersion httpVersion = request.getStartLine().getHttpVersion();
                     Optional<String> connectionOption = request.getHeaders().getFirst("Connection");
@@ -254,15 +384,52 @@ public class TcpRawHttpServer implements RawHttpServer {
                             .orElse(false);
 
                     RawHttpResponse<?> response = null;
+
+                    if (declaresBodyLargerThanMaximum(request)) {
+                        // reject the request without reading its body
+                        serverWillCloseConnection = true;
+                        response = options.onResponse(request, HttpResponses.getPayloadTooLargeResponse(httpVersion));
+                    } else if (bodyBufferBudget != null && request.getBody().isPresent()) {
+                        lease = bodyBufferBudget.newLease();
+                        request = withBodyBufferLease(request, lease);
+                    }
+
+                    if (pipelineExecutorService != null) {
+                        if (pipeline == null) {
+                            pipeline = new PipelinedResponses(client, outputStream);
+                        }
+                        if (!serverWillCloseConnection && request.usesSafeMethod() && !request.expectContinue() &&
+                                !httpVersion.isOlderThan(HttpVersion.HTTP_1_1)) {
+                            try {
+                                // read the body so that the next request can be read while this one is routed
+                                pipeline.dispatch(readPipelinedRequest(request, lease), lease);
+                                lease = null; // released once the response is written
+                                continue;
+                            } catch (BodyTooLargeException | BufferBudgetExhaustedException e) {
+                                // the body was not fully read, so the connection cannot be used anymore
+                                serverWillCloseConnection = true;
+                                //noinspection ConstantConditions (always one of the above exceptions)
+                                response = options.onResponse(request, bodyErrorResponse(e, httpVersion));
+                            }
+                        }
+                        // other requests are handled only after all previous requests have been answered
+                        pipeline.awaitAll();
+                        if (pipeline.isBroken()) {
+                            serverWillCloseConnection = true;
+                            continue;
+                        }
+                    }
+
                     boolean expects100 = request.expectContinue();
 
-                    if (expects100 && !request.getStartLine().getHttpVersion().isOlderThan(HttpVersion.HTTP_1_1)) {
+                    if (response == null && expects100 &&
+                            !request.getStartLine().getHttpVersion().isOlderThan(HttpVersion.HTTP_1_1)) {
                         RawHttpResponse<Void> interimResponse = router
                                 .continueResponse(request.getStartLine(), request.getHeaders())
                                 .orElse(HttpResponses.get100ContinueResponse());
                         if (interimResponse.getStatusCode() == 100) {
                             // tell the client that we shall continue
-                            interimResponse.writeTo(client.getOutputStream());
+                            interimResponse.writeTo(outputStream);
                         } else {
                             // if we don't accept the request body, we must close the connection
                             serverWillCloseConnection = true;
@@ -292,13 +459,16 @@ public class TcpRawHttpServer implements RawHttpServer {
                         }
                         serverWillCloseConnection |= RawHttpResponse.shouldCloseConnectionAfter(
                                 request.getStartLine(), response);
-                        response.writeTo(client.getOutputStream());
+                        response.writeTo(outputStream);
                     } finally {
                         closeBodyOf(response);
                     }
                     if (request.getMethod().equalsIgnoreCase("CONNECT") &&
                             response.getStartLine().isSuccess()) {
-                        router.tunnel(request, client);
+                        // the client may have sent bytes for the tunnel which were buffered with the request
+                        router.tunnel(request, TunnelSocket.of(client, inputStream.takeBuffered()));
+                        // the socket now belongs to the tunnel, even if the response had no framing information
+                        serverWillCloseConnection = false;
                         break; // now it's between the client and the router
                     }
                 } catch (SocketTimeoutException e) {
@@ -316,7 +486,14 @@ public class TcpRawHttpServer implements RawHttpServer {
 
                     serverWillCloseConnection = true; // cannot keep listening anymore
                 } finally {
+                    if (lease != null) {
+                        lease.releaseAll();
+                    }
                     if (serverWillCloseConnection) {
+                        if (pipeline != null) {
+                            // let the requests in flight be answered before closing the connection
+                            pipeline.awaitAll();
+                        }
                         try {
                             client.close();
                         } catch (IOException e) {
@@ -335,9 +512,15 @@ public class TcpRawHttpServer implements RawHttpServer {
                         .orElseGet(() -> options.notFoundResponse(request).orElseGet(() ->
                                 HttpResponses.getNotFoundResponse(request.getStartLine().getHttpVersion())));
             } catch (Exception e) {
-                e.printStackTrace();
-                response = options.serverErrorResponse(request).orElseGet(() ->
-                        HttpResponses.getServerErrorResponse(request.getStartLine().getHttpVersion()));
+                RawHttpResponse<Void> bodyErrorResponse = bodyErrorResponse(e,
+                        request.getStartLine().getHttpVersion());
+                if (bodyErrorResponse != null) {
+                    response = bodyErrorResponse;
+                } else {
+                    e.printStackTrace();
+                    response = options.serverErrorResponse(request).orElseGet(() ->
+                            HttpResponses.getServerErrorResponse(request.getStartLine().getHttpVersion()));
+                }
             }
             if (request.getMethod().equals("HEAD") && response.getBody().isPresent()) {
                 response = response.withBody(null, false);
@@ -349,12 +532,73 @@ public class TcpRawHttpServer implements RawHttpServer {
             return options.onResponse(request, response);
         }
 
+        private boolean declaresBodyLargerThanMaximum(RawHttpRequest request) {
+            OptionalLong bodyLength = request.getBody()
+                    .map(BodyReader::getLengthIfKnown)
+                    .orElse(OptionalLong.empty());
+            return bodyLength.isPresent() && bodyLength.getAsLong() > http.getOptions().getMaxBodySize();
+        }
+
+        private RawHttpRequest withBodyBufferLease(RawHttpRequest request, BodyBufferBudget.Lease lease) {
+            //noinspection OptionalGetWithoutIsPresent (only called for requests with a body)
+            BodyReader body = request.getBody().get();
+            return new RawHttpRequest(request.getStartLine(), request.getHeaders(),
+                    new LazyBodyReader(body.getFramedBody(), body.asRawStream(), null,
+                            http.getOptions().getMaxInMemoryBodySize(), lease),
+                    request.getSenderAddress().orElse(null));
+        }
+
+        /**
+         * Read a pipelined request eagerly, so that the next request can be read while it is routed.
+         * <p>
+         * The body is read from a view of the connection's stream which is not closed together with the body, so
+         * that the body can be closed once the response is written, deleting the temporary file it may have been
+         * written to, without closing the connection.
+         */
+        private EagerHttpRequest readPipelinedRequest(RawHttpRequest request,
+                                                      @Nullable BodyBufferBudget.Lease lease) throws IOException {
+            Optional<? extends BodyReader> body = request.getBody();
+            if (!body.isPresent()) {
+                return request.eagerly();
+            }
+            InputStream connectionStream = new FilterInputStream(body.get().asRawStream()) {
+                @Override
+                public void close() {
+                    // the connection is closed by the server
+                }
+            };
+            return new RawHttpRequest(request.getStartLine(), request.getHeaders(),
+                    new LazyBodyReader(body.get().getFramedBody(), connectionStream, null,
+                            http.getOptions().getMaxInMemoryBodySize(), lease),
+                    request.getSenderAddress().orElse(null)).eagerly();
+        }
+
+        /**
+         * @return the response to send when reading a request body failed because the body is too large or the
+         * body buffer budget has been exhausted, or null if the error is due to something else.
+         */
+        @Nullable
+        private static RawHttpResponse<Void> bodyErrorResponse(Throwable error, HttpVersion httpVersion) {
+            for (Throwable e = error; e != null; e = e.getCause()) {
+                if (e instanceof BodyTooLargeException) {
+                    return HttpResponses.getPayloadTooLargeResponse(httpVersion);
+                }
+                if (e instanceof BufferBudgetExhaustedException) {
+                    return HttpResponses.getServiceUnavailableResponse(httpVersion);
+                }
+            }
+            return null;
+        }
+
         void stop() {
             try {
                 socket.close();
             } catch (IOException e) {
                 throw new RuntimeException(e);
             } finally {
+                if (pipelineExecutorService != null) {
+                    pipelineExecutorService.shutdown();
+                }
                 executorService.shutdown();
                 boolean ok = false;
                 try {
@@ -368,9 +612,161 @@ public class TcpRawHttpServer implements RawHttpServer {
             }
         }
 
-        private static void closeBodyOf(RawHttpResponse<?> response) {
-            if (response != null) {
-                response.getBody().ifPresent(b -> {
+        /**
+         * Routes pipelined requests from a single connection concurrently, while sending out their responses
+         * in the same order as the requests were received.
+         * <p>
+         * Requests are dispatched only by the Thread reading from the connection. Responses which are ready before
+         * the responses to previous requests are kept in a reorder buffer. Whichever Thread completes the oldest
+         * request in flight writes out all responses that are ready in order.
+         */
+        private final class PipelinedResponses {
+
+            private final Socket client;
+            private final OutputStream outputStream;
+            private final Semaphore requestsInFlight = new Semaphore(maxRequestsInFlight);
+            // a lock is used instead of synchronization as responses are written while holding it,
+            // which would otherwise pin virtual Threads to their carriers
+            private final ReentrantLock lock = new ReentrantLock();
+            private final Map<Long, RoutedResponse> reorderBuffer = new HashMap<>();
+            private long nextSequence;
+            private long nextToWrite;
+            private volatile boolean broken;
+
+            PipelinedResponses(Socket client, OutputStream outputStream) {
+                this.client = client;
+                this.outputStream = outputStream;
+            }
+
+            void dispatch(RawHttpRequest request, @Nullable BodyBufferBudget.Lease lease) {
+                // back-pressure: wait until there is room for another request in flight
+                requestsInFlight.acquireUninterruptibly();
+                long sequence = nextSequence++;
+                try {
+                    //noinspection ConstantConditions (only called when pipelining is enabled)
+                    pipelineExecutorService.execute(() -> {
+                        RawHttpResponse<?> response = null;
+                        try {
+                            response = route(request);
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                        }
+                        complete(sequence, request, response, lease);
+                    });
+                } catch (RejectedExecutionException e) {
+                    // the server is stopping
+                    complete(sequence, request, null, lease);
+                }
+            }
+
+            void awaitAll() {
+                requestsInFlight.acquireUninterruptibly(maxRequestsInFlight);
+                requestsInFlight.release(maxRequestsInFlight);
+            }
+
+            boolean isBroken() {
+                return broken;
+            }
+
+            private void complete(long sequence,
+                                  RawHttpRequest request,
+                                  @Nullable RawHttpResponse<?> response,
+                                  @Nullable BodyBufferBudget.Lease lease) {
+                lock.lock();
+                try {
+                    reorderBuffer.put(sequence, new RoutedResponse(request, response, lease));
+                    RoutedResponse next;
+                    while ((next = reorderBuffer.remove(nextToWrite)) != null) {
+                        nextToWrite++;
+                        try {
+                            write(next);
+                        } finally {
+                            closeBodyOf(next.response);
+                            closeBodyOf(next.request);
+                            if (next.lease != null) {
+                                next.lease.releaseAll();
+                            }
+                            requestsInFlight.release();
+                        }
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            private void write(RoutedResponse routed) {
+                if (broken) {
+                    return;
+                }
+                boolean closeConnection = true;
+                try {
+                    if (routed.response != null) {
+                        routed.response.writeTo(outputStream);
+                        closeConnection = RawHttpResponse.shouldCloseConnectionAfter(
+                                routed.request.getStartLine(), routed.response);
+                    }
+                } catch (IOException e) {
+                    // client closed the connection or it was lost
+                } finally {
+                    if (closeConnection) {
+                        broken = true;
+                        try {
+                            client.close();
+                        } catch (IOException e) {
+                            // not a problem
+                        }
+                    }
+                }
+            }
+        }
+
+        private static final class RoutedResponse {
+            final RawHttpRequest request;
+            @Nullable
+            final RawHttpResponse<?> response;
+            @Nullable
+            final BodyBufferBudget.Lease lease;
+
+            RoutedResponse(RawHttpRequest request,
+                           @Nullable RawHttpResponse<?> response,
+                           @Nullable BodyBufferBudget.Lease lease) {
+                this.request = request;
+                this.response = response;
+                this.lease = lease;
+            }
+        }
+
+        /**
+         * Stream of a client connection which, when closed, only shuts down the input side of the socket where
+         * possible, so that a response can still be sent to a request whose body could not be read
+         * (e.g. because it is too large).
+         */
+        private static final class ClientInputStream extends FilterInputStream {
+
+            private final Socket client;
+
+            ClientInputStream(Socket client) throws IOException {
+                super(client.getInputStream());
+                this.client = client;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (client.isClosed() || client.isInputShutdown()) {
+                    return;
+                }
+                try {
+                    client.shutdownInput();
+                } catch (UnsupportedOperationException e) {
+                    // TLS sockets do not support half-closing the connection
+                    client.close();
+                }
+            }
+        }
+
+        private static void closeBodyOf(@Nullable HttpMessage message) {
+            if (message != null) {
+                message.getBody().ifPresent(b -> {
                     try {
                         b.close();
                     } catch (IOException e) {
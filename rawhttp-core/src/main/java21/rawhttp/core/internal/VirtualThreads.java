@@ -0,0 +1,30 @@
+package rawhttp.core.internal;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Support for virtual Threads.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return whether virtual Threads are supported by the current JVM
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Create an {@link ExecutorService} that runs each task on a new virtual Thread.
+     *
+     * @param threadNamePrefix prefix of the name of the Threads created by the executor
+     * @return executor service
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String threadNamePrefix) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix, 1).factory());
+    }
+}
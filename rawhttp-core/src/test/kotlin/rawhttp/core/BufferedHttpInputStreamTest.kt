@@ -0,0 +1,73 @@
+package rawhttp.core
+
+import io.kotest.matchers.shouldBe
+import org.junit.jupiter.api.Test
+import java.io.ByteArrayInputStream
+
+class BufferedHttpInputStreamTest {
+
+    private val http = RawHttp()
+
+    private val messages = "GET /a HTTP/1.1\r\nHost: x\r\n\r\n" +
+            "POST /b HTTP/1.1\r\nHost: x\r\nContent-Length: 5\r\n\r\nhello" +
+            "PUT /c HTTP/1.1\r\nHost: x\r\nTransfer-Encoding: chunked\r\n\r\n3\r\nabc\r\n0\r\n\r\n" +
+            "DELETE /d HTTP/1.1\r\nHost: x\r\nX-Folded: a\r\n  b\r\n\r\n"
+
+    @Test
+    fun canParseSeveralMessagesFromTheSameStreamWithAnyBufferSize() {
+        for (bufferSize in listOf(1, 2, 3, 7, 16, 64, 8192)) {
+            val stream = BufferedHttpInputStream(messages.byteInputStream(), bufferSize)
+
+            val requests = (1..4).map { http.parseRequest(stream).eagerly() }
+
+            requests.map { it.method } shouldBe listOf("GET", "POST", "PUT", "DELETE")
+            requests.map { it.uri.path } shouldBe listOf("/a", "/b", "/c", "/d")
+            requests[1].body.map { it.decodeBodyToString(Charsets.UTF_8) }.orElse(null) shouldBe "hello"
+            requests[2].body.map { it.decodeBodyToString(Charsets.UTF_8) }.orElse(null) shouldBe "abc"
+            requests[3].headers["X-Folded"] shouldBe listOf("a b")
+            stream.read() shouldBe -1
+        }
+    }
+
+    @Test
+    fun parserDoesNotReadAheadFromOtherStreams() {
+        val stream = ByteArrayInputStream("Accept: */*\r\nHost: x\r\n\r\nbody".toByteArray())
+
+        val headers = http.metadataParser.parseHeaders(stream) { msg, line -> IllegalStateException("$msg($line)") }
+
+        headers.asMap().keys shouldBe setOf("ACCEPT", "HOST")
+        String(stream.readBytes()) shouldBe "body"
+    }
+
+    @Test
+    fun parserLeavesBytesAfterTheMetadataInTheBuffer() {
+        val stream = BufferedHttpInputStream("HTTP/1.1 200 OK\r\nServer: x\r\n\r\nunframed".byteInputStream())
+
+        http.metadataParser.parseStatusLine(stream).statusCode shouldBe 200
+        http.metadataParser.parseHeaders(stream) { msg, line -> IllegalStateException("$msg($line)") }
+            .getFirst("Server").orElse(null) shouldBe "x"
+
+        stream.available() shouldBe "unframed".length
+        String(stream.readBytes()) shouldBe "unframed"
+    }
+
+    @Test
+    fun canReadBulkBytesBypassingTheBuffer() {
+        val bytes = ByteArray(100) { it.toByte() }
+        val stream = BufferedHttpInputStream(ByteArrayInputStream(bytes), 8)
+
+        stream.read() shouldBe 0
+        stream.skip(3) shouldBe 3L
+
+        val result = ByteArray(99)
+        var count = 0
+        while (count < 96) {
+            count += stream.read(result, count, result.size - count)
+        }
+
+        count shouldBe 96
+        result.copyOf(96).toList() shouldBe bytes.copyOfRange(4, 100).toList()
+        stream.read() shouldBe -1
+    }
+
+}
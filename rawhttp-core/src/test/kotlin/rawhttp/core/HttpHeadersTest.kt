@@ -318,4 +318,70 @@ class HttpHeadersTest {
         RawHttpHeaders.newBuilderSkippingValidation().with("A", "abc+åäö")
     }
 
-}
\ No newline at end of file
+    @Test
+    fun parsedHeadersBehaveTheSameAsBuiltHeaders() {
+        val parser = HttpMetadataParser(RawHttpOptions.defaultInstance())
+        val parsed = parser.parseHeaders(
+            "hi:  aaa \r\nho: ccc\r\nHI: bbb\r\nX-Folded: a\r\n  b\r\n\r\n".byteInputStream()
+        ) { msg, line -> IllegalStateException("$msg($line)") }
+        val built = RawHttpHeaders.newBuilder()
+            .with("hi", "aaa")
+            .with("ho", "ccc")
+            .with("HI", "bbb")
+            .with("X-Folded", "a b")
+            .build()
+
+        parsed.run {
+            get("Hi") shouldBe listOf("aaa", "bbb")
+            getFirst("HO") shouldBePresent { it shouldBe "ccc" }
+            get("blah") shouldHaveSize 0
+            getFirst("blah") shouldBe beEmpty<String>()
+            contains("x-folded") shouldBe true
+            isEmpty shouldBe false
+            size() shouldBe 3
+            headerNames shouldBe listOf("hi", "ho", "HI", "X-Folded")
+            uniqueHeaderNames shouldBe setOf("HI", "HO", "X-FOLDED")
+            asMap() shouldBe built.asMap()
+            toString() shouldBe built.toString()
+            this shouldBe built
+            built shouldBe this
+            and(RawHttpHeaders.newBuilder().with("ho", "ddd").build()) shouldBe built.and(
+                RawHttpHeaders.newBuilder().with("ho", "ddd").build()
+            )
+            except("hi").headerNames shouldBe listOf("ho", "X-Folded")
+            RawHttpHeaders.newBuilder(this).with("New", "value").build().headerNames shouldBe
+                    listOf("hi", "ho", "HI", "X-Folded", "New")
+        }
+    }
+
+    @Test
+    fun parsedHeadersAreWrittenInCanonicalForm() {
+        val parser = HttpMetadataParser(RawHttpOptions.defaultInstance())
+        val parsed = parser.parseHeaders("A:b\r\nC:   d e  \r\nF: \r\n\r\n".byteInputStream()) { msg, line ->
+            IllegalStateException("$msg($line)")
+        }
+
+        val out = ByteArrayOutputStream()
+        parsed.writeTo(out)
+
+        out.toString("ISO-8859-1") shouldBe "A: b\r\nC: d e\r\nF: \r\n\r\n"
+    }
+
+    @Test
+    fun parsedHeaderValuesAreDecodedWithTheConfiguredCharset() {
+        val options = RawHttpOptions.newBuilder()
+            .withHttpHeadersOptions().withValuesCharset(StandardCharsets.UTF_8).done()
+            .build()
+        val parser = HttpMetadataParser(options)
+        val parsed = parser.parseHeaders("X-F: ö\r\n\r\n".toByteArray(StandardCharsets.UTF_8).inputStream()) { msg, line ->
+            IllegalStateException("$msg($line)")
+        }
+
+        parsed["x-f"] shouldBe listOf("ö")
+
+        val out = ByteArrayOutputStream()
+        parsed.writeTo(out)
+        out.toByteArray().toString(StandardCharsets.UTF_8) shouldBe "X-F: ö\r\n\r\n"
+    }
+
+}
@@ -0,0 +1,100 @@
+package rawhttp.core
+
+import io.kotest.matchers.shouldBe
+import org.junit.jupiter.api.Test
+import rawhttp.core.body.GatheringWriteTarget
+import java.io.ByteArrayOutputStream
+import java.io.OutputStream
+import java.nio.ByteBuffer
+
+private class RecordingOutputStream : OutputStream(), GatheringWriteTarget {
+    val writes = mutableListOf<String>()
+    private val bytes = ByteArrayOutputStream()
+
+    val contents: String get() = bytes.toString(Charsets.UTF_8.name())
+
+    override fun write(b: Int) {
+        writes.add("write 1")
+        bytes.write(b)
+    }
+
+    override fun write(b: ByteArray, off: Int, len: Int) {
+        writes.add("write $len")
+        bytes.write(b, off, len)
+    }
+
+    override fun write(buffers: Array<ByteBuffer>) {
+        writes.add("gather " + buffers.joinToString(" ") { it.remaining().toString() })
+        for (buffer in buffers) {
+            val data = ByteArray(buffer.remaining())
+            buffer.get(data)
+            bytes.write(data)
+        }
+    }
+}
+
+class HttpMessageWriteTest {
+
+    private val http = RawHttp()
+
+    @Test
+    fun smallMessageIsWrittenWithSingleWrite() {
+        val message = "HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhello"
+        val out = RecordingOutputStream()
+
+        http.parseResponse(message).writeTo(out)
+
+        out.writes shouldBe listOf("write ${message.length}")
+        out.contents shouldBe message
+    }
+
+    @Test
+    fun headAndLargeInMemoryBodyAreWrittenWithSingleGatheringWrite() {
+        val head = "POST /data HTTP/1.1\r\nHost: example.com\r\nContent-Length: 10000\r\n\r\n"
+        val body = "x".repeat(10_000)
+        val request = http.parseRequest(head + body).eagerly()
+        val out = RecordingOutputStream()
+
+        request.writeTo(out)
+
+        out.writes shouldBe listOf("gather ${head.length} 10000")
+        out.contents shouldBe head + body
+
+        // outputs that cannot gather receive the head and the body with one write each
+        val plainOut = ByteArrayOutputStream()
+        request.writeTo(plainOut)
+        plainOut.toString(Charsets.UTF_8.name()) shouldBe head + body
+    }
+
+    @Test
+    fun largeHeadIsWrittenWithSingleWrite() {
+        val head = "HTTP/1.1 200 OK\r\n" +
+                "X-One: ${"a".repeat(3000)}\r\n" +
+                "X-Two: ${"b".repeat(3000)}\r\n" +
+                "Content-Length: 2\r\n\r\n"
+        val out = RecordingOutputStream()
+
+        http.parseResponse(head + "hi").writeTo(out, 8192)
+
+        out.writes shouldBe listOf("write ${head.length + 2}")
+        out.contents shouldBe head + "hi"
+    }
+
+    @Test
+    fun eachChunkIsWrittenWithSingleWrite() {
+        val head = "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+        val body = "5;ext=1\r\nhello\r\n6\r\n world\r\n0\r\nX-Trailer: yes\r\n\r\n"
+        val out = RecordingOutputStream()
+
+        http.parseResponse(head + body).writeTo(out)
+
+        out.writes shouldBe listOf(
+            "write ${head.length}",
+            "write ${"5;ext=1\r\nhello\r\n".length}",
+            "write ${"6\r\n world\r\n".length}",
+            "write ${"0\r\nX-Trailer: yes\r\n\r\n".length}"
+        )
+        out.contents shouldBe head + body
+    }
+
+}
@@ -0,0 +1,237 @@
+package rawhttp.core
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.matchers.shouldBe
+import org.junit.jupiter.api.Test
+import rawhttp.core.errors.InvalidHttpRequest
+import rawhttp.core.errors.InvalidHttpResponse
+import java.io.ByteArrayOutputStream
+import java.nio.ByteBuffer
+
+private class RecordingListener<S : StartLine> : IncrementalHttpParser.Listener<S> {
+    val events = mutableListOf<String>()
+    private val body = ByteArrayOutputStream()
+
+    override fun onStartLine(startLine: S) {
+        events.add("start-line: $startLine")
+    }
+
+    override fun onHeaders(headers: RawHttpHeaders) {
+        events.add("headers: ${headers.toString().trim().replace("\r\n", ", ")}")
+    }
+
+    override fun onBodyData(data: ByteBuffer) {
+        val bytes = ByteArray(data.remaining())
+        data.get(bytes)
+        body.write(bytes)
+    }
+
+    override fun onTrailer(trailer: RawHttpHeaders) {
+        events.add("trailer: ${trailer.toString().trim().replace("\r\n", ", ")}")
+    }
+
+    override fun onMessageEnd() {
+        events.add("end: ${body.toString(Charsets.UTF_8.name())}")
+        body.reset()
+    }
+}
+
+class IncrementalHttpParserTest {
+
+    private val http = RawHttp()
+
+    private val requests = "GET /hello HTTP/1.1\r\nHost: example.com\r\n\r\n" +
+            "POST /data HTTP/1.1\r\nHost: example.com\r\nContent-Length: 5\r\n\r\nhello" +
+            "PUT /chunks HTTP/1.1\r\nHost: example.com\r\nTransfer-Encoding: chunked\r\n\r\n" +
+            "3;ext=1\r\nabc\r\n10\r\n0123456789abcdef\r\n0\r\nX-Trailer: yes\r\n\r\n"
+
+    private val expectedRequestEvents = listOf(
+        "start-line: GET /hello HTTP/1.1",
+        "headers: Host: example.com",
+        "end: ",
+        "start-line: POST /data HTTP/1.1",
+        "headers: Host: example.com, Content-Length: 5",
+        "end: hello",
+        "start-line: PUT /chunks HTTP/1.1",
+        "headers: Host: example.com, Transfer-Encoding: chunked",
+        "trailer: X-Trailer: yes",
+        "end: abc0123456789abcdef"
+    )
+
+    @Test
+    fun canParseRequestsFedAllAtOnce() {
+        val listener = RecordingListener<RequestLine>()
+        val parser = IncrementalHttpParser.forRequests(http, listener)
+
+        parser.feed(ByteBuffer.wrap(requests.toByteArray()))
+
+        listener.events shouldBe expectedRequestEvents
+        parser.isParsingMessage shouldBe false
+    }
+
+    @Test
+    fun canParseRequestsFedInFragmentsOfAnySize() {
+        val bytes = requests.toByteArray()
+        for (fragmentSize in listOf(1, 2, 3, 5, 8, 13, 64)) {
+            val listener = RecordingListener<RequestLine>()
+            val parser = IncrementalHttpParser.forRequests(http, listener)
+
+            bytes.asSequence().chunked(fragmentSize).forEach { fragment ->
+                // use direct buffers, which are not backed by an array
+                val buffer = ByteBuffer.allocateDirect(fragment.size)
+                buffer.put(fragment.toByteArray()).flip()
+                parser.feed(buffer)
+                buffer.hasRemaining() shouldBe false
+            }
+            parser.endOfInput()
+
+            listener.events shouldBe expectedRequestEvents
+        }
+    }
+
+    @Test
+    fun canParseResponses() {
+        val listener = RecordingListener<StatusLine>()
+        val requestLines = ArrayDeque(listOf(
+            http.parseRequest("GET http://example.com").startLine,
+            http.parseRequest("HEAD http://example.com").startLine,
+            http.parseRequest("GET http://example.com").startLine,
+            http.parseRequest("GET http://example.com").startLine
+        ))
+        val parser = IncrementalHttpParser.forResponses(http, listener) { requestLines.removeFirst() }
+
+        parser.feed(ByteBuffer.wrap(("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nhi" +
+                "HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\n" +
+                "HTTP/1.1 304 Not Modified\r\nETag: \"abc\"\r\n\r\n" +
+                "HTTP/1.1 200 OK\r\n\r\nuntil").toByteArray()))
+        parser.feed(ByteBuffer.wrap(" closed".toByteArray()))
+
+        parser.isParsingMessage shouldBe true
+        parser.endOfInput()
+
+        listener.events shouldBe listOf(
+            "start-line: HTTP/1.1 200 OK",
+            "headers: Content-Length: 2",
+            "end: hi",
+            "start-line: HTTP/1.1 200 OK",
+            "headers: Content-Length: 10",
+            "end: ",
+            "start-line: HTTP/1.1 304 Not Modified",
+            "headers: ETag: \"abc\"",
+            "end: ",
+            "start-line: HTTP/1.1 200 OK",
+            "headers: ",
+            "end: until closed"
+        )
+        parser.isParsingMessage shouldBe false
+    }
+
+    @Test
+    fun hostIsVerifiedAsWhenParsingStreams() {
+        val listener = RecordingListener<RequestLine>()
+        val parser = IncrementalHttpParser.forRequests(http, listener)
+
+        parser.feed(ByteBuffer.wrap("GET http://example.com/a\r\n\r\n".toByteArray()))
+
+        listener.events shouldBe listOf(
+            "start-line: GET /a HTTP/1.1",
+            "headers: Host: example.com",
+            "end: "
+        )
+    }
+
+    @Test
+    fun invalidMetadataIsRejected() {
+        val parser = IncrementalHttpParser.forRequests(http, RecordingListener())
+        parser.feed(ByteBuffer.wrap("GET /a HTTP/1.1\r\nHost: example.com\r\n".toByteArray()))
+
+        val error = shouldThrow<InvalidHttpRequest> {
+            parser.feed(ByteBuffer.wrap("Bad Header\r\n\r\n".toByteArray()))
+        }
+        error.message shouldBe "Illegal character in HTTP header name"
+        error.lineNumber shouldBe 3
+
+        // the parser cannot be used after a failure
+        shouldThrow<IllegalStateException> {
+            parser.feed(ByteBuffer.wrap("GET /b HTTP/1.1\r\nHost: example.com\r\n\r\n".toByteArray()))
+        }
+
+        shouldThrow<InvalidHttpResponse> {
+            IncrementalHttpParser.forResponses(http, RecordingListener())
+                .feed(ByteBuffer.wrap("HTTP/1.1 2000 OK\r\n\r\n".toByteArray()))
+        }.message shouldBe "Invalid status code"
+    }
+
+    @Test
+    fun invalidChunkedBodyIsRejected() {
+        val head = "POST /a HTTP/1.1\r\nHost: example.com\r\nTransfer-Encoding: chunked\r\n\r\n"
+
+        shouldThrow<IllegalStateException> {
+            IncrementalHttpParser.forRequests(http, RecordingListener())
+                .feed(ByteBuffer.wrap("${head}zz\r\n".toByteArray()))
+        }.message shouldBe "Illegal character in chunk-size: 'z'"
+
+        shouldThrow<IllegalStateException> {
+            IncrementalHttpParser.forRequests(http, RecordingListener())
+                .feed(ByteBuffer.wrap("${head}1\r\nab\r\n".toByteArray()))
+        }.message shouldBe "Illegal character after chunk-data (missing CRLF)"
+    }
+
+    @Test
+    fun tooLongLinesAreRejectedBeforeTheyEnd() {
+        val limitedHttp = RawHttp(RawHttpOptions.newBuilder()
+            .withHttpHeadersOptions()
+            .withMaxHeaderNameLength(20)
+            .withMaxHeaderValueLength(20)
+            .done().build())
+        val longText = "a".repeat(1000)
+        val head = "POST /a HTTP/1.1\r\nHost: example.com\r\nTransfer-Encoding: chunked\r\n\r\n"
+
+        // lines within the limits are accepted
+        val listener = RecordingListener<RequestLine>()
+        IncrementalHttpParser.forRequests(limitedHttp, listener)
+            .feed(ByteBuffer.wrap("GET /a HTTP/1.1\r\nHost: x\r\nX-Twenty-Characters1: 01234567890123456789\r\n\r\n"
+                .toByteArray()))
+        listener.events.last() shouldBe "end: "
+
+        // no line end is ever sent, so the errors must be reported while the bytes arrive
+        val headerError = shouldThrow<InvalidHttpRequest> {
+            IncrementalHttpParser.forRequests(limitedHttp, RecordingListener())
+                .feed(ByteBuffer.wrap("GET /a HTTP/1.1\r\nHost: x\r\nX-Long: $longText".toByteArray()))
+        }
+        headerError.message shouldBe "Header value is too long"
+        headerError.lineNumber shouldBe 3
+
+        shouldThrow<InvalidHttpRequest> {
+            IncrementalHttpParser.forRequests(limitedHttp, RecordingListener())
+                .feed(ByteBuffer.wrap("GET /a HTTP/1.1\r\n$longText".toByteArray()))
+        }.message shouldBe "Header name is too long"
+
+        shouldThrow<InvalidHttpResponse> {
+            IncrementalHttpParser.forResponses(limitedHttp, RecordingListener())
+                .feed(ByteBuffer.wrap("HTTP/1.1 200 $longText".toByteArray()))
+        }.message shouldBe "Start-line is too long"
+
+        shouldThrow<IllegalStateException> {
+            IncrementalHttpParser.forRequests(limitedHttp, RecordingListener())
+                .feed(ByteBuffer.wrap("${head}1;ext=$longText".toByteArray()))
+        }.message shouldBe "Chunk-size line is too long"
+
+        shouldThrow<IllegalStateException> {
+            IncrementalHttpParser.forRequests(limitedHttp, RecordingListener())
+                .feed(ByteBuffer.wrap("${head}0\r\nX-Trailer: $longText".toByteArray()))
+        }.message shouldBe "Header value is too long (trailer header)"
+    }
+
+    @Test
+    fun incompleteMessageIsRejectedAtEndOfInput() {
+        val parser = IncrementalHttpParser.forRequests(http, RecordingListener())
+        parser.feed(ByteBuffer.wrap("POST /a HTTP/1.1\r\nHost: example.com\r\nContent-Length: 4\r\n\r\nab".toByteArray()))
+
+        parser.isParsingMessage shouldBe true
+        shouldThrow<IllegalStateException> {
+            parser.endOfInput()
+        }.message shouldBe "Input provided 2 byte(s), but 4 were expected"
+    }
+
+}
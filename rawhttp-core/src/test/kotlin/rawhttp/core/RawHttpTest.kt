@@ -234,6 +234,26 @@ class SimpleHttpRequestTests {
         }
     }
 
+    @Test
+    fun `Request body larger than the maximum in-memory body size is not kept in memory`() {
+        val http = RawHttp(
+            RawHttpOptions.newBuilder()
+                .withMaxInMemoryBodySize(4)
+                .build()
+        )
+
+        val request = http.parseRequest("POST /foo HTTP/1.1\n" +
+                "Host: example.org\n" +
+                "Content-Length: 10\n\n" +
+                "0123456789").eagerly()
+
+        request.body.shouldBePresent {
+            isInMemory shouldBe false
+            decodeBodyToString(UTF_8) shouldBe "0123456789"
+            close()
+        }
+    }
+
 }
 
 class SimpleHttpResponseTests {
@@ -0,0 +1,130 @@
+package rawhttp.core.body
+
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import org.junit.jupiter.api.Test
+import rawhttp.core.RawHttp
+import rawhttp.core.RawHttpOptions
+import java.io.ByteArrayOutputStream
+import java.io.SequenceInputStream
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.zip.GZIPOutputStream
+
+class BufferPoolTest {
+
+    @Test
+    fun buffersAreAllocatedInSizeClasses() {
+        val pool = SizeClassedBufferPool(512, 4096, 2, true)
+
+        pool.acquire(1).size shouldBe 512
+        pool.acquire(512).size shouldBe 512
+        pool.acquire(513).size shouldBe 1024
+        pool.acquire(4096).size shouldBe 4096
+
+        // too large to be pooled
+        pool.acquire(4097).size shouldBe 4097
+
+        pool.hitCount shouldBe 0L
+        pool.missCount shouldBe 5L
+    }
+
+    @Test
+    fun releasedBuffersAreReused() {
+        val pool = SizeClassedBufferPool(512, 4096, 2, true)
+
+        val buffer = pool.acquire(1000)
+        pool.release(buffer)
+
+        pool.acquire(1024) shouldBeSameInstanceAs buffer
+        pool.hitCount shouldBe 1L
+        pool.missCount shouldBe 1L
+    }
+
+    @Test
+    fun buffersReleasedByOneThreadCanBeReusedByAnother() {
+        val pool = SizeClassedBufferPool(512, 4096, 2, true)
+        val executor = Executors.newSingleThreadExecutor()
+        try {
+            // the first buffer stays in the other Thread's cache, the second one goes to the shared pool
+            executor.submit {
+                val first = pool.acquire(512)
+                val second = pool.acquire(512)
+                pool.release(first)
+                pool.release(second)
+            }.get(5, TimeUnit.SECONDS)
+
+            pool.acquire(512)
+            pool.hitCount shouldBe 1L
+            pool.missCount shouldBe 2L
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    fun buffersNotFromThePoolAreIgnoredOnRelease() {
+        val pool = SizeClassedBufferPool(512, 4096, 2, true)
+
+        pool.release(ByteArray(100))
+        pool.release(ByteArray(600))
+        pool.release(ByteArray(8192))
+
+        pool.acquire(512).size shouldBe 512
+        pool.hitCount shouldBe 0L
+    }
+
+    @Test
+    fun unpooledBufferPoolAlwaysAllocates() {
+        val pool = BufferPool.unpooled()
+
+        val buffer = pool.acquire(100)
+        buffer.size shouldBe 100
+        pool.release(buffer)
+        pool.acquire(100).size shouldBe 100
+
+        pool.hitCount shouldBe 0L
+        pool.missCount shouldBe 2L
+    }
+
+    @Test
+    fun bodyReadersUseTheBufferPoolFromTheOptions() {
+        val pool = SizeClassedBufferPool(512, 4096, 2, false)
+        val http = RawHttp(RawHttpOptions.newBuilder().withBufferPool(pool).build())
+
+        repeat(3) {
+            val response = http.parseResponse(
+                "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n3\r\nabc\r\n2\r\nde\r\n0\r\n\r\n"
+            ).eagerly()
+            response.body.get().decodeBodyToString(Charsets.US_ASCII) shouldBe "abcde"
+
+            val response2 = http.parseResponse("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhello").eagerly()
+            response2.body.get().decodeBodyToString(Charsets.US_ASCII) shouldBe "hello"
+        }
+
+        // one buffer allocated for each size class used: 4096 bytes for the chunked body, 512 for the other
+        pool.missCount shouldBe 2L
+        pool.hitCount shouldBe 10L
+    }
+
+    @Test
+    fun messageWritersAndDecodersUseTheBufferPoolFromTheOptions() {
+        val pool = BufferPool.unpooled()
+        val http = RawHttp(RawHttpOptions.newBuilder().withBufferPool(pool).build())
+
+        // the message head is assembled in a buffer from the configured pool
+        http.parseResponse("HTTP/1.1 204 No Content\r\nServer: RawHTTP\r\n\r\n").writeTo(ByteArrayOutputStream())
+        pool.missCount shouldBe 1L
+
+        val gzipped = ByteArrayOutputStream()
+        GZIPOutputStream(gzipped).use { it.write("hello".toByteArray()) }
+        val head = "HTTP/1.1 200 OK\r\nContent-Encoding: gzip\r\nContent-Length: ${gzipped.size()}\r\n\r\n"
+        val response = http.parseResponse(
+            SequenceInputStream(head.byteInputStream(), gzipped.toByteArray().inputStream()))
+        response.body.get().asDecodedStream().readBytes().toString(Charsets.US_ASCII) shouldBe "hello"
+
+        // the inflater's transfer buffer also comes from the configured pool
+        pool.missCount shouldBe 2L
+    }
+
+}
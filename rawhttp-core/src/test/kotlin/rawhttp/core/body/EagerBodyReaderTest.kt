@@ -1,5 +1,6 @@
 package rawhttp.core.body
 
+import io.kotest.assertions.throwables.shouldThrow
 import io.kotest.core.spec.style.StringSpec
 import io.kotest.matchers.optional.bePresent
 import io.kotest.matchers.optional.shouldBePresent
@@ -15,7 +16,14 @@ import rawhttp.core.body.FramedBody.Chunked
 import rawhttp.core.body.FramedBody.CloseTerminated
 import rawhttp.core.body.FramedBody.ContentLength
 import rawhttp.core.body.encoding.ServiceLoaderHttpBodyEncodingRegistry
+import rawhttp.core.errors.BodyTooLargeException
+import rawhttp.core.errors.BufferBudgetExhaustedException
 import rawhttp.core.shouldHaveSameElementsAs
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.channels.Channels
+import java.time.Duration
 import kotlin.text.Charsets.UTF_8
 
 class EagerBodyReaderTest : StringSpec({
@@ -205,4 +213,107 @@ class EagerBodyReaderTest : StringSpec({
         stream.readBytes().toString(UTF_8) shouldBe "IGNORED"
     }
 
-})
\ No newline at end of file
+    "Can get body as byte buffer without copying it" {
+        val body = "Hello world".toByteArray()
+        val reader = EagerBodyReader(body)
+
+        val buffers = reader.asByteBuffers()
+
+        buffers.size shouldBe 1
+        buffers[0].isReadOnly shouldBe true
+        UTF_8.decode(buffers[0]).toString() shouldBe "Hello world"
+
+        // buffers can still be supplied by the caller
+        reader.asByteBuffers { ByteBuffer.allocateDirect(8) }.map { it.remaining() } shouldBe listOf(8, 3)
+
+        val out = ByteArrayOutputStream()
+        reader.transferTo(Channels.newChannel(out)) shouldBe body.size.toLong()
+        out.toByteArray() shouldHaveSameElementsAs body
+    }
+
+    "Body larger than the maximum in-memory size is written to a temporary file" {
+        val body = "Hello world".repeat(100)
+        val stream = (body + "IGNORED").byteInputStream()
+        val reader = EagerBodyReader(ContentLength(body.length.toLong()), stream, 100L)
+
+        reader.run {
+            isInMemory shouldBe false
+            lengthIfKnown.asLong shouldBe body.length.toLong()
+            asRawString(UTF_8) shouldBe body
+            asRawStream().use { it.readBytes() } shouldHaveSameElementsAs body.toByteArray()
+            decodeBodyToString(UTF_8) shouldBe body
+            asByteBuffers().joinToString("") { UTF_8.decode(it).toString() } shouldBe body
+
+            val out = ByteArrayOutputStream()
+            transferTo(Channels.newChannel(out)) shouldBe body.length.toLong()
+            out.toString(UTF_8.name()) shouldBe body
+
+            this shouldBe EagerBodyReader(body.toByteArray())
+        }
+
+        // verify that the parser stopped at the correct body ending
+        stream.readBytes().toString(UTF_8) shouldBe "IGNORED"
+
+        val tempFiles = { File(System.getProperty("java.io.tmpdir")).list { _, name -> name.startsWith("rawhttp-body-") }!!.toSet() }
+        val filesBeforeClose = tempFiles()
+        reader.close()
+        (filesBeforeClose - tempFiles()).size shouldBe 1
+    }
+
+    "Body not larger than the maximum in-memory size is kept in memory" {
+        val body = "Hello world"
+        val reader = EagerBodyReader(ContentLength(body.length.toLong()), body.byteInputStream(), body.length.toLong())
+
+        reader.isInMemory shouldBe true
+        reader.asRawString(UTF_8) shouldBe body
+    }
+
+    "Body larger than the maximum body size cannot be read" {
+        val body = "Hello world"
+
+        val contentLengthStream = body.byteInputStream()
+        shouldThrow<BodyTooLargeException> {
+            EagerBodyReader(ContentLength(noOpDecoder, body.length.toLong(), false, BufferPool.defaultPool(), 10L),
+                    contentLengthStream)
+        }.message shouldBe "Message body is larger than the maximum size of 10 bytes"
+
+        // the body is rejected before any of it is read
+        contentLengthStream.readBytes().toString(UTF_8) shouldBe body
+
+        shouldThrow<BodyTooLargeException> {
+            EagerBodyReader(CloseTerminated(noOpDecoder, BufferPool.defaultPool(), 10L), body.byteInputStream())
+        }
+
+        EagerBodyReader(CloseTerminated(noOpDecoder, BufferPool.defaultPool(), 11L), body.byteInputStream())
+                .asRawString(UTF_8) shouldBe body
+    }
+
+    "Body kept in memory is reserved from a body buffer budget until the reader is closed" {
+        val budget = BodyBufferBudget(20L, Duration.ofMillis(10))
+        val body = "Hello world"
+
+        val reader = EagerBodyReader(ContentLength(body.length.toLong()), body.byteInputStream(), Long.MAX_VALUE,
+                budget.newLease())
+
+        reader.asRawString(UTF_8) shouldBe body
+        budget.available shouldBe 9L
+
+        // not enough bytes are available for another body of the same size
+        shouldThrow<BufferBudgetExhaustedException> {
+            EagerBodyReader(ContentLength(body.length.toLong()), body.byteInputStream(), Long.MAX_VALUE,
+                    budget.newLease())
+        }
+        budget.available shouldBe 9L
+
+        // bodies written to a temporary file do not use the budget
+        EagerBodyReader(ContentLength(body.length.toLong()), body.byteInputStream(), 5L,
+                budget.newLease()).use { fileReader ->
+            fileReader.isInMemory shouldBe false
+            budget.available shouldBe 9L
+        }
+
+        reader.close()
+        budget.available shouldBe 20L
+    }
+
+})
@@ -7,7 +7,13 @@ import rawhttp.core.HttpVersion
 import rawhttp.core.RawHttp
 import rawhttp.core.fileFromResource
 import rawhttp.core.shouldHaveSameElementsAs
+import java.io.ByteArrayOutputStream
+import java.io.File
 import java.net.URI
+import java.nio.ByteBuffer
+import java.nio.channels.Channels
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
 
 class FileBodyTest {
 
@@ -94,4 +100,59 @@ class FileBodyTest {
         }
     }
 
+    @Test
+    fun `File body is transferred directly to a FileTransferTarget`() {
+        val fileBody = FileBody(fileFromResource("404.png"), "image/png")
+        val out = RecordingTransferTarget()
+
+        fileBody.toBodyReader().use { it.writeTo(out) }
+
+        out.toByteArray() shouldHaveSameElementsAs fileBody.file.readBytes()
+        out.transferredBytes shouldBe fileBody.file.length()
+    }
+
+    @Test
+    fun `HTTP message with a file body can be written to a FileTransferTarget`() {
+        val fileBody = FileBody(fileFromResource("404.png"), "image/png")
+        val response = RawHttp().parseResponse("HTTP/1.1 200 OK").withBody(fileBody)
+        val out = RecordingTransferTarget()
+
+        response.writeTo(out)
+
+        val expectedMetadata = "HTTP/1.1 200 OK\r\n" +
+                "Content-Type: image/png\r\n" +
+                "Content-Length: ${fileBody.file.length()}\r\n\r\n"
+        out.toByteArray() shouldHaveSameElementsAs expectedMetadata.toByteArray() + fileBody.file.readBytes()
+        out.transferredBytes shouldBe fileBody.file.length()
+    }
+
+    @Test
+    fun `File body can be transferred to a channel and read into direct buffers`() {
+        val fileBody = FileBody(fileFromResource("404.png"), "image/png")
+        val target = File.createTempFile("file-body", ".png").apply { deleteOnExit() }
+
+        FileChannel.open(target.toPath(), StandardOpenOption.WRITE).use { channel ->
+            fileBody.toBodyReader().use { it.transferTo(channel) } shouldBe fileBody.file.length()
+        }
+        target.readBytes() shouldHaveSameElementsAs fileBody.file.readBytes()
+
+        val buffers = fileBody.toBodyReader().use { reader ->
+            reader.asByteBuffers { ByteBuffer.allocateDirect(1024) }
+        }
+        val bytes = ByteArrayOutputStream()
+        buffers.forEach { buffer ->
+            buffer.isDirect shouldBe true
+            bytes.write(ByteArray(buffer.remaining()).also { buffer.get(it) })
+        }
+        bytes.toByteArray() shouldHaveSameElementsAs fileBody.file.readBytes()
+    }
+
+}
+
+internal class RecordingTransferTarget : ByteArrayOutputStream(), FileTransferTarget {
+    var transferredBytes = 0L
+
+    override fun transferFrom(file: FileChannel, position: Long, count: Long) {
+        transferredBytes += file.transferTo(position, count, Channels.newChannel(this))
+    }
 }
@@ -0,0 +1,75 @@
+package rawhttp.core.body
+
+import io.kotest.matchers.shouldBe
+import org.junit.jupiter.api.Test
+import rawhttp.core.RawHttp
+import rawhttp.core.shouldHaveSameElementsAs
+import java.io.File
+
+class FileRangeBodyTest {
+
+    private val file = File.createTempFile("file-range-body", ".txt").apply {
+        deleteOnExit()
+        writeText("0123456789abcdefghij")
+    }
+
+    @Test
+    fun `File range body contains only the given range`() {
+        val body = FileRangeBody(file, ByteRange(5, 9), "text/plain")
+
+        val response = RawHttp().parseResponse("HTTP/1.1 206 Partial Content").withBody(body).eagerly()
+
+        response.headers["Content-Length"] shouldBe listOf("5")
+        response.headers["Content-Type"] shouldBe listOf("text/plain")
+        response.body.get().asRawString(Charsets.US_ASCII) shouldBe "56789"
+    }
+
+    @Test
+    fun `File range body is transferred directly to a FileTransferTarget`() {
+        val body = FileRangeBody(file, ByteRange(10, 19))
+        val out = RecordingTransferTarget()
+
+        body.toBodyReader().use { it.writeTo(out) }
+
+        out.toString(Charsets.US_ASCII.name()) shouldBe "abcdefghij"
+        out.transferredBytes shouldBe 10L
+    }
+
+    @Test
+    fun `Multipart byteranges body contains all ranges in the requested order`() {
+        val body = MultipartByteRangesBody(file, file.length(),
+            listOf(ByteRange(10, 12), ByteRange(0, 1)), "text/plain", "BOUNDARY")
+
+        val response = RawHttp().parseResponse("HTTP/1.1 206 Partial Content").withBody(body).eagerly()
+
+        val expectedBody = "--BOUNDARY\r\n" +
+                "Content-Type: text/plain\r\n" +
+                "Content-Range: bytes 10-12/20\r\n\r\n" +
+                "abc\r\n" +
+                "--BOUNDARY\r\n" +
+                "Content-Type: text/plain\r\n" +
+                "Content-Range: bytes 0-1/20\r\n\r\n" +
+                "01\r\n" +
+                "--BOUNDARY--\r\n"
+
+        response.headers["Content-Type"] shouldBe listOf("multipart/byteranges; boundary=BOUNDARY")
+        response.headers["Content-Length"] shouldBe listOf(expectedBody.length.toString())
+        response.body.get().asRawString(Charsets.US_ASCII) shouldBe expectedBody
+    }
+
+    @Test
+    fun `Multipart byteranges body ranges are transferred directly to a FileTransferTarget`() {
+        val body = MultipartByteRangesBody(file, file.length(),
+            listOf(ByteRange(0, 0), ByteRange(19, 19)), null, "B")
+        val out = RecordingTransferTarget()
+
+        body.toBodyReader().use { it.writeTo(out) }
+
+        val expectedBody = "--B\r\nContent-Range: bytes 0-0/20\r\n\r\n0\r\n" +
+                "--B\r\nContent-Range: bytes 19-19/20\r\n\r\nj\r\n" +
+                "--B--\r\n"
+        out.toByteArray() shouldHaveSameElementsAs expectedBody.toByteArray()
+        out.transferredBytes shouldBe 2L
+    }
+
+}
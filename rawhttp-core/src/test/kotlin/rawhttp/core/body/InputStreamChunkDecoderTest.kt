@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Disabled
 import org.junit.jupiter.api.Test
 import rawhttp.core.HttpMetadataParser
 import rawhttp.core.RawHttpOptions
+import rawhttp.core.errors.BodyTooLargeException
 import rawhttp.core.internal.Bool
 import rawhttp.core.shouldHaveSameElementsAs
 
@@ -159,6 +160,27 @@ class InputStreamChunkDecoderTest {
         }.message shouldBe "Invalid chunk-size (too big)"
     }
 
+    @Test
+    fun cannotDecodeChunkedBodyLargerThanMaximumBodySize() {
+        val parser = ChunkedBodyParser(HttpMetadataParser(RawHttpOptions.newBuilder().withMaxBodySize(10).build()))
+        val chunkedBody = "4\r\nHell\r\n4\r\no wo\r\n3\r\nrld\r\n0\r\n\r\n"
+
+        shouldThrow<BodyTooLargeException> {
+            InputStreamChunkDecoder(parser, chunkedBody.byteInputStream()).readBytes()
+        }.maxBodySize shouldBe 10L
+
+        val decoderStream = InputStreamChunkDecoder(parser, chunkedBody.byteInputStream())
+        decoderStream.readChunk().data shouldHaveSameElementsAs "Hell".toByteArray()
+        decoderStream.readChunk().data shouldHaveSameElementsAs "o wo".toByteArray()
+        shouldThrow<BodyTooLargeException> {
+            decoderStream.readChunk()
+        }
+
+        // a body of exactly the maximum size is accepted
+        InputStreamChunkDecoder(parser, "4\r\nHell\r\n6\r\no worl\r\n0\r\n\r\n".byteInputStream())
+            .readBytes() shouldHaveSameElementsAs "Hello worl".toByteArray()
+    }
+
     @Test
     fun chunkSizeIsParsedCorrectly() {
         chunkedBodyParser.readChunkSize("0000000\n".byteInputStream(), Bool()) shouldBe 0
@@ -1,5 +1,6 @@
 package rawhttp.core.body
 
+import io.kotest.matchers.shouldBe
 import org.junit.jupiter.api.Test
 import rawhttp.core.shouldHaveSameElementsAs
 import java.io.ByteArrayInputStream
@@ -36,4 +37,18 @@ class InputStreamChunkEncoderTest {
         decoderStream.readBytes() shouldHaveSameElementsAs expectedChunkedBody
     }
 
+    @Test
+    fun chunkBufferIsReturnedToThePoolAfterTheLastChunk() {
+        val pool = SizeClassedBufferPool(512, 4096, 1, false)
+        val encoder = InputStreamChunkEncoder("Hello world".byteInputStream(), 4, pool)
+
+        encoder.readBytes() shouldHaveSameElementsAs "4\r\nHell\r\n4\r\no wo\r\n3\r\nrld\r\n0\r\n\r\n".toByteArray()
+        pool.missCount shouldBe 1L
+
+        // the next encoder can reuse the same buffer
+        InputStreamChunkEncoder("Hi".byteInputStream(), 4, pool).use { it.read() shouldBe '2'.code }
+        pool.hitCount shouldBe 1L
+        pool.missCount shouldBe 1L
+    }
+
 }
@@ -15,6 +15,8 @@ import rawhttp.core.body.encoding.ServiceLoaderHttpBodyEncodingRegistry
 import rawhttp.core.shouldHaveSameElementsAs
 import java.io.ByteArrayOutputStream
 import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.Channels
 import kotlin.text.Charsets.UTF_8
 
 class LazyBodyReaderTest {
@@ -256,4 +258,43 @@ class LazyBodyReaderTest {
         }
     }
 
+    @Test
+    fun `Can read content-length body into byte buffers`() {
+        val body = "Hello world"
+        val stream = "${body}IGNORED".byteInputStream()
+        val reader = LazyBodyReader(ContentLength(body.length.toLong()), stream)
+
+        // caller-supplied buffers, which may be direct
+        val buffers = reader.asByteBuffers { ByteBuffer.allocateDirect(4) }
+
+        buffers.map { it.remaining() } shouldBe listOf(4, 4, 3)
+        buffers.joinToString("") { UTF_8.decode(it).toString() } shouldBe body
+        stream.readBytes().toString(UTF_8) shouldBe "IGNORED"
+
+        shouldThrow<IllegalStateException> {
+            reader.asByteBuffers()
+        }
+    }
+
+    @Test
+    fun `Can read chunked body into byte buffers`() {
+        val body = "5\r\nHello\r\n0\r\n\r\n"
+        val reader = LazyBodyReader(Chunked(noOpDecoder, metadataParser), "${body}IGNORED".byteInputStream())
+
+        val buffers = reader.asByteBuffers()
+
+        buffers.joinToString("") { UTF_8.decode(it).toString() } shouldBe body
+    }
+
+    @Test
+    fun `Can transfer body to a channel`() {
+        val body = "Hello world"
+        val reader = LazyBodyReader(ContentLength(body.length.toLong()), "${body}IGNORED".byteInputStream())
+        val out = ByteArrayOutputStream()
+
+        reader.transferTo(Channels.newChannel(out)) shouldBe body.length.toLong()
+
+        out.toByteArray() shouldHaveSameElementsAs body.toByteArray()
+    }
+
 }
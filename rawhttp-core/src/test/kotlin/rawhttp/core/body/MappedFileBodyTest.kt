@@ -0,0 +1,52 @@
+package rawhttp.core.body
+
+import io.kotest.matchers.optional.shouldBePresent
+import io.kotest.matchers.shouldBe
+import org.junit.jupiter.api.Test
+import rawhttp.core.RawHttp
+import rawhttp.core.fileFromResource
+import rawhttp.core.shouldHaveSameElementsAs
+import java.io.ByteArrayOutputStream
+
+class MappedFileBodyTest {
+
+    @Test
+    fun `It is possible to add a mapped file body to a HTTP Response`() {
+        val response = RawHttp().parseResponse("HTTP/1.1 200 OK\r\nServer: Apache")
+
+        val fileBody = MappedFileBody(fileFromResource("404.png"), "image/png")
+
+        response.withBody(fileBody).eagerly().run {
+            statusCode shouldBe 200
+            headers.asMap() shouldBe mapOf(
+                "CONTENT-LENGTH" to listOf(fileBody.file.length().toString()),
+                "SERVER" to listOf("Apache"),
+                "CONTENT-TYPE" to listOf("image/png")
+            )
+            body shouldBePresent { it.asRawBytes() shouldHaveSameElementsAs fileBody.file.readBytes() }
+        }
+    }
+
+    @Test
+    fun `A mapped file can be shared by several bodies`() {
+        val file = fileFromResource("404.png")
+        val contents = MappedFileBody.map(file)
+        val body1 = MappedFileBody(file, contents, "image/png", null)
+        val body2 = MappedFileBody(file, contents, "image/png", null)
+
+        val reader1 = body1.toBodyReader()
+        val reader2 = body2.toBodyReader()
+
+        // reading one of the bodies does not affect the other
+        val firstBytes = ByteArray(100)
+        reader1.asRawStream().read(firstBytes) shouldBe 100
+
+        val out = ByteArrayOutputStream()
+        reader2.writeTo(out)
+        out.toByteArray() shouldHaveSameElementsAs file.readBytes()
+
+        body1.toBodyReader().asRawBytes() shouldHaveSameElementsAs file.readBytes()
+        contents.position() shouldBe 0
+    }
+
+}
@@ -119,6 +119,48 @@ class BodyDecodingTest {
         actualDecodedBody shouldBe plainTextBody
     }
 
+    @Test
+    fun canReadDecodedStreamOfRealHttpResponseWithChunkedTransferEncodingAndGzipContentEncoding() {
+        val plainTextBody = BodyDecodingTest::class.java.getResource("decoded-body.json").readText()
+
+        val response = RawHttp().parseResponse(
+                BodyDecodingTest::class.java.getResourceAsStream("chunked-and-gzipped-response.http"))
+
+        val actualDecodedBody = response.body.get().asDecodedStream().use {
+            it.reader(StandardCharsets.UTF_8).readText()
+        }
+
+        actualDecodedBody shouldBe plainTextBody
+    }
+
+    @Test
+    fun decodedStreamOnlyReadsTheMessageBody() {
+        val body = "Hello decoded stream!".repeat(100)
+        val gzippedBody = ByteArrayOutputStream().run {
+            GZIPOutputStream(this).use { it.write(body.toByteArray()) }
+            toByteArray()
+        }
+        val messages = ByteArrayOutputStream().apply {
+            write("HTTP/1.1 200 OK\r\nContent-Encoding: gzip\r\nContent-Length: ${gzippedBody.size}\r\n\r\n".toByteArray())
+            write(gzippedBody)
+            write("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n".toByteArray())
+        }.toByteArray().inputStream()
+
+        val response = RawHttp().parseResponse(messages)
+        response.body.get().asDecodedStream().use { it.readBytes() } shouldHaveSameElementsAs body.toByteArray()
+
+        RawHttp().parseResponse(messages).statusCode shouldBe 404
+    }
+
+    @Test
+    fun decodedStreamFailsIfBodyIsShorterThanContentLength() {
+        val response = RawHttp().parseResponse("200 OK\nContent-Length: 10\n\nhello".byteInputStream())
+
+        shouldThrow<IOException> {
+            response.body.get().asDecodedStream().readBytes()
+        }.message shouldBe "InputStream provided 5 byte(s), but 10 were expected"
+    }
+
     @Test
     fun identityEncodingIsIgnored() {
         val response = RawHttp().parseResponse("200 OK\nContent-Encoding: identity\nContent-Length: 5\n\nhello")
@@ -0,0 +1,81 @@
+package rawhttp.core.body.encoding
+
+import io.kotest.matchers.optional.shouldBePresent
+import io.kotest.matchers.should
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.beOfType
+import org.junit.jupiter.api.Test
+import rawhttp.core.shouldHaveSameElementsAs
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.util.zip.GZIPInputStream
+import java.util.zip.InflaterInputStream
+import kotlin.random.Random
+
+class BodyEncodingTest {
+
+    private val text = (1..5000).joinToString(",") { "{\"id\":$it}" }.toByteArray()
+
+    @Test
+    fun canGzipBody() {
+        val encoded = GzipEncoder().encode(ByteArrayInputStream(text)).readBytes()
+
+        (encoded.size < text.size / 4) shouldBe true
+        GZIPInputStream(ByteArrayInputStream(encoded)).readBytes() shouldHaveSameElementsAs text
+    }
+
+    @Test
+    fun canDeflateBody() {
+        val encoded = DeflateEncoder().encode(ByteArrayInputStream(text)).readBytes()
+
+        InflaterInputStream(ByteArrayInputStream(encoded)).readBytes() shouldHaveSameElementsAs text
+    }
+
+    @Test
+    fun canEncodeEmptyBody() {
+        val gzipped = GzipEncoder().encode(ByteArrayInputStream(ByteArray(0))).readBytes()
+        GZIPInputStream(ByteArrayInputStream(gzipped)).readBytes().size shouldBe 0
+
+        val deflated = DeflateEncoder().encode(ByteArrayInputStream(ByteArray(0))).readBytes()
+        InflaterInputStream(ByteArrayInputStream(deflated)).readBytes().size shouldBe 0
+    }
+
+    @Test
+    fun encodedBodyCanBeReadOneByteAtATime() {
+        val random = Random(42).nextBytes(10_000)
+        val encoder = GzipEncoder().apply {
+            setCompressionLevel(1)
+            setBufferSize(7)
+        }
+        val encoded = ByteArrayOutputStream()
+        encoder.encode(ByteArrayInputStream(random)).use { stream ->
+            while (true) {
+                val b = stream.read()
+                if (b < 0) break
+                encoded.write(b)
+            }
+        }
+
+        GZIPInputStream(ByteArrayInputStream(encoded.toByteArray())).readBytes() shouldHaveSameElementsAs random
+    }
+
+    @Test
+    fun gzipEncodedBodyCanBeDecodedByGzipDecoder() {
+        val encoded = GzipEncoder().encode(ByteArrayInputStream(text)).readBytes()
+        val decoded = ByteArrayOutputStream()
+
+        GzipDecoder().decode(decoded).use { it.write(encoded) }
+
+        decoded.toByteArray() shouldHaveSameElementsAs text
+    }
+
+    @Test
+    fun encodersAreProvidedByDefaultRegistry() {
+        val registry = ServiceLoaderHttpBodyEncodingRegistry()
+
+        registry.getEncoder("gzip") shouldBePresent { it should beOfType<GzipEncoder>() }
+        registry.getEncoder("DEFLATE") shouldBePresent { it should beOfType<DeflateEncoder>() }
+        registry.getEncoder("chunked").isPresent shouldBe false
+    }
+
+}
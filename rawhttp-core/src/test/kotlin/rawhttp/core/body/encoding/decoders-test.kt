@@ -1,11 +1,19 @@
 package rawhttp.core.body.encoding
 
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.beOfType
 import org.junit.jupiter.api.Test
 import rawhttp.core.body.InputStreamChunkEncoder
 import rawhttp.core.shouldHaveSameElementsAs
 import java.io.ByteArrayInputStream
 import java.io.ByteArrayOutputStream
+import java.io.EOFException
+import java.io.IOException
+import java.util.zip.CRC32
+import java.util.zip.Deflater
 import java.util.zip.DeflaterInputStream
+import java.util.zip.DeflaterOutputStream
 import java.util.zip.GZIPOutputStream
 
 
@@ -25,6 +33,14 @@ class DeflateDecoderTest {
 
         resultOutput.toByteArray() shouldHaveSameElementsAs input.toByteArray()
     }
+
+    @Test
+    fun canDecodeInputStream() {
+        val input = "Hello inflater encoding!".repeat(10)
+        val deflated = DeflaterInputStream(ByteArrayInputStream(input.toByteArray()))
+
+        DeflateDecoder().decode(deflated).readBytes() shouldHaveSameElementsAs input.toByteArray()
+    }
 }
 
 class GZipDecoderTest {
@@ -49,6 +65,95 @@ class GZipDecoderTest {
         resultOutput.toByteArray() shouldHaveSameElementsAs input.toByteArray()
     }
 
+    @Test
+    fun canDecodeConcatenatedMembersWrittenOneByteAtATime() {
+        val compressedOutput = ByteArrayOutputStream()
+        for (part in listOf("Hello ", "GZIP ", "members!")) {
+            GZIPOutputStream(compressedOutput).use { it.write(part.toByteArray()) }
+        }
+        val resultOutput = ByteArrayOutputStream()
+
+        GzipDecoder().decode(resultOutput).use { decodingStream ->
+            compressedOutput.toByteArray().forEach { decodingStream.write(it.toInt()) }
+        }
+
+        resultOutput.toString() shouldBe "Hello GZIP members!"
+    }
+
+    @Test
+    fun canDecodeHeaderWithOptionalFields() {
+        val input = "Hello GZIP header fields!".toByteArray()
+        val deflated = ByteArrayOutputStream().also { out ->
+            DeflaterOutputStream(out, Deflater(Deflater.DEFAULT_COMPRESSION, true)).use { it.write(input) }
+        }.toByteArray()
+        val crc = CRC32().apply { update(input) }.value
+        val gzipped = ByteArrayOutputStream().apply {
+            // FEXTRA, FNAME and FCOMMENT flags are set
+            write(byteArrayOf(0x1f, 0x8b.toByte(), 8, 28, 0, 0, 0, 0, 0, 3))
+            write(byteArrayOf(3, 0, 1, 2, 3))
+            write("file.txt\u0000".toByteArray())
+            write("a comment\u0000".toByteArray())
+            write(deflated)
+            for (value in listOf(crc, input.size.toLong())) {
+                for (i in 0 until 4) write((value shr (8 * i)).toInt() and 0xFF)
+            }
+        }.toByteArray()
+        val resultOutput = ByteArrayOutputStream()
+
+        GzipDecoder().decode(resultOutput).use { it.write(gzipped) }
+
+        resultOutput.toByteArray() shouldHaveSameElementsAs input
+    }
+
+    @Test
+    fun truncatedGzipBodyCannotBeDecoded() {
+        val compressedOutput = ByteArrayOutputStream()
+        GZIPOutputStream(compressedOutput).use {
+            it.write("Hello GZIP encoding!".repeat(10).toByteArray())
+        }
+        val truncated = compressedOutput.toByteArray().let { it.copyOf(it.size - 4) }
+
+        val decodingStream = GzipDecoder().decode(ByteArrayOutputStream())
+        decodingStream.write(truncated)
+        val error = shouldThrow<IOException> { decodingStream.finishDecoding() }
+
+        error.cause shouldBe beOfType<EOFException>()
+    }
+
+    @Test
+    fun canDecodeInputStreamAsItIsRead() {
+        val input = (1..100_000).joinToString("\n") { "line $it" }
+        val compressedOutput = ByteArrayOutputStream()
+        GZIPOutputStream(compressedOutput).use { it.write(input.toByteArray()) }
+        val compressed = ByteArrayInputStream(compressedOutput.toByteArray())
+
+        GzipDecoder().decode(compressed).use { decodedStream ->
+            val firstBytes = ByteArray(5)
+            decodedStream.read(firstBytes) shouldBe 5
+            String(firstBytes) shouldBe "line "
+
+            // only a small part of the compressed stream should have been consumed
+            (compressed.available() > compressedOutput.size() - 1024) shouldBe true
+
+            (String(firstBytes) + String(decodedStream.readBytes())) shouldBe input
+        }
+    }
+
+    @Test
+    fun truncatedGzipInputStreamCannotBeDecoded() {
+        val compressedOutput = ByteArrayOutputStream()
+        GZIPOutputStream(compressedOutput).use {
+            it.write("Hello GZIP encoding!".repeat(10).toByteArray())
+        }
+        val truncated = compressedOutput.toByteArray().let { it.copyOf(it.size - 4) }
+
+        val error = shouldThrow<IOException> {
+            GzipDecoder().decode(ByteArrayInputStream(truncated)).readBytes()
+        }
+
+        error.cause shouldBe beOfType<EOFException>()
+    }
+
 }
 
 class ChunkDecoderTest {
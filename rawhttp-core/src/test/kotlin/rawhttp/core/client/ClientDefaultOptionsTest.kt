@@ -1,5 +1,6 @@
 package rawhttp.core.client
 
+import io.kotest.matchers.string.shouldStartWith
 import io.kotest.matchers.types.shouldBeSameInstanceAs
 import io.kotest.matchers.types.shouldNotBeSameInstanceAs
 import org.junit.jupiter.api.Test
@@ -14,6 +15,11 @@ class ClientDefaultOptionsTest {
 
         val httpSocket1 = options.getSocket(URI.create("http://example.org"))
         val httpsSocket1 = options.getSocket(URI.create("https://example.org"))
+
+        // sockets are only reused once they are given back to the pool
+        options.connectionPool.release(httpSocket1)
+        options.connectionPool.release(httpsSocket1)
+
         val httpSocket2 = options.getSocket(URI.create("http://example.org"))
         val httpsSocket2 = options.getSocket(URI.create("https://example.org"))
 
@@ -24,4 +30,14 @@ class ClientDefaultOptionsTest {
         httpSocket2 shouldNotBeSameInstanceAs httpsSocket2
     }
 
+    @Test
+    fun canUseVirtualThreadsIfAvailable() {
+        DefaultOptions(true).use { options ->
+            val threadName = options.executorService.submit<String> { Thread.currentThread().name }.get()
+
+            // on Java versions older than 21, virtual Threads are not used, but the Thread names are the same
+            threadName shouldStartWith "tcp-rawhttp-client-"
+        }
+    }
+
 }
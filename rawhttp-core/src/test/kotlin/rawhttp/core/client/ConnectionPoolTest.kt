@@ -0,0 +1,227 @@
+package rawhttp.core.client
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.matchers.ints.shouldBeLessThanOrEqual
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldStartWith
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import io.kotest.matchers.types.shouldNotBeSameInstanceAs
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import rawhttp.core.RawHttp
+import rawhttp.core.server.TcpRawHttpServer
+import java.io.IOException
+import java.net.ServerSocket
+import java.net.Socket
+import java.time.Duration
+import java.util.Optional
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
+
+class ConnectionPoolTest {
+
+    private lateinit var serverSocket: ServerSocket
+    private val accepted = CopyOnWriteArrayList<Socket>()
+
+    @BeforeEach
+    fun startServer() {
+        serverSocket = ServerSocket(8096)
+        thread(isDaemon = true) {
+            try {
+                while (true) {
+                    accepted.add(serverSocket.accept())
+                }
+            } catch (e: IOException) {
+                // server closed
+            }
+        }
+    }
+
+    @AfterEach
+    fun stopServer() {
+        serverSocket.close()
+        accepted.forEach { it.close() }
+    }
+
+    private fun connect() = Socket("localhost", 8096)
+
+    @Test
+    fun reusesReleasedConnections() {
+        ConnectionPool.createDefault().use { pool ->
+            val socket1 = pool.lease("a", ::connect)
+            val socket2 = pool.lease("a", ::connect)
+            socket1 shouldNotBeSameInstanceAs socket2
+
+            pool.release(socket1)
+            pool.release(socket2)
+
+            // the most recently used connection is reused first
+            pool.lease("a", ::connect) shouldBeSameInstanceAs socket2
+            pool.lease("a", ::connect) shouldBeSameInstanceAs socket1
+            pool.lease("b", ::connect) shouldNotBeSameInstanceAs socket1
+
+            pool.leaseCount shouldBe 5L
+            pool.createdCount shouldBe 3L
+            pool.leasedCount shouldBe 3
+            pool.idleCount shouldBe 0
+        }
+    }
+
+    @Test
+    fun callersWaitForConnectionsWhenLimitIsReached() {
+        val pool = ConnectionPool.newBuilder()
+            .withMaxConnectionsPerHost(1)
+            .withLeaseTimeout(Duration.ofMillis(100))
+            .build()
+
+        pool.use {
+            val socket = pool.lease("a", ::connect)
+
+            shouldThrow<IOException> {
+                pool.lease("a", ::connect)
+            }.message shouldStartWith "Timeout waiting for a connection"
+
+            // other routes are not affected
+            pool.release(pool.lease("b", ::connect))
+
+            thread {
+                Thread.sleep(50)
+                pool.release(socket)
+            }
+
+            pool.lease("a", ::connect) shouldBeSameInstanceAs socket
+            pool.waitCount shouldBe 2L
+            pool.createdCount shouldBe 2L
+        }
+    }
+
+    @Test
+    fun evictsLeastRecentlyUsedIdleConnectionWhenTotalLimitIsReached() {
+        ConnectionPool.newBuilder().withMaxConnections(2).build().use { pool ->
+            val socketA = pool.lease("a", ::connect)
+            val socketB = pool.lease("b", ::connect)
+            pool.release(socketA)
+            pool.release(socketB)
+
+            pool.lease("c", ::connect)
+
+            socketA.isClosed shouldBe true
+            socketB.isClosed shouldBe false
+            pool.evictionCount shouldBe 1L
+            pool.idleCount shouldBe 1
+        }
+    }
+
+    @Test
+    fun evictedConnectionsAreClosed() {
+        ConnectionPool.createDefault().use { pool ->
+            val socket = pool.lease("a", ::connect)
+            pool.evict(socket)
+
+            socket.isClosed shouldBe true
+            pool.leasedCount shouldBe 0
+            pool.evictionCount shouldBe 1L
+            pool.lease("a", ::connect) shouldNotBeSameInstanceAs socket
+        }
+    }
+
+    @Test
+    fun doesNotReuseConnectionClosedByServer() {
+        ConnectionPool.newBuilder().withValidateAfterInactivity(Duration.ZERO).build().use { pool ->
+            val socket = pool.lease("a", ::connect)
+            pool.release(socket)
+
+            // wait for the server to accept the connection, then close it
+            while (accepted.isEmpty()) Thread.sleep(5)
+            accepted.first().close()
+            Thread.sleep(50)
+
+            pool.lease("a", ::connect) shouldNotBeSameInstanceAs socket
+            socket.isClosed shouldBe true
+            pool.evictionCount shouldBe 1L
+        }
+    }
+
+    @Test
+    fun reaperClosesIdleConnections() {
+        val pool = ConnectionPool.newBuilder()
+            .withIdleTimeout(Duration.ofMillis(50))
+            .withReaperInterval(Duration.ofMillis(20))
+            .build()
+
+        pool.use {
+            val socket = pool.lease("a", ::connect)
+            pool.release(socket)
+            pool.idleCount shouldBe 1
+
+            Thread.sleep(250)
+
+            pool.idleCount shouldBe 0
+            socket.isClosed shouldBe true
+            pool.evictionCount shouldBe 1L
+        }
+    }
+
+    @Test
+    fun connectionsAreClosedAfterMaxLifetime() {
+        ConnectionPool.newBuilder().withMaxLifetime(Duration.ofMillis(50)).build().use { pool ->
+            val socket = pool.lease("a", ::connect)
+            Thread.sleep(80)
+            pool.release(socket)
+
+            socket.isClosed shouldBe true
+            pool.idleCount shouldBe 0
+        }
+    }
+
+    @Test
+    fun closingThePoolClosesAllConnections() {
+        val pool = ConnectionPool.createDefault()
+        val leased = pool.lease("a", ::connect)
+        val idle = pool.lease("a", ::connect)
+        pool.release(idle)
+
+        pool.close()
+
+        leased.isClosed shouldBe true
+        idle.isClosed shouldBe true
+        shouldThrow<IOException> {
+            pool.lease("a", ::connect)
+        }
+    }
+
+    @Test
+    fun concurrentRequestsToTheSameHostUseDifferentConnections() {
+        serverSocket.close()
+        val http = RawHttp()
+        val server = TcpRawHttpServer(8096)
+        server.start { request ->
+            Optional.of(http.parseResponse("HTTP/1.1 200 OK\r\nContent-Length: ${request.uri.path.length}\r\n\r\n${request.uri.path}"))
+        }
+        val options = TcpRawHttpClient.DefaultOptions(
+            false, ConnectionPool.newBuilder().withMaxConnectionsPerHost(4).build()
+        )
+        val executor = Executors.newFixedThreadPool(8)
+        try {
+            TcpRawHttpClient(options).use { client ->
+                val futures = (1..200).map { i ->
+                    executor.submit<String> {
+                        client.send(http.parseRequest("GET http://localhost:8096/$i"))
+                            .eagerly().body.get().asRawString(Charsets.UTF_8)
+                    }
+                }
+
+                futures.map { it.get(10, TimeUnit.SECONDS) } shouldBe (1..200).map { "/$it" }
+                options.connectionPool.createdCount.toInt() shouldBeLessThanOrEqual 4
+                options.connectionPool.leasedCount shouldBe 0
+            }
+        } finally {
+            executor.shutdownNow()
+            server.stop()
+        }
+    }
+
+}
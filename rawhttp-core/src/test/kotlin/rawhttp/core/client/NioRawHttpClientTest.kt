@@ -0,0 +1,224 @@
+package rawhttp.core.client
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeInstanceOf
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+import rawhttp.core.RawHttp
+import rawhttp.core.RawHttp.waitForPortToBeTaken
+import rawhttp.core.RawHttpOptions
+import rawhttp.core.body.ChunkedBody
+import rawhttp.core.body.EagerBodyReader
+import rawhttp.core.body.StringBody
+import rawhttp.core.errors.BodyTooLargeException
+import rawhttp.core.errors.InvalidHttpRequest
+import rawhttp.core.server.TcpRawHttpServer
+import java.io.ByteArrayInputStream
+import java.io.IOException
+import java.net.ConnectException
+import java.net.ServerSocket
+import java.net.Socket
+import java.time.Duration
+import java.util.Optional
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.concurrent.thread
+
+class NioRawHttpClientTest {
+
+    companion object {
+        private val http = RawHttp()
+        private val acceptedConnections = AtomicInteger()
+        private val server = TcpRawHttpServer(object : TcpRawHttpServer.TcpRawHttpServerOptions {
+            override fun getServerSocket() = ServerSocket(8103)
+
+            override fun configureClientSocket(socket: Socket): Socket {
+                acceptedConnections.incrementAndGet()
+                return super.configureClientSocket(socket)
+            }
+        })
+
+        @BeforeAll
+        @JvmStatic
+        fun startServer() {
+            server.start { request ->
+                val path = request.uri.path
+                val body = "${request.method} $path" +
+                        request.body.map { ":" + it.decodeBodyToString(Charsets.UTF_8) }.orElse("")
+                Optional.of(when (path) {
+                    "/chunked" -> http.parseResponse("HTTP/1.1 200 OK")
+                        .withBody(ChunkedBody(ByteArrayInputStream(body.toByteArray()), null, 3))
+                    "/redirect" -> http.parseResponse("HTTP/1.1 302 Found\r\nLocation: /target\r\nContent-Length: 0")
+                    "/close" -> http.parseResponse("HTTP/1.1 200 OK\r\nConnection: close\r\n" +
+                            "Content-Length: ${body.length}\r\n\r\n$body")
+                    else -> http.parseResponse("HTTP/1.1 200 OK\r\nContent-Length: ${body.length}\r\n\r\n$body")
+                })
+            }
+            waitForPortToBeTaken(8103, Duration.ofSeconds(2))
+        }
+
+        @AfterAll
+        @JvmStatic
+        fun stopServer() {
+            server.stop()
+        }
+    }
+
+    private fun NioRawHttpClient.sendAndGetBody(request: String, body: String? = null): String {
+        val rawRequest = http.parseRequest(request).let { if (body == null) it else it.withBody(StringBody(body)) }
+        return sendAsync(rawRequest).get(5, TimeUnit.SECONDS).body.get().decodeBodyToString(Charsets.UTF_8)
+    }
+
+    @Test
+    fun canSendRequestsOnPersistentConnection() {
+        NioRawHttpClient().use { client ->
+            client.sendAndGetBody("GET http://localhost:8103/hello") shouldBe "GET /hello"
+            val connections = acceptedConnections.get()
+
+            client.sendAndGetBody("POST http://localhost:8103/data", body = "hello") shouldBe "POST /data:hello"
+            client.sendAndGetBody("GET http://localhost:8103/chunked") shouldBe "GET /chunked"
+
+            val head = client.sendAsync(http.parseRequest("HEAD http://localhost:8103/hello"))
+                .get(5, TimeUnit.SECONDS)
+            head.statusCode shouldBe 200
+            head.body.isPresent shouldBe false
+
+            acceptedConnections.get() shouldBe connections
+        }
+    }
+
+    @Test
+    fun connectionIsNotReusedWhenServerClosesIt() {
+        NioRawHttpClient().use { client ->
+            client.sendAndGetBody("GET http://localhost:8103/close") shouldBe "GET /close"
+            val connections = acceptedConnections.get()
+
+            client.sendAndGetBody("GET http://localhost:8103/after") shouldBe "GET /after"
+
+            acceptedConnections.get() shouldBe connections + 1
+        }
+    }
+
+    @Test
+    fun canSendManyRequestsConcurrently() {
+        NioRawHttpClient().use { client ->
+            val responses = (1..100).map { i ->
+                client.sendAsync(http.parseRequest("GET http://localhost:8103/r$i"))
+            }
+
+            responses.map { it.get(10, TimeUnit.SECONDS).body.get().decodeBodyToString(Charsets.UTF_8) } shouldBe
+                    (1..100).map { i -> "GET /r$i" }
+        }
+    }
+
+    @Test
+    fun canFollowRedirects() {
+        NioRawHttpClient().use { client ->
+            val response = RedirectingAsyncRawHttpClient(client)
+                .sendAsync(http.parseRequest("GET http://localhost:8103/redirect"))
+                .get(5, TimeUnit.SECONDS)
+
+            response.statusCode shouldBe 200
+            response.body.get().decodeBodyToString(Charsets.UTF_8) shouldBe "GET /target"
+        }
+    }
+
+    @Test
+    fun failedRequestsCompleteExceptionally() {
+        NioRawHttpClient().use { client ->
+            shouldThrow<ExecutionException> {
+                client.sendAsync(http.parseRequest("GET http://localhost:8104/")).get(5, TimeUnit.SECONDS)
+            }.cause.shouldBeInstanceOf<ConnectException>()
+
+            shouldThrow<ExecutionException> {
+                client.sendAsync(http.parseRequest("GET https://localhost:8103/")).get(5, TimeUnit.SECONDS)
+            }.cause?.message shouldBe "Unsupported URI scheme: https"
+        }
+    }
+
+    @Test
+    fun responsesKeepTheRawBytesOfTheirBody() {
+        NioRawHttpClient().use { client ->
+            val response = client.sendAsync(http.parseRequest("GET http://localhost:8103/chunked"))
+                .get(5, TimeUnit.SECONDS)
+
+            val body = response.body.get()
+            body.shouldBeInstanceOf<EagerBodyReader>()
+            body.isInMemory shouldBe true
+            // the chunked framing is kept, as when the response is parsed from a stream
+            body.asRawBytes().toString(Charsets.US_ASCII) shouldBe
+                    "3\r\nGET\r\n3\r\n /c\r\n3\r\nhun\r\n3\r\nked\r\n0\r\n\r\n"
+            body.asChunkedBodyContents().get().data.toString(Charsets.US_ASCII) shouldBe "GET /chunked"
+        }
+    }
+
+    @Test
+    fun responsesLargerThanMaxBodySizeFail() {
+        val options = object : NioRawHttpClient.NioRawHttpClientOptions {
+            override fun getRawHttp() = RawHttp(RawHttpOptions.newBuilder().withMaxBodySize(11).build())
+        }
+        NioRawHttpClient(options).use { client ->
+            client.sendAndGetBody("GET http://localhost:8103/small") shouldBe "GET /small"
+
+            shouldThrow<ExecutionException> {
+                client.sendAndGetBody("GET http://localhost:8103/much-larger")
+            }.cause.shouldBeInstanceOf<BodyTooLargeException>()
+
+            shouldThrow<ExecutionException> {
+                client.sendAndGetBody("GET http://localhost:8103/chunked")
+            }.cause.shouldBeInstanceOf<BodyTooLargeException>()
+        }
+    }
+
+    @Test
+    fun onlyIdempotentRequestsAreSentAgainWhenReusedConnectionFails() {
+        val receivedRequests = AtomicInteger()
+        ServerSocket(8107).use { serverSocket ->
+            thread(isDaemon = true) {
+                while (true) {
+                    val socket = try {
+                        serverSocket.accept()
+                    } catch (e: IOException) {
+                        break
+                    }
+                    thread(isDaemon = true) {
+                        // answer the first request, then close the connection after receiving the next one
+                        socket.use {
+                            http.parseRequest(socket.getInputStream()).eagerly()
+                            receivedRequests.incrementAndGet()
+                            http.parseResponse("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok")
+                                .writeTo(socket.getOutputStream())
+                            try {
+                                http.parseRequest(socket.getInputStream()).eagerly()
+                                receivedRequests.incrementAndGet()
+                            } catch (e: InvalidHttpRequest) {
+                                // the client closed the connection
+                            }
+                        }
+                    }
+                }
+            }
+            waitForPortToBeTaken(8107, Duration.ofSeconds(2))
+
+            NioRawHttpClient().use { client ->
+                client.sendAndGetBody("GET http://localhost:8107/first") shouldBe "ok"
+
+                // the server may have acted on the POST request, so it must not be sent again
+                shouldThrow<ExecutionException> {
+                    client.sendAndGetBody("POST http://localhost:8107/data", body = "hello")
+                }.cause.shouldBeInstanceOf<IOException>()
+                receivedRequests.get() shouldBe 2
+
+                client.sendAndGetBody("GET http://localhost:8107/second") shouldBe "ok"
+
+                // the GET request is idempotent, so it is sent again on a new connection
+                client.sendAndGetBody("GET http://localhost:8107/third") shouldBe "ok"
+                receivedRequests.get() shouldBe 5
+            }
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+package rawhttp.core.client
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.matchers.shouldBe
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+import rawhttp.core.RawHttp
+import rawhttp.core.RawHttp.waitForPortToBeTaken
+import rawhttp.core.body.StringBody
+import rawhttp.core.server.TcpRawHttpServer
+import java.io.IOException
+import java.net.ServerSocket
+import java.net.Socket
+import java.time.Duration
+import java.util.Optional
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
+
+class TcpRawHttpClientPipeliningTest {
+
+    companion object {
+        private val http = RawHttp()
+        private val server = TcpRawHttpServer(8097)
+
+        @BeforeAll
+        @JvmStatic
+        fun startServer() {
+            server.start { request ->
+                val path = request.uri.path
+                val body = path + request.body.map { ":" + it.decodeBodyToString(Charsets.UTF_8) }.orElse("")
+                val connection = if (path.startsWith("/close")) "Connection: close\r\n" else ""
+                Optional.of(http.parseResponse("HTTP/1.1 200 OK\r\n$connection" +
+                        "Content-Length: ${body.length}\r\n\r\n$body"))
+            }
+            waitForPortToBeTaken(8097, Duration.ofSeconds(2))
+        }
+
+        @AfterAll
+        @JvmStatic
+        fun stopServer() {
+            server.stop()
+        }
+    }
+
+    @Test
+    fun responsesArePairedWithPipelinedRequestsInOrder() {
+        val options = TcpRawHttpClient.DefaultOptions()
+        TcpRawHttpClient(options).use { client ->
+            val requests = (1..50).map { i ->
+                if (i % 2 == 0) http.parseRequest("GET http://localhost:8097/get$i")
+                else http.parseRequest("POST http://localhost:8097/post$i\r\nContent-Length: ${"$i".length}\r\n\r\n$i")
+            }
+
+            val responses = client.sendPipelined(requests)
+
+            responses.map { it.get(5, TimeUnit.SECONDS).body.get().decodeBodyToString(Charsets.UTF_8) } shouldBe
+                    (1..50).map { i -> if (i % 2 == 0) "/get$i" else "/post$i:$i" }
+
+            options.connectionPool.createdCount shouldBe 1L
+            options.connectionPool.leasedCount shouldBe 0
+        }
+    }
+
+    @Test
+    fun requestsAfterConnectionCloseAreSentAgainOnNewConnection() {
+        val options = TcpRawHttpClient.DefaultOptions()
+        TcpRawHttpClient(options).use { client ->
+            val paths = listOf("/a", "/close-b", "/c", "/d", "/close-e", "/f")
+            val requests = paths.map { http.parseRequest("GET http://localhost:8097$it") }
+
+            val responses = client.sendPipelined(requests)
+
+            responses.map { it.get(5, TimeUnit.SECONDS).body.get().decodeBodyToString(Charsets.UTF_8) } shouldBe paths
+
+            options.connectionPool.createdCount shouldBe 3L
+            options.connectionPool.evictionCount shouldBe 2L
+            options.connectionPool.leasedCount shouldBe 0
+        }
+    }
+
+    @Test
+    fun pipelinedRequestsMustHaveTheSameOrigin() {
+        TcpRawHttpClient().use { client ->
+            shouldThrow<IllegalArgumentException> {
+                client.sendPipelined(listOf(
+                    http.parseRequest("GET http://localhost:8097/a"),
+                    http.parseRequest("GET http://127.0.0.1:8097/b")
+                ))
+            }
+        }
+    }
+
+    @Test
+    fun responseFuturesFailIfConnectionIsLost() {
+        // a server which sends a single response, then closes the connection without warning
+        val serverSocket = ServerSocket(8098)
+        thread(isDaemon = true) {
+            serverSocket.accept().use { socket ->
+                http.parseRequest(socket.getInputStream()).eagerly()
+                socket.getOutputStream().write("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nhi".toByteArray())
+                socket.shutdownOutput()
+                // wait for the client to close the connection
+                socket.getInputStream().readBytes()
+            }
+        }
+        val options = TcpRawHttpClient.DefaultOptions()
+        try {
+            TcpRawHttpClient(options).use { client ->
+                val responses = client.sendPipelined(listOf(
+                    http.parseRequest("GET http://localhost:8098/a"),
+                    http.parseRequest("GET http://localhost:8098/b")
+                ))
+
+                responses[0].get(5, TimeUnit.SECONDS).body.get().decodeBodyToString(Charsets.UTF_8) shouldBe "hi"
+                shouldThrow<ExecutionException> {
+                    responses[1].get(5, TimeUnit.SECONDS)
+                }
+                options.connectionPool.leasedCount shouldBe 0
+            }
+        } finally {
+            serverSocket.close()
+        }
+    }
+
+    @Test
+    fun waitingForPipelinedResponsesDoesNotPreventRequestBodiesFromBeingSent() {
+        // a server which accepts connections, but never responds
+        val serverSocket = ServerSocket(8108)
+        val sockets = CopyOnWriteArrayList<Socket>()
+        thread(isDaemon = true) {
+            while (true) {
+                sockets.add(try {
+                    serverSocket.accept()
+                } catch (e: IOException) {
+                    break
+                })
+            }
+        }
+        try {
+            TcpRawHttpClient().use { client ->
+                // more batches than Threads available to send request bodies
+                repeat(6) {
+                    client.sendPipelined(listOf(http.parseRequest("GET http://localhost:8108/a")))
+                }
+
+                // a body larger than the inline limit is sent by a Thread of the options' executor
+                val body = "x".repeat(TcpRawHttpClient.MAX_INLINE_BODY_SIZE + 1)
+                val response = CompletableFuture.supplyAsync {
+                    client.send(http.parseRequest("POST http://localhost:8097/post").withBody(StringBody(body)))
+                        .eagerly()
+                }.get(2, TimeUnit.SECONDS)
+
+                response.statusCode shouldBe 200
+            }
+        } finally {
+            serverSocket.close()
+            sockets.forEach { it.close() }
+        }
+    }
+
+}
@@ -0,0 +1,210 @@
+package rawhttp.core.client
+
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+import rawhttp.core.RawHttp
+import rawhttp.core.RawHttp.waitForPortToBeTaken
+import rawhttp.core.body.ChunkedBody
+import rawhttp.core.body.StringBody
+import rawhttp.core.server.TcpRawHttpServer
+import java.io.ByteArrayInputStream
+import java.io.InputStream
+import java.io.OutputStream
+import java.net.ServerSocket
+import java.net.Socket
+import java.time.Duration
+import java.util.Optional
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.concurrent.thread
+
+private class Write(val threadName: String, val length: Int)
+
+private class RecordingSocket(host: String, port: Int) : Socket(host, port) {
+    val writes = CopyOnWriteArrayList<Write>()
+    private val delegate: OutputStream = super.getOutputStream()
+    private val recordingStream = object : OutputStream() {
+        override fun write(b: Int) {
+            writes.add(Write(Thread.currentThread().name, 1))
+            delegate.write(b)
+        }
+
+        override fun write(b: ByteArray, off: Int, len: Int) {
+            writes.add(Write(Thread.currentThread().name, len))
+            delegate.write(b, off, len)
+        }
+    }
+
+    override fun getOutputStream(): OutputStream = recordingStream
+}
+
+private class RecordingOptions : TcpRawHttpClient.DefaultOptions() {
+    val sockets = CopyOnWriteArrayList<RecordingSocket>()
+
+    override fun createSocket(useHttps: Boolean, host: String, port: Int): Socket {
+        return RecordingSocket(host, port).also { sockets.add(it) }
+    }
+}
+
+class TcpRawHttpClientSendTest {
+
+    companion object {
+        private val http = RawHttp()
+        private val server = TcpRawHttpServer(8102)
+
+        @BeforeAll
+        @JvmStatic
+        fun startServer() {
+            server.start { request ->
+                val body = request.body.map { it.decodeBody().size.toString() }.orElse("no body")
+                Optional.of(http.parseResponse("HTTP/1.1 200 OK\r\n" +
+                        "Content-Length: ${body.length}\r\n\r\n$body"))
+            }
+            waitForPortToBeTaken(8102, Duration.ofSeconds(2))
+        }
+
+        @AfterAll
+        @JvmStatic
+        fun stopServer() {
+            server.stop()
+        }
+    }
+
+    @Test
+    fun smallRequestsAreWrittenByTheCallingThreadWithSingleWrite() {
+        val options = RecordingOptions()
+        TcpRawHttpClient(options).use { client ->
+            val get = http.parseRequest("GET http://localhost:8102/hello")
+            val post = http.parseRequest("POST http://localhost:8102/hello").withBody(StringBody("hello world"))
+
+            client.send(get).eagerly().body.get().decodeBodyToString(Charsets.UTF_8) shouldBe "no body"
+            client.send(post).eagerly().body.get().decodeBodyToString(Charsets.UTF_8) shouldBe "11"
+
+            options.sockets.size shouldBe 1
+            val writes = options.sockets[0].writes
+            writes.size shouldBe 2
+            writes.map { it.threadName }.toSet() shouldBe setOf(Thread.currentThread().name)
+            writes[0].length shouldBe get.toString().length
+        }
+    }
+
+    @Test
+    fun largeStreamedBodyIsWrittenByAnotherThread() {
+        val options = RecordingOptions()
+        TcpRawHttpClient(options).use { client ->
+            val bytes = ByteArray(1024 * 1024) { it.toByte() }
+            val request = http.parseRequest("PUT http://localhost:8102/data")
+                .withBody(ChunkedBody(ByteArrayInputStream(bytes)))
+
+            client.send(request).eagerly().body.get().decodeBodyToString(Charsets.UTF_8) shouldBe "${bytes.size}"
+
+            val writes = options.sockets[0].writes
+            // the request head is written by the calling Thread
+            writes[0].threadName shouldBe Thread.currentThread().name
+            writes.drop(1).forEach { it.threadName shouldNotBe Thread.currentThread().name }
+        }
+    }
+
+    @Test
+    fun responsesReadAsDecodedStreamGiveBackTheirConnection() {
+        val options = TcpRawHttpClient.DefaultOptions()
+        TcpRawHttpClient(options).use { client ->
+            // more requests than the maximum number of connections per host in the pool
+            repeat(20) {
+                val response = client.send(http.parseRequest("GET http://localhost:8102/hello"))
+                response.body.get().asDecodedStream().readBytes().toString(Charsets.UTF_8) shouldBe "no body"
+            }
+
+            // closing the stream before the end of the body also gives back the connection
+            repeat(20) {
+                client.send(http.parseRequest("GET http://localhost:8102/hello")).body.get().asDecodedStream().close()
+            }
+
+            options.connectionPool.leasedCount shouldBe 0
+        }
+    }
+
+    @Test
+    fun closingUnreadResponseBodiesFreesTheirConnection() {
+        val options = TcpRawHttpClient.DefaultOptions()
+        TcpRawHttpClient(options).use { client ->
+            // more requests than the maximum number of connections per host in the pool
+            repeat(20) {
+                client.send(http.parseRequest("GET http://localhost:8102/hello")).body.get().close()
+            }
+
+            // a body read only from its raw stream must also be closed
+            repeat(20) {
+                val body = client.send(http.parseRequest("GET http://localhost:8102/hello")).body.get()
+                body.asRawStream().read() shouldNotBe -1
+                body.close()
+            }
+
+            options.connectionPool.leasedCount shouldBe 0
+            options.connectionPool.waitCount shouldBe 0L
+        }
+    }
+
+    @Test
+    fun connectionIsNotReusedWhenResponseArrivesBeforeTheRequestBodyIsSent() {
+        val connections = AtomicInteger()
+        val serverSocket = ServerSocket(8109)
+        thread(isDaemon = true) {
+            while (!serverSocket.isClosed) {
+                val socket = try {
+                    serverSocket.accept()
+                } catch (e: Exception) {
+                    break
+                }
+                connections.incrementAndGet()
+                thread(isDaemon = true) {
+                    socket.use {
+                        // respond as soon as the request head is received, then discard anything else
+                        val input = it.getInputStream()
+                        http.parseRequest(input)
+                        it.getOutputStream().write("HTTP/1.1 413 Payload Too Large\r\nContent-Length: 0\r\n\r\n"
+                            .toByteArray())
+                        try {
+                            val buffer = ByteArray(8192)
+                            while (input.read(buffer) >= 0) {
+                                // discard the rest of the request
+                            }
+                        } catch (e: Exception) {
+                            // client closed the connection
+                        }
+                    }
+                }
+            }
+        }
+
+        // a body that is never fully sent
+        val endlessBody = object : InputStream() {
+            override fun read() = 'x'.code
+
+            override fun read(b: ByteArray, off: Int, len: Int): Int {
+                Thread.sleep(5)
+                b.fill('x'.code.toByte(), off, off + len)
+                return len
+            }
+        }
+
+        val options = TcpRawHttpClient.DefaultOptions()
+        try {
+            TcpRawHttpClient(options).use { client ->
+                val upload = http.parseRequest("POST http://localhost:8109/upload").withBody(ChunkedBody(endlessBody))
+                client.send(upload).statusCode shouldBe 413
+
+                // the rest of the upload could still be written to the connection, so it is not reused
+                options.connectionPool.evictionCount shouldBe 1L
+                client.send(http.parseRequest("GET http://localhost:8109/other")).statusCode shouldBe 413
+                connections.get() shouldBe 2
+            }
+        } finally {
+            serverSocket.close()
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+package rawhttp.core.server
+
+import io.kotest.matchers.optional.beEmpty
+import io.kotest.matchers.optional.shouldBePresent
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldHave
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+import rawhttp.core.RawHttp
+import rawhttp.core.RawHttp.waitForPortToBeTaken
+import rawhttp.core.body.EagerBodyReader
+import rawhttp.core.client.TcpRawHttpClient
+import rawhttp.core.validDateHeader
+import java.net.Socket
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+
+class NioRawHttpServerTests {
+
+    companion object {
+        private val http = RawHttp()
+        private val server = NioRawHttpServer(8095)
+        private val httpClient = TcpRawHttpClient()
+
+        @JvmStatic
+        @BeforeAll
+        fun beforeSpec() {
+            server.start(TcpRawHttpServerTests.TestRouter)
+            waitForPortToBeTaken(8095, Duration.ofSeconds(2))
+        }
+
+        @JvmStatic
+        @AfterAll
+        fun afterSpec() {
+            server.stop()
+            httpClient.close()
+        }
+    }
+
+    @Test
+    fun `Server can handle successful http client request`() {
+        val request = http.parseRequest("GET http://localhost:8095/hello")
+        val response = httpClient.send(request).eagerly()
+
+        response.statusCode shouldBe 200
+        response.headers shouldHave validDateHeader()
+        response.body shouldBePresent {
+            it.asRawString(Charsets.UTF_8) shouldBe "Hello RawHTTP!"
+        }
+    }
+
+    @Test
+    fun `Server can handle multiple requests on the same connection, including HEAD request`() {
+        val getRequest = http.parseRequest("GET http://localhost:8095/hello")
+        val headRequest = http.parseRequest("HEAD http://localhost:8095/hello")
+
+        repeat(3) {
+            val response = httpClient.send(getRequest).eagerly()
+            response.statusCode shouldBe 200
+            response.body shouldBePresent {
+                it.asRawString(Charsets.UTF_8) shouldBe "Hello RawHTTP!"
+            }
+
+            val headResponse = httpClient.send(headRequest).eagerly()
+            headResponse.statusCode shouldBe 200
+            headResponse.headers["Content-Length"] shouldBe listOf("14")
+            headResponse.body shouldBe beEmpty<EagerBodyReader>()
+        }
+    }
+
+    @Test
+    fun `Server returns default responses when the router fails or does not route`() {
+        val errorResponse = httpClient.send(http.parseRequest("GET http://localhost:8095/throw")).eagerly()
+
+        errorResponse.statusCode shouldBe 500
+        errorResponse.body shouldBePresent {
+            it.asRawString(Charsets.UTF_8) shouldBe "A Server Error has occurred."
+        }
+
+        val notFoundResponse = httpClient.send(http.parseRequest("GET http://localhost:8095/null")).eagerly()
+
+        notFoundResponse.statusCode shouldBe 404
+        notFoundResponse.body shouldBePresent {
+            it.asRawString(Charsets.UTF_8) shouldBe "Resource was not found."
+        }
+    }
+
+    @Test
+    fun `Server can handle requests arriving in several packets and pipelined requests`() {
+        Socket("0.0.0.0", 8095).use { socket ->
+            socket.soTimeout = 2_000
+            val out = socket.getOutputStream()
+
+            out.write("GET /hello HTTP/1.1\r\nHo".toByteArray())
+            out.flush()
+            Thread.sleep(50)
+            out.write(
+                ("st: localhost\r\n\r\n" +
+                        "POST /hello HTTP/1.1\r\nHost: localhost\r\nContent-Length: 4\r\n\r\nbody" +
+                        "GET /hello HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n").toByteArray()
+            )
+
+            val responses = (1..3).map { http.parseResponse(socket.getInputStream()).eagerly() }
+
+            responses.map { it.statusCode } shouldBe listOf(200, 200, 200)
+            responses.map { it.body.get().asRawString(StandardCharsets.UTF_8) } shouldBe
+                    listOf("Hello RawHTTP!", "Thanks", "Hello RawHTTP!")
+
+            // the server must close the connection after the last response
+            socket.getInputStream().read() shouldBe -1
+        }
+    }
+
+    @Test
+    fun `Idle connections do not prevent other clients from being served`() {
+        // more idle keep-alive connections than worker Threads
+        val idleSockets = (1..50).map {
+            Socket("0.0.0.0", 8095).apply {
+                soTimeout = 2_000
+                http.parseRequest("GET /hello HTTP/1.1\r\nHost: localhost").writeTo(getOutputStream())
+                http.parseResponse(getInputStream()).eagerly().statusCode shouldBe 200
+            }
+        }
+
+        try {
+            val response = httpClient.send(http.parseRequest("GET http://localhost:8095/hello")).eagerly()
+            response.statusCode shouldBe 200
+        } finally {
+            idleSockets.forEach { it.close() }
+        }
+    }
+
+    @Test
+    fun `Server gives the tunnel the bytes sent together with the CONNECT request`() {
+        val response = TcpRawHttpServerTests.connectAndSendTunnelBytes(8095)
+
+        response.lines().first() shouldBe "HTTP/1.1 200 Connection Established"
+        response.endsWith("\r\n\r\necho:hello") shouldBe true
+    }
+
+}
@@ -0,0 +1,145 @@
+package rawhttp.core.server
+
+import io.kotest.matchers.optional.shouldBeEmpty
+import io.kotest.matchers.optional.shouldBePresent
+import io.kotest.matchers.shouldBe
+import org.junit.jupiter.api.Test
+import rawhttp.core.RawHttp
+import rawhttp.core.RawHttp.waitForPortToBeTaken
+import rawhttp.core.RawHttpRequest
+import rawhttp.core.RawHttpResponse
+import rawhttp.core.body.StringBody
+import rawhttp.core.client.TcpRawHttpClient
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.net.ServerSocket
+import java.time.Duration
+import java.util.Optional
+import java.util.zip.GZIPInputStream
+
+class ResponseCompressorTest {
+
+    private val http = RawHttp()
+    private val compressor = ResponseCompressor.createDefault()
+    private val json = (1..1000).joinToString(",", "[", "]") { "{\"id\":$it}" }
+
+    private fun request(acceptEncoding: String?) = http.parseRequest(
+        "GET /json\r\nHost: localhost" + (acceptEncoding?.let { "\r\nAccept-Encoding: $it" } ?: "")
+    )
+
+    private fun jsonResponse(body: String = json) = http.parseResponse("HTTP/1.1 200 OK\r\nETag: \"v1\"")
+        .withBody(StringBody(body, "application/json"))
+
+    private fun RawHttpResponse<*>.roundTrip(): RawHttpResponse<*> {
+        val out = ByteArrayOutputStream()
+        writeTo(out)
+        return http.parseResponse(ByteArrayInputStream(out.toByteArray())).eagerly()
+    }
+
+    @Test
+    fun selectsEncodingByQValue() {
+        compressor.selectEncoder(listOf("deflate;q=0.5, gzip;q=0.8")).map { it.encodingName() } shouldBePresent {
+            it shouldBe "gzip"
+        }
+        compressor.selectEncoder(listOf("gzip;q=0.1", "deflate")).map { it.encodingName() } shouldBePresent {
+            it shouldBe "deflate"
+        }
+        compressor.selectEncoder(listOf("deflate, gzip")).map { it.encodingName() } shouldBePresent {
+            it shouldBe "gzip"
+        }
+        compressor.selectEncoder(listOf("gzip;q=0, *;q=0.2")).map { it.encodingName() } shouldBePresent {
+            it shouldBe "deflate"
+        }
+        compressor.selectEncoder(listOf("br, identity")).shouldBeEmpty()
+        compressor.selectEncoder(listOf("*;q=0")).shouldBeEmpty()
+        compressor.selectEncoder(emptyList()).shouldBeEmpty()
+    }
+
+    @Test
+    fun parsesAcceptEncodingQValues() {
+        val qualityByCoding = ResponseCompressor.parseAcceptEncoding(listOf("GZIP;q=0.5, br", "*;q=0.1, x;q=bad"))
+
+        qualityByCoding shouldBe mapOf("gzip" to 0.5f, "br" to 1.0f, "*" to 0.1f, "x" to 0.0f)
+        ResponseCompressor.qualityOf(qualityByCoding, "Gzip") shouldBe 0.5f
+        ResponseCompressor.qualityOf(qualityByCoding, "deflate") shouldBe 0.1f
+        ResponseCompressor.qualityOf(emptyMap(), "gzip") shouldBe 0.0f
+    }
+
+    @Test
+    fun compressesResponseWithChunkedBody() {
+        val response = compressor.compress(request("gzip"), jsonResponse()).roundTrip()
+
+        response.headers["Content-Encoding"] shouldBe listOf("gzip")
+        response.headers["Transfer-Encoding"] shouldBe listOf("chunked")
+        response.headers["Vary"] shouldBe listOf("Accept-Encoding")
+        response.headers["ETag"] shouldBe listOf("W/\"v1\"")
+        response.headers["Content-Length"] shouldBe emptyList()
+
+        val gzipped = response.body.get().asChunkedBodyContents().get().data
+        (gzipped.size < json.length / 4) shouldBe true
+        GZIPInputStream(ByteArrayInputStream(gzipped)).readBytes().toString(Charsets.UTF_8) shouldBe json
+        response.body.get().decodeBodyToString(Charsets.UTF_8) shouldBe json
+    }
+
+    @Test
+    fun doesNotCompressSmallResponses() {
+        val response = compressor.compress(request("gzip"), jsonResponse("[]"))
+
+        response.headers["Content-Encoding"] shouldBe emptyList()
+        response.headers["Vary"] shouldBe emptyList()
+        response.headers["Content-Length"] shouldBe listOf("2")
+    }
+
+    @Test
+    fun doesNotCompressIncompressibleContentTypes() {
+        val response = compressor.compress(request("gzip"), http.parseResponse("HTTP/1.1 200 OK")
+            .withBody(StringBody(json, "image/png")))
+
+        response.headers["Content-Encoding"] shouldBe emptyList()
+        response.headers["Vary"] shouldBe emptyList()
+    }
+
+    @Test
+    fun doesNotCompressIfClientDoesNotAcceptEncoding() {
+        val response = compressor.compress(request(null), jsonResponse()).roundTrip()
+
+        response.headers["Content-Encoding"] shouldBe emptyList()
+        response.headers["Vary"] shouldBe listOf("Accept-Encoding")
+        response.headers["ETag"] shouldBe listOf("\"v1\"")
+        response.body.get().asRawString(Charsets.UTF_8) shouldBe json
+    }
+
+    @Test
+    fun doesNotCompressResponsesToHttp10Requests() {
+        val request = http.parseRequest("GET /json HTTP/1.0\r\nAccept-Encoding: gzip")
+
+        val response = compressor.compress(request, jsonResponse())
+
+        response.headers["Content-Encoding"] shouldBe emptyList()
+    }
+
+    @Test
+    fun canCompressResponsesSentByServer() {
+        val server = TcpRawHttpServer(object : TcpRawHttpServer.TcpRawHttpServerOptions {
+            override fun getServerSocket() = ServerSocket(8101)
+
+            override fun onResponse(request: RawHttpRequest, response: RawHttpResponse<Void>) =
+                compressor.compress(request, super.onResponse(request, response))
+        })
+        server.start { Optional.of(jsonResponse()) }
+        try {
+            waitForPortToBeTaken(8101, Duration.ofSeconds(2))
+            TcpRawHttpClient().use { client ->
+                val response = client.send(http.parseRequest("GET http://localhost:8101/json\r\n" +
+                        "Accept-Encoding: deflate")).eagerly()
+
+                response.headers["Content-Encoding"] shouldBe listOf("deflate")
+                response.headers["Server"] shouldBe listOf("RawHTTP")
+                response.body.get().decodeBodyToString(Charsets.UTF_8) shouldBe json
+            }
+        } finally {
+            server.stop()
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package rawhttp.core.server
+
+import io.kotest.matchers.shouldBe
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+import rawhttp.core.RawHttp
+import rawhttp.core.RawHttp.waitForPortToBeTaken
+import rawhttp.core.RawHttpOptions
+import rawhttp.core.body.BodyBufferBudget
+import java.net.ServerSocket
+import java.net.Socket
+import java.time.Duration
+import java.util.Optional
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class TcpRawHttpServerBodyLimitTests {
+
+    companion object {
+        private const val PORT = 8105
+
+        private val http = RawHttp(RawHttpOptions.newBuilder().withMaxBodySize(100).build())
+        private val budget = BodyBufferBudget(100, Duration.ofMillis(200))
+        private val routedRequests = AtomicInteger()
+        private val slowRequestReceived = CountDownLatch(1)
+        private val releaseSlowRequest = CountDownLatch(1)
+
+        private val server = TcpRawHttpServer(object : TcpRawHttpServer.TcpRawHttpServerOptions {
+            override fun getServerSocket() = ServerSocket(PORT)
+            override fun getRawHttp() = http
+            override fun getBodyBufferBudget() = Optional.of(budget)
+        })
+
+        @JvmStatic
+        @BeforeAll
+        fun startServer() {
+            server.start { request ->
+                routedRequests.incrementAndGet()
+                val body = request.eagerly().body.map { it.toString() }.orElse("")
+                if (request.uri.path == "/slow") {
+                    slowRequestReceived.countDown()
+                    releaseSlowRequest.await(5, TimeUnit.SECONDS)
+                }
+                Optional.of(http.parseResponse("HTTP/1.1 200 OK\r\n" +
+                        "Content-Length: ${body.length}\r\n\r\n$body"))
+            }
+            waitForPortToBeTaken(PORT, Duration.ofSeconds(2))
+        }
+
+        @JvmStatic
+        @AfterAll
+        fun stopServer() {
+            server.stop()
+        }
+
+        private fun send(request: String): String {
+            Socket("localhost", PORT).use { socket ->
+                socket.soTimeout = 5000
+                socket.getOutputStream().write(request.toByteArray())
+                return socket.getInputStream().readBytes().toString(Charsets.US_ASCII)
+            }
+        }
+    }
+
+    @Test
+    fun requestWithDeclaredBodyLargerThanMaximumIsRejectedWithoutBeingRouted() {
+        val routedBefore = routedRequests.get()
+
+        val response = send("POST /large HTTP/1.1\r\nHost: localhost\r\nContent-Length: 101\r\n\r\n")
+
+        response.lines().first() shouldBe "HTTP/1.1 413 Payload Too Large"
+        response.contains("Connection: close") shouldBe true
+        routedRequests.get() shouldBe routedBefore
+    }
+
+    @Test
+    fun chunkedRequestLargerThanMaximumIsRejectedWhileItIsRead() {
+        val chunk = "x".repeat(60)
+        val response = send("POST /large HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n" +
+                "3C\r\n$chunk\r\n3C\r\n$chunk\r\n0\r\n\r\n")
+
+        response.lines().first() shouldBe "HTTP/1.1 413 Payload Too Large"
+    }
+
+    @Test
+    fun requestIsRejectedWhenBodyBufferBudgetIsExhausted() {
+        val body = "x".repeat(60)
+        val slowResponse = CompletableFuture.supplyAsync {
+            send("POST /slow HTTP/1.1\r\nHost: localhost\r\nContent-Length: 60\r\nConnection: close\r\n\r\n$body")
+        }
+        try {
+            slowRequestReceived.await(5, TimeUnit.SECONDS) shouldBe true
+
+            // the slow request still holds 60 bytes of the budget of 100 bytes
+            val response = send("POST /other HTTP/1.1\r\nHost: localhost\r\nContent-Length: 60\r\n\r\n$body")
+            response.lines().first() shouldBe "HTTP/1.1 503 Service Unavailable"
+        } finally {
+            releaseSlowRequest.countDown()
+        }
+
+        slowResponse.get(5, TimeUnit.SECONDS).lines().first() shouldBe "HTTP/1.1 200 OK"
+
+        // once the slow request is answered, its bytes are given back to the budget
+        budget.available shouldBe 100L
+        send("POST /other HTTP/1.1\r\nHost: localhost\r\nContent-Length: 60\r\nConnection: close\r\n\r\n$body")
+            .lines().first() shouldBe "HTTP/1.1 200 OK"
+    }
+
+}
@@ -0,0 +1,78 @@
+package rawhttp.core.server
+
+import io.kotest.matchers.shouldBe
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+import rawhttp.core.RawHttp
+import rawhttp.core.RawHttp.waitForPortToBeTaken
+import rawhttp.core.body.FileBody
+import rawhttp.core.client.TcpRawHttpClient
+import java.io.File
+import java.net.InetSocketAddress
+import java.nio.channels.ServerSocketChannel
+import java.time.Duration
+import java.util.Optional
+import kotlin.random.Random
+
+class TcpRawHttpServerFileTransferTests {
+
+    companion object {
+        private val http = RawHttp()
+        private val file: File = File.createTempFile("rawhttp-file-transfer", ".bin").apply {
+            deleteOnExit()
+            writeBytes(Random(42).nextBytes(3 * 1024 * 1024 + 17))
+        }
+
+        // a channel-backed server socket allows file bodies to be transferred with FileChannel.transferTo
+        private val server = TcpRawHttpServer(object : TcpRawHttpServer.TcpRawHttpServerOptions {
+            override fun getServerSocket() = ServerSocketChannel.open().bind(InetSocketAddress(8100)).socket()
+        })
+
+        @JvmStatic
+        @BeforeAll
+        fun startServer() {
+            server.start { request ->
+                if (request.uri.path == "/file") {
+                    Optional.of(http.parseResponse("HTTP/1.1 200 OK").withBody(FileBody(file, "application/octet-stream")))
+                } else {
+                    Optional.of(http.parseResponse("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nhi"))
+                }
+            }
+            waitForPortToBeTaken(8100, Duration.ofSeconds(2))
+        }
+
+        @JvmStatic
+        @AfterAll
+        fun stopServer() {
+            server.stop()
+        }
+    }
+
+    @Test
+    fun fileBodyIsSentToClientIntact() {
+        TcpRawHttpClient().use { client ->
+            val response = client.send(http.parseRequest("GET http://localhost:8100/file")).eagerly()
+
+            response.statusCode shouldBe 200
+            response.headers["Content-Length"] shouldBe listOf(file.length().toString())
+            response.body.get().asRawBytes().contentEquals(file.readBytes()) shouldBe true
+        }
+    }
+
+    @Test
+    fun connectionCanBeReusedAfterFileBodyIsSent() {
+        val options = TcpRawHttpClient.DefaultOptions()
+        TcpRawHttpClient(options).use { client ->
+            repeat(3) {
+                val fileResponse = client.send(http.parseRequest("GET http://localhost:8100/file")).eagerly()
+                fileResponse.body.get().asRawBytes().size shouldBe file.length().toInt()
+
+                val response = client.send(http.parseRequest("GET http://localhost:8100/hi")).eagerly()
+                response.body.get().asRawString(Charsets.UTF_8) shouldBe "hi"
+            }
+            options.connectionPool.createdCount shouldBe 1L
+        }
+    }
+
+}
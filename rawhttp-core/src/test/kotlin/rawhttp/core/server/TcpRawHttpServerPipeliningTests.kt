@@ -0,0 +1,152 @@
+package rawhttp.core.server
+
+import io.kotest.matchers.ints.shouldBeGreaterThan
+import io.kotest.matchers.ints.shouldBeLessThanOrEqual
+import io.kotest.matchers.shouldBe
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+import rawhttp.core.RawHttp
+import rawhttp.core.RawHttp.waitForPortToBeTaken
+import rawhttp.core.RawHttpOptions
+import rawhttp.core.body.EagerBodyReader
+import rawhttp.core.body.StringBody
+import rawhttp.core.client.TcpRawHttpClient
+import java.io.File
+import java.net.ServerSocket
+import java.time.Duration
+import java.util.Optional
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class TcpRawHttpServerPipeliningTests {
+
+    companion object {
+        private val http = RawHttp()
+        private val inFlight = AtomicInteger()
+        private val maxInFlight = AtomicInteger()
+        private val inFlightWhenPosting = AtomicInteger()
+
+        private val server = TcpRawHttpServer(object : TcpRawHttpServer.TcpRawHttpServerOptions {
+            override fun getServerSocket() = ServerSocket(8099)
+            override fun getMaxPipelinedRequestsInFlight() = 4
+        })
+
+        @JvmStatic
+        @BeforeAll
+        fun startServer() {
+            server.start { request ->
+                val current = inFlight.incrementAndGet()
+                maxInFlight.accumulateAndGet(current, ::maxOf)
+                try {
+                    if (request.method == "POST") {
+                        inFlightWhenPosting.set(current)
+                    }
+                    // earlier requests take longer, so their responses are ready later
+                    val delay = request.uri.query?.toLong() ?: 0L
+                    Thread.sleep(delay)
+                    val body = request.uri.path
+                    Optional.of(http.parseResponse("HTTP/1.1 200 OK\r\n" +
+                            "Content-Length: ${body.length}\r\n\r\n$body"))
+                } finally {
+                    inFlight.decrementAndGet()
+                }
+            }
+            waitForPortToBeTaken(8099, Duration.ofSeconds(2))
+        }
+
+        @JvmStatic
+        @AfterAll
+        fun stopServer() {
+            server.stop()
+        }
+    }
+
+    @Test
+    fun pipelinedRequestsAreRoutedConcurrentlyButAnsweredInOrder() {
+        maxInFlight.set(0)
+        TcpRawHttpClient().use { client ->
+            val paths = (1..12).map { "/r$it" }
+            val requests = paths.mapIndexed { i, path ->
+                http.parseRequest("GET http://localhost:8099$path?${(12 - i) * 10}")
+            }
+
+            val responses = client.sendPipelined(requests)
+
+            responses.map { it.get(5, TimeUnit.SECONDS).body.get().decodeBodyToString(Charsets.UTF_8) } shouldBe paths
+            maxInFlight.get() shouldBeGreaterThan 1
+            maxInFlight.get() shouldBeLessThanOrEqual 4
+        }
+    }
+
+    @Test
+    fun unsafeRequestsAreRoutedAfterPreviousRequestsAreAnswered() {
+        TcpRawHttpClient().use { client ->
+            val paths = listOf("/a", "/b", "/c", "/post", "/d", "/e")
+            val requests = paths.map { path ->
+                if (path == "/post") http.parseRequest("POST http://localhost:8099$path\r\nContent-Length: 0")
+                else http.parseRequest("GET http://localhost:8099$path?50")
+            }
+
+            val responses = client.sendPipelined(requests)
+
+            responses.map { it.get(5, TimeUnit.SECONDS).body.get().decodeBodyToString(Charsets.UTF_8) } shouldBe paths
+            inFlightWhenPosting.get() shouldBe 1
+        }
+    }
+
+    @Test
+    fun requestsInFlightAreAnsweredBeforeClosingConnection() {
+        TcpRawHttpClient().use { client ->
+            val requests = (1..5).map { http.parseRequest("GET http://localhost:8099/r$it?${(5 - it) * 20}") } +
+                    http.parseRequest("GET http://localhost:8099/last\r\nConnection: close")
+
+            val responses = client.sendPipelined(requests)
+
+            responses.map { it.get(5, TimeUnit.SECONDS).body.get().decodeBodyToString(Charsets.UTF_8) } shouldBe
+                    (1..5).map { "/r$it" } + "/last"
+        }
+    }
+
+    @Test
+    fun temporaryFilesOfPipelinedRequestBodiesAreDeletedOnceAnswered() {
+        val largeBodyHttp = RawHttp(RawHttpOptions.newBuilder().withMaxInMemoryBodySize(16).build())
+        val largeBodyServer = TcpRawHttpServer(object : TcpRawHttpServer.TcpRawHttpServerOptions {
+            override fun getServerSocket() = ServerSocket(8106)
+            override fun getRawHttp() = largeBodyHttp
+            override fun getMaxPipelinedRequestsInFlight() = 4
+        })
+        val tempFiles = {
+            File(System.getProperty("java.io.tmpdir")).list { _, name -> name.startsWith("rawhttp-body-") }!!.toSet()
+        }
+        val filesBefore = tempFiles()
+
+        largeBodyServer.start { request ->
+            val body = if ((request.body.get() as EagerBodyReader).isInMemory) "mem  " else "file "
+            Optional.of(http.parseResponse("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\n$body"))
+        }
+        try {
+            waitForPortToBeTaken(8106, Duration.ofSeconds(2))
+            TcpRawHttpClient().use { client ->
+                val requests = (1..3).map {
+                    http.parseRequest("GET http://localhost:8106/r$it").withBody(StringBody("x".repeat(100)))
+                }
+
+                val responses = client.sendPipelined(requests)
+
+                responses.map { it.get(5, TimeUnit.SECONDS).body.get().decodeBodyToString(Charsets.UTF_8) } shouldBe
+                        listOf("file ", "file ", "file ")
+            }
+
+            // the files are deleted right after the responses are written
+            val deadline = System.currentTimeMillis() + 2000
+            while ((tempFiles() - filesBefore).isNotEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10)
+            }
+            (tempFiles() - filesBefore) shouldBe emptySet()
+        } finally {
+            largeBodyServer.stop()
+        }
+    }
+
+}
@@ -18,6 +18,7 @@ import rawhttp.core.body.EagerBodyReader
 import rawhttp.core.body.StringBody
 import rawhttp.core.client.TcpRawHttpClient
 import rawhttp.core.validDateHeader
+import java.io.DataInputStream
 import java.lang.Thread.sleep
 import java.net.InetAddress
 import java.net.Socket
@@ -25,6 +26,7 @@ import java.net.SocketException
 import java.nio.charset.StandardCharsets
 import java.time.Duration
 import java.util.Optional
+import kotlin.concurrent.thread
 
 class TcpRawHttpServerTests {
 
@@ -54,10 +56,27 @@ class TcpRawHttpServerTests {
             server.stop()
             httpClient.close()
         }
+
+        /**
+         * Send a CONNECT request immediately followed by the first bytes for the tunnel, in a single write.
+         *
+         * @return everything the server sends back until it closes the connection
+         */
+        fun connectAndSendTunnelBytes(port: Int): String {
+            Socket("localhost", port).use { socket ->
+                socket.soTimeout = 5000
+                socket.getOutputStream().write(
+                    "CONNECT localhost:9 HTTP/1.1\r\nHost: localhost:9\r\n\r\nhello".toByteArray())
+                return socket.getInputStream().readBytes().toString(Charsets.US_ASCII)
+            }
+        }
     }
 
     object TestRouter : Router {
         override fun route(req: RawHttpRequest): Optional<RawHttpResponse<*>> {
+            if (req.method == "CONNECT") {
+                return Optional.of(http.parseResponse("HTTP/1.1 200 Connection Established"))
+            }
             return Optional.ofNullable(
                 when (req.uri.path) {
                     "/hello", "/" ->
@@ -99,6 +118,16 @@ class TcpRawHttpServerTests {
                     )
             )
         }
+
+        override fun tunnel(request: RawHttpRequest, client: Socket) {
+            // echo the first 5 bytes sent through the tunnel
+            thread {
+                client.use {
+                    val bytes = DataInputStream(it.getInputStream()).run { ByteArray(5).also { b -> readFully(b) } }
+                    it.getOutputStream().write("echo:".toByteArray() + bytes)
+                }
+            }
+        }
     }
 
     @Test
@@ -202,6 +231,14 @@ class TcpRawHttpServerTests {
         }
     }
 
+    @Test
+    fun `Server gives the tunnel the bytes sent together with the CONNECT request`() {
+        val response = connectAndSendTunnelBytes(8093)
+
+        response.lines().first() shouldBe "HTTP/1.1 200 Connection Established"
+        response.endsWith("\r\n\r\necho:hello") shouldBe true
+    }
+
     @Test
     fun `Server should persist connection on all HTTP1_1 requests`() {
         val socket = Socket("0.0.0.0", 8093)